@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.editor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DecompiledSourceCacheTest {
+
+    private static final String DECOMPILER = "Vineflower"; //$NON-NLS-1$
+    private static final String VERSION = "1.11.1"; //$NON-NLS-1$
+    private static final List<String> SETTINGS = List.of("true", "false"); //$NON-NLS-1$ //$NON-NLS-2$
+    private static final List<byte[]> CLASS_FILES = List.of(new byte[] { 1, 2, 3 }, new byte[] { 4 });
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keysDependOnClassFilesDecompilerAndSettings() {
+        String key = DecompiledSourceCache.key(DECOMPILER, VERSION, SETTINGS, CLASS_FILES);
+
+        assertEquals(64, key.length());
+        assertEquals(key, DecompiledSourceCache.key(DECOMPILER, VERSION, List.copyOf(SETTINGS),
+                List.of(new byte[] { 1, 2, 3 }, new byte[] { 4 })));
+        assertNotEquals(key, DecompiledSourceCache.key(DECOMPILER, VERSION, SETTINGS,
+                List.of(new byte[] { 1, 2 }, new byte[] { 3, 4 })));
+        assertNotEquals(key, DecompiledSourceCache.key("CFR", VERSION, SETTINGS, CLASS_FILES)); //$NON-NLS-1$
+        assertNotEquals(key, DecompiledSourceCache.key(DECOMPILER, "1.12.0", SETTINGS, CLASS_FILES)); //$NON-NLS-1$
+        assertNotEquals(key, DecompiledSourceCache.key(DECOMPILER, VERSION, List.of("true", "true"), CLASS_FILES)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void sourcesSurviveANewCacheOverTheSameDirectory() throws IOException {
+        Path directory = folder.newFolder("sources").toPath(); //$NON-NLS-1$
+        String key = DecompiledSourceCache.key(DECOMPILER, VERSION, SETTINGS, CLASS_FILES);
+        DecompiledSourceCache cache = new DecompiledSourceCache(directory, 1L << 20);
+        assertNull(cache.get(key));
+        cache.put(key, new DecompiledSourceCache.Entry("class A { /* é */ }", true)); //$NON-NLS-1$
+
+        DecompiledSourceCache reopened = new DecompiledSourceCache(directory, 1L << 20);
+        DecompiledSourceCache.Entry entry = reopened.get(key);
+        assertEquals("class A { /* é */ }", entry.source()); //$NON-NLS-1$
+        assertTrue(entry.aligned());
+        assertEquals(cache.size(), reopened.size());
+    }
+
+    @Test
+    public void evictedSourcesAreDeletedFromDisk() throws IOException {
+        Path directory = folder.newFolder("lru").toPath(); //$NON-NLS-1$
+        String source = "x".repeat(99); //$NON-NLS-1$
+        DecompiledSourceCache cache = new DecompiledSourceCache(directory, 400L);
+        for (int i = 0; i < 8; i++) {
+            cache.put(key(i), new DecompiledSourceCache.Entry(source, false));
+            assertFalse(cache.get(key(0)).aligned());
+        }
+        assertEquals(400L, cache.size());
+        assertNull(cache.get(key(1)));
+        assertEquals(4L, countFiles(directory));
+
+        cache.setCapacity(200L);
+        assertEquals(source, cache.get(key(0)).source());
+        assertEquals(2L, countFiles(directory));
+        assertEquals(200L, new DecompiledSourceCache(directory, 200L).size());
+    }
+
+    private static String key(int index) {
+        return DecompiledSourceCache.key(DECOMPILER, VERSION, SETTINGS, List.of(new byte[] { (byte) index }));
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (var files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
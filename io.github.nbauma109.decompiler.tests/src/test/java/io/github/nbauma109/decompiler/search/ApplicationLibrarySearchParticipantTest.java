@@ -17,7 +17,12 @@ import static io.github.nbauma109.decompiler.search.ApplicationLibrarySearchMatc
 import java.io.File;
 import java.io.FileOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
@@ -28,7 +33,9 @@ import org.apache.commons.io.FileUtils;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
@@ -42,10 +49,14 @@ import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.search.ElementQuerySpecification;
 import org.eclipse.jdt.ui.search.PatternQuerySpecification;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ILabelProviderListener;
 import org.eclipse.search.ui.ISearchQuery;
@@ -57,6 +68,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.texteditor.ITextEditor;
 import org.junit.After;
 import org.junit.Assume;
 import org.junit.Before;
@@ -75,6 +87,7 @@ import org.objectweb.asm.TypeReference;
 
 import io.github.nbauma109.decompiler.JavaDecompilerPlugin;
 import io.github.nbauma109.decompiler.SetupRunnable;
+import io.github.nbauma109.decompiler.i18n.Messages;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
 import io.github.nbauma109.decompiler.testutil.DecompilerTestSupport;
 import io.github.nbauma109.decompiler.testutil.DecompilerTestSupport.BundleJarProjectSetup;
@@ -317,6 +330,31 @@ public class ApplicationLibrarySearchParticipantTest {
                 printlnReferenceMatches(participant, second.jarRoot()).isEmpty());
     }
 
+    @Test
+    public void projectScopeOnlySearchesJarsOnThatProjectClasspath()
+            throws Exception {
+        BundleJarProjectSetup withPrintln = DecompilerTestSupport.createJavaProjectWithBundleJar(
+                TEST_BUNDLE_ID,
+                TEST_JAR_PATH,
+                "application-library-search-project-scope-first-project"); //$NON-NLS-1$
+        File jar = new File(tempDir, "project-scope-type-categories.jar"); //$NON-NLS-1$
+        createTypeCategoryJar(jar);
+        BundleJarProjectSetup withoutPrintln = DecompilerTestSupport.createJavaProjectWithJar(jar,
+                "application-library-search-project-scope-second-project"); //$NON-NLS-1$
+        project = withPrintln.project();
+        extraProjects.add(withoutPrintln.project());
+
+        BytecodeSearchIndex.getDefault().stop();
+        BytecodeSearchIndex.getDefault().start();
+
+        ApplicationLibrarySearchParticipant participant = new ApplicationLibrarySearchParticipant();
+
+        assertFalse("A project scope must include the jars on its classpath", //$NON-NLS-1$
+                printlnReferenceMatches(participant, withPrintln.javaProject()).isEmpty());
+        assertTrue("A project scope must not include jars of other projects", //$NON-NLS-1$
+                printlnReferenceMatches(participant, withoutPrintln.javaProject()).isEmpty());
+    }
+
     @Test
     public void fineGrainedTypeSearchesRespectIndexedTypeCategories()
             throws Exception {
@@ -342,6 +380,35 @@ public class ApplicationLibrarySearchParticipantTest {
                 sameTypeSpecification(IJavaSearchConstants.ANNOTATION_TYPE, scope))));
     }
 
+    @Test
+    public void implementorSearchesFollowIndexedSupertypeEdges()
+            throws Exception {
+        File jar = new File(tempDir, "implementors.jar"); //$NON-NLS-1$
+        try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+            addType(output, "pkg/Api", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, //$NON-NLS-1$
+                    "java/lang/Object"); //$NON-NLS-1$
+            addType(output, "pkg/Base", Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | Opcodes.ACC_ABSTRACT, //$NON-NLS-1$
+                    "java/lang/Object", "pkg/Api"); //$NON-NLS-1$ //$NON-NLS-2$
+            addType(output, "pkg/Impl", Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "pkg/Base"); //$NON-NLS-1$ //$NON-NLS-2$
+            addType(output, "pkg/Unrelated", Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "java/lang/Object"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        BundleJarProjectSetup setup = DecompilerTestSupport.createJavaProjectWithJar(jar,
+                "application-library-search-implementors-test-project"); //$NON-NLS-1$
+        extraProjects.add(setup.project());
+
+        BytecodeSearchIndex.getDefault().stop();
+        BytecodeSearchIndex.getDefault().start();
+
+        ApplicationLibrarySearchParticipant participant = new ApplicationLibrarySearchParticipant();
+        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { setup.jarRoot() });
+
+        List<String> implementors = typeDeclarationNames(runSearchInBackground(participant,
+                new PatternQuerySpecification("pkg.Api", IJavaSearchConstants.TYPE, true, //$NON-NLS-1$
+                        IJavaSearchConstants.IMPLEMENTORS, scope, "implementors-of-api"))); //$NON-NLS-1$
+        Collections.sort(implementors);
+        assertEquals(List.of("pkg.Base", "pkg.Impl"), implementors); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
     @Test
     public void enumConstantDeclarationsDoNotContributeOwnerTypeReferences()
             throws Exception {
@@ -1390,6 +1457,72 @@ public class ApplicationLibrarySearchParticipantTest {
     // collectWildcard(), entryCount()
     // -----------------------------------------------------------------------
 
+    @Test
+    public void highlightJobAddsTheResolvedRangesToTheEditor() throws Exception {
+        HighlightFixture fixture = openPrintlnMatchesInEditor(
+                "application-library-search-highlight-job-test-project"); //$NON-NLS-1$
+        int[] offsets = offsets(fixture.matches());
+        ApplicationLibrarySearchMatchPresentation presentation = new ApplicationLibrarySearchMatchPresentation();
+
+        Job[] job = new Job[1];
+        runInUiThread(() -> job[0] = presentation.highlightMatches(fixture.editor(), fixture.matches(),
+                fixture.source()));
+        awaitHighlighting(job[0]);
+
+        int highlighted = searchHighlightCount(fixture.editor());
+        assertTrue("The matches resolved by the highlight job must be highlighted", highlighted > 0); //$NON-NLS-1$
+        assertEquals(movedCount(fixture.matches(), offsets), highlighted);
+    }
+
+    @Test
+    public void highlightJobDropsTheBatchesOfASupersededJob() throws Exception {
+        HighlightFixture fixture = openPrintlnMatchesInEditor(
+                "application-library-search-superseded-highlight-test-project"); //$NON-NLS-1$
+        BytecodeSearchMatch kept = fixture.matches().get(0);
+        List<BytecodeSearchMatch> dropped = fixture.matches().subList(1, fixture.matches().size());
+        int[] offsets = offsets(dropped);
+        ApplicationLibrarySearchMatchPresentation presentation = new ApplicationLibrarySearchMatchPresentation();
+
+        // The first job completes before the second starts, but its batches only reach the UI
+        // thread after it, once the second job is the current one.
+        Job[] job = new Job[1];
+        runInUiThread(() -> {
+            join(presentation.highlightMatches(fixture.editor(), dropped, fixture.source()));
+            job[0] = presentation.highlightMatches(fixture.editor(), List.of(kept), fixture.source());
+        });
+        awaitHighlighting(job[0]);
+
+        assertEquals("The batches of a superseded job must not update its matches", //$NON-NLS-1$
+                0, movedCount(dropped, offsets));
+        assertTrue("Only the matches of the current job may be highlighted", //$NON-NLS-1$
+                searchHighlightCount(fixture.editor()) <= 1);
+    }
+
+    @Test
+    public void highlightJobIsKeptForTheSameMatchesOfTheClass() throws Exception {
+        HighlightFixture fixture = openPrintlnMatchesInEditor(
+                "application-library-search-kept-highlight-test-project"); //$NON-NLS-1$
+        List<BytecodeSearchMatch> reordered = new ArrayList<>(fixture.matches());
+        Collections.reverse(reordered);
+        ApplicationLibrarySearchMatchPresentation presentation = new ApplicationLibrarySearchMatchPresentation();
+
+        Job[] job = new Job[1];
+        runInUiThread(() -> job[0] = presentation.highlightMatches(fixture.editor(), fixture.matches(),
+                fixture.source()));
+        awaitHighlighting(job[0]);
+
+        boolean[] kept = new boolean[3];
+        runInUiThread(() -> {
+            kept[0] = presentation.isHighlighting(fixture.editor(), reordered, fixture.source());
+            kept[1] = presentation.isHighlighting(fixture.editor(), reordered.subList(1, reordered.size()),
+                    fixture.source());
+            kept[2] = presentation.isHighlighting(fixture.editor(), reordered, fixture.source() + ' ');
+        });
+        assertTrue("A finished job showing the same matches must be kept", kept[0]); //$NON-NLS-1$
+        assertFalse("Another set of matches must be highlighted again", kept[1]); //$NON-NLS-1$
+        assertFalse("Another source must be highlighted again", kept[2]); //$NON-NLS-1$
+    }
+
     @Test
     public void elementQueryForPackageFragmentCreatesPackageMatcher()
             throws Exception {
@@ -1503,7 +1636,7 @@ public class ApplicationLibrarySearchParticipantTest {
                 scope,
                 "Application library wildcard-star coverage"); //$NON-NLS-1$
 
-        // runSearchInBackground drives waitForInitialRefresh(), then routes through
+        // runSearchInBackground follows the initial refresh until it completes, then routes through
         // JarIndex.collect() → collectWildcard() → EntryStore.size() for each indexed jar.
         List<Match> matches = runSearchInBackground(participant, specification);
         assertFalse("Wildcard * must match all method references in the indexed test jar", matches.isEmpty()); //$NON-NLS-1$
@@ -1517,6 +1650,101 @@ public class ApplicationLibrarySearchParticipantTest {
         assertTrue("estimateTicks must return a positive value based on entryCount", ticks >= 50); //$NON-NLS-1$
     }
 
+    @Test
+    public void searchDuringInitialRefreshReportsPublishedLibrariesAndStatus() throws Exception {
+        BundleJarProjectSetup first = DecompilerTestSupport.createJavaProjectWithBundleJar(
+                TEST_BUNDLE_ID,
+                TEST_JAR_PATH,
+                "application-library-search-first-library-test-project"); //$NON-NLS-1$
+        project = first.project();
+        File secondJar = new File(tempDir, "second-library.jar"); //$NON-NLS-1$
+        FileUtils.copyFile(first.jarFile(), secondJar);
+        BundleJarProjectSetup second = DecompilerTestSupport.createJavaProjectWithJar(secondJar,
+                "application-library-search-second-library-test-project"); //$NON-NLS-1$
+        extraProjects.add(second.project());
+
+        // The refresh is held after its first publication until the search has reported it.
+        AtomicReference<IPath> firstPublished = new AtomicReference<>();
+        CountDownLatch release = new CountDownLatch(1);
+        BytecodeSearchIndex index = BytecodeSearchIndex.getDefault();
+        index.stop();
+        index.setPublicationListener(rootPath -> {
+            if (firstPublished.compareAndSet(null, rootPath)) {
+                try {
+                    release.await(30L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            index.start();
+
+            ApplicationLibrarySearchParticipant participant = new ApplicationLibrarySearchParticipant();
+            PatternQuerySpecification specification = new PatternQuerySpecification(
+                    PRINTLN,
+                    IJavaSearchConstants.METHOD,
+                    true,
+                    IJavaSearchConstants.REFERENCES,
+                    SearchEngine.createWorkspaceScope(),
+                    "Application library references during the initial refresh"); //$NON-NLS-1$
+            List<Match> matches = new CopyOnWriteArrayList<>();
+            List<String> statuses = new CopyOnWriteArrayList<>();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread searchThread = new Thread(() -> {
+                try {
+                    participant.search(matches::add, specification, new NullProgressMonitor() {
+                        @Override
+                        public void subTask(String name) {
+                            statuses.add(name);
+                        }
+                    });
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }, "application-library-search-test"); //$NON-NLS-1$
+            searchThread.start();
+
+            String partialStatus = Messages.getFormattedString("BytecodeSearchIndex.Progress.LibrariesIndexed", //$NON-NLS-1$
+                    new Object[] { 1, 2 });
+            long deadline = System.currentTimeMillis() + 30000L;
+            while (!statuses.contains(partialStatus) && searchThread.isAlive()
+                    && System.currentTimeMillis() < deadline) {
+                searchThread.join(25L);
+                drainUiEvents();
+            }
+            assertTrue("A search during the initial refresh must report the libraries indexed so far: " //$NON-NLS-1$
+                    + statuses, statuses.contains(partialStatus));
+            assertTrue("The search must wait for the libraries not published yet", searchThread.isAlive()); //$NON-NLS-1$
+            assertFalse("The published library must be searched before the refresh completes", matches.isEmpty()); //$NON-NLS-1$
+            for (Match match : matches) {
+                assertEquals(firstPublished.get(), libraryPath(match));
+            }
+
+            release.countDown();
+            while (searchThread.isAlive()) {
+                searchThread.join(25L);
+                drainUiEvents();
+            }
+            if (failure.get() != null) {
+                throw new AssertionError("Search failed", failure.get()); //$NON-NLS-1$
+            }
+            List<IPath> libraries = matches.stream().map(ApplicationLibrarySearchParticipantTest::libraryPath)
+                    .distinct().toList();
+            assertEquals(2, libraries.size());
+            assertTrue(libraries.contains(first.jarRoot().getPath()));
+            assertTrue(libraries.contains(second.jarRoot().getPath()));
+        } finally {
+            release.countDown();
+            index.setPublicationListener(null);
+        }
+    }
+
+    private static IPath libraryPath(Match match) {
+        return ((BytecodeSearchMatch) match).getEntry().getElement()
+                .getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT).getPath();
+    }
+
     /**
      * Verifies fix: {@code normalizeTypeName} no longer calls {@code replace('$', '.')} on the
      * result of {@code getFullyQualifiedName('.')}.  Before the fix, a top-level class whose
@@ -2935,8 +3163,8 @@ public class ApplicationLibrarySearchParticipantTest {
     }
 
     private static List<Match> printlnReferenceMatches(ApplicationLibrarySearchParticipant participant,
-            IPackageFragmentRoot root) throws Exception {
-        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { root });
+            IJavaElement scopeElement) throws Exception {
+        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { scopeElement });
         PatternQuerySpecification specification = new PatternQuerySpecification(
                 "java.io.PrintStream.println(*)", //$NON-NLS-1$
                 IJavaSearchConstants.METHOD,
@@ -3442,6 +3670,79 @@ public class ApplicationLibrarySearchParticipantTest {
                 && method.getNumberOfParameters() == 1;
     }
 
+    private HighlightFixture openPrintlnMatchesInEditor(String projectName) throws Exception {
+        BundleJarProjectSetup setup = DecompilerTestSupport.createJavaProjectWithBundleJar(
+                TEST_BUNDLE_ID,
+                TEST_JAR_PATH,
+                projectName);
+        project = setup.project();
+
+        BytecodeSearchIndex.getDefault().stop();
+        BytecodeSearchIndex.getDefault().start();
+
+        IClassFile topLevelClassFile = setup.jarRoot().getPackageFragment(TEST_PACKAGE).getClassFile("Test.class"); //$NON-NLS-1$
+        List<BytecodeSearchMatch> matches = new ArrayList<>();
+        for (Match match : printlnReferenceMatches(new ApplicationLibrarySearchParticipant(), setup.jarRoot())) {
+            if (match instanceof BytecodeSearchMatch bytecodeMatch
+                    && isShownInSameTopLevelClass(topLevelClassFile, bytecodeMatch.getEntry().getElement())) {
+                matches.add(bytecodeMatch);
+            }
+        }
+        assertTrue("test.Test must contain several println references", matches.size() > 1); //$NON-NLS-1$
+
+        ITextEditor[] editor = new ITextEditor[1];
+        runInUiThread(() -> editor[0] = (ITextEditor) JavaUI.openInEditor(topLevelClassFile, true, true));
+        IDocument document = editor[0].getDocumentProvider().getDocument(editor[0].getEditorInput());
+        long deadline = System.currentTimeMillis() + 30000L;
+        while (document.get().isBlank() && System.currentTimeMillis() < deadline) {
+            waitForUiIdle();
+        }
+        assertFalse("The decompiled source must be shown in the editor", document.get().isBlank()); //$NON-NLS-1$
+        return new HighlightFixture(editor[0], document.get(), matches);
+    }
+
+    private static int[] offsets(List<BytecodeSearchMatch> matches) {
+        return matches.stream().mapToInt(Match::getOffset).toArray();
+    }
+
+    private static int movedCount(List<BytecodeSearchMatch> matches, int[] offsets) {
+        int moved = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            if (matches.get(i).getOffset() != offsets[i]) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private static void awaitHighlighting(Job job) {
+        join(job);
+        waitForUiIdle();
+    }
+
+    private static void join(Job job) {
+        try {
+            job.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while highlighting", e); //$NON-NLS-1$
+        }
+    }
+
+    private static int searchHighlightCount(ITextEditor editor) {
+        IAnnotationModel model = editor.getDocumentProvider().getAnnotationModel(editor.getEditorInput());
+        int count = 0;
+        for (Iterator<Annotation> annotations = model.getAnnotationIterator(); annotations.hasNext();) {
+            if ("org.eclipse.search.results".equals(annotations.next().getType())) { //$NON-NLS-1$
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private record HighlightFixture(ITextEditor editor, String source, List<BytecodeSearchMatch> matches) {
+    }
+
     private static void configurePreferences(File tempDir) {
         IPreferenceStore store = JavaDecompilerPlugin.getDefault().getPreferenceStore();
         store.setValue(JavaDecompilerPlugin.TEMP_DIR, tempDir.getAbsolutePath());
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package io.github.nbauma109.decompiler.search;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -17,13 +18,18 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.zip.ZipFile;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
@@ -35,6 +41,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.junit.Test;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.ModuleVisitor;
 import org.objectweb.asm.Opcodes;
@@ -91,6 +98,152 @@ public class BytecodeJarIndexerTest {
         }
     }
 
+    @Test
+    public void classBufferReadsSuccessiveClassesInPlace() throws IOException {
+        File tempDir = DecompilerTestSupport.createTargetTempDir("bytecode-jar-indexer-class-buffer"); //$NON-NLS-1$
+        File jar = new File(tempDir, "buffer.jar"); //$NON-NLS-1$
+        try {
+            try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+                addClass(output, "pkg/Small.class", emptyClassBytes("pkg/Small")); //$NON-NLS-1$ //$NON-NLS-2$
+                addClass(output, "pkg/Holder.class", classWithSyntheticAndVisibleFieldsBytes()); //$NON-NLS-1$
+                addClass(output, "pkg/Tiny.class", emptyClassBytes("pkg/Tiny")); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            BytecodeJarIndexer.ClassBuffer buffer = new BytecodeJarIndexer.ClassBuffer();
+            try (ZipFile zip = new ZipFile(jar)) {
+                assertEquals("pkg/Small", buffer.read(zip, zip.getEntry("pkg/Small.class")).getClassName()); //$NON-NLS-1$ //$NON-NLS-2$
+                assertEquals("pkg/Holder", buffer.read(zip, zip.getEntry("pkg/Holder.class")).getClassName()); //$NON-NLS-1$ //$NON-NLS-2$
+                assertEquals("pkg/Tiny", buffer.read(zip, zip.getEntry("pkg/Tiny.class")).getClassName()); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        } finally {
+            org.apache.commons.io.FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    @Test
+    public void rebuiltJarKeepsOnePackageDeclarationPerPackage() throws Exception {
+        File tempDir = DecompilerTestSupport.createTargetTempDir("bytecode-jar-indexer-rebuilt-package"); //$NON-NLS-1$
+        File jar = new File(tempDir, "rebuilt.jar"); //$NON-NLS-1$
+        try (Connection conn = openTestDatabase()) {
+            writeJar(jar, 1L, "pkg/A", emptyClassBytes("pkg/A"), "pkg/B", emptyClassBytes("pkg/B")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            assertEquals(1, packageDeclarations(indexWithConnection(jar, conn), "pkg")); //$NON-NLS-1$
+
+            // The first class of the package is unchanged while a sibling is parsed again.
+            writeJar(jar, 2L, "pkg/A", emptyClassBytes("pkg/A"), //$NON-NLS-1$ //$NON-NLS-2$
+                    "pkg/B", subclassBytes("pkg/B", "pkg/A")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            BytecodeSearchIndex.JarIndex changedSibling = indexWithConnection(jar, conn);
+            assertEquals(1, packageDeclarations(changedSibling, "pkg")); //$NON-NLS-1$
+            assertEquals(1, typeReferences(changedSibling, "pkg.A")); //$NON-NLS-1$
+
+            // The first class of the package is removed while its sibling is unchanged.
+            writeJar(jar, 3L, "pkg/B", subclassBytes("pkg/B", "pkg/A")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            BytecodeSearchIndex.JarIndex removedFirst = indexWithConnection(jar, conn);
+            assertEquals(1, packageDeclarations(removedFirst, "pkg")); //$NON-NLS-1$
+            assertEquals(1, typeReferences(removedFirst, "pkg.A")); //$NON-NLS-1$
+        } finally {
+            org.apache.commons.io.FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    @Test
+    public void unchangedClassTakesTheNewCategoryOfAChangedType() throws Exception {
+        File tempDir = DecompilerTestSupport.createTargetTempDir("bytecode-jar-indexer-changed-category"); //$NON-NLS-1$
+        File jar = new File(tempDir, "changed.jar"); //$NON-NLS-1$
+        try (Connection incremental = openTestDatabase(); Connection full = openTestDatabase()) {
+            writeJar(jar, 1L, "pkg/A", emptyClassBytes("pkg/A"), "pkg/B", holderBytes("pkg/B", "pkg/A")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            indexWithConnection(jar, incremental);
+
+            // B is copied from the previous jar row while A turns from a class into an interface.
+            writeJar(jar, 2L, "pkg/A", interfaceBytes("pkg/A"), "pkg/B", holderBytes("pkg/B", "pkg/A")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            Map<BytecodeSearchEntry, Integer> rebuilt = occurrences(indexWithConnection(jar, incremental));
+            Map<BytecodeSearchEntry, Integer> reindexed = occurrences(indexWithConnection(jar, full));
+
+            assertEquals(reindexed, rebuilt);
+            assertEquals(List.of(BytecodeSearchEntry.TypeCategory.INTERFACE),
+                    rebuilt.keySet().stream()
+                            .filter(entry -> entry.getKind() == BytecodeSearchEntry.Kind.TYPE && !entry.isDeclaration()
+                                    && "pkg.A".equals(entry.getQualifiedName())) //$NON-NLS-1$
+                            .map(BytecodeSearchEntry::getTypeCategory)
+                            .toList());
+        } finally {
+            org.apache.commons.io.FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    @Test
+    public void rowWriterInsertsEveryRowAroundTheBatchBoundaries() throws Exception {
+        int batch = BytecodeJarIndexer.ENTRY_ROWS_PER_INSERT;
+        for (int rows : new int[] { 0, batch - 1, batch, batch + 1, 2 * batch + 1 }) {
+            try (Connection conn = SqliteEntryStore.openInMemoryDatabase()) {
+                Object lock = new Object();
+                int jarId = SqliteEntryStore.registerJar(conn, "", "/tmp/rows.jar", 1, 1, 21, 1, "rows").jarId(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                List<String> names = new ArrayList<>();
+                for (int i = 0; i < rows; i++) {
+                    names.add("m" + i); //$NON-NLS-1$
+                }
+                List<String> strings = new ArrayList<>(names);
+                strings.add("pkg/A.class"); //$NON-NLS-1$
+                Map<String, Integer> ids = SqliteEntryStore.internStrings(conn, strings);
+                try (BytecodeJarIndexer.RowWriter writer = new BytecodeJarIndexer.RowWriter(conn, lock, jarId, ids)) {
+                    for (int i = 0; i < rows; i++) {
+                        BytecodeSearchEntry entry = new BytecodeSearchEntry(BytecodeSearchEntry.Kind.METHOD, true,
+                                BytecodeSearchEntry.elementReference("=h/m" + i, null), //$NON-NLS-1$
+                                BytecodeSearchEntry.symbolReference(names.get(i), names.get(i), null, null));
+                        writer.insert(entry, null, null, i + 1, "pkg/A.class"); //$NON-NLS-1$
+                    }
+                    writer.flush();
+                }
+
+                List<String> written = new ArrayList<>();
+                try (Statement stmt = conn.createStatement();
+                        ResultSet rs = stmt.executeQuery("SELECT n.value, e.occurrence_count, c.value FROM entries e " //$NON-NLS-1$
+                                + "JOIN strings n ON n.id = e.name_id JOIN strings c ON c.id = e.class_name_id " //$NON-NLS-1$
+                                + "WHERE e.jar_id = " + jarId + " ORDER BY e.id")) { //$NON-NLS-1$ //$NON-NLS-2$
+                    while (rs.next()) {
+                        written.add(rs.getString(1) + ':' + rs.getInt(2) + ':' + rs.getString(3));
+                    }
+                }
+                List<String> expected = new ArrayList<>();
+                for (int i = 0; i < rows; i++) {
+                    expected.add(names.get(i) + ':' + (i + 1) + ":pkg/A.class"); //$NON-NLS-1$
+                }
+                assertEquals("rows " + rows, expected, written); //$NON-NLS-1$
+            }
+        }
+    }
+
+    @Test
+    public void referenceLinesFollowTheLineNumberTable() throws Exception {
+        File tempDir = DecompilerTestSupport.createTargetTempDir("bytecode-jar-indexer-reference-lines"); //$NON-NLS-1$
+        File jar = new File(tempDir, "reference-lines.jar"); //$NON-NLS-1$
+        byte[] caller = callerWithLineNumbersBytes();
+        try {
+            try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+                addClass(output, "pkg/Caller.class", caller); //$NON-NLS-1$
+            }
+            BytecodeJarIndexer.ReferenceLines lines = BytecodeJarIndexer.referenceLines(null, caller);
+            BytecodeSearchEntry call = null;
+            BytecodeSearchEntry count = null;
+            try (Connection conn = openTestDatabase()) {
+                BytecodeSearchIndex.JarIndex index = BytecodeJarIndexer.index(null, jar, BytecodeJarIndexer.plan(jar),
+                        conn, new Object(), new NullProgressMonitor());
+                assertNotNull(index);
+                for (BytecodeSearchEntry entry : entries(index)) {
+                    if (!entry.isDeclaration() && "call".equals(entry.getName())) { //$NON-NLS-1$
+                        call = entry;
+                    } else if (!entry.isDeclaration() && "count".equals(entry.getName())) { //$NON-NLS-1$
+                        count = entry;
+                    }
+                }
+            }
+            assertNotNull(call);
+            assertNotNull(count);
+            assertArrayEquals(new int[] { 10, 12, 12 }, lines.of(call));
+            assertArrayEquals(new int[] { 11 }, lines.of(count));
+        } finally {
+            org.apache.commons.io.FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
     @Test
     public void canceledIndexDoesNotReturnPartialJar() throws Exception {
         File tempDir = DecompilerTestSupport.createTargetTempDir("bytecode-jar-indexer-canceled"); //$NON-NLS-1$
@@ -392,6 +545,71 @@ public class BytecodeJarIndexerTest {
         return cw.toByteArray();
     }
 
+    private static byte[] subclassBytes(String internalName, String superName) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, internalName, null, superName, null);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static byte[] interfaceBytes(String internalName) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, internalName, null,
+                "java/lang/Object", null); //$NON-NLS-1$
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /** A class with one field of type {@code fieldType}, referencing it from its descriptor. */
+    private static byte[] holderBytes(String internalName, String fieldType) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null); //$NON-NLS-1$
+        cw.visitField(Opcodes.ACC_PUBLIC, "value", "L" + fieldType + ";", null, null).visitEnd(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /** Writes {@code jar} from pairs of class names and bytes, with a distinct modification time. */
+    private static void writeJar(File jar, long revision, Object... classes) throws IOException {
+        try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+            for (int i = 0; i < classes.length; i += 2) {
+                addClass(output, classes[i] + ".class", (byte[]) classes[i + 1]); //$NON-NLS-1$
+            }
+        }
+        jar.setLastModified(revision * 2000L);
+    }
+
+    private static BytecodeSearchIndex.JarIndex indexWithConnection(File jar, Connection conn) {
+        BytecodeSearchIndex.JarIndex index = BytecodeJarIndexer.index(null, jar, BytecodeJarIndexer.plan(jar), conn,
+                new Object(), new NullProgressMonitor());
+        assertNotNull(index);
+        return index;
+    }
+
+    private static long packageDeclarations(BytecodeSearchIndex.JarIndex index, String packageName)
+            throws Exception {
+        return entries(index).stream()
+                .filter(entry -> entry.getKind() == BytecodeSearchEntry.Kind.PACKAGE && entry.isDeclaration()
+                        && packageName.equals(entry.getQualifiedName()))
+                .count();
+    }
+
+    private static Map<BytecodeSearchEntry, Integer> occurrences(BytecodeSearchIndex.JarIndex index) throws Exception {
+        Map<BytecodeSearchEntry, Integer> occurrences = new HashMap<>();
+        for (BytecodeSearchEntry entry : entries(index)) {
+            occurrences.merge(entry, entry.getOccurrenceCount(), Integer::sum);
+        }
+        return occurrences;
+    }
+
+    private static int typeReferences(BytecodeSearchIndex.JarIndex index, String qualifiedName) throws Exception {
+        return entries(index).stream()
+                .filter(entry -> entry.getKind() == BytecodeSearchEntry.Kind.TYPE && !entry.isDeclaration()
+                        && qualifiedName.equals(entry.getQualifiedName()))
+                .mapToInt(BytecodeSearchEntry::getOccurrenceCount)
+                .sum();
+    }
+
     private static byte[] classWithSyntheticAndVisibleFieldsBytes() {
         ClassWriter writer = new ClassWriter(0);
         writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "pkg/Holder", null, //$NON-NLS-1$
@@ -403,6 +621,47 @@ public class BytecodeJarIndexerTest {
         return writer.toByteArray();
     }
 
+    /**
+     * A class whose {@code run} method calls {@code call()} on line 10, reads {@code count} on
+     * line 11 and calls {@code call()} twice on line 12.
+     */
+    private static byte[] callerWithLineNumbersBytes() {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "pkg/Caller", null, //$NON-NLS-1$
+                "java/lang/Object", null); //$NON-NLS-1$
+        writer.visitField(Opcodes.ACC_PRIVATE, "count", "I", null, null).visitEnd(); //$NON-NLS-1$ //$NON-NLS-2$
+        MethodVisitor run = writer.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null); //$NON-NLS-1$ //$NON-NLS-2$
+        run.visitCode();
+        lineNumber(run, 10);
+        run.visitVarInsn(Opcodes.ALOAD, 0);
+        run.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "pkg/Caller", "call", "()V", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        lineNumber(run, 11);
+        run.visitVarInsn(Opcodes.ALOAD, 0);
+        run.visitFieldInsn(Opcodes.GETFIELD, "pkg/Caller", "count", "I"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        run.visitVarInsn(Opcodes.ISTORE, 1);
+        lineNumber(run, 12);
+        run.visitVarInsn(Opcodes.ALOAD, 0);
+        run.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "pkg/Caller", "call", "()V", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        run.visitVarInsn(Opcodes.ALOAD, 0);
+        run.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "pkg/Caller", "call", "()V", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        run.visitInsn(Opcodes.RETURN);
+        run.visitMaxs(0, 0);
+        run.visitEnd();
+        MethodVisitor call = writer.visitMethod(Opcodes.ACC_PUBLIC, "call", "()V", null, null); //$NON-NLS-1$ //$NON-NLS-2$
+        call.visitCode();
+        call.visitInsn(Opcodes.RETURN);
+        call.visitMaxs(0, 0);
+        call.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void lineNumber(MethodVisitor method, int line) {
+        Label label = new Label();
+        method.visitLabel(label);
+        method.visitLineNumber(line, label);
+    }
+
     private static byte[] innerClassWithSyntheticOuterConstructorBytes() {
         ClassWriter writer = new ClassWriter(0);
         writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "pkg/Outer$Inner", null, //$NON-NLS-1$
@@ -29,14 +29,14 @@ import io.github.nbauma109.decompiler.search.HeapEntryStore.StringTables;
 public class BytecodeSearchIndexInternalTest {
 
     // ------------------------------------------------------------------
-    // StringTables(String[] strings, String[] elementHandles,
+    // StringTables(String[] strings, int[] elementHandleParts,
     //              IJavaElement[] anonymousElementFallbacks)
     // ------------------------------------------------------------------
 
     @Test
     public void stringTablesEqualsIsReflexiveNullSafeAndContentBased() {
         String[] strings = {"alpha", "beta"}; //$NON-NLS-1$ //$NON-NLS-2$
-        String[] handles = {"h1", "h2"}; //$NON-NLS-1$ //$NON-NLS-2$
+        int[] handles = {-1, -1, 0, -1, -1, 1};
         IJavaElement[] fallbacks = {};
 
         StringTables a = new StringTables(strings, handles, fallbacks);
@@ -53,7 +53,7 @@ public class BytecodeSearchIndexInternalTest {
     @Test
     public void stringTablesHashCodeIsConsistentWithEquals() {
         String[] strings = {"x"}; //$NON-NLS-1$
-        String[] handles = {"h"}; //$NON-NLS-1$
+        int[] handles = {-1, -1, 0};
         IJavaElement[] fallbacks = {};
 
         StringTables a = new StringTables(strings, handles, fallbacks);
@@ -64,11 +64,11 @@ public class BytecodeSearchIndexInternalTest {
 
     @Test
     public void stringTablesToStringContainsAllFieldNames() {
-        StringTables t = new StringTables(new String[]{"a"}, new String[]{"b"}, new IJavaElement[0]); //$NON-NLS-1$ //$NON-NLS-2$
+        StringTables t = new StringTables(new String[]{"a"}, new int[]{-1, -1, 0}, new IJavaElement[0]); //$NON-NLS-1$
         String s = t.toString();
 
         assertTrue("toString must include 'strings'", s.contains("strings")); //$NON-NLS-1$ //$NON-NLS-2$
-        assertTrue("toString must include 'elementHandles'", s.contains("elementHandles")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue("toString must include 'elementHandleParts'", s.contains("elementHandleParts")); //$NON-NLS-1$ //$NON-NLS-2$
         assertTrue("toString must include 'anonymousElementFallbacks'", s.contains("anonymousElementFallbacks")); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
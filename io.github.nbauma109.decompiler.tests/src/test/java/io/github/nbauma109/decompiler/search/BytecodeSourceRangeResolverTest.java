@@ -24,6 +24,7 @@ import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -909,6 +910,85 @@ public class BytecodeSourceRangeResolverTest {
                 range.offset() != firstSizeOffset && range.offset() != secondSizeOffset);
     }
 
+    @Test
+    public void syntacticallyDecidedCandidatesAreResolvedWithoutBindings() {
+        String src = """
+                package fixture;
+        class Counter {
+            static void reset(int count) {}
+        }
+        class Owner {
+            void takes(int count, java.lang.String... names) {
+                Counter.reset(count);
+            }
+        }
+        """;
+
+        BytecodeSearchMatch match = new BytecodeSearchMatch(reference(Kind.METHOD, takesMethod, "reset", "reset", //$NON-NLS-1$ //$NON-NLS-2$
+                "fixture.Counter", "(I)V")); //$NON-NLS-1$ //$NON-NLS-2$
+        long bindingParses = BytecodeSourceRangeResolver.bindingParseCount();
+        BytecodeSourceRangeResolver.SourceRange range = new BytecodeSourceRangeResolver()
+                .rangesFor(List.of(match), src).get(match);
+
+        assertEquals("reset(count)", rangeText(range, src)); //$NON-NLS-1$
+        assertEquals("A type-qualified invocation must not parse the source again with bindings", //$NON-NLS-1$
+                bindingParses, BytecodeSourceRangeResolver.bindingParseCount());
+    }
+
+    @Test
+    public void candidatesUndecidedWithoutBindingsAreResolvedWithBindings() {
+        String src = """
+                package fixture;
+        class Owner {
+            void takes(int count, java.lang.String... names) {
+                names[0].trim().length();
+            }
+        }
+        """;
+
+        BytecodeSearchMatch match = new BytecodeSearchMatch(reference(Kind.METHOD, takesMethod, "length", "length", //$NON-NLS-1$ //$NON-NLS-2$
+                "java.lang.String", "()I")); //$NON-NLS-1$ //$NON-NLS-2$
+        long bindingParses = BytecodeSourceRangeResolver.bindingParseCount();
+        BytecodeSourceRangeResolver.SourceRange range = new BytecodeSourceRangeResolver()
+                .rangesFor(List.of(match), src).get(match);
+
+        assertEquals("length()", rangeText(range, src)); //$NON-NLS-1$
+        assertEquals("An invocation on an expression receiver must be decided with bindings", //$NON-NLS-1$
+                bindingParses + 1, BytecodeSourceRangeResolver.bindingParseCount());
+    }
+
+    @Test
+    public void forgottenClasspathsAreResolvedAgainForTheNextParse() throws Exception {
+        String src = """
+                package fixture;
+        class Owner {
+            void takes(int count, java.lang.String... names) {
+                names[0].strip().length();
+            }
+        }
+        """;
+        BytecodeSearchEntry entry = reference(Kind.METHOD, takesMethod, "length", "length", //$NON-NLS-1$ //$NON-NLS-2$
+                "java.lang.String", "()I"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        long bindingParses = BytecodeSourceRangeResolver.bindingParseCount();
+        assertEquals("length()", rangeText(new BytecodeSourceRangeResolver().rangeFor(entry, src), src)); //$NON-NLS-1$
+        assertEquals(bindingParses + 1, BytecodeSourceRangeResolver.bindingParseCount());
+        // The unit parsed for the same source and classpath is shared with the next resolver.
+        assertEquals("length()", rangeText(new BytecodeSourceRangeResolver().rangeFor(entry, src), src)); //$NON-NLS-1$
+        assertEquals(bindingParses + 1, BytecodeSourceRangeResolver.bindingParseCount());
+
+        IJavaProject javaProject = JavaCore.create(project);
+        File library = PrintlnFixtureJarBuilder.buildJar(DecompilerTestSupport.createTargetTempDir("resolver-classpath")); //$NON-NLS-1$
+        List<IClasspathEntry> classpath = new ArrayList<>(List.of(javaProject.getRawClasspath()));
+        classpath.add(JavaCore.newLibraryEntry(new Path(library.getAbsolutePath()), null, null));
+        javaProject.setRawClasspath(classpath.toArray(IClasspathEntry[]::new), new NullProgressMonitor());
+        BytecodeSourceRangeResolver.forgetClasspaths();
+
+        assertEquals("length()", rangeText(new BytecodeSourceRangeResolver().rangeFor(entry, src), src)); //$NON-NLS-1$
+        assertEquals("A forgotten classpath must be resolved again and key a new parse", //$NON-NLS-1$
+                bindingParses + 2, BytecodeSourceRangeResolver.bindingParseCount());
+    }
+
     @Test
     public void singleLocalVariableReceiverCallResolvesToTheOnlyCandidate() {
         String src = """
@@ -1289,7 +1369,7 @@ public class BytecodeSourceRangeResolverTest {
         BytecodeSearchEntry entry = new BytecodeSearchEntry(
                 Kind.METHOD,
                 false,
-                BytecodeSearchEntry.elementReference(null, marker),
+                BytecodeSearchEntry.elementReference((String) null, marker),
                 BytecodeSearchEntry.symbolReference("hit", "hit", FIXTURE_OWNER, "()I")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
         BytecodeSearchMatch match = new BytecodeSearchMatch(entry);
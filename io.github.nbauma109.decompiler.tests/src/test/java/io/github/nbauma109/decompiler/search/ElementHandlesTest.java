@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IClassFile;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IOrdinaryClassFile;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+import io.github.nbauma109.decompiler.testutil.DecompilerTestSupport;
+import io.github.nbauma109.decompiler.testutil.DecompilerTestSupport.BundleJarProjectSetup;
+
+@SuppressWarnings("restriction")
+public class ElementHandlesTest {
+
+    private static final String TEST_BUNDLE_ID = "io.github.nbauma109.decompiler.tests"; //$NON-NLS-1$
+    private static final String TEST_JAR_PATH = "src/test/resources/test.jar"; //$NON-NLS-1$
+
+    private BundleJarProjectSetup setup;
+    private File tempDir;
+
+    @After
+    public void tearDown() throws CoreException {
+        if (setup != null && setup.project().exists()) {
+            setup.project().delete(true, true, new NullProgressMonitor());
+        }
+        if (tempDir != null) {
+            org.apache.commons.io.FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    @Test
+    public void synthesizedHandlesMatchJavaModelHandlesOfTestJar() throws Exception {
+        setup = DecompilerTestSupport.createJavaProjectWithBundleJar(TEST_BUNDLE_ID, TEST_JAR_PATH,
+                "element-handles-test-jar-project"); //$NON-NLS-1$
+
+        assertHandlesMatchJavaModel(setup.jarRoot(), setup.jarFile());
+    }
+
+    @Test
+    public void synthesizedHandlesMatchJavaModelHandlesOfNestedAndLocalTypes() throws Exception {
+        tempDir = DecompilerTestSupport.createTargetTempDir("element-handles"); //$NON-NLS-1$
+        File jar = new File(tempDir, "nested.jar"); //$NON-NLS-1$
+        try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+            addClass(output, "pkg/sub/Holder.class", classBytes("pkg/sub/Holder")); //$NON-NLS-1$ //$NON-NLS-2$
+            addClass(output, "pkg/sub/Holder$Member.class", classBytes("pkg/sub/Holder$Member")); //$NON-NLS-1$ //$NON-NLS-2$
+            addClass(output, "pkg/sub/Holder$1Local.class", classBytes("pkg/sub/Holder$1Local")); //$NON-NLS-1$ //$NON-NLS-2$
+            addClass(output, "pkg/sub/Holder$Member$2.class", classBytes("pkg/sub/Holder$Member$2")); //$NON-NLS-1$ //$NON-NLS-2$
+            addClass(output, "Top.class", classBytes("Top")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        setup = DecompilerTestSupport.createJavaProjectWithJar(jar, "element-handles-nested-project"); //$NON-NLS-1$
+
+        assertHandlesMatchJavaModel(setup.jarRoot(), jar);
+    }
+
+    @Test
+    public void packageAndMemberHandlesAreEscaped() {
+        ElementHandles handles = new ElementHandles("=p/lib.jar"); //$NON-NLS-1$
+
+        assertEquals("=p/lib.jar<a.b", handles.packageFragment("a.b")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("=p/lib.jar<(A$1.class[", handles.type("A$1")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("T~m~\\[I~QList\\<QString;>;", //$NON-NLS-1$
+                ElementHandles.method("T", "m", new String[] { "[I", "QList<QString;>;" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+
+    @Test
+    public void handlesAreSplitAfterTheRootAtUnescapedDelimiters() {
+        ElementHandles handles = new ElementHandles("=p/lib.jar"); //$NON-NLS-1$
+
+        assertEquals(new ElementHandles.Parts("=p/lib.jar", "<a.b", "(A.class", "[A~m~\\[I"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                handles.split("=p/lib.jar<a.b(A.class[A~m~\\[I")); //$NON-NLS-1$
+        assertEquals(new ElementHandles.Parts("=p/lib.jar", "<a\\(b", "", ""), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                handles.split("=p/lib.jar<a\\(b")); //$NON-NLS-1$
+        assertEquals(new ElementHandles.Parts("=p/lib.jar", null, null, "=q/lib.jar<a.b"), //$NON-NLS-1$ //$NON-NLS-2$
+                handles.split("=q/lib.jar<a.b")); //$NON-NLS-1$
+        String method = ElementHandles.method(handles.type("a/b/A$1"), "m", new String[] { "[I" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(method, handles.split(method).join());
+    }
+
+    /**
+     * Walks the Java model of {@code root} and checks that every type, field and method handle the
+     * model reports is the one {@link ElementHandles} synthesizes, and that the declarations written
+     * by the indexer are exactly those handles.
+     */
+    private static void assertHandlesMatchJavaModel(IPackageFragmentRoot root, File jar) throws Exception {
+        ElementHandles handles = new ElementHandles(root.getHandleIdentifier());
+        Set<String> modelHandles = new TreeSet<>();
+        for (IJavaElement child : root.getChildren()) {
+            IPackageFragment fragment = (IPackageFragment) child;
+            if (fragment.getClassFiles().length > 0) {
+                assertEquals(fragment.getHandleIdentifier(), handles.packageFragment(fragment.getElementName()));
+            }
+            for (IClassFile classFile : fragment.getClassFiles()) {
+                if (!(classFile instanceof IOrdinaryClassFile ordinary)) {
+                    continue;
+                }
+                IType type = ordinary.getType();
+                String className = classFile.getElementName().substring(0,
+                        classFile.getElementName().length() - ".class".length()); //$NON-NLS-1$
+                String internalName = fragment.isDefaultPackage() ? className
+                        : fragment.getElementName().replace('.', '/') + '/' + className;
+                String typeHandle = handles.type(internalName);
+                assertEquals(type.getHandleIdentifier(), typeHandle);
+                modelHandles.add(typeHandle);
+                for (IField field : type.getFields()) {
+                    String fieldHandle = ElementHandles.field(typeHandle, field.getElementName());
+                    assertEquals(field.getHandleIdentifier(), fieldHandle);
+                    modelHandles.add(fieldHandle);
+                }
+                for (IMethod method : type.getMethods()) {
+                    String methodHandle = ElementHandles.method(typeHandle, method.getElementName(),
+                            method.getParameterTypes());
+                    assertEquals(method.getHandleIdentifier(), methodHandle);
+                    modelHandles.add(methodHandle);
+                }
+            }
+        }
+        assertTrue(modelHandles.size() > 1);
+
+        Set<String> declarations = new TreeSet<>();
+        try (Connection conn = SqliteEntryStore.openInMemoryDatabase()) {
+            BytecodeSearchIndex.JarIndex index = BytecodeJarIndexer.index(root, jar, BytecodeJarIndexer.plan(jar),
+                    conn, new Object(), new NullProgressMonitor());
+            assertNotNull(index);
+            for (Kind kind : new Kind[] { Kind.TYPE, Kind.FIELD, Kind.METHOD, Kind.CONSTRUCTOR }) {
+                index.collect(kind, null, null, true, entry -> {
+                    if (entry.isDeclaration()) {
+                        declarations.add(entry.getElementHandle());
+                    }
+                });
+            }
+        }
+        assertEquals(modelHandles, declarations);
+    }
+
+    private static byte[] classBytes(String internalName) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null,
+                "java/lang/Object", null); //$NON-NLS-1$
+        writer.visitField(Opcodes.ACC_PUBLIC, "values", "[[Ljava/lang/String;", null, null).visitEnd(); //$NON-NLS-1$ //$NON-NLS-2$
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(I[J)V", null, null); //$NON-NLS-1$ //$NON-NLS-2$
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(1, 3);
+        constructor.visitEnd();
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "apply", //$NON-NLS-1$
+                "(Ljava/util/List;[Ljava/util/Map$Entry;D)Ljava/lang/Object;", //$NON-NLS-1$
+                "(Ljava/util/List<Ljava/lang/String;>;[Ljava/util/Map$Entry<**>;D)Ljava/lang/Object;", null); //$NON-NLS-1$
+        method.visitCode();
+        method.visitInsn(Opcodes.ACONST_NULL);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(1, 5);
+        method.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void addClass(JarOutputStream output, String name, byte[] bytes) throws IOException {
+        output.putNextEntry(new JarEntry(name));
+        output.write(bytes);
+        output.closeEntry();
+    }
+}
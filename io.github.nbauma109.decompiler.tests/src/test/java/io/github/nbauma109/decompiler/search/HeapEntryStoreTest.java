@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+
+@SuppressWarnings("restriction")
+public class HeapEntryStoreTest {
+
+    private static final String[] NAMES = { "run", "pkg.Task", "Task", "pkg.Task.run", "", "stop" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+    @Test
+    public void indexedQueriesReturnTheSameRowsAsAScan() throws Exception {
+        Random random = new Random(42);
+        List<BytecodeSearchEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Kind kind = Kind.values()[random.nextInt(Kind.values().length)];
+            entries.add(new BytecodeSearchEntry(kind, random.nextBoolean(),
+                    BytecodeSearchEntry.elementReference("=h/e" + i, null), //$NON-NLS-1$
+                    BytecodeSearchEntry.symbolReference(pick(random), pick(random), null, null)));
+        }
+        int[] counts = new int[entries.size()];
+        Arrays.fill(counts, 1);
+        HeapEntryStore store = HeapEntryStore.from(entries, counts);
+
+        for (Kind kind : Kind.values()) {
+            for (String name : NAMES) {
+                for (String qualifiedName : NAMES) {
+                    assertEquals(kind + " " + name + " " + qualifiedName, //$NON-NLS-1$ //$NON-NLS-2$
+                            scan(entries, kind, name, qualifiedName), collect(store, kind, name, qualifiedName, false));
+                }
+            }
+            assertEquals(entries.stream().filter(entry -> entry.getKind() == kind).count(),
+                    collect(store, kind, "*", "*", true).size()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    @Test
+    public void namePatternsOnlyReturnTheirCandidateRows() throws Exception {
+        List<BytecodeSearchEntry> entries = new ArrayList<>();
+        for (String name : List.of("getName", "getNameAndType", "getFooBar", "getfoo", "setName")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            entries.add(new BytecodeSearchEntry(Kind.METHOD, true,
+                    BytecodeSearchEntry.elementReference("=h/" + name, null), //$NON-NLS-1$
+                    BytecodeSearchEntry.symbolReference(name, name, "pkg.Task", "()V"))); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        int[] counts = new int[entries.size()];
+        Arrays.fill(counts, 1);
+        HeapEntryStore store = HeapEntryStore.from(entries, counts);
+
+        assertEquals(List.of("=h/getFooBar"), collect(store, Kind.METHOD, "getFB", "getFB", true)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(List.of("=h/getName", "=h/getNameAndType"), //$NON-NLS-1$ //$NON-NLS-2$
+                collect(store, Kind.METHOD, "getName", "getName", true)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(List.of("=h/getFooBar", "=h/getfoo"), collect(store, Kind.METHOD, "GETF*", "GETF*", true)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        assertEquals(List.of(), collect(store, Kind.TYPE, "get*", "get*", true)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void elementHandlesAreJoinedBackFromTheirParts() throws Exception {
+        List<String> handles = List.of("=p/lib.jar<a.b", "=p/lib.jar<a.b(A.class[A", //$NON-NLS-1$ //$NON-NLS-2$
+                "=p/lib.jar<a.b(A.class[A~m~\\[I", "=p/lib.jar<a.b(A$1.class[", "=p/lib.jar<(Top.class[Top^f", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                "=q/other.jar<a.b(A.class[A"); //$NON-NLS-1$
+        List<BytecodeSearchEntry> entries = new ArrayList<>();
+        for (String handle : handles) {
+            entries.add(new BytecodeSearchEntry(Kind.TYPE, true, BytecodeSearchEntry.elementReference(handle, null),
+                    BytecodeSearchEntry.symbolReference("A", "a.b.A", null, null))); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        int[] counts = new int[entries.size()];
+        Arrays.fill(counts, 1);
+        HeapEntryStore store = HeapEntryStore.from("=p/lib.jar", entries, counts, List.of()); //$NON-NLS-1$
+
+        assertEquals(handles.stream().sorted().toList(), collect(store, Kind.TYPE, "A", "a.b.A", false)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static String pick(Random random) {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    private static List<String> collect(HeapEntryStore store, Kind kind, String name, String qualifiedName,
+            boolean wildcard) throws Exception {
+        List<String> handles = new ArrayList<>();
+        store.collect(kind, name, qualifiedName, wildcard, entry -> handles.add(entry.getElementHandle()));
+        return handles.stream().sorted().toList();
+    }
+
+    // The linear scan the store used to run for every query.
+    private static List<String> scan(List<BytecodeSearchEntry> entries, Kind kind, String name,
+            String qualifiedName) {
+        return entries.stream()
+                .filter(entry -> entry.getKind() == kind)
+                .filter(entry -> !name.isEmpty() && name.equals(entry.getName())
+                        || !qualifiedName.isEmpty() && !qualifiedName.equals(name)
+                                && qualifiedName.equals(entry.getQualifiedName()))
+                .map(BytecodeSearchEntry::getElementHandle)
+                .sorted()
+                .toList();
+    }
+}
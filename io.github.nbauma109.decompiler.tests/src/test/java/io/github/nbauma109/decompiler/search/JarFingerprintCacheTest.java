@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.file.PathUtils;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.nbauma109.decompiler.search.BytecodeJarIndexer.JarWork;
+
+@SuppressWarnings("restriction")
+public class JarFingerprintCacheTest {
+
+    private static final int RUNTIME = 21;
+
+    private final Object dbLock = new Object();
+    private Path directory;
+    private Connection conn;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("fingerprints"); //$NON-NLS-1$
+        conn = SqliteEntryStore.openInMemoryDatabase();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+        PathUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void unchangedJarIsAnsweredFromTheCache() throws Exception {
+        File jar = writeJar("lib.jar", "a/A.class", "a/B.class"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        JarWork work = BytecodeJarIndexer.plan(jar);
+        JarFingerprintCache.Stat stat = JarFingerprintCache.Stat.of(jar);
+        JarFingerprintCache.store(conn, dbLock, Map.of(stat, work), RUNTIME);
+
+        assertEquals(work, JarFingerprintCache.find(conn, dbLock, JarFingerprintCache.Stat.of(jar), RUNTIME));
+        assertNull(JarFingerprintCache.find(conn, dbLock, stat, RUNTIME + 1));
+    }
+
+    @Test
+    public void modifiedOrRemovedJarIsNotAnsweredFromTheCache() throws Exception {
+        File jar = writeJar("lib.jar", "a/A.class"); //$NON-NLS-1$ //$NON-NLS-2$
+        JarFingerprintCache.Stat stat = JarFingerprintCache.Stat.of(jar);
+        JarFingerprintCache.store(conn, dbLock, Map.of(stat, BytecodeJarIndexer.plan(jar)), RUNTIME);
+
+        writeJar("lib.jar", "a/A.class", "a/B.class"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        jar.setLastModified(stat.lastModified() + 2000L);
+        assertNull(JarFingerprintCache.find(conn, dbLock, JarFingerprintCache.Stat.of(jar), RUNTIME));
+
+        JarFingerprintCache.prune(conn, Set.of());
+        assertNull(JarFingerprintCache.find(conn, dbLock, stat, RUNTIME));
+    }
+
+    @Test
+    public void encodedEntriesKeepTheirOrderAndTicks() throws Exception {
+        File jar = writeJar("lib.jar", "z/Z.class", "a/A.class"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        JarWork work = BytecodeJarIndexer.plan(jar);
+        assertNotNull(work);
+        JarWork decoded = JarFingerprintCache.decode(JarFingerprintCache.encode(work.entries()), work.fileCrc(),
+                work.contentHash());
+        assertEquals(work, decoded);
+        assertEquals(List.of("z/Z.class", "a/A.class"), //$NON-NLS-1$ //$NON-NLS-2$
+                decoded.entries().stream().map(BytecodeJarIndexer.JarEntryWork::name).toList());
+    }
+
+    @Test
+    public void jarsWhosePlanningFailsAreLeftOut() throws Exception {
+        File first = writeJar("first.jar", "a/A.class"); //$NON-NLS-1$ //$NON-NLS-2$
+        File failing = writeJar("failing.jar", "c/C.class"); //$NON-NLS-1$ //$NON-NLS-2$
+        File second = writeJar("second.jar", "b/B.class"); //$NON-NLS-1$ //$NON-NLS-2$
+        Function<File, JarWork> planner = jar -> {
+            if (jar.equals(failing)) {
+                throw new IllegalArgumentException("unexpected entry"); //$NON-NLS-1$
+            }
+            return BytecodeJarIndexer.plan(jar);
+        };
+
+        for (int parallelism : new int[] { 1, 4 }) {
+            Map<File, JarWork> planned = JarIndexingPool.plan(List.of(first, failing, second), parallelism,
+                    new NullProgressMonitor(), planner);
+            assertEquals(Set.of(first, second), planned.keySet());
+        }
+    }
+
+    @Test
+    public void planningStopsWhenCanceled() throws Exception {
+        List<File> jars = List.of(writeJar("first.jar", "a/A.class"), writeJar("second.jar", "b/B.class")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+
+        for (int parallelism : new int[] { 1, 4 }) {
+            assertThrows(OperationCanceledException.class, () -> JarIndexingPool.plan(jars, parallelism, monitor));
+        }
+    }
+
+    private File writeJar(String name, String... entries) throws IOException {
+        Path jar = directory.resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.write(new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE });
+                zip.closeEntry();
+            }
+        }
+        return jar.toFile();
+    }
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.file.PathUtils;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import io.github.nbauma109.decompiler.search.BytecodeJarIndexer.JarWork;
+import io.github.nbauma109.decompiler.search.BytecodeSearchIndex.JarIndex;
+
+public class JarIndexingPoolTest {
+
+    private static final int JARS = 6;
+
+    private final Object dbLock = new Object();
+    // Names of the threads that committed a jar, in order.
+    private final List<String> commits = Collections.synchronizedList(new ArrayList<>());
+    private Path directory;
+    private Connection conn;
+    private Connection writerConn;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("jar-indexing-pool"); //$NON-NLS-1$
+        conn = SqliteEntryStore.openInMemoryDatabase();
+        writerConn = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    if ("commit".equals(method.getName())) { //$NON-NLS-1$
+                        commits.add(Thread.currentThread().getName());
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+        PathUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void singleWriterCommitsEveryJarOnceAndRelaysProgress() throws Exception {
+        List<File> jars = writeJars();
+        List<JarWork> work = jars.stream().map(BytecodeJarIndexer::plan).toList();
+        RecordingMonitor monitor = new RecordingMonitor();
+        int totalTicks = work.stream().mapToInt(JarWork::totalTicks).sum();
+
+        List<JarIndex> indexes = new ArrayList<>();
+        try (JarIndexingPool pool = newPool(3, SubMonitor.convert(monitor, totalTicks))) {
+            List<Future<JarIndex>> futures = new ArrayList<>();
+            for (int i = 0; i < JARS; i++) {
+                futures.add(pool.submit(null, jars.get(i), work.get(i), null));
+            }
+            for (Future<JarIndex> future : futures) {
+                indexes.add(pool.await(future));
+            }
+        }
+
+        assertEquals(JARS, commits.size());
+        assertEquals(1, Set.copyOf(commits).size());
+        assertTrue(commits.get(0).startsWith("Library bytecode index writer")); //$NON-NLS-1$
+        for (int i = 0; i < JARS; i++) {
+            assertNotNull(indexes.get(i));
+            assertEquals(1, jarRows(jars.get(i)));
+        }
+        assertEquals(totalTicks, monitor.worked);
+        assertTrue(monitor.subTasks.stream().anyMatch(name -> name.startsWith("lib"))); //$NON-NLS-1$
+    }
+
+    @Test
+    public void cancelingStopsPendingJarsWithoutPartialRows() throws Exception {
+        List<File> jars = writeJars();
+        List<Future<JarIndex>> futures = new ArrayList<>();
+        List<JarIndex> indexes = new ArrayList<>();
+        try (JarIndexingPool pool = newPool(1, SubMonitor.convert(new NullProgressMonitor()))) {
+            futures.add(pool.submit(null, jars.get(0), BytecodeJarIndexer.plan(jars.get(0)), null));
+            futures.add(pool.submit(null, jars.get(1), BytecodeJarIndexer.plan(jars.get(1)), null));
+            indexes.add(pool.await(futures.get(0)));
+            pool.cancel();
+            assertTrue(pool.isCanceled());
+            for (int i = 2; i < JARS; i++) {
+                futures.add(pool.submit(null, jars.get(i), BytecodeJarIndexer.plan(jars.get(i)), null));
+            }
+            for (int i = 1; i < JARS; i++) {
+                indexes.add(pool.await(futures.get(i)));
+            }
+        }
+
+        assertNotNull(indexes.get(0));
+        for (int i = 2; i < JARS; i++) {
+            assertNull(indexes.get(i));
+        }
+        // The jar being indexed when the pool was canceled is either committed or left out.
+        for (int i = 0; i < JARS; i++) {
+            assertEquals(indexes.get(i) == null ? 0 : 1, jarRows(jars.get(i)));
+        }
+        assertEquals(commits.size(), count("SELECT COUNT(*) FROM jars")); //$NON-NLS-1$
+        assertEquals(0, count("SELECT COUNT(*) FROM entries WHERE jar_id NOT IN (SELECT id FROM jars)")); //$NON-NLS-1$
+        assertEquals(0, count("SELECT COUNT(*) FROM jar_classes WHERE jar_id NOT IN (SELECT id FROM jars)")); //$NON-NLS-1$
+    }
+
+    private JarIndexingPool newPool(int parallelism, SubMonitor monitor) {
+        return new JarIndexingPool(parallelism, writerConn, dbLock, null, new StringIdCache(1L << 20), monitor);
+    }
+
+    /** Writes jars of distinct content, each declaring a few classes of its own package. */
+    private List<File> writeJars() throws IOException {
+        List<File> jars = new ArrayList<>();
+        for (int i = 0; i < JARS; i++) {
+            Path jar = directory.resolve("lib" + i + ".jar"); //$NON-NLS-1$ //$NON-NLS-2$
+            try (OutputStream out = Files.newOutputStream(jar); JarOutputStream output = new JarOutputStream(out)) {
+                for (int j = 0; j < 3; j++) {
+                    String name = "p" + i + "/C" + j; //$NON-NLS-1$ //$NON-NLS-2$
+                    output.putNextEntry(new JarEntry(name + ".class")); //$NON-NLS-1$
+                    output.write(classBytes(name));
+                    output.closeEntry();
+                }
+            }
+            jars.add(jar.toFile());
+        }
+        return jars;
+    }
+
+    private static byte[] classBytes(String internalName) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null); //$NON-NLS-1$
+        cw.visitField(Opcodes.ACC_PUBLIC, "value", "Ljava/lang/String;", null, null).visitEnd(); //$NON-NLS-1$ //$NON-NLS-2$
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private int jarRows(File jar) throws Exception {
+        synchronized (dbLock) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM jars WHERE path = ?")) { //$NON-NLS-1$
+                ps.setString(1, jar.getAbsolutePath());
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    return rs.getInt(1);
+                }
+            }
+        }
+    }
+
+    private int count(String sql) throws Exception {
+        synchronized (dbLock) {
+            try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /** Root job monitor, only called from the thread that owns the pool. */
+    private static final class RecordingMonitor extends NullProgressMonitor {
+
+        private final List<String> subTasks = new ArrayList<>();
+        private int worked;
+
+        @Override
+        public void worked(int work) {
+            worked += work;
+        }
+
+        @Override
+        public void subTask(String name) {
+            subTasks.add(name);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+
+@SuppressWarnings("restriction")
+public class NameFilterTest {
+
+    @Test
+    public void addedNamesAreAlwaysFoundAndOthersRarely() {
+        NameFilter filter = NameFilter.create(2000);
+        for (int i = 0; i < 2000; i++) {
+            filter.add(Kind.METHOD, "method" + i); //$NON-NLS-1$
+        }
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(filter.mightContain(Kind.METHOD, "method" + i, "method" + i)); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain(Kind.METHOD, "other" + i, "other" + i)) { //$NON-NLS-1$ //$NON-NLS-2$
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 300); //$NON-NLS-1$
+    }
+
+    @Test
+    public void kindsAndQualifiedNamesAreCheckedLikeTheStoreLookups() {
+        NameFilter filter = NameFilter.create(2);
+        filter.add(Kind.TYPE, "Task"); //$NON-NLS-1$
+        filter.add(Kind.TYPE, "pkg.Task"); //$NON-NLS-1$
+
+        assertTrue(filter.mightContain(Kind.TYPE, "Other", "pkg.Task")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(filter.mightContain(Kind.TYPE, "Task", "")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(filter.mightContain(Kind.METHOD, "Task", "pkg.Task")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue("empty names cannot be ruled out", filter.mightContain(Kind.FIELD, "", null)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void serializedFilterAnswersTheSame() {
+        NameFilter filter = NameFilter.create(1);
+        filter.add(Kind.FIELD, "out"); //$NON-NLS-1$
+        NameFilter copy = NameFilter.fromBytes(filter.toBytes());
+
+        assertTrue(copy.mightContain(Kind.FIELD, "out", "out")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(copy.mightContain(Kind.FIELD, "err", "err")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(NameFilter.fromBytes(new byte[3]));
+        assertNull(NameFilter.fromBytes(null));
+    }
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ParsedUnitCacheTest {
+
+    private static final String UNIT = "pkg/A.java"; //$NON-NLS-1$
+    private static final String[] CLASSPATH = { "/libs/a.jar", "/libs/b.jar" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    @Test
+    public void unitsAreSharedByNameContentsAndClasspath() {
+        ParsedUnitCache<String> cache = new ParsedUnitCache<>(1L << 20);
+        String source = "class A {}"; //$NON-NLS-1$
+        ParsedUnitCache.Key key = ParsedUnitCache.key(UNIT, source, CLASSPATH);
+        assertNull(cache.get(key, source));
+        cache.put(key, source, "parsed"); //$NON-NLS-1$
+
+        assertEquals("parsed", cache.get(ParsedUnitCache.key(UNIT, new String(source), CLASSPATH.clone()), source)); //$NON-NLS-1$
+        assertNull(cache.get(ParsedUnitCache.key(UNIT, source, null), source));
+        assertNull(cache.get(ParsedUnitCache.key(UNIT, source, new String[] { "/libs/a.jar" }), source)); //$NON-NLS-1$
+        assertNull(cache.get(key, "class B {}")); //$NON-NLS-1$
+        assertNotEquals(key, ParsedUnitCache.key(UNIT, "class A { }", CLASSPATH)); //$NON-NLS-1$
+    }
+
+    @Test
+    public void newContentsOfAUnitDropItsOlderContents() {
+        ParsedUnitCache<String> cache = new ParsedUnitCache<>(1L << 20);
+        String before = "class A {}"; //$NON-NLS-1$
+        String after = "class A { int f; }"; //$NON-NLS-1$
+        String other = "class B {}"; //$NON-NLS-1$
+        cache.put(ParsedUnitCache.key(UNIT, before, CLASSPATH), before, "before"); //$NON-NLS-1$
+        cache.put(ParsedUnitCache.key("pkg/B.java", other, CLASSPATH), other, "other"); //$NON-NLS-1$ //$NON-NLS-2$
+        cache.put(ParsedUnitCache.key(UNIT, after, CLASSPATH), after, "after"); //$NON-NLS-1$
+
+        assertNull(cache.get(ParsedUnitCache.key(UNIT, before, CLASSPATH), before));
+        assertEquals("after", cache.get(ParsedUnitCache.key(UNIT, after, CLASSPATH), after)); //$NON-NLS-1$
+        assertEquals("other", cache.get(ParsedUnitCache.key("pkg/B.java", other, CLASSPATH), other)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void unitsParsedAgainWithBindingsWeighTheirBindings() {
+        String source = "x".repeat(100); //$NON-NLS-1$
+        long unitWeight = ParsedUnitCache.unitWeight(source);
+        ParsedUnitCache.Key key = ParsedUnitCache.key(UNIT, source, CLASSPATH);
+
+        // The unit fills a quarter of the capacity, so it is dropped once it weighs its bindings.
+        ParsedUnitCache<String> cache = new ParsedUnitCache<>(unitWeight * 4);
+        cache.put(key, source, "unit"); //$NON-NLS-1$
+        cache.addBindings(key, "other"); //$NON-NLS-1$
+        assertEquals("unit", cache.get(key, source)); //$NON-NLS-1$
+        cache.addBindings(key, "unit"); //$NON-NLS-1$
+        assertNull(cache.get(key, source));
+
+        cache.setCapacity((unitWeight + ParsedUnitCache.bindingsWeight(source)) * 4);
+        cache.put(key, source, "unit"); //$NON-NLS-1$
+        cache.addBindings(key, "unit"); //$NON-NLS-1$
+        assertEquals("unit", cache.get(key, source)); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+
+@SuppressWarnings("restriction")
+public class QueryResultCacheTest {
+
+    private final Object published = new Object();
+
+    @Test
+    public void cachedRowsReplayTheEntriesOfTheQuery() throws Exception {
+        HeapEntryStore store = HeapEntryStore.from(List.of(
+                entry("=h/a", "run", "pkg.A.run"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                entry("=h/b", "stop", "pkg.A.stop"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                entry("=h/c", "run", "pkg.B.run")), new int[] { 1, 1, 1 }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        QueryResultCache cache = new QueryResultCache(1L << 20);
+        cache.reset(published);
+        QueryResultCache.Query query = query("run"); //$NON-NLS-1$
+
+        QueryResultCache.Recorder recorder = new QueryResultCache.Recorder();
+        List<String> collected = new ArrayList<>();
+        store.collectRows(Kind.METHOD, "run", "run", false, (row, entry) -> { //$NON-NLS-1$ //$NON-NLS-2$
+            recorder.add(store, row);
+            collected.add(entry.getElementHandle());
+        });
+        assertNull(cache.get(published, query));
+        cache.put(published, query, recorder.result());
+
+        List<String> replayed = new ArrayList<>();
+        cache.get(published, query).replay(null, entry -> replayed.add(entry.getElementHandle()));
+        assertEquals(List.of("=h/a", "=h/c"), collected.stream().sorted().toList()); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(collected, replayed);
+
+        QueryResultCache.Stats stats = cache.stats();
+        assertEquals(1L, stats.hits());
+        assertEquals(1L, stats.misses());
+        assertEquals(1, stats.queries());
+        assertEquals(0.5d, stats.hitRate(), 0d);
+    }
+
+    @Test
+    public void resultsOfAnotherPublicationAreDroppedOrIgnored() {
+        QueryResultCache cache = new QueryResultCache(1L << 20);
+        cache.reset(published);
+        cache.put(published, query("run"), new QueryResultCache.Recorder().result()); //$NON-NLS-1$
+
+        Object next = new Object();
+        cache.reset(next);
+        assertNull(cache.get(next, query("run"))); //$NON-NLS-1$
+        cache.put(published, query("run"), new QueryResultCache.Recorder().result()); //$NON-NLS-1$
+        assertNull(cache.get(next, query("run"))); //$NON-NLS-1$
+        assertEquals(0L, cache.stats().bytes());
+    }
+
+    private static QueryResultCache.Query query(String name) {
+        return new QueryResultCache.Query(Kind.METHOD, name, name, false, null);
+    }
+
+    private static BytecodeSearchEntry entry(String handle, String name, String qualifiedName) {
+        return new BytecodeSearchEntry(Kind.METHOD, true, BytecodeSearchEntry.elementReference(handle, null),
+                BytecodeSearchEntry.symbolReference(name, qualifiedName, null, null));
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import io.github.nbauma109.decompiler.editor.DecompiledLineMap;
+import io.github.nbauma109.decompiler.search.BytecodeSourceRangeResolver.SourceRange;
+
+public class ReferenceLineLocatorTest {
+
+    private static final String COMMENTED = String.join("\n", //$NON-NLS-1$
+            "class Caller {", //$NON-NLS-1$
+            "  void run() {", //$NON-NLS-1$
+            "/* 10 */ call(\"call()\");", //$NON-NLS-1$
+            "/* 11 */ int copy = this.count; // count", //$NON-NLS-1$
+            "/* 12 */ call(call(1)); Runnable r = this::call;", //$NON-NLS-1$
+            "  }", //$NON-NLS-1$
+            "}"); //$NON-NLS-1$
+
+    @Test
+    public void occurrencesArePlacedOnTheLinesNamedByLineNumberComments() {
+        DecompiledLineMap lineMap = DecompiledLineMap.of(COMMENTED);
+        List<SourceRange> calls = ReferenceLineLocator.locate(COMMENTED, lineMap, new int[] { 10, 12, 12, 12 },
+                "call", true); //$NON-NLS-1$
+
+        assertEquals(List.of(
+                range("call(\"call()\")"), //$NON-NLS-1$
+                range("call(call(1))"), //$NON-NLS-1$
+                range(COMMENTED.indexOf("call(1)"), "call(1)"), //$NON-NLS-1$ //$NON-NLS-2$
+                range(COMMENTED.indexOf("::call") + 2, "call")), calls); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(List.of(range(COMMENTED.indexOf("count;"), "count")), //$NON-NLS-1$ //$NON-NLS-2$
+                ReferenceLineLocator.locate(COMMENTED, lineMap, new int[] { 11 }, "count", false)); //$NON-NLS-1$
+    }
+
+    @Test
+    public void ambiguousOrUnknownLinesAreLeftToTheParser() {
+        DecompiledLineMap lineMap = DecompiledLineMap.of(COMMENTED);
+
+        assertNull(ReferenceLineLocator.locate(COMMENTED, lineMap, new int[] { 12 }, "call", true)); //$NON-NLS-1$
+        assertNull(ReferenceLineLocator.locate(COMMENTED, lineMap, new int[] { 13 }, "call", true)); //$NON-NLS-1$
+        assertNull(ReferenceLineLocator.locate(COMMENTED, lineMap, new int[] { -1 }, "call", true)); //$NON-NLS-1$
+        assertNull(DecompiledLineMap.of("class Plain {\n  void run() { call(); }\n}")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void realignedSourcesMapEachLineToItself() {
+        String source = "class Aligned {\n  void run() {\n    call();\n  }\n}"; //$NON-NLS-1$
+        DecompiledLineMap.record(source, true);
+        DecompiledLineMap lineMap = DecompiledLineMap.of(source);
+
+        assertEquals(List.of(range(source.indexOf("call"), "call()")), //$NON-NLS-1$ //$NON-NLS-2$
+                ReferenceLineLocator.locate(source, lineMap, new int[] { 3 }, "call", true)); //$NON-NLS-1$
+        assertNull(ReferenceLineLocator.locate(source, lineMap, new int[] { 6 }, "call", true)); //$NON-NLS-1$
+    }
+
+    private static SourceRange range(String text) {
+        return range(COMMENTED.indexOf(text), text);
+    }
+
+    private static SourceRange range(int offset, String text) {
+        return new SourceRange(offset, text.length());
+    }
+}
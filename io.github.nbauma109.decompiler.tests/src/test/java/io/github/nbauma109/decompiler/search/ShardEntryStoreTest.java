@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.file.PathUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Access;
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.TypeCategory;
+
+@SuppressWarnings("restriction")
+public class ShardEntryStoreTest {
+
+    private static final String ROOT = "=p/lib.jar"; //$NON-NLS-1$
+    private static final String[] NAMES = { "run", "pkg.Task", "Task", "pkg.Task.run", "stop", "été" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("shards"); //$NON-NLS-1$
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        PathUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void mappedShardAnswersQueriesLikeTheHeapStore() throws Exception {
+        Random random = new Random(7);
+        List<BytecodeSearchEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Kind kind = Kind.values()[random.nextInt(Kind.values().length)];
+            entries.add(new BytecodeSearchEntry(kind, random.nextBoolean(),
+                    BytecodeSearchEntry.elementReference(ROOT + "<pkg(Task.class[Task~e" + i, null), //$NON-NLS-1$
+                    BytecodeSearchEntry.symbolReference(pick(random), pick(random), "pkg.Task", "()V"), //$NON-NLS-1$ //$NON-NLS-2$
+                    Access.values()[random.nextInt(Access.values().length)],
+                    TypeCategory.values()[random.nextInt(TypeCategory.values().length)]));
+        }
+        int[] counts = new int[entries.size()];
+        Arrays.fill(counts, 3);
+        Path shard = ShardEntryStore.shardFile(directory, 21, "abc"); //$NON-NLS-1$
+        ShardEntryStore.write(shard, ROOT, entries, counts, new String[entries.size()]);
+        HeapEntryStore heap = HeapEntryStore.from(entries, counts);
+        ShardEntryStore mapped = ShardEntryStore.open(shard, ROOT);
+
+        assertEquals(entries.size(), mapped.size());
+        for (Kind kind : Kind.values()) {
+            for (String name : NAMES) {
+                for (String qualifiedName : NAMES) {
+                    assertEquals(describe(heap, kind, name, qualifiedName, false),
+                            describe(mapped, kind, name, qualifiedName, false));
+                }
+            }
+            assertEquals(describe(heap, kind, "*", "*", true), describe(mapped, kind, "*", "*", true)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(shard), files.toList());
+        }
+    }
+
+    @Test
+    public void sharedShardTranslatesHandlesToTheRequestingRoot() throws Exception {
+        List<BytecodeSearchEntry> entries = List.of(new BytecodeSearchEntry(Kind.TYPE, true,
+                BytecodeSearchEntry.elementReference(ROOT + "<pkg(Task.class[Task", null), //$NON-NLS-1$
+                BytecodeSearchEntry.symbolReference("Task", "pkg.Task", null, null))); //$NON-NLS-1$ //$NON-NLS-2$
+        Path shard = ShardEntryStore.shardFile(directory, 21, "def"); //$NON-NLS-1$
+        ShardEntryStore.write(shard, ROOT, entries, new int[] { 1 }, new String[1]);
+
+        List<BytecodeSearchEntry> matches = new ArrayList<>();
+        ShardEntryStore.open(shard, "=other/lib.jar").collect(Kind.TYPE, "Task", "pkg.Task", false, matches::add); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(1, matches.size());
+        assertEquals("=other/lib.jar<pkg(Task.class[Task", matches.get(0).getElementHandle()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void supertypeEdgesAnswerTheSameSubtypesAsTheHeapStore() throws Exception {
+        List<BytecodeSearchEntry> entries = List.of(new BytecodeSearchEntry(Kind.TYPE, true,
+                BytecodeSearchEntry.elementReference(ROOT + "<pkg(Task.class[Task", null), //$NON-NLS-1$
+                BytecodeSearchEntry.symbolReference("Task", "pkg.Task", null, null))); //$NON-NLS-1$ //$NON-NLS-2$
+        List<EntryStore.SupertypeEdge> edges = List.of(new EntryStore.SupertypeEdge("pkg.Task", "java.lang.Runnable"), //$NON-NLS-1$ //$NON-NLS-2$
+                new EntryStore.SupertypeEdge("pkg.Task", "pkg.Base"), //$NON-NLS-1$ //$NON-NLS-2$
+                new EntryStore.SupertypeEdge("pkg.Timer", "java.lang.Runnable"), //$NON-NLS-1$ //$NON-NLS-2$
+                new EntryStore.SupertypeEdge("pkg.Base", "java.lang.Cloneable")); //$NON-NLS-1$ //$NON-NLS-2$
+        Path shard = ShardEntryStore.shardFile(directory, 21, "edges"); //$NON-NLS-1$
+        ShardEntryStore.write(shard, ROOT, entries, new int[] { 1 }, new String[1], edges);
+        HeapEntryStore heap = HeapEntryStore.from(entries, new int[] { 1 }, edges);
+        ShardEntryStore mapped = ShardEntryStore.open(shard, ROOT);
+
+        for (List<String> supertypes : List.of(List.of("java.lang.Runnable"), List.of("pkg.Base", "pkg.Task"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                List.of("java.lang.Cloneable", "missing"))) { //$NON-NLS-1$ //$NON-NLS-2$
+            List<String> fromHeap = new ArrayList<>();
+            heap.collectSubtypes(supertypes, fromHeap::add);
+            List<String> fromShard = new ArrayList<>();
+            mapped.collectSubtypes(supertypes, fromShard::add);
+            assertEquals(fromHeap, fromShard);
+        }
+        List<String> subtypes = new ArrayList<>();
+        mapped.collectSubtypes(List.of("java.lang.Runnable"), subtypes::add); //$NON-NLS-1$
+        assertEquals(List.of("pkg.Task", "pkg.Timer"), subtypes.stream().sorted().toList()); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void namePatternOnlyBuildsTheEntriesOfMatchingRows() throws Exception {
+        List<BytecodeSearchEntry> entries = new ArrayList<>();
+        for (String qualifiedName : List.of("pkg.Task", "pkg.TaskQueue", "pkg.Timer", "java.lang.Runnable")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            String name = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+            entries.add(new BytecodeSearchEntry(Kind.TYPE, true,
+                    BytecodeSearchEntry.elementReference(ROOT + "<pkg(" + name + ".class[" + name, null), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    BytecodeSearchEntry.symbolReference(name, qualifiedName, null, null)));
+        }
+        entries.add(new BytecodeSearchEntry(Kind.METHOD, true,
+                BytecodeSearchEntry.elementReference(ROOT + "<pkg(Task.class[Task~take", null), //$NON-NLS-1$
+                BytecodeSearchEntry.symbolReference("take", "take", "pkg.Task", "()V"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        int[] counts = new int[entries.size()];
+        Arrays.fill(counts, 1);
+        Path shard = ShardEntryStore.shardFile(directory, 21, "patterns"); //$NON-NLS-1$
+        ShardEntryStore.write(shard, ROOT, entries, counts, new String[entries.size()]);
+        ShardEntryStore mapped = ShardEntryStore.open(shard, ROOT);
+
+        assertEquals(List.of("pkg.Task", "pkg.TaskQueue"), collectedNames(mapped, Kind.TYPE, "ta*", "ta*")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        assertEquals(List.of("pkg.TaskQueue"), collectedNames(mapped, Kind.TYPE, "TQ", "TQ")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(List.of("pkg.Task", "pkg.TaskQueue", "pkg.Timer"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                collectedNames(mapped, Kind.TYPE, "T*", "pkg.T*")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(List.of("take"), collectedNames(mapped, Kind.METHOD, "t?ke", "t?ke")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(List.of(), collectedNames(mapped, Kind.TYPE, "Queue*", "Queue*")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void truncatedShardIsRejected() throws Exception {
+        Path shard = ShardEntryStore.shardFile(directory, 21, "ghi"); //$NON-NLS-1$
+        ShardEntryStore.write(shard, ROOT, List.of(new BytecodeSearchEntry(Kind.TYPE, true,
+                BytecodeSearchEntry.elementReference(ROOT, null),
+                BytecodeSearchEntry.symbolReference("Task", "pkg.Task", null, null))), //$NON-NLS-1$ //$NON-NLS-2$
+                new int[] { 1 }, new String[1]);
+        byte[] bytes = Files.readAllBytes(shard);
+        Files.write(shard, Arrays.copyOf(bytes, bytes.length - 1));
+        try {
+            ShardEntryStore.open(shard, ROOT);
+            fail("truncated shard was accepted"); //$NON-NLS-1$
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void pruneDeletesShardsNotOpenedWithinMaxAge() throws Exception {
+        Path used = directory.resolve("used" + ShardEntryStore.SHARD_SUFFIX); //$NON-NLS-1$
+        Path unused = directory.resolve("unused" + ShardEntryStore.SHARD_SUFFIX); //$NON-NLS-1$
+        Files.createFile(used);
+        Files.createFile(unused);
+        Files.setLastModifiedTime(unused, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(2).toMillis()));
+
+        ShardEntryStore.pruneUnused(directory, Duration.ofDays(1));
+
+        assertTrue(Files.exists(used));
+        assertFalse(Files.exists(unused));
+    }
+
+    private static List<String> collectedNames(EntryStore store, Kind kind, String name, String qualifiedName)
+            throws Exception {
+        List<String> names = new ArrayList<>();
+        store.collectRows(kind, name, qualifiedName, true, (row, entry) -> names.add(entry.getQualifiedName()));
+        return names.stream().sorted().toList();
+    }
+
+    private static String pick(Random random) {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    private static List<String> describe(EntryStore store, Kind kind, String name, String qualifiedName,
+            boolean wildcard) throws Exception {
+        List<String> rows = new ArrayList<>();
+        store.collect(kind, name, qualifiedName, wildcard, entry -> rows.add(String.join("|", //$NON-NLS-1$
+                entry.getKind().name(), String.valueOf(entry.isDeclaration()), entry.getElementHandle(),
+                entry.getName(), entry.getQualifiedName(), entry.getDeclaringTypeName(), entry.getDescriptor(),
+                entry.getAccess().name(), entry.getTypeCategory().name(),
+                String.valueOf(entry.getOccurrenceCount()))));
+        return rows.stream().sorted().toList();
+    }
+}
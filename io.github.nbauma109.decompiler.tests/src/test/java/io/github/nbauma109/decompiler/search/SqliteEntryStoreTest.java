@@ -10,14 +10,27 @@ package io.github.nbauma109.decompiler.search;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.junit.Test;
 
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
@@ -76,6 +89,50 @@ public class SqliteEntryStoreTest {
         }
     }
 
+    @Test
+    public void patternQueriesSelectWildcardAndCamelCaseCandidates() throws Exception {
+        try (Connection conn = databaseWithEntries(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("""
+                    INSERT INTO strings(id, value) VALUES
+                    (6, 'NullPointerException'), (7, 'NoPermission'), (8, 'a%b')"""); //$NON-NLS-1$
+            stmt.executeUpdate("""
+                    INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category,
+                            handle_package_id, handle_class_id, handle_member_id, name_id, qualified_name_id) VALUES
+                    (1, 1, 0, 0, 0, 0, 0, 0, 6, 6),
+                    (1, 1, 0, 0, 0, 0, 0, 0, 7, 7),
+                    (1, 1, 0, 0, 0, 0, 0, 0, 8, 8)"""); //$NON-NLS-1$
+            SqliteEntryStore store = new SqliteEntryStore(conn, new Object(), 1);
+
+            assertEquals(2, collect(store, "AL*", "AL*").size()); //$NON-NLS-1$ //$NON-NLS-2$
+            assertEquals(3, collect(store, "*", "pkg.*").size()); //$NON-NLS-1$ //$NON-NLS-2$
+            assertEquals(List.of("a%b"), names(collect(store, "a%?", "a%?"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            assertEquals(List.of("NullPointerException"), names(collect(store, "NPE", "NPE"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            assertEquals(2, collect(store, "N", "N").size()); //$NON-NLS-1$ //$NON-NLS-2$
+            assertEquals(7, collect(store, "*", "*").size()); //$NON-NLS-1$ //$NON-NLS-2$
+
+            SqliteEntryStore.NameCandidates prefix = SqliteEntryStore.NameCandidates.of("get*Bar"); //$NON-NLS-1$
+            try (ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + prefix.sql() //$NON-NLS-1$
+                    .replaceFirst("\\?", "'get'").replaceFirst("\\?", "'get~'").replaceFirst("\\?", "'get%Bar'"))) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString("detail")).append('\n'); //$NON-NLS-1$
+                }
+                assertTrue(plan.toString(), plan.toString().contains("idx_strings_value_nocase")); //$NON-NLS-1$
+            }
+        }
+    }
+
+    private static List<BytecodeSearchEntry> collect(SqliteEntryStore store, String name, String qualifiedName)
+            throws Exception {
+        List<BytecodeSearchEntry> matches = new ArrayList<>();
+        store.collect(Kind.METHOD, name, qualifiedName, true, matches::add);
+        return matches;
+    }
+
+    private static List<String> names(List<BytecodeSearchEntry> entries) {
+        return entries.stream().map(BytecodeSearchEntry::getName).toList();
+    }
+
     @Test
     public void identicalJarLocationsShareEntriesAndTranslateElementHandles() throws Exception {
         try (Connection conn = databaseWithEntries()) {
@@ -102,12 +159,319 @@ public class SqliteEntryStoreTest {
             aliasStore.collect(Kind.METHOD, "alpha", "alpha", false, matches::add); //$NON-NLS-1$ //$NON-NLS-2$
             assertEquals(2, matches.size());
             assertTrue(matches.stream().anyMatch(
-                    entry -> "=alias/pkg/Type.class".equals(entry.getElementHandle()))); //$NON-NLS-1$
+                    entry -> "=alias<pkg(Type.class[Type".equals(entry.getElementHandle()))); //$NON-NLS-1$
+        }
+    }
+
+    @Test
+    public void crossJarQueryEmitsRowsOncePerStoreWithTheirRootHandles() throws Exception {
+        try (Connection conn = databaseWithEntries(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("""
+                    INSERT INTO jars(id, root_handle, path, last_modified, file_length, runtime_version, file_crc,
+                            content_hash)
+                    VALUES(2, '=other', '/tmp/other.jar', 1, 1, 21, 1, 'other-hash')"""); //$NON-NLS-1$
+            stmt.executeUpdate("INSERT INTO strings(id, value) VALUES(6, '(Other.class'), (7, '[Other')"); //$NON-NLS-1$
+            stmt.executeUpdate("""
+                    INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category,
+                            handle_package_id, handle_class_id, handle_member_id, name_id, qualified_name_id) VALUES
+                    (2, 1, 1, 0, 0, 5, 6, 7, 1, 1),
+                    (2, 2, 1, 0, 0, 5, 6, 7, 1, 1)"""); //$NON-NLS-1$
+            Object dbLock = new Object();
+            List<SqliteEntryStore> stores = List.of(
+                    new SqliteEntryStore(conn, dbLock, 1, false, "=canonical"), //$NON-NLS-1$
+                    new SqliteEntryStore(conn, dbLock, 2, false, "=other"), //$NON-NLS-1$
+                    new SqliteEntryStore(conn, dbLock, 1, false, "=alias")); //$NON-NLS-1$
+
+            List<BytecodeSearchEntry> matches = new ArrayList<>();
+            SqliteEntryStore.collect(stores, Kind.METHOD, "alpha", "alpha", false, matches::add); //$NON-NLS-1$ //$NON-NLS-2$
+
+            assertEquals(5, matches.size());
+            assertEquals(List.of("=alias<pkg(Type.class[Type", "=canonical<pkg(Type.class[Type", //$NON-NLS-1$ //$NON-NLS-2$
+                    "=other<pkg(Other.class[Other"), //$NON-NLS-1$
+                    matches.stream().map(BytecodeSearchEntry::getElementHandle).filter(Objects::nonNull).sorted().toList());
+
+            matches.clear();
+            SqliteEntryStore.collect(stores, Kind.METHOD, "", "pkg.beta", false, matches::add); //$NON-NLS-1$ //$NON-NLS-2$
+            assertEquals(4, matches.size());
+        }
+    }
+
+    @Test
+    public void reportedRowsReadBackTheSameEntriesForEachStore() throws Exception {
+        try (Connection conn = databaseWithEntries()) {
+            Object dbLock = new Object();
+            SqliteEntryStore canonical = new SqliteEntryStore(conn, dbLock, 1, false, "=canonical"); //$NON-NLS-1$
+            SqliteEntryStore alias = new SqliteEntryStore(conn, dbLock, 1, false, "=alias"); //$NON-NLS-1$
+            List<BytecodeSearchEntry> matches = new ArrayList<>();
+            Map<SqliteEntryStore, List<Long>> rows = new LinkedHashMap<>();
+            SqliteEntryStore.collectRows(List.of(canonical, alias), Kind.METHOD, "alpha", "alpha", false, null, //$NON-NLS-1$ //$NON-NLS-2$
+                    (store, row, entry) -> {
+                        matches.add(entry);
+                        rows.computeIfAbsent(store, s -> new ArrayList<>()).add(row);
+                    });
+
+            List<BytecodeSearchEntry> replayed = new ArrayList<>();
+            for (Map.Entry<SqliteEntryStore, List<Long>> storeRows : rows.entrySet()) {
+                storeRows.getKey().collectEntries(storeRows.getValue().stream().mapToLong(Long::longValue).toArray(),
+                        replayed::add);
+            }
+            assertEquals(2, rows.size());
+            assertEquals(new TreeSet<>(handles(matches)), new TreeSet<>(handles(replayed)));
+            assertEquals(matches.size(), replayed.size());
+        }
+    }
+
+    private static List<String> handles(List<BytecodeSearchEntry> entries) {
+        return entries.stream().map(entry -> entry.getElementHandle() + ' ' + entry.getName()).toList();
+    }
+
+    @Test
+    public void recordedNameFilterIsLoadedWithTheStore() throws Exception {
+        try (Connection conn = databaseWithEntries()) {
+            Object dbLock = new Object();
+            assertNull(new SqliteEntryStore(conn, dbLock, 1).nameFilter());
+
+            SqliteEntryStore.recordNameFilter(conn, 1);
+            NameFilter filter = new SqliteEntryStore(conn, dbLock, 1).nameFilter();
+            assertNotNull(filter);
+            assertTrue(filter.mightContain(Kind.METHOD, "alpha", "alpha")); //$NON-NLS-1$ //$NON-NLS-2$
+            assertTrue(filter.mightContain(Kind.METHOD, "", "pkg.beta")); //$NON-NLS-1$ //$NON-NLS-2$
+            assertFalse(filter.mightContain(Kind.METHOD, "missing", "pkg.missing")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    @Test
+    public void searchDuringLongIndexingTransactionReadsLastCommittedSnapshot() throws Exception {
+        Path dbFile = Files.createTempFile("search-index", ".db"); //$NON-NLS-1$ //$NON-NLS-2$
+        Files.delete(dbFile);
+        Object dbLock = new Object();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch searched = new CountDownLatch(1);
+        try (Connection writer = DriverManager.getConnection("jdbc:sqlite:" + dbFile); //$NON-NLS-1$
+                ReadConnectionPool readers = new ReadConnectionPool(dbFile, 2)) {
+            SqliteEntryStore.initSchema(writer);
+            insertFixture(writer);
+            SqliteEntryStore store = new SqliteEntryStore(writer, dbLock, readers, 1, false, null);
+            Thread indexer = new Thread(() -> {
+                // Holds the writer lock and an open write transaction, like the indexer on a large jar.
+                synchronized (dbLock) {
+                    try (Statement stmt = writer.createStatement()) {
+                        writer.setAutoCommit(false);
+                        stmt.executeUpdate("""
+                                INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category,
+                                        handle_package_id, handle_class_id, handle_member_id, name_id,
+                                        qualified_name_id)
+                                VALUES(1, 1, 0, 0, 0, 0, 0, 0, 1, 1)"""); //$NON-NLS-1$
+                        writing.countDown();
+                        searched.await(10, TimeUnit.SECONDS);
+                        writer.rollback();
+                        writer.setAutoCommit(true);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            indexer.start();
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+            List<BytecodeSearchEntry> matches = new ArrayList<>();
+            long start = System.nanoTime();
+            store.collect(Kind.METHOD, "alpha", "alpha", false, matches::add); //$NON-NLS-1$ //$NON-NLS-2$
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            searched.countDown();
+            indexer.join(10_000L);
+
+            assertEquals(2, matches.size());
+            assertTrue("search waited " + elapsedMillis + " ms for the indexer", elapsedMillis < 1_000L); //$NON-NLS-1$ //$NON-NLS-2$
+        } finally {
+            Files.deleteIfExists(dbFile);
+            Files.deleteIfExists(Path.of(dbFile + "-wal")); //$NON-NLS-1$
+            Files.deleteIfExists(Path.of(dbFile + "-shm")); //$NON-NLS-1$
+        }
+    }
+
+    @Test
+    public void internStringsReusesExistingIdsAndInsertsMissingValues() throws Exception {
+        try (Connection conn = databaseWithEntries()) {
+            Map<String, Integer> ids = SqliteEntryStore.internStrings(conn,
+                    List.of("alpha", "pkg.beta", "delta", "epsilon")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+            assertEquals(4, ids.size());
+            assertEquals(Integer.valueOf(1), ids.get("alpha")); //$NON-NLS-1$
+            assertEquals(Integer.valueOf(3), ids.get("pkg.beta")); //$NON-NLS-1$
+            assertEquals(ids, SqliteEntryStore.internStrings(conn, ids.keySet()));
+            try (Statement stmt = conn.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM strings")) { //$NON-NLS-1$
+                assertTrue(rs.next());
+                assertEquals(9, rs.getInt(1));
+            }
         }
     }
 
+    @Test
+    public void stringIdCacheEvictsLeastRecentlyUsedValuesBeyondCapacity() {
+        StringIdCache cache = new StringIdCache(150);
+        cache.putAll(Map.of("first", 1, "second", 2)); //$NON-NLS-1$ //$NON-NLS-2$
+        cache.get("first"); //$NON-NLS-1$
+        cache.putAll(Map.of("third", 3)); //$NON-NLS-1$
+
+        assertEquals(2, cache.size());
+        assertEquals(Integer.valueOf(1), cache.get("first")); //$NON-NLS-1$
+        assertNull(cache.get("second")); //$NON-NLS-1$
+        assertEquals(Integer.valueOf(3), cache.get("third")); //$NON-NLS-1$
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void rebuiltJarReusesTheRowsOfUnchangedClasses() throws Exception {
+        try (Connection conn = SqliteEntryStore.openInMemoryDatabase();
+                Statement stmt = conn.createStatement()) {
+            List<BytecodeJarIndexer.JarEntryWork> before = List.of(classWork("a/A.class", 1L), //$NON-NLS-1$
+                    classWork("a/B.class", 2L), classWork("a/Gone.class", 3L)); //$NON-NLS-1$ //$NON-NLS-2$
+            int oldJarId = SqliteEntryStore.registerJar(conn, "=p", "/tmp/lib.jar", 1, 1, 21, 1, "old").jarId(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            Map<String, Integer> ids = SqliteEntryStore.internStrings(conn,
+                    List.of("a/A.class", "a/B.class", "a/Gone.class", "a/New.class")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            SqliteEntryStore.insertClasses(conn, oldJarId, before, ids);
+            for (BytecodeJarIndexer.JarEntryWork classEntry : before) {
+                stmt.executeUpdate("INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category, " //$NON-NLS-1$
+                        + "class_name_id) VALUES(" + oldJarId + ", 1, 1, 0, 0, " + ids.get(classEntry.name()) + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+
+            List<BytecodeJarIndexer.JarEntryWork> after = List.of(classWork("a/A.class", 1L), //$NON-NLS-1$
+                    classWork("a/B.class", 20L), classWork("a/New.class", 4L)); //$NON-NLS-1$ //$NON-NLS-2$
+            SqliteEntryStore.IndexedClasses base = SqliteEntryStore.findIndexedClasses(conn, new Object(), "=p", //$NON-NLS-1$
+                    "/tmp/lib.jar", 21); //$NON-NLS-1$
+            assertNotNull(base);
+            assertEquals(oldJarId, base.jarId());
+            assertEquals(Set.of("a/A.class"), base.unchangedIn(after)); //$NON-NLS-1$
+            assertNull(SqliteEntryStore.findIndexedClasses(conn, new Object(), "=other", "/tmp/lib.jar", 21)); //$NON-NLS-1$ //$NON-NLS-2$
+
+            int newJarId = SqliteEntryStore.registerJar(conn, "=p", "/tmp/lib.jar", 2, 1, 21, 2, "new").jarId(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            SqliteEntryStore.insertClasses(conn, newJarId, after, ids);
+            assertEquals(1, SqliteEntryStore.copyUnchangedClasses(conn, oldJarId, newJarId));
+            try (ResultSet rs = stmt.executeQuery("SELECT class_name_id FROM entries WHERE jar_id = " + newJarId)) { //$NON-NLS-1$
+                assertTrue(rs.next());
+                assertEquals(ids.get("a/A.class").intValue(), rs.getInt(1)); //$NON-NLS-1$
+                assertFalse(rs.next());
+            }
+        }
+    }
+
+    @Test
+    public void prunedJarReleasesOnlyTheStringsNoOtherJarUses() throws Exception {
+        try (Connection conn = SqliteEntryStore.openInMemoryDatabase();
+                Statement stmt = conn.createStatement()) {
+            Map<String, Integer> ids = SqliteEntryStore.internStrings(conn,
+                    List.of("shared", "onlyFirst", "onlySecond")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            int first = SqliteEntryStore.registerJar(conn, "=p", "/tmp/first.jar", 1, 1, 21, 1, "first").jarId(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            int second = SqliteEntryStore.registerJar(conn, "=p", "/tmp/second.jar", 1, 1, 21, 2, "second").jarId(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            insertNamedEntry(stmt, first, ids.get("shared"), ids.get("onlyFirst")); //$NON-NLS-1$ //$NON-NLS-2$
+            insertNamedEntry(stmt, second, ids.get("shared"), ids.get("onlySecond")); //$NON-NLS-1$ //$NON-NLS-2$
+            SqliteEntryStore.recordStringOwners(conn, first);
+            SqliteEntryStore.recordStringOwners(conn, second);
+            Object lock = new Object();
+            assertEquals(0, SqliteEntryStore.collectReleasedStrings(conn, lock, 10));
+
+            SqliteEntryStore.pruneOrphanJarRows(conn, Map.of("=p\0/tmp/second.jar", second)); //$NON-NLS-1$
+            assertEquals(1, SqliteEntryStore.collectReleasedStrings(conn, lock, 1));
+            assertEquals(1, SqliteEntryStore.collectReleasedStrings(conn, lock, 1));
+            assertEquals(0, SqliteEntryStore.collectReleasedStrings(conn, lock, 1));
+
+            try (ResultSet rs = stmt.executeQuery("SELECT value FROM strings ORDER BY value")) { //$NON-NLS-1$
+                assertTrue(rs.next());
+                assertEquals("onlySecond", rs.getString(1)); //$NON-NLS-1$
+                assertTrue(rs.next());
+                assertEquals("shared", rs.getString(1)); //$NON-NLS-1$
+                assertFalse(rs.next());
+            }
+        }
+    }
+
+    @Test
+    public void subtypeQueriesFollowSupertypeEdgesAcrossJars() throws Exception {
+        try (Connection conn = SqliteEntryStore.openInMemoryDatabase();
+                Statement stmt = conn.createStatement()) {
+            Map<String, Integer> ids = SqliteEntryStore.internStrings(conn,
+                    List.of("x.Api", "a.Base", "a.Impl", "Base", "Impl", "b.Other", "y.Unrelated")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+            int api = SqliteEntryStore.registerJar(conn, "=p", "/tmp/base.jar", 1, 1, 21, 1, "base").jarId(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            int impl = SqliteEntryStore.registerJar(conn, "=p", "/tmp/impl.jar", 1, 1, 21, 2, "impl").jarId(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            SqliteEntryStore.insertSupertypes(conn, api, List.of(new EntryStore.SupertypeEdge("a.Base", "x.Api"), //$NON-NLS-1$ //$NON-NLS-2$
+                    new EntryStore.SupertypeEdge("b.Other", "y.Unrelated")), Arrays.asList(null, null), ids); //$NON-NLS-1$ //$NON-NLS-2$
+            SqliteEntryStore.insertSupertypes(conn, impl, List.of(new EntryStore.SupertypeEdge("a.Impl", "a.Base")), //$NON-NLS-1$ //$NON-NLS-2$
+                    Arrays.asList((String) null), ids);
+            stmt.executeUpdate("INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category, " //$NON-NLS-1$
+                    + "name_id, qualified_name_id) VALUES(" + api + ", 0, 1, 0, 0, " + ids.get("Base") + ", " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    + ids.get("a.Base") + "), (" + impl + ", 0, 1, 0, 0, " + ids.get("Impl") + ", " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+                    + ids.get("a.Impl") + "), (" + impl + ", 0, 0, 0, 0, " + ids.get("Base") + ", " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+                    + ids.get("a.Base") + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+            Object lock = new Object();
+            List<SqliteEntryStore> stores = List.of(new SqliteEntryStore(conn, lock, api),
+                    new SqliteEntryStore(conn, lock, impl));
+
+            Set<String> subtypes = new TreeSet<>();
+            SqliteEntryStore.collectSubtypes(stores, Set.of("x.Api"), null, subtypes::add); //$NON-NLS-1$
+            assertEquals(Set.of("a.Base", "a.Impl"), subtypes); //$NON-NLS-1$ //$NON-NLS-2$
+
+            subtypes.clear();
+            SqliteEntryStore.collectSubtypes(stores.subList(0, 1), Set.of("x.Api"), null, subtypes::add); //$NON-NLS-1$
+            assertEquals(Set.of("a.Base"), subtypes); //$NON-NLS-1$
+
+            List<BytecodeSearchEntry> declarations = new ArrayList<>();
+            SqliteEntryStore.collectTypeDeclarations(stores, List.of("a.Base", "a.Impl"), null, declarations::add); //$NON-NLS-1$ //$NON-NLS-2$
+            assertEquals(List.of("a.Base", "a.Impl"), //$NON-NLS-1$ //$NON-NLS-2$
+                    declarations.stream().map(BytecodeSearchEntry::getQualifiedName).sorted().toList());
+            assertTrue(declarations.stream().allMatch(BytecodeSearchEntry::isDeclaration));
+        }
+    }
+
+    @Test
+    public void canceledSearchStopsTheRunningStatement() throws Exception {
+        try (Connection conn = databaseWithEntries(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("""
+                    WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 50000)
+                    INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category, name_id,
+                            qualified_name_id)
+                    SELECT 1, 1, 0, 0, 0, 1, 1 FROM n"""); //$NON-NLS-1$
+            List<SqliteEntryStore> stores = List.of(new SqliteEntryStore(conn, new Object(), 1));
+            List<BytecodeSearchEntry> matches = new ArrayList<>();
+            NullProgressMonitor monitor = new NullProgressMonitor();
+
+            SqliteEntryStore.collectRows(stores, Kind.METHOD, "*", "*", true, monitor, //$NON-NLS-1$ //$NON-NLS-2$
+                    (store, row, entry) -> {
+                        if (matches.add(entry) && matches.size() == 10) {
+                            monitor.setCanceled(true);
+                        }
+                    });
+
+            assertTrue(matches.size() < 1000);
+            monitor.setCanceled(false);
+            matches.clear();
+            SqliteEntryStore.collectRows(stores, Kind.METHOD, "*", "*", true, monitor, //$NON-NLS-1$ //$NON-NLS-2$
+                    (store, row, entry) -> matches.add(entry));
+            assertEquals(50004, matches.size());
+        }
+    }
+
+    private static void insertNamedEntry(Statement stmt, int jarId, int nameId, int qualifiedNameId)
+            throws Exception {
+        stmt.executeUpdate("INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category, " //$NON-NLS-1$
+                + "name_id, qualified_name_id) VALUES(" + jarId + ", 1, 1, 0, 0, " + nameId + ", " //$NON-NLS-1$ //$NON-NLS-2$
+                + qualifiedNameId + ")"); //$NON-NLS-1$
+    }
+
+    private static BytecodeJarIndexer.JarEntryWork classWork(String name, long crc) {
+        return new BytecodeJarIndexer.JarEntryWork(name, 1L, 1, crc);
+    }
+
     private static Connection databaseWithEntries() throws Exception {
         Connection conn = SqliteEntryStore.openInMemoryDatabase();
+        insertFixture(conn);
+        return conn;
+    }
+
+    private static void insertFixture(Connection conn) throws Exception {
         try (Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("""
                     INSERT INTO jars(id, root_handle, path, last_modified, file_length, runtime_version, file_crc,
@@ -119,15 +483,14 @@ public class SqliteEntryStoreTest {
             stmt.executeUpdate("""
                     INSERT INTO strings(id, value) VALUES
                     (1, 'alpha'), (2, 'beta'), (3, 'pkg.beta'), (4, 'pkg.Gamma'),
-                    (5, '=canonical/pkg/Type.class')"""); //$NON-NLS-1$
+                    (5, '<pkg'), (20, '(Type.class'), (21, '[Type')"""); //$NON-NLS-1$
             stmt.executeUpdate("""
                     INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category,
-                            element_handle_id, name_id, qualified_name_id) VALUES
-                    (1, 1, 0, 0, 0, 5, 1, 1),
-                    (1, 1, 0, 0, 0, 0, 2, 3),
-                    (1, 1, 0, 0, 0, 0, 1, 3),
-                    (1, 1, 0, 0, 0, 0, 4, 4)"""); //$NON-NLS-1$
+                            handle_package_id, handle_class_id, handle_member_id, name_id, qualified_name_id) VALUES
+                    (1, 1, 0, 0, 0, 5, 20, 21, 1, 1),
+                    (1, 1, 0, 0, 0, 0, 0, 0, 2, 3),
+                    (1, 1, 0, 0, 0, 0, 0, 0, 1, 3),
+                    (1, 1, 0, 0, 0, 0, 0, 0, 4, 4)"""); //$NON-NLS-1$
         }
-        return conn;
     }
 }
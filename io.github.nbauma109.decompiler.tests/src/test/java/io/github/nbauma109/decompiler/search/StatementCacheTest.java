@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import org.junit.Test;
+
+public class StatementCacheTest {
+
+    @Test
+    public void statementsAreReusedUntilEvicted() throws Exception {
+        try (Connection conn = SqliteEntryStore.openInMemoryDatabase();
+                StatementCache statements = new StatementCache(conn, 2)) {
+            PreparedStatement first = statements.prepare("SELECT ?"); //$NON-NLS-1$
+            first.setInt(1, 1);
+            PreparedStatement second = statements.prepare("SELECT ?, ?"); //$NON-NLS-1$
+
+            assertSame(first, statements.prepare("SELECT ?")); //$NON-NLS-1$
+            statements.prepare("SELECT ?, ?, ?"); //$NON-NLS-1$
+
+            assertEquals(2, statements.size());
+            assertTrue(second.isClosed());
+            assertFalse(first.isClosed());
+            assertNotSame(second, statements.prepare("SELECT ?, ?")); //$NON-NLS-1$
+            assertTrue(first.isClosed());
+        }
+    }
+}
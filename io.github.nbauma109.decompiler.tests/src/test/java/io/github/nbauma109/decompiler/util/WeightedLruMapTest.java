@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package io.github.nbauma109.decompiler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class WeightedLruMapTest {
+
+    @Test
+    public void leastRecentlyUsedMappingsAreEvictedBeyondCapacity() {
+        WeightedLruMap<String, Long> map = new WeightedLruMap<>(400L, (key, weight) -> weight);
+        for (int i = 0; i < 8; i++) {
+            List<String> evicted = map.put("k" + i, 100L); //$NON-NLS-1$
+            assertEquals(i < 4 ? List.of() : List.of("k" + (i - 3)), evicted); //$NON-NLS-1$
+            assertEquals(Long.valueOf(100L), map.get("k0")); //$NON-NLS-1$
+            assertTrue(map.weight() <= map.capacity());
+        }
+        assertEquals(4, map.size());
+        assertEquals(400L, map.weight());
+
+        assertEquals(List.of("k5", "k6"), map.setCapacity(200L)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(Long.valueOf(100L), map.get("k0")); //$NON-NLS-1$
+        assertEquals(Long.valueOf(100L), map.get("k7")); //$NON-NLS-1$
+        assertEquals(200L, map.weight());
+    }
+
+    @Test
+    public void mappingsHeavierThanAQuarterOfTheCapacityAreNotKept() {
+        WeightedLruMap<String, Long> map = new WeightedLruMap<>(400L, (key, weight) -> weight);
+        assertTrue(map.accepts(100L));
+        assertEquals(List.of(), map.put("small", 100L)); //$NON-NLS-1$
+        assertEquals(List.of(), map.put("huge", 101L)); //$NON-NLS-1$
+        assertNull(map.get("huge")); //$NON-NLS-1$
+
+        // A mapping that grows too heavy is dropped.
+        assertEquals(List.of("small"), map.put("small", 101L)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(map.get("small")); //$NON-NLS-1$
+        assertEquals(0L, map.weight());
+    }
+
+    @Test
+    public void removedMappingsReleaseTheirWeight() {
+        WeightedLruMap<String, Long> map = new WeightedLruMap<>(400L, (key, weight) -> weight);
+        map.put("a1", 10L); //$NON-NLS-1$
+        map.put("a2", 20L); //$NON-NLS-1$
+        map.put("b1", 40L); //$NON-NLS-1$
+        map.put("b1", 30L); //$NON-NLS-1$
+        assertEquals(60L, map.weight());
+
+        map.removeIf(key -> key.startsWith("a")); //$NON-NLS-1$
+        assertEquals(1, map.size());
+        assertEquals(30L, map.weight());
+        assertEquals(Long.valueOf(30L), map.remove("b1")); //$NON-NLS-1$
+        assertNull(map.remove("b1")); //$NON-NLS-1$
+        assertEquals(0L, map.weight());
+
+        map.put("c1", 50L); //$NON-NLS-1$
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0L, map.weight());
+    }
+}
@@ -65,6 +65,11 @@ public class JavaDecompilerPlugin extends AbstractUIPlugin implements IPropertyC
     public static final String ATTACH_SOURCE = "io.github.nbauma109.decompiler.attach_source"; //$NON-NLS-1$ ;
     public static final String WAIT_FOR_SOURCES = "io.github.nbauma109.decompiler.wait_for_sources"; //$NON-NLS-1$ ;
     public static final String EXCLUDE_PACKAGES = "io.github.nbauma109.decompiler.exclude_packages"; //$NON-NLS-1$ ;
+    public static final String SEARCH_INDEX_THREADS = "io.github.nbauma109.decompiler.search_index_threads"; //$NON-NLS-1$
+    public static final String SEARCH_AST_CACHE_MB = "io.github.nbauma109.decompiler.search_ast_cache_mb"; //$NON-NLS-1$
+    public static final int DEFAULT_SEARCH_AST_CACHE_MB = 64;
+    public static final String DECOMPILED_SOURCE_CACHE_MB = "io.github.nbauma109.decompiler.decompiled_source_cache_mb"; //$NON-NLS-1$
+    public static final int DEFAULT_DECOMPILED_SOURCE_CACHE_MB = 256;
 
     private static final String classFileAttributePreferencesPrefix = "CLASS_FILE_ATTR_"; //$NON-NLS-1$
     private static final String CLASS_FILE_ATTR_SHOW_CONSTANT_POOL = classFileAttributePreferencesPrefix
@@ -155,6 +160,9 @@ public class JavaDecompilerPlugin extends AbstractUIPlugin implements IPropertyC
         store.setDefault(WAIT_FOR_SOURCES, true);
         store.setDefault(EXPORT_ENCODING, StandardCharsets.UTF_8.name());
         store.setDefault(NEXUS_BYPASS_PROXY, true);
+        store.setDefault(SEARCH_INDEX_THREADS, defaultSearchIndexThreads());
+        store.setDefault(SEARCH_AST_CACHE_MB, DEFAULT_SEARCH_AST_CACHE_MB);
+        store.setDefault(DECOMPILED_SOURCE_CACHE_MB, DEFAULT_DECOMPILED_SOURCE_CACHE_MB);
 
         store.setDefault(CLASS_FILE_ATTR_SHOW_CONSTANT_POOL, false);
         store.setDefault(CLASS_FILE_ATTR_SHOW_LINE_NUMBER_TABLE, false);
@@ -167,6 +175,14 @@ public class JavaDecompilerPlugin extends AbstractUIPlugin implements IPropertyC
         store.setDefault(CLASS_FILE_ATTR_SHOW_MAXS, false);
     }
 
+    /**
+     * Library bytecode indexing is parse-bound, so use half the cores to keep the workbench
+     * responsive while the index is built.
+     */
+    public static int defaultSearchIndexThreads() {
+        return Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 8);
+    }
+
     @Override
     public void propertyChange(PropertyChangeEvent event) {
         if (event.getProperty().equals(IGNORE_EXISTING)) {
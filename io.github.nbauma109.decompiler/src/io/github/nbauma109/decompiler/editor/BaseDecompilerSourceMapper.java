@@ -18,7 +18,9 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -62,6 +64,7 @@ public class BaseDecompilerSourceMapper extends DecompilerSourceMapper {
 
     protected Decompiler<?> currentDecompiler;
     private String classLocation;
+    private RealignStatus realignStatus;
 
     private static Map<String, String> compilerOptions = new HashMap<>();
     static {
@@ -195,6 +198,75 @@ public class BaseDecompilerSourceMapper extends DecompilerSourceMapper {
         int index = className.lastIndexOf('/');
         className = className.substring(index + 1);
 
+        DecompiledSourceCache cache = DecompiledSourceCache.getDefault();
+        // The key reads and hashes the class files, so it is only made for an enabled cache.
+        String cacheKey = cache == null ? null : cacheKey(type, prefs);
+        long start = System.nanoTime();
+        DecompiledSourceCache.Entry decompiled = cacheKey == null ? null : cache.get(cacheKey);
+        long time;
+        if (decompiled == null) {
+            decompiled = decompileSource(type, info, root, className, exceptions, prefs);
+            if (decompiled == null) {
+                return null;
+            }
+            time = currentDecompiler.getDecompilationTime();
+            // A source decompiled with errors is not kept, so that another session tries again.
+            if (cacheKey != null && exceptions.isEmpty()) {
+                cache.put(cacheKey, decompiled);
+            }
+        } else {
+            time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            try {
+                String pkg = type.getPackageFragment().getElementName().replace('.', '/');
+                classLocation = classLocation(root, pkg, className);
+            } catch (JavaModelException e) {
+                Logger.debug(e);
+                classLocation = ""; //$NON-NLS-1$
+            }
+            // Sources with a failed realignment are never cached.
+            if (!realignRequested(prefs)) {
+                realignStatus = RealignStatus.TURNED_OFF;
+            } else if (currentDecompiler.supportsRealignment()) {
+                realignStatus = RealignStatus.NATIVELY_REALIGNED;
+            } else {
+                realignStatus = RealignStatus.PARSED_AND_REALIGNED;
+            }
+        }
+
+        String sourceAsString = decompiled.source();
+        // The report names the location and time of this lookup, so it is never cached.
+        if (prefs.getBoolean(JavaDecompilerPlugin.PREF_DISPLAY_METADATA)) {
+            StringBuilder source = new StringBuilder(sourceAsString);
+            printDecompileReport(source, classLocation, time, exceptions, realignStatus);
+            sourceAsString = source.toString();
+        }
+        DecompiledLineMap.record(sourceAsString, decompiled.aligned());
+        char[] sourceAsCharArray = sourceAsString.toCharArray();
+        if (originalSourceMapper.containsKey(root)) {
+            SourceMapper rootSourceMapper = originalSourceMapper.get(root);
+            if (rootSourceMapper.findSource(type, info) == null) {
+                SourceMapperUtil.mapSource(rootSourceMapper, type, sourceAsCharArray, info);
+            }
+        }
+
+        updateSourceRanges(type, sourceAsCharArray);
+        return sourceAsCharArray;
+    }
+
+    private static boolean realignRequested(IPreferenceStore prefs) {
+        return (prefs.getBoolean(JavaDecompilerPlugin.PREF_DISPLAY_LINE_NUMBERS)
+                && prefs.getBoolean(JavaDecompilerPlugin.ALIGN))
+                || JavaDecompilerPlugin.getDefault().isDebug()
+                || UIUtil.isDebugPerspective();
+    }
+
+    /**
+     * Decompiles {@code type} and realigns, sorts and formats its source as the preferences say,
+     * or returns {@code null} when the decompiler gave no source. The decompilation report is
+     * left out.
+     */
+    private DecompiledSourceCache.Entry decompileSource(IType type, IBinaryType info, IPackageFragmentRoot root,
+            String className, Collection<Exception> exceptions, IPreferenceStore prefs) {
         classLocation = ""; //$NON-NLS-1$
 
         DecompilationResult res = decompile(type, exceptions, root, className);
@@ -205,14 +277,8 @@ public class BaseDecompilerSourceMapper extends DecompilerSourceMapper {
 
         String code = UnicodeUtil.decode(res.getDecompiledOutput());
 
-        boolean showReport = prefs.getBoolean(JavaDecompilerPlugin.PREF_DISPLAY_METADATA);
-
-        boolean showLineNumber = prefs.getBoolean(JavaDecompilerPlugin.PREF_DISPLAY_LINE_NUMBERS);
-        boolean align = prefs.getBoolean(JavaDecompilerPlugin.ALIGN);
-        RealignStatus realignStatus = RealignStatus.TURNED_OFF;
-        if ((showLineNumber && align)
-                || JavaDecompilerPlugin.getDefault().isDebug()
-                || UIUtil.isDebugPerspective()) {
+        realignStatus = RealignStatus.TURNED_OFF;
+        if (realignRequested(prefs)) {
             if (currentDecompiler.supportsRealignment()) {
                 realignStatus = RealignStatus.NATIVELY_REALIGNED;
             } else {
@@ -227,12 +293,16 @@ public class BaseDecompilerSourceMapper extends DecompilerSourceMapper {
         }
 
         StringBuilder source = new StringBuilder();
+        boolean aligned = realignStatus == RealignStatus.NATIVELY_REALIGNED
+                || realignStatus == RealignStatus.PARSED_AND_REALIGNED;
 
         if (!JavaDecompilerPlugin.getDefault().isDebug() && !UIUtil.isDebugPerspective()) {
             boolean useSorter = prefs.getBoolean(JavaDecompilerPlugin.USE_ECLIPSE_SORTER);
+            // Sorting or formatting moves the realigned lines again.
+            aligned &= !useSorter && !prefs.getBoolean(JavaDecompilerPlugin.USE_ECLIPSE_FORMATTER);
             if (useSorter) {
                 className = new String(info.getName());
-                fullName = new String(info.getFileName());
+                String fullName = new String(info.getFileName());
                 if (fullName.lastIndexOf(className) != -1) {
                     className = fullName.substring(fullName.lastIndexOf(className));
                 }
@@ -246,20 +316,45 @@ public class BaseDecompilerSourceMapper extends DecompilerSourceMapper {
             source.append(code);
         }
 
-        if (showReport) {
-            printDecompileReport(source, classLocation, exceptions, realignStatus);
-        }
+        return new DecompiledSourceCache.Entry(source.toString(), aligned);
+    }
 
-        char[] sourceAsCharArray = source.toString().toCharArray();
-        if (originalSourceMapper.containsKey(root)) {
-            SourceMapper rootSourceMapper = originalSourceMapper.get(root);
-            if (rootSourceMapper.findSource(type, info) == null) {
-                SourceMapperUtil.mapSource(rootSourceMapper, type, sourceAsCharArray, info);
+    /**
+     * Returns the key of the source of {@code type} in the disk cache, from the bytes of its class
+     * file and of its nested class files, the decompiler and the preferences that change the
+     * source; or {@code null} for a nested type, whose source is the one of its top-level type.
+     */
+    private String cacheKey(IType type, IPreferenceStore prefs) {
+        if (type.getDeclaringType() != null) {
+            return null;
+        }
+        try {
+            IClassFile classFile = type.getClassFile();
+            String nestedPrefix = classFile.getElementName().replace(".class", "$"); //$NON-NLS-1$ //$NON-NLS-2$
+            List<IClassFile> nestedClassFiles = new ArrayList<>();
+            for (IClassFile sibling : type.getPackageFragment().getOrdinaryClassFiles()) {
+                if (sibling.getElementName().startsWith(nestedPrefix)) {
+                    nestedClassFiles.add(sibling);
+                }
             }
+            nestedClassFiles.sort(Comparator.comparing(IClassFile::getElementName));
+            List<byte[]> classFiles = new ArrayList<>(nestedClassFiles.size() + 1);
+            classFiles.add(classFile.getBytes());
+            for (IClassFile nestedClassFile : nestedClassFiles) {
+                classFiles.add(nestedClassFile.getBytes());
+            }
+            boolean debug = JavaDecompilerPlugin.getDefault().isDebug() || UIUtil.isDebugPerspective();
+            List<String> settings = List.of(
+                    Boolean.toString(prefs.getBoolean(JavaDecompilerPlugin.ALIGN)),
+                    Boolean.toString(prefs.getBoolean(JavaDecompilerPlugin.PREF_DISPLAY_LINE_NUMBERS)),
+                    Boolean.toString(prefs.getBoolean(JavaDecompilerPlugin.USE_ECLIPSE_FORMATTER)),
+                    Boolean.toString(prefs.getBoolean(JavaDecompilerPlugin.USE_ECLIPSE_SORTER)),
+                    Boolean.toString(debug));
+            return DecompiledSourceCache.key(getDecompilerName(), getDecompilerVersion(), settings, classFiles);
+        } catch (JavaModelException | RuntimeException e) {
+            Logger.debug(e);
+            return null;
         }
-
-        updateSourceRanges(type, sourceAsCharArray);
-        return sourceAsCharArray;
     }
 
     public boolean isSourceLookupEligible(IType type, String[] excludedPackages) {
@@ -331,18 +426,9 @@ public class BaseDecompilerSourceMapper extends DecompilerSourceMapper {
 
                 result = currentDecompiler.decompileFromArchive(archivePath, pkg, className);
             } else {
-                String rootLocation = null;
                 try {
-                    if (root.getUnderlyingResource() != null) {
-                        rootLocation = root.getUnderlyingResource().getLocation().toOSString();
-                    } else if (root instanceof ExternalPackageFragmentRoot externalPackageFragmentRoot) {
-                        rootLocation = externalPackageFragmentRoot.getPath().toOSString();
-                    } else {
-                        rootLocation = root.getPath().toOSString();
-                    }
-                    classLocation += rootLocation + "/" //$NON-NLS-1$
-                            + pkg + "/" //$NON-NLS-1$
-                            + className;
+                    String rootLocation = rootLocation(root);
+                    classLocation += classLocation(root, pkg, className);
 
                     result = currentDecompiler.decompile(rootLocation, pkg, className);
                 } catch (JavaModelException e) {
@@ -445,15 +531,39 @@ public class BaseDecompilerSourceMapper extends DecompilerSourceMapper {
         }
     }
 
+    private String classLocation(IPackageFragmentRoot root, String pkg, String className) throws JavaModelException {
+        if (root.isArchive()) {
+            return getArchivePath(root);
+        }
+        return rootLocation(root) + "/" //$NON-NLS-1$
+                + pkg + "/" //$NON-NLS-1$
+                + className;
+    }
+
+    private static String rootLocation(IPackageFragmentRoot root) throws JavaModelException {
+        if (root.getUnderlyingResource() != null) {
+            return root.getUnderlyingResource().getLocation().toOSString();
+        }
+        if (root instanceof ExternalPackageFragmentRoot externalPackageFragmentRoot) {
+            return externalPackageFragmentRoot.getPath().toOSString();
+        }
+        return root.getPath().toOSString();
+    }
+
     public void printDecompileReport(StringBuilder source, String fileLocation, Collection<Exception> exceptions,
             RealignStatus realignStatus) {
+        printDecompileReport(source, fileLocation, currentDecompiler.getDecompilationTime(), exceptions, realignStatus);
+    }
+
+    private void printDecompileReport(StringBuilder source, String fileLocation, long time,
+            Collection<Exception> exceptions, RealignStatus realignStatus) {
         source.append("\n\n/*"); //$NON-NLS-1$
         source.append("\n\tDECOMPILATION REPORT\n"); //$NON-NLS-1$
 
         source.append("\n\tDecompiled from: "); //$NON-NLS-1$
         source.append(fileLocation);
         source.append("\n\tTotal time: "); //$NON-NLS-1$
-        source.append(currentDecompiler.getDecompilationTime());
+        source.append(time);
         source.append(" ms\n\t"); //$NON-NLS-1$
         logExceptions(exceptions, source);
         String decompiler = currentDecompiler.getName();
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lines of a decompiled source showing each line of the original source, as read from the
+ * line-number comments the decompiler wrote, such as <code>/* 12 *&#47;</code>, or, for a realigned source,
+ * from the position of the lines themselves.
+ *
+ * <p>{@link BaseDecompilerSourceMapper} records the map of every source it builds, since only it
+ * knows whether the lines were realigned; the maps of the most recently used sources are kept.
+ */
+public final class DecompiledLineMap {
+
+    private static final Pattern LINE_NUMBER_COMMENT = Pattern.compile("/\\*\\s*(\\d+)\\s*\\*/"); //$NON-NLS-1$
+    private static final int MAX_SOURCES = 32;
+    private static final int[] NO_LINES = new int[0];
+    private static final LinkedHashMap<String, DecompiledLineMap> SOURCES = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Offset of each decompiled line, followed by the length of the source.
+    private final int[] lineStarts;
+    // Decompiled lines of each original line, or null when the source is realigned.
+    private final Map<Integer, int[]> decompiledLines;
+
+    private DecompiledLineMap(int[] lineStarts, Map<Integer, int[]> decompiledLines) {
+        this.lineStarts = lineStarts;
+        this.decompiledLines = decompiledLines;
+    }
+
+    /**
+     * Records the map of {@code source}, built by a decompiler that may have put each statement
+     * back on its original line.
+     *
+     * @param aligned whether line {@code n} of {@code source} shows line {@code n} of the original
+     *        source
+     */
+    public static void record(String source, boolean aligned) {
+        remember(source, aligned ? new DecompiledLineMap(lineStarts(source), null) : fromComments(source), true);
+    }
+
+    /**
+     * Returns the map recorded for {@code source}, or the one read from its line-number comments,
+     * or {@code null} when its lines cannot be matched to the original ones.
+     */
+    public static DecompiledLineMap of(String source) {
+        DecompiledLineMap map;
+        synchronized (SOURCES) {
+            map = SOURCES.get(source);
+        }
+        if (map == null) {
+            map = fromComments(source);
+            remember(source, map, false);
+        }
+        return map.isEmpty() ? null : map;
+    }
+
+    private static void remember(String source, DecompiledLineMap map, boolean replace) {
+        synchronized (SOURCES) {
+            if (replace) {
+                SOURCES.put(source, map);
+            } else {
+                SOURCES.putIfAbsent(source, map);
+            }
+            Iterator<DecompiledLineMap> eldest = SOURCES.values().iterator();
+            while (SOURCES.size() > MAX_SOURCES && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static DecompiledLineMap fromComments(String source) {
+        int[] starts = lineStarts(source);
+        Map<Integer, List<Integer>> lines = new HashMap<>();
+        Matcher matcher = LINE_NUMBER_COMMENT.matcher(source);
+        while (matcher.find()) {
+            int decompiledLine = lineAt(starts, matcher.start());
+            try {
+                List<Integer> shown = lines.computeIfAbsent(Integer.valueOf(matcher.group(1)), key -> new ArrayList<>());
+                if (shown.isEmpty() || shown.get(shown.size() - 1) != decompiledLine) {
+                    shown.add(decompiledLine);
+                }
+            } catch (NumberFormatException e) {
+                // Not a line number the class file can hold.
+            }
+        }
+        Map<Integer, int[]> decompiledLines = new HashMap<>(lines.size() * 2);
+        lines.forEach((line, shown) -> decompiledLines.put(line, shown.stream().mapToInt(Integer::intValue).toArray()));
+        return new DecompiledLineMap(starts, decompiledLines);
+    }
+
+    private static int[] lineStarts(String source) {
+        int[] starts = new int[16];
+        int count = 0;
+        starts[count++] = 0;
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count + 1);
+        }
+        starts[count++] = source.length();
+        return Arrays.copyOf(starts, count);
+    }
+
+    private static int lineAt(int[] starts, int offset) {
+        int index = Arrays.binarySearch(starts, 0, starts.length - 1, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private boolean isEmpty() {
+        return decompiledLines != null && decompiledLines.isEmpty();
+    }
+
+    /**
+     * Returns the zero-based decompiled lines showing the one-based {@code originalLine}, in order,
+     * or an empty array.
+     */
+    public int[] decompiledLines(int originalLine) {
+        if (decompiledLines != null) {
+            return decompiledLines.getOrDefault(originalLine, NO_LINES);
+        }
+        return originalLine >= 1 && originalLine < lineStarts.length ? new int[] { originalLine - 1 } : NO_LINES;
+    }
+
+    /** Offset of the first character of the zero-based decompiled {@code line}. */
+    public int lineStart(int line) {
+        return lineStarts[line];
+    }
+
+    /** Offset just past the last character of the zero-based decompiled {@code line}, before its line break. */
+    public int lineEnd(int line) {
+        // Every line but the last one ends with a line break.
+        return line + 2 < lineStarts.length ? lineStarts[line + 1] - 1 : lineStarts[line + 1];
+    }
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.editor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import io.github.nbauma109.decompiler.JavaDecompilerPlugin;
+import io.github.nbauma109.decompiler.util.HashUtils;
+import io.github.nbauma109.decompiler.util.Logger;
+import io.github.nbauma109.decompiler.util.WeightedLruMap;
+
+/**
+ * {@link WeightedLruMap Least-recently-used} disk cache of decompiled sources, bounded by their
+ * size on disk.
+ *
+ * <p>A source is stored under a SHA-256 of the bytes of its class files, the decompiler name and
+ * version, and the settings that change the text, so a key never needs to be invalidated: a
+ * changed class or setting simply looks up another file. Recency survives restarts as the
+ * modification time of the files, which is updated on every hit.
+ *
+ * <p>The monitor of the cache only guards its index of the files, which are read, written and
+ * deleted outside of it; a file deleted by a concurrent eviction is read as a miss.
+ */
+final class DecompiledSourceCache {
+
+    // Part of every key, to be changed with the format of the files.
+    private static final int FORMAT = 2;
+    private static final String SOURCE_SUFFIX = ".src"; //$NON-NLS-1$
+    private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+    private static final byte ALIGNED = 'A';
+    private static final byte UNALIGNED = 'U';
+
+    private static DecompiledSourceCache defaultCache;
+
+    private final Path directory;
+    // Size of the file of every cached source, by key.
+    private final WeightedLruMap<String, Long> files;
+    private final Object loading = new Object();
+    private volatile boolean loaded;
+
+    /**
+     * A decompiled source, and whether its lines were put back on the lines of the original source.
+     */
+    record Entry(String source, boolean aligned) {
+    }
+
+    /**
+     * @param capacity maximum number of bytes held by the cached files; {@code 0} disables the
+     *        cache
+     */
+    DecompiledSourceCache(Path directory, long capacity) {
+        this.directory = directory;
+        this.files = new WeightedLruMap<>(capacity, (key, size) -> size);
+    }
+
+    /**
+     * Returns the cache in the state location of the plugin, sized from its preferences, or
+     * {@code null} when it is disabled.
+     */
+    static synchronized DecompiledSourceCache getDefault() {
+        JavaDecompilerPlugin plugin = JavaDecompilerPlugin.getDefault();
+        if (plugin == null) {
+            return null;
+        }
+        long capacity = plugin.getPreferenceStore().getInt(JavaDecompilerPlugin.DECOMPILED_SOURCE_CACHE_MB) * 1024L * 1024L;
+        if (defaultCache == null) {
+            defaultCache = new DecompiledSourceCache(
+                    plugin.getStateLocation().toFile().toPath().resolve("decompiled-sources"), capacity); //$NON-NLS-1$
+        }
+        defaultCache.setCapacity(capacity);
+        return capacity > 0 ? defaultCache : null;
+    }
+
+    /**
+     * Returns the key of the source decompiled from {@code classFiles}, the top-level class file
+     * followed by its nested class files, in a stable order.
+     *
+     * @param settings the values of the settings the decompiled text depends on
+     */
+    static String key(String decompiler, String version, List<String> settings, List<byte[]> classFiles) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+            update(digest, Integer.toString(FORMAT));
+            update(digest, decompiler);
+            update(digest, version);
+            for (String setting : settings) {
+                update(digest, setting);
+            }
+            for (byte[] classFile : classFiles) {
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(classFile.length).array());
+                digest.update(classFile);
+            }
+            return HashUtils.hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm is not available", e); //$NON-NLS-1$
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * Returns the source cached for {@code key}, or {@code null}.
+     */
+    Entry get(String key) {
+        load();
+        synchronized (this) {
+            if (files.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = file(key);
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8), bytes[0] == ALIGNED);
+        } catch (IOException | RuntimeException e) {
+            Logger.debug(e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Caches {@code entry} for {@code key}, then evicts the least recently used sources beyond
+     * the capacity.
+     */
+    void put(String key, Entry entry) {
+        byte[] source = entry.source().getBytes(StandardCharsets.UTF_8);
+        long fileSize = source.length + 1L;
+        synchronized (this) {
+            if (!files.accepts(fileSize)) {
+                return;
+            }
+        }
+        load();
+        Path file = file(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), key, TEMP_SUFFIX);
+            try {
+                byte[] bytes = new byte[source.length + 1];
+                bytes[0] = entry.aligned() ? ALIGNED : UNALIGNED;
+                System.arraycopy(source, 0, bytes, 1, source.length);
+                Files.write(temp, bytes);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.debug(e);
+            return;
+        }
+        List<String> evicted;
+        synchronized (this) {
+            evicted = files.put(key, fileSize);
+        }
+        delete(evicted);
+    }
+
+    /**
+     * Changes the maximum number of bytes held by the cached files, deleting the least recently
+     * used ones beyond it.
+     */
+    void setCapacity(long capacity) {
+        List<String> evicted;
+        synchronized (this) {
+            evicted = files.setCapacity(capacity);
+        }
+        delete(evicted);
+    }
+
+    long size() {
+        load();
+        synchronized (this) {
+            return files.weight();
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            files.remove(key);
+        }
+        delete(file(key));
+    }
+
+    /**
+     * Reads the sources cached by previous sessions, from the least to the most recently used,
+     * and deletes the temporary files of interrupted writes.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (loading) {
+            if (loaded) {
+                return;
+            }
+            List<CachedFile> cached = Files.isDirectory(directory) ? scan() : List.of();
+            List<String> evicted = new ArrayList<>();
+            synchronized (this) {
+                for (CachedFile file : cached) {
+                    String name = file.path().getFileName().toString();
+                    evicted.addAll(files.put(name.substring(0, name.length() - SOURCE_SUFFIX.length()), file.size()));
+                }
+                loaded = true;
+            }
+            delete(evicted);
+        }
+    }
+
+    private record CachedFile(Path path, long size, long lastModified) {
+    }
+
+    private List<CachedFile> scan() {
+        List<CachedFile> cached = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            Iterator<Path> iterator = paths.iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    delete(path);
+                } else if (name.endsWith(SOURCE_SUFFIX)) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    cached.add(new CachedFile(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.debug(e);
+        }
+        cached.sort(Comparator.comparingLong(CachedFile::lastModified));
+        return cached;
+    }
+
+    // Files are spread over directories named after the first two characters of their keys.
+    private Path file(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SOURCE_SUFFIX);
+    }
+
+    private void delete(List<String> keys) {
+        for (String key : keys) {
+            delete(file(key));
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Logger.debug(e);
+        }
+    }
+}
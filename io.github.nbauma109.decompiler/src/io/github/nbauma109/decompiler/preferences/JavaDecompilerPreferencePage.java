@@ -14,6 +14,7 @@ package io.github.nbauma109.decompiler.preferences;
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.swt.SWT;
@@ -109,6 +110,12 @@ public class JavaDecompilerPreferencePage extends FieldEditorPreferencePage impl
                 basicGroup);
         addField(showReport);
 
+        IntegerFieldEditor sourceCache = new IntegerFieldEditor(JavaDecompilerPlugin.DECOMPILED_SOURCE_CACHE_MB,
+                Messages.getString("JavaDecompilerPreferencePage.Label.DecompiledSourceCacheSize"), //$NON-NLS-1$
+                basicGroup);
+        sourceCache.setValidRange(0, 65536);
+        addField(sourceCache);
+
         GridLayout layout = (GridLayout) basicGroup.getLayout();
         layout.marginWidth = layout.marginHeight = 5;
         basicGroup.layout();
@@ -170,6 +177,28 @@ public class JavaDecompilerPreferencePage extends FieldEditorPreferencePage impl
         layout.marginWidth = layout.marginHeight = 5;
         startupGroup.layout();
 
+        Group searchGroup = new Group(getFieldEditorParent(), SWT.NONE);
+        searchGroup.setText(Messages.getString("JavaDecompilerPreferencePage.Label.LibrarySearch")); //$NON-NLS-1$
+        gd = new GridData(GridData.FILL_HORIZONTAL);
+        gd.horizontalSpan = defaultDecompiler.getNumberOfControls();
+        searchGroup.setLayoutData(gd);
+
+        IntegerFieldEditor indexThreads = new IntegerFieldEditor(JavaDecompilerPlugin.SEARCH_INDEX_THREADS,
+                Messages.getString("JavaDecompilerPreferencePage.Label.SearchIndexThreads"), //$NON-NLS-1$
+                searchGroup);
+        indexThreads.setValidRange(1, Runtime.getRuntime().availableProcessors());
+        addField(indexThreads);
+
+        IntegerFieldEditor astCache = new IntegerFieldEditor(JavaDecompilerPlugin.SEARCH_AST_CACHE_MB,
+                Messages.getString("JavaDecompilerPreferencePage.Label.SearchAstCacheSize"), //$NON-NLS-1$
+                searchGroup);
+        astCache.setValidRange(8, 4096);
+        addField(astCache);
+
+        layout = (GridLayout) searchGroup.getLayout();
+        layout.marginWidth = layout.marginHeight = 5;
+        searchGroup.layout();
+
         getFieldEditorParent().layout();
     }
 
@@ -9,9 +9,17 @@
 package io.github.nbauma109.decompiler.search;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaModelException;
@@ -28,6 +36,7 @@ import org.eclipse.search.ui.text.AbstractTextSearchResult;
 import org.eclipse.search.ui.text.AbstractTextSearchViewPage;
 import org.eclipse.search.ui.text.Match;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.texteditor.ITextEditor;
@@ -38,7 +47,12 @@ import io.github.nbauma109.decompiler.util.Logger;
 
 public class ApplicationLibrarySearchMatchPresentation implements IMatchPresentation {
 
+    // Number of matches resolved between two updates of the editor highlights.
+    private static final int HIGHLIGHT_BATCH = 32;
+
     private final BytecodeSourceRangeResolver sourceRangeResolver = new BytecodeSourceRangeResolver();
+    // Only read and written on the UI thread.
+    private HighlightJob highlightJob;
 
     @Override
     public ILabelProvider createLabelProvider() {
@@ -50,27 +64,33 @@ public class ApplicationLibrarySearchMatchPresentation implements IMatchPresenta
             throws PartInitException {
         IJavaElement javaElement = javaElement(match);
         if (javaElement == null) {
+            cancelHighlighting();
             return;
         }
         IEditorPart editor = openJavaElement(editorOpenTarget(match, javaElement), activate);
         String source = resolvedSource(editor, javaElement);
-        List<BytecodeSourceRangeResolver.SourceRange> highlights = null;
         if (match instanceof BytecodeSearchMatch bytecodeMatch) {
-            ResolvedRanges resolved = resolveMatchRanges(bytecodeMatch, editor, source);
-            BytecodeSourceRangeResolver.SourceRange range = resolved.selected();
-            highlights = resolved.highlights();
+            BytecodeSourceRangeResolver.SourceRange range = resolveSelectedRange(bytecodeMatch, editor, source);
             bytecodeMatch.update(range);
             currentOffset = range.offset();
             currentLength = range.length();
         }
         if (editor instanceof ITextEditor textEditor && currentOffset >= 0 && currentLength > 0) {
             protectExternalTextSelection(editor);
-            List<BytecodeSourceRangeResolver.SourceRange> toHighlight = highlights == null || highlights.isEmpty()
-                    ? List.of(new BytecodeSourceRangeResolver.SourceRange(currentOffset, currentLength))
-                            : highlights;
-            BytecodeSearchEditorHighlighter.highlight(textEditor, toHighlight);
+            List<BytecodeSearchMatch> matchesInClass = match instanceof BytecodeSearchMatch
+                    ? bytecodeMatchesInEditor(textEditor) : List.of();
+            // Stepping to another match of the same class keeps its highlights and only moves the selection.
+            if (!matchesInClass.contains(match) || !isHighlighting(textEditor, matchesInClass, source)) {
+                cancelHighlighting();
+                BytecodeSearchEditorHighlighter.highlight(textEditor,
+                        List.of(new BytecodeSourceRangeResolver.SourceRange(currentOffset, currentLength)));
+                if (match instanceof BytecodeSearchMatch bytecodeMatch) {
+                    highlightOtherMatches(bytecodeMatch, textEditor, matchesInClass, source);
+                }
+            }
             selectAndReveal(textEditor, currentOffset, currentLength);
         } else {
+            cancelHighlighting();
             JavaUI.revealInEditor(editor, javaElement);
         }
     }
@@ -97,35 +117,63 @@ public class ApplicationLibrarySearchMatchPresentation implements IMatchPresenta
         return source;
     }
 
-    private ResolvedRanges resolveMatchRanges(BytecodeSearchMatch bytecodeMatch, IEditorPart editor, String source) {
-        if (editor instanceof ITextEditor textEditor) {
-            return resolveRanges(bytecodeMatch, textEditor, source);
+    private BytecodeSourceRangeResolver.SourceRange resolveSelectedRange(BytecodeSearchMatch selectedMatch,
+            IEditorPart editor, String source) {
+        if (editor instanceof ITextEditor) {
+            BytecodeSourceRangeResolver.SourceRange range =
+                    sourceRangeResolver.rangesFor(List.of(selectedMatch), source).get(selectedMatch);
+            if (range != null) {
+                return range;
+            }
         }
-        return new ResolvedRanges(sourceRangeResolver.rangeFor(bytecodeMatch.getEntry(), source), List.of());
+        return sourceRangeResolver.rangeFor(selectedMatch.getEntry(), source);
     }
 
-    private ResolvedRanges resolveRanges(BytecodeSearchMatch selectedMatch, ITextEditor textEditor, String source) {
-        List<BytecodeSearchMatch> matches = bytecodeMatchesInEditor(textEditor);
-        if (!matches.contains(selectedMatch)) {
-            matches = new ArrayList<>(matches);
-            matches.add(selectedMatch);
-        }
-        Map<BytecodeSearchMatch, BytecodeSourceRangeResolver.SourceRange> ranges =
-                sourceRangeResolver.rangesFor(matches, source);
-        List<BytecodeSourceRangeResolver.SourceRange> highlights = new ArrayList<>(matches.size());
-        BytecodeSourceRangeResolver.SourceRange selectedRange = ranges.get(selectedMatch);
-        for (BytecodeSearchMatch match : matches) {
-            BytecodeSourceRangeResolver.SourceRange range = ranges.get(match);
-            if (range != null) {
-                match.update(range);
-                highlights.add(range);
-            }
+    /**
+     * Highlights the other matches of the class shown in {@code textEditor} from a background
+     * job, a batch at a time, once the selected match has been revealed.
+     */
+    private void highlightOtherMatches(BytecodeSearchMatch selectedMatch, ITextEditor textEditor,
+            List<BytecodeSearchMatch> matchesInClass, String source) {
+        List<BytecodeSearchMatch> matches = new ArrayList<>(matchesInClass);
+        matches.remove(selectedMatch);
+        if (matches.isEmpty()) {
+            return;
         }
-        if (selectedRange == null) {
-            selectedRange = sourceRangeResolver.rangeFor(selectedMatch.getEntry(), source);
-            highlights.add(selectedRange);
+        startHighlighting(textEditor, matches, new HashSet<>(matchesInClass), source);
+    }
+
+    /**
+     * Starts highlighting {@code matches} in {@code textEditor} and returns the job. The batches
+     * of the previous job that are still to be shown are dropped. Called on the UI thread.
+     */
+    Job highlightMatches(ITextEditor textEditor, List<BytecodeSearchMatch> matches, String source) {
+        cancelHighlighting();
+        return startHighlighting(textEditor, matches, new HashSet<>(matches), source);
+    }
+
+    /**
+     * Returns whether the running or finished highlight job shows exactly {@code matches} in
+     * {@code textEditor} for the same source, so its highlights can be kept. Called on the UI thread.
+     */
+    boolean isHighlighting(ITextEditor textEditor, Collection<BytecodeSearchMatch> matches, String source) {
+        return highlightJob != null && highlightJob.textEditor == textEditor
+                && Objects.equals(highlightJob.source, source)
+                && highlightJob.shownMatches.equals(new HashSet<>(matches));
+    }
+
+    private Job startHighlighting(ITextEditor textEditor, List<BytecodeSearchMatch> matches,
+            Set<BytecodeSearchMatch> shownMatches, String source) {
+        highlightJob = new HighlightJob(textEditor, matches, shownMatches, source);
+        highlightJob.schedule();
+        return highlightJob;
+    }
+
+    private void cancelHighlighting() {
+        if (highlightJob != null) {
+            highlightJob.cancel();
+            highlightJob = null;
         }
-        return new ResolvedRanges(selectedRange, highlights);
     }
 
     private static List<BytecodeSearchMatch> bytecodeMatchesInEditor(ITextEditor textEditor) {
@@ -184,10 +232,6 @@ public class ApplicationLibrarySearchMatchPresentation implements IMatchPresenta
         return editorTopLevelClassFile.equals(topLevelClassFile);
     }
 
-    private record ResolvedRanges(BytecodeSourceRangeResolver.SourceRange selected,
-            List<BytecodeSourceRangeResolver.SourceRange> highlights) {
-    }
-
     private static void selectAndReveal(ITextEditor textEditor, int offset, int length) {
         textEditor.selectAndReveal(offset, length);
         textEditor.getSite().getShell().getDisplay().asyncExec(() -> {
@@ -256,6 +300,66 @@ public class ApplicationLibrarySearchMatchPresentation implements IMatchPresenta
         return element instanceof IJavaElement javaElement ? javaElement : null;
     }
 
+    /**
+     * Resolves the ranges of matches in the background and adds them to the editor highlights on
+     * the UI thread. Batches of a job that is no longer the current one are dropped, so opening
+     * a match of another class stops the highlighting of the previous one.
+     */
+    private final class HighlightJob extends Job {
+
+        private final ITextEditor textEditor;
+        private final List<BytecodeSearchMatch> matches;
+        // Every match highlighted once the job is done, including those highlighted before it.
+        private final Set<BytecodeSearchMatch> shownMatches;
+        private final String source;
+        private final Display display;
+
+        private HighlightJob(ITextEditor textEditor, List<BytecodeSearchMatch> matches,
+                Set<BytecodeSearchMatch> shownMatches, String source) {
+            super("Highlight library search matches"); //$NON-NLS-1$
+            this.textEditor = textEditor;
+            this.matches = matches;
+            this.shownMatches = shownMatches;
+            this.source = source;
+            this.display = textEditor.getSite().getShell().getDisplay();
+            setSystem(true);
+            setPriority(Job.SHORT);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            for (int start = 0; start < matches.size(); start += HIGHLIGHT_BATCH) {
+                if (monitor.isCanceled() || display.isDisposed()) {
+                    return Status.CANCEL_STATUS;
+                }
+                List<BytecodeSearchMatch> batch = matches.subList(start, Math.min(matches.size(), start + HIGHLIGHT_BATCH));
+                Map<BytecodeSearchMatch, BytecodeSourceRangeResolver.SourceRange> ranges =
+                        sourceRangeResolver.rangesFor(batch, source);
+                if (display.isDisposed()) {
+                    return Status.CANCEL_STATUS;
+                }
+                display.asyncExec(() -> highlight(batch, ranges));
+            }
+            return Status.OK_STATUS;
+        }
+
+        private void highlight(List<BytecodeSearchMatch> batch,
+                Map<BytecodeSearchMatch, BytecodeSourceRangeResolver.SourceRange> ranges) {
+            if (highlightJob != this) {
+                return;
+            }
+            List<BytecodeSourceRangeResolver.SourceRange> highlights = new ArrayList<>(batch.size());
+            for (BytecodeSearchMatch match : batch) {
+                BytecodeSourceRangeResolver.SourceRange range = ranges.get(match);
+                if (range != null) {
+                    match.update(range);
+                    highlights.add(range);
+                }
+            }
+            BytecodeSearchEditorHighlighter.add(textEditor, highlights);
+        }
+    }
+
     private static final class BytecodeSearchLabelProvider implements ILabelProvider {
 
         private final JavaElementLabelProvider delegate =
@@ -9,11 +9,13 @@
 package io.github.nbauma109.decompiler.search;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -23,6 +25,7 @@ import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.IField;
@@ -36,6 +39,7 @@ import org.eclipse.jdt.core.ITypeParameter;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.ui.search.ElementQuerySpecification;
 import org.eclipse.jdt.ui.search.IMatchPresentation;
 import org.eclipse.jdt.ui.search.IQueryParticipant;
@@ -68,16 +72,78 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
                 }
             }
         }
-        BytecodeSearchIndex.getDefault().forEachEntry(matcher.kind(), matcher.name(), matcher.qualifiedName(),
-                matcher.isWildcard(), monitor, entry -> {
-                    if (monitor != null && monitor.isCanceled()) {
-                        throw new OperationCanceledException();
-                    }
-                    IJavaElement element = entry.getElement();
-                    if (element != null && querySpecification.getScope().encloses(element) && matcher.matches(entry)) {
-                        reportMatches(requestor, searchResult, registeredHandles, entry);
-                    }
-                });
+        IJavaSearchScope scope = querySpecification.getScope();
+        // Jars outside the scope are skipped before any of their entries is read.
+        Set<IPath> enclosingPaths = new HashSet<>(Arrays.asList(scope.enclosingProjectsAndJars()));
+        if (matcher.searchesImplementors()) {
+            searchImplementors(requestor, searchResult, registeredHandles, matcher, scope, enclosingPaths, monitor);
+            return;
+        }
+        forEachCandidate(matcher, matcher.kind(), enclosingPaths, monitor, entry -> {
+            if (monitor != null && monitor.isCanceled()) {
+                throw new OperationCanceledException();
+            }
+            IJavaElement element = entry.getElement();
+            if (element != null && scope.encloses(element) && matcher.matches(entry)) {
+                reportMatches(requestor, searchResult, registeredHandles, entry);
+            }
+        });
+    }
+
+    /**
+     * Passes the indexed entries named like the pattern to {@code consumer}. A plain name is
+     * looked up exactly; when it is also a camel-case pattern, the names matching its humps are
+     * then queried separately, skipping the entries already passed by the exact lookup.
+     */
+    private static void forEachCandidate(SearchMatcher matcher, Kind kind, Set<IPath> enclosingPaths,
+            IProgressMonitor monitor, EntryStore.EntryConsumer consumer) throws CoreException {
+        BytecodeSearchIndex index = BytecodeSearchIndex.getDefault();
+        index.forEachEntry(kind, matcher.name(), matcher.qualifiedName(), matcher.isWildcard(), enclosingPaths,
+                monitor, consumer);
+        if (matcher.isCamelCase()) {
+            index.forEachEntry(kind, matcher.name(), matcher.qualifiedName(), true, enclosingPaths, monitor,
+                    entry -> {
+                        if (!matcher.hasExactName(entry)) {
+                            consumer.accept(entry);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Reports the declarations of the library types that extend or implement the searched types,
+     * directly or through other library types, by walking the indexed supertype edges.
+     */
+    private static void searchImplementors(ISearchRequestor requestor, AbstractTextSearchResult searchResult,
+            Set<String> registeredHandles, SearchMatcher matcher, IJavaSearchScope scope, Set<IPath> enclosingPaths,
+            IProgressMonitor monitor) throws CoreException {
+        Set<String> supertypes = new HashSet<>();
+        String exactName = matcher.exactQualifiedTypeName();
+        if (exactName != null) {
+            supertypes.add(exactName);
+        } else {
+            // Resolve the pattern to qualified names through the indexed type declarations and references.
+            forEachCandidate(matcher, Kind.TYPE, null, monitor, entry -> {
+                if (monitor != null && monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                if (matcher.matchesTypeName(entry)) {
+                    supertypes.add(entry.getQualifiedName());
+                }
+            });
+        }
+        if (supertypes.isEmpty()) {
+            return;
+        }
+        BytecodeSearchIndex.getDefault().forEachSubtype(supertypes, enclosingPaths, monitor, entry -> {
+            if (monitor != null && monitor.isCanceled()) {
+                throw new OperationCanceledException();
+            }
+            IJavaElement element = entry.getElement();
+            if (element != null && scope.encloses(element)) {
+                reportMatches(requestor, searchResult, registeredHandles, entry);
+            }
+        });
     }
 
     private static void reportMatches(ISearchRequestor requestor, AbstractTextSearchResult searchResult,
@@ -154,6 +220,7 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
         private final boolean matchReturnType;
         private final boolean caseSensitive;
         private final Pattern wildcardPattern;
+        private final boolean camelCase;
         private final Pattern declaringTypePattern;
         private final Map<String, Boolean> syntheticConstructorParametersByOwner = new HashMap<>();
         private final Map<String, String> enclosingTypeErasures;
@@ -178,6 +245,7 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
             this.matchReturnType = searchPattern.matchReturnType(limitTo);
             this.caseSensitive = searchPattern.caseSensitive();
             this.wildcardPattern = searchPattern.wildcardPattern();
+            this.camelCase = searchPattern.camelCase();
             this.declaringTypePattern = searchPattern.declaringTypePattern();
             this.enclosingTypeErasures = enclosingTypeErasures;
         }
@@ -307,6 +375,9 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
                 return wildcardPattern.matcher(entry.getName()).matches()
                         || wildcardPattern.matcher(entry.getQualifiedName()).matches();
             }
+            if (camelCase && org.eclipse.jdt.core.search.SearchPattern.camelCaseMatch(name, entry.getName())) {
+                return true;
+            }
             if (kind == Kind.TYPE && Strings.CS.contains(qualifiedName, ".")) { //$NON-NLS-1$
                 return sameName(qualifiedName, entry.getQualifiedName());
             }
@@ -341,10 +412,44 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
             return qualifiedName;
         }
 
+        /**
+         * Returns whether the name is a wildcard pattern rather than an exact name.
+         */
         boolean isWildcard() {
             return wildcardPattern != null;
         }
 
+        /**
+         * Returns whether the exact name also matches other names by their camel-case humps.
+         */
+        boolean isCamelCase() {
+            return camelCase;
+        }
+
+        /**
+         * Returns whether the entry is one the exact lookup of the name returns.
+         */
+        boolean hasExactName(BytecodeSearchEntry entry) {
+            return Objects.equals(name, entry.getName()) || Objects.equals(qualifiedName, entry.getQualifiedName());
+        }
+
+        boolean searchesImplementors() {
+            return kind == Kind.TYPE && baseLimitTo(limitTo) == IJavaSearchConstants.IMPLEMENTORS;
+        }
+
+        /**
+         * Returns the qualified name of the searched type when the pattern names exactly one type,
+         * or {@code null} when it has to be resolved against the indexed names.
+         */
+        String exactQualifiedTypeName() {
+            return kind == Kind.TYPE && !isWildcard() && caseSensitive && Strings.CS.contains(qualifiedName, ".") //$NON-NLS-1$
+                    ? qualifiedName : null;
+        }
+
+        boolean matchesTypeName(BytecodeSearchEntry entry) {
+            return entry.getKind() == Kind.TYPE && matchesEntryName(entry);
+        }
+
         private boolean matchesLimit(BytecodeSearchEntry entry) {
             int baseLimit = baseLimitTo(limitTo);
             if (baseLimit == IJavaSearchConstants.ALL_OCCURRENCES) {
@@ -503,6 +608,7 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
         private static boolean supportsLimitTo(int limitTo) {
             int baseLimit = baseLimitTo(limitTo);
             return baseLimit == IJavaSearchConstants.ALL_OCCURRENCES
+                    || baseLimit == IJavaSearchConstants.IMPLEMENTORS
                     || baseLimit == IJavaSearchConstants.REFERENCES
                     || baseLimit == IJavaSearchConstants.READ_ACCESSES
                     || baseLimit == IJavaSearchConstants.WRITE_ACCESSES;
@@ -565,6 +671,7 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
             String normalizedDeclaringTypeName = emptyToNull(declaringTypeName);
             String wildcardTarget = hasWildcard(qualifiedName) ? qualifiedName : name;
             MatchPatterns matchPatterns = new MatchPatterns(caseSensitive, wildcardPattern(wildcardTarget, caseSensitive),
+                    isCamelCasePattern(kind, name, qualifiedName),
                     declaringTypePattern(normalizedDeclaringTypeName, caseSensitive));
             return new SearchPattern(name, qualifiedName, normalizedDeclaringTypeName, null, returnType, fieldType,
                     parameterPattern, matchPatterns);
@@ -574,6 +681,23 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
             return (kind == Kind.METHOD || kind == Kind.CONSTRUCTOR) && text.indexOf('(') >= 0;
         }
 
+        /**
+         * Mirrors the match mode chosen by the Java search page: a pattern without wildcards
+         * that is a valid camel-case pattern, such as {@code NPE} or {@code getFB}, also matches
+         * names by their camel-case humps. Qualified type patterns and constructors stay exact,
+         * since their qualified or declaring type name must match as a whole.
+         */
+        private static boolean isCamelCasePattern(Kind kind, String name, String qualifiedName) {
+            if (kind != Kind.TYPE && kind != Kind.METHOD && kind != Kind.FIELD
+                    || StringUtils.isEmpty(name) || hasWildcard(qualifiedName) || hasWildcard(name)
+                    || kind == Kind.TYPE && Strings.CS.contains(qualifiedName, ".")) { //$NON-NLS-1$
+                return false;
+            }
+            return org.eclipse.jdt.core.search.SearchPattern.validateMatchRule(name,
+                    org.eclipse.jdt.core.search.SearchPattern.R_CAMELCASE_MATCH)
+                    == org.eclipse.jdt.core.search.SearchPattern.R_CAMELCASE_MATCH;
+        }
+
         private static boolean hasWildcard(String pattern) {
             return StringUtils.containsAny(pattern, '*', '?');
         }
@@ -953,6 +1077,10 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
             return matchPatterns.wildcardPattern();
         }
 
+        private boolean camelCase() {
+            return matchPatterns.camelCase();
+        }
+
         private Pattern declaringTypePattern() {
             return matchPatterns.declaringTypePattern();
         }
@@ -1011,11 +1139,18 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
 
         private final boolean caseSensitive;
         private final Pattern wildcardPattern;
+        private final boolean camelCase;
         private final Pattern declaringTypePattern;
 
         public MatchPatterns(boolean caseSensitive, Pattern wildcardPattern, Pattern declaringTypePattern) {
+            this(caseSensitive, wildcardPattern, false, declaringTypePattern);
+        }
+
+        public MatchPatterns(boolean caseSensitive, Pattern wildcardPattern, boolean camelCase,
+                Pattern declaringTypePattern) {
             this.caseSensitive = caseSensitive;
             this.wildcardPattern = wildcardPattern;
+            this.camelCase = camelCase;
             this.declaringTypePattern = declaringTypePattern;
         }
 
@@ -1031,6 +1166,10 @@ public class ApplicationLibrarySearchParticipant implements IQueryParticipant {
             return wildcardPattern;
         }
 
+        private boolean camelCase() {
+            return camelCase;
+        }
+
         private Pattern declaringTypePattern() {
             return declaringTypePattern;
         }
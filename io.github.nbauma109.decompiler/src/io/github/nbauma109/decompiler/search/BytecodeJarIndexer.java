@@ -13,12 +13,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -40,15 +41,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
-import org.eclipse.jdt.core.IClassFile;
-import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
-import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IModuleDescription;
-import org.eclipse.jdt.core.IOrdinaryClassFile;
-import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
-import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.Signature;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
@@ -69,6 +65,7 @@ import io.github.nbauma109.decompiler.JavaDecompilerPlugin;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Access;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.TypeCategory;
+import io.github.nbauma109.decompiler.search.EntryStore.SupertypeEdge;
 import io.github.nbauma109.decompiler.util.HashUtils;
 import io.github.nbauma109.decompiler.util.Logger;
 
@@ -78,6 +75,8 @@ public class BytecodeJarIndexer {
     private static final String CLASS_INITIALIZER = "<clinit>"; //$NON-NLS-1$
     private static final String CONSTRUCTOR = "<init>"; //$NON-NLS-1$
     private static final String LAMBDA_METHOD_PREFIX = "lambda$"; //$NON-NLS-1$
+    // Source name javac gives lambda bodies declared in constructors.
+    private static final String LAMBDA_IN_CONSTRUCTOR = "new"; //$NON-NLS-1$
     private static final String META_INF_VERSIONS = "META-INF/versions/"; //$NON-NLS-1$
     private static final String MODULE_INFO = "module-info"; //$NON-NLS-1$
     private static final String ANNOTATION_INTERNAL_NAME = "java/lang/annotation/Annotation"; //$NON-NLS-1$
@@ -88,6 +87,13 @@ public class BytecodeJarIndexer {
     private static final Attributes.Name MULTI_RELEASE = new Attributes.Name("Multi-Release"); //$NON-NLS-1$
     private static final int ZIP_LOCAL_FILE_HEADER_SIZE = 30;
     private static final int ZIP_CENTRAL_DIRECTORY_FILE_HEADER_SIZE = 46;
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO entries(jar_id,kind,declaration,access_flags,type_category," + //$NON-NLS-1$
+                    "handle_package_id,handle_class_id,handle_member_id,name_id,qualified_name_id," + //$NON-NLS-1$
+                    "declaring_type_name_id,descriptor_id,occurrence_count,fallback_handle_id,class_name_id) VALUES"; //$NON-NLS-1$
+    private static final int ENTRY_COLUMNS = 15;
+    // 64 rows x 15 columns stays below SQLITE_MAX_VARIABLE_NUMBER (999) of older SQLite builds.
+    static final int ENTRY_ROWS_PER_INSERT = 64;
 
     private BytecodeJarIndexer() {
     }
@@ -119,7 +125,7 @@ public class BytecodeJarIndexer {
         for (EffectiveClassEntry entry : effectiveEntries) {
             totalImpact += entry.impactBytes();
             totalTicks = Math.clamp(totalTicks + entry.ticks(), 0L, Integer.MAX_VALUE);
-            entries.add(new JarEntryWork(entry.entryName(), entry.impactBytes(), entry.ticks()));
+            entries.add(new JarEntryWork(entry.entryName(), entry.impactBytes(), entry.ticks(), entry.entryCrc()));
         }
         // Ordered fingerprint: sorted by logicalName so swapped or renamed entries produce a different hash
         List<EffectiveClassEntry> sorted = new ArrayList<>(effectiveEntries);
@@ -189,105 +195,192 @@ public class BytecodeJarIndexer {
         }
     }
 
-    private static BytecodeSearchIndex.JarIndex indexToHeap(IPackageFragmentRoot root, File jar, JarWork work,
+    /**
+     * Indexes one jar on the calling thread: its class files are parsed into memory and the collected
+     * entries are then written to {@code conn} in one transaction. A {@code null} connection indexes
+     * into a private in-memory database, or into a heap store when the SQLite driver is unavailable.
+     */
+    public static BytecodeSearchIndex.JarIndex index(IPackageFragmentRoot root, File jar, JarWork work,
+            Connection conn, Object dbLock, IProgressMonitor monitor) {
+        if (conn == null) {
+            return indexToOwnedDatabase(root, jar, work, monitor);
+        }
+        ParsedJar parsed = parse(root, jar, work, conn, dbLock, null, monitor);
+        return parsed == null ? null : write(parsed, conn, dbLock, null, null, monitor);
+    }
+
+    /**
+     * Parse phase of {@link #index}. Any number of jars may be parsed concurrently: the only database
+     * access is a read that skips parsing when the same content has already been indexed. It runs on
+     * a connection of {@code readers} when given, so parsers never wait for the writer connection
+     * and only see committed rows; {@code conn} is then left to the writer thread.
+     * Returns {@code null} when canceled or when the jar cannot be read.
+     */
+    static ParsedJar parse(IPackageFragmentRoot root, File jar, JarWork work, Connection conn, Object dbLock,
+            ReadConnectionPool readers, IProgressMonitor monitor) {
+        int baseJarId = -1;
+        Set<String> unchanged = Set.of();
+        if (conn != null) {
+            try {
+                Connection reader = readers == null ? null : readers.acquire();
+                try {
+                    // A leased read connection belongs to this thread, so locking it never contends.
+                    Connection lookup = reader == null ? conn : reader;
+                    Object lock = reader == null ? dbLock : reader;
+                    int runtimeVersion = Runtime.version().feature();
+                    if (SqliteEntryStore.findContent(lookup, lock, runtimeVersion, work.contentHash()) >= 0) {
+                        return new ParsedJar(root, jar, work, null, -1);
+                    }
+                    // A rebuilt jar at a known location is indexed as a diff of its previous content.
+                    String rootHandle = root != null ? root.getHandleIdentifier() : ""; //$NON-NLS-1$
+                    SqliteEntryStore.IndexedClasses base = SqliteEntryStore.findIndexedClasses(lookup, lock,
+                            rootHandle, jar.getAbsolutePath(), runtimeVersion);
+                    if (base != null) {
+                        baseJarId = base.jarId();
+                        unchanged = base.unchangedIn(work.entries());
+                    }
+                } finally {
+                    if (reader != null) {
+                        readers.release(reader);
+                    }
+                }
+            } catch (SQLException e) {
+                Logger.debug(e);
+            }
+        }
+        EntryWriter entries = collect(root, jar, work, unchanged, monitor);
+        return entries == null ? null : new ParsedJar(root, jar, work, entries, baseJarId);
+    }
+
+    /**
+     * Write phase of {@link #index}. Calls for the same shared connection must come from a single
+     * thread, because the rows of each jar are committed in their own transaction. String ids found
+     * in {@code stringIds} are not resolved again, and ids resolved for this jar are added to it.
+     * The returned store queries through {@code readers} when it is not {@code null}.
+     */
+    static BytecodeSearchIndex.JarIndex write(ParsedJar parsed, Connection conn, Object dbLock,
+            ReadConnectionPool readers, StringIdCache stringIds, IProgressMonitor monitor) {
+        return write(parsed, conn, dbLock, false, readers, stringIds, monitor);
+    }
+
+    /**
+     * Indexes one jar of an immutable artifact cache into the shard file {@code shard}, which is
+     * then mapped and shared by every later workspace that references the same content. Falls back
+     * to a heap store when the shard cannot be written.
+     */
+    static BytecodeSearchIndex.JarIndex indexToShard(IPackageFragmentRoot root, File jar, JarWork work,
+            Path shard, IProgressMonitor monitor) {
+        EntryWriter entries = collect(root, jar, work, Set.of(), monitor);
+        if (entries == null) {
+            return null;
+        }
+        String rootHandle = root != null ? root.getHandleIdentifier() : ""; //$NON-NLS-1$
+        try {
+            entries.writeShard(shard, rootHandle);
+            return new BytecodeSearchIndex.JarIndex(jar, ShardEntryStore.open(shard, rootHandle));
+        } catch (IOException e) {
+            Logger.debug(e);
+            return new BytecodeSearchIndex.JarIndex(jar, entries.buildHeapStore(rootHandle));
+        }
+    }
+
+    private static BytecodeSearchIndex.JarIndex indexToOwnedDatabase(IPackageFragmentRoot root, File jar,
+            JarWork work, IProgressMonitor monitor) {
+        EntryWriter entries = collect(root, jar, work, Set.of(), monitor);
+        if (entries == null) {
+            return null;
+        }
+        Connection ownedConn;
+        try {
+            ownedConn = SqliteEntryStore.openInMemoryDatabase();
+        } catch (SQLException e) {
+            Logger.debug(e);
+            // SQLite driver unavailable; fall back to heap
+            String rootHandle = root != null ? root.getHandleIdentifier() : ""; //$NON-NLS-1$
+            return new BytecodeSearchIndex.JarIndex(jar, entries.buildHeapStore(rootHandle));
+        }
+        return write(new ParsedJar(root, jar, work, entries, -1), ownedConn, new Object(), true, null, null, monitor);
+    }
+
+    /**
+     * Parses the class files of {@code jar}, except those named in {@code skipped}, whose rows are
+     * reused from a previous index of the same location.
+     */
+    private static EntryWriter collect(IPackageFragmentRoot root, File jar, JarWork work, Set<String> skipped,
             IProgressMonitor monitor) {
-        SubMonitor subMonitor = SubMonitor.convert(monitor, jar.getName(), work.totalTicks());
-        EntryWriter heapWriter = new EntryWriter();
+        SubMonitor subMonitor = SubMonitor.convert(monitor, work.totalTicks());
+        EntryWriter writer = new EntryWriter();
         try (ZipFile zip = new ZipFile(jar)) {
-            Map<String, String> strings = new HashMap<>();
-            IndexContext context = new IndexContext(root, jar, zip, heapWriter, strings, new HashMap<>());
+            ElementHandles handles = new ElementHandles(root != null ? root.getHandleIdentifier() : ""); //$NON-NLS-1$
+            IndexContext context = new IndexContext(root, jar, zip, handles, writer, new HashMap<>(), new HashMap<>(),
+                    new ClassBuffer());
+            ClassIndex classIndex = new ClassIndex(context);
             for (JarEntryWork entryWork : work.entries()) {
                 if (subMonitor.isCanceled()) {
                     return null;
                 }
-                indexEntry(context, entryWork, subMonitor);
+                if (skipped.contains(entryWork.name())) {
+                    // The package declarations of the jar are not copied with the rows of the
+                    // unchanged classes, so they are made again from the class names.
+                    classIndex.addPackageDeclarationOf(entryWork.name());
+                    subMonitor.worked(entryWork.ticks());
+                } else {
+                    indexEntry(context, classIndex, entryWork, subMonitor);
+                }
             }
         } catch (IOException | RuntimeException e) {
             JavaDecompilerPlugin.logError(e, FAILED_TO_INDEX_JAR + jar.getAbsolutePath()); //$NON-NLS-1$
             return null;
         }
-        HeapEntryStore store = heapWriter.buildHeapStore();
-        return new BytecodeSearchIndex.JarIndex(jar, store);
+        return subMonitor.isCanceled() ? null : writer;
     }
 
-    public static BytecodeSearchIndex.JarIndex index(IPackageFragmentRoot root, File jar, JarWork work,
-            Connection conn, Object dbLock, IProgressMonitor monitor) {
-        final boolean ownsConn = conn == null;
-        final Connection activeConn;
-        final Object lock;
-        if (ownsConn) {
-            try {
-                activeConn = SqliteEntryStore.openInMemoryDatabase();
-            } catch (SQLException e) {
-                Logger.debug(e);
-                return indexToHeap(root, jar, work, monitor); // SQLite driver unavailable; fall back to heap
-            }
-            lock = new Object();
-        } else {
-            activeConn = conn;
-            lock = dbLock;
-        }
-        String rootHandle = root != null ? root.getHandleIdentifier() : ""; //$NON-NLS-1$
-        Map<String, String> strings = new HashMap<>();
-        String insertSql =
-                "INSERT INTO entries(jar_id,kind,declaration,access_flags,type_category," + //$NON-NLS-1$
-                        "element_handle_id,name_id,qualified_name_id," + //$NON-NLS-1$
-                        "declaring_type_name_id,descriptor_id,occurrence_count,fallback_handle_id) VALUES(?,?,?,?,?,?,?,?,?,?,?,?)"; //$NON-NLS-1$
-        String updateSql = "UPDATE entries SET occurrence_count = occurrence_count + 1 WHERE id = ?"; //$NON-NLS-1$
+    private static BytecodeSearchIndex.JarIndex write(ParsedJar parsed, Connection conn, Object lock,
+            boolean ownsConn, ReadConnectionPool readers, StringIdCache stringIds, IProgressMonitor monitor) {
+        File jar = parsed.jar();
+        JarWork work = parsed.work();
+        String rootHandle = parsed.root() != null ? parsed.root().getHandleIdentifier() : ""; //$NON-NLS-1$
         try {
             synchronized (lock) {
-                activeConn.setAutoCommit(false);
+                conn.setAutoCommit(false);
             }
             SqliteEntryStore.JarRegistration reg;
             synchronized (lock) {
-                reg = SqliteEntryStore.registerJar(activeConn, rootHandle,
+                reg = SqliteEntryStore.registerJar(conn, rootHandle,
                         jar.getAbsolutePath(), jar.lastModified(), jar.length(),
                         Runtime.version().feature(), work.fileCrc(), work.contentHash());
             }
-            int jarId = reg.jarId();
-            if (!reg.needsIndexing()) {
-                synchronized (lock) {
-                    activeConn.commit();
-                    activeConn.setAutoCommit(true);
-                }
-                return new BytecodeSearchIndex.JarIndex(jar,
-                        new SqliteEntryStore(activeConn, lock, jarId, ownsConn, rootHandle));
-            }
-            try (ZipFile zip = new ZipFile(jar);
-                    PreparedStatement insertPs = prepareLocked(activeConn, lock, insertSql, Statement.RETURN_GENERATED_KEYS);
-                    PreparedStatement updatePs = prepareLocked(activeConn, lock, updateSql);
-                    PreparedStatement internInsPs = prepareLocked(activeConn, lock, "INSERT OR IGNORE INTO strings(value) VALUES(?)"); //$NON-NLS-1$
-                    PreparedStatement internSelPs = prepareLocked(activeConn, lock, "SELECT id FROM strings WHERE value = ?")) { //$NON-NLS-1$
-                EntryWriter writer = new EntryWriter(jarId, insertPs, updatePs, internInsPs, internSelPs, lock);
-                Map<String, TypeCategory> typeCategoryCache = new HashMap<>();
-                IndexContext context = new IndexContext(root, jar, zip, writer, strings, typeCategoryCache);
-                SubMonitor subMonitor = SubMonitor.convert(monitor, work.totalTicks());
-                for (JarEntryWork entryWork : work.entries()) {
-                    if (subMonitor.isCanceled()) {
-                        abortConn(activeConn, lock, ownsConn);
-                        return null;
-                    }
-                    indexEntry(context, entryWork, subMonitor);
-                }
-                if (subMonitor.isCanceled()) {
-                    abortConn(activeConn, lock, ownsConn);
+            Map<String, Integer> resolved = Map.of();
+            if (reg.needsIndexing()) {
+                // The content seen during parsing can be gone when a concurrent write of the same
+                // content was rolled back; parse it here in that rare case.
+                EntryWriter entries = parsed.entries() != null ? parsed.entries()
+                        : collect(parsed.root(), jar, work, Set.of(), null);
+                if (entries == null || monitor != null && monitor.isCanceled()) {
+                    abortConn(conn, lock, ownsConn);
                     return null;
                 }
+                int baseJarId = parsed.entries() != null ? parsed.baseJarId() : -1;
+                resolved = entries.writeTo(conn, lock, reg.jarId(), rootHandle, work.entries(), baseJarId,
+                        stringIds);
             }
             synchronized (lock) {
-                activeConn.commit();
-                activeConn.setAutoCommit(true);
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+            if (stringIds != null) {
+                // Only committed ids may be shared; a rolled back jar would leave dangling ones.
+                stringIds.putAll(resolved);
             }
             return new BytecodeSearchIndex.JarIndex(jar,
-                    new SqliteEntryStore(activeConn, lock, jarId, ownsConn, rootHandle));
-        } catch (IOException | SQLException e) {
+                    new SqliteEntryStore(conn, lock, readers, reg.jarId(), ownsConn, rootHandle));
+        } catch (SQLException e) {
             JavaDecompilerPlugin.logError(e, FAILED_TO_INDEX_JAR + jar.getAbsolutePath()); //$NON-NLS-1$
-            abortConn(activeConn, lock, ownsConn);
+            abortConn(conn, lock, ownsConn);
             return null;
         } catch (RuntimeException e) {
-            Throwable cause = e.getCause();
-            JavaDecompilerPlugin.logError(cause != null ? cause : e, FAILED_TO_INDEX_JAR + jar.getAbsolutePath()); //$NON-NLS-1$
-            abortConn(activeConn, lock, ownsConn);
+            JavaDecompilerPlugin.logError(e, FAILED_TO_INDEX_JAR + jar.getAbsolutePath()); //$NON-NLS-1$
+            abortConn(conn, lock, ownsConn);
             return null;
         }
     }
@@ -299,13 +392,6 @@ public class BytecodeJarIndexer {
         }
     }
 
-    private static PreparedStatement prepareLocked(Connection conn, Object dbLock, String sql, int autoGeneratedKeys) throws SQLException {
-        final Object lock = dbLock;
-        synchronized (lock) {
-            return conn.prepareStatement(sql, autoGeneratedKeys);
-        }
-    }
-
     private static void abortConn(Connection activeConn, Object dbLock, boolean ownsConn) {
         final Object lock = dbLock;
         try {
@@ -325,36 +411,62 @@ public class BytecodeJarIndexer {
         }
     }
 
-    private static void indexEntry(IndexContext context, JarEntryWork entryWork, SubMonitor subMonitor) {
+    /**
+     * Reads the class file {@code bytes} of {@code root} as {@link #index} does, keeping the source
+     * line of every counted reference instead of collecting entries. The index only stores how
+     * many times an element makes a reference, so the lines are read again when a match is shown.
+     */
+    static ReferenceLines referenceLines(IPackageFragmentRoot root, byte[] bytes) {
+        EntryWriter writer = new EntryWriter(true);
+        ElementHandles handles = new ElementHandles(root != null ? root.getHandleIdentifier() : ""); //$NON-NLS-1$
+        indexClass(new ClassIndex(root, null, handles, writer, new HashMap<>(), new HashMap<>()),
+                new ClassReader(bytes));
+        return writer.referenceLines();
+    }
+
+    /**
+     * Source lines of the counted occurrences of the references made by one class file, from its
+     * line number table.
+     */
+    static final class ReferenceLines {
+
+        private final Map<LineKey, int[]> lines;
+
+        private ReferenceLines(Map<LineKey, int[]> lines) {
+            this.lines = lines;
+        }
+
+        /**
+         * Returns the line of each occurrence of {@code entry} in bytecode order, {@code -1} for an
+         * occurrence without a line, or {@code null} when the class file makes no such reference.
+         */
+        int[] of(BytecodeSearchEntry entry) {
+            return lines.get(LineKey.of(entry));
+        }
+    }
+
+    private static void indexEntry(IndexContext context, ClassIndex classIndex, JarEntryWork entryWork,
+            SubMonitor subMonitor) {
         subMonitor.subTask(context.jar().getName() + '!' + entryWork.name());
+        context.writer().beginClass(entryWork.name());
         try {
             ZipEntry entry = context.zip().getEntry(entryWork.name());
             if (entry != null) {
-                indexZipEntry(context, entry);
+                indexZipEntry(context, classIndex, entry);
             }
         } finally {
             subMonitor.worked(entryWork.ticks());
         }
     }
 
-    private static void indexZipEntry(IndexContext context, ZipEntry entry) {
-        try (InputStream input = context.zip().getInputStream(entry)) {
-            indexClass(context.root(), input, context.writer(), context.strings(), context.typeCategoryCache());
-        } catch (DbWriteException e) {
-            throw e; // propagate to abort the whole JAR transaction
+    private static void indexZipEntry(IndexContext context, ClassIndex classIndex, ZipEntry entry) {
+        try {
+            indexClass(classIndex, context.buffer().read(context.zip(), entry));
         } catch (IOException | RuntimeException e) {
             JavaDecompilerPlugin.logError(e, "Failed to index class file from " + context.jar().getAbsolutePath()); //$NON-NLS-1$
         }
     }
 
-    private static final class DbWriteException extends RuntimeException {
-        private static final long serialVersionUID = 1L;
-
-        DbWriteException(SQLException cause) {
-            super(cause);
-        }
-    }
-
     static int impactTicks(long impactBytes) {
         long kibibytes = (impactBytes + 1023L) / 1024L;
         return (int) Math.clamp(kibibytes, 1L, Integer.MAX_VALUE);
@@ -373,10 +485,8 @@ public class BytecodeJarIndexer {
                 + ZIP_CENTRAL_DIRECTORY_FILE_HEADER_SIZE + nameSize + extraSize + commentSize;
     }
 
-    private static void indexClass(IPackageFragmentRoot root, InputStream input, EntryWriter writer,
-            Map<String, String> strings, Map<String, TypeCategory> typeCategoryCache) throws IOException {
-        ClassReader reader = new ClassReader(input);
-        ClassIndex classIndex = new ClassIndex(root, writer, strings, typeCategoryCache);
+    private static void indexClass(ClassIndex classIndex, ClassReader reader) {
+        classIndex.reset();
         reader.accept(classIndex.visitor, ClassReader.SKIP_FRAMES);
 
         if (classIndex.type == null && classIndex.moduleElement == null) {
@@ -390,6 +500,8 @@ public class BytecodeJarIndexer {
     private static final class ClassIndex {
 
         private final IPackageFragmentRoot root;
+        private final ZipFile zip;
+        private final ElementHandles handles;
         private final EntryWriter writer;
         private final Map<String, String> strings;
         private final Map<String, TypeCategory> typeCategoryCache;
@@ -397,30 +509,71 @@ public class BytecodeJarIndexer {
         private final Map<String, IJavaElement> anonymousElementFallbacks = new HashMap<>();
         private final List<String> typeReferences = new ArrayList<>();
         private final Set<String> descriptorSet = new HashSet<>();
-        private final Map<IJavaElement, List<String>> typeReferencesByElement = new HashMap<>();
-        private final Map<IJavaElement, List<MemberReference>> methodReferencesByElement = new HashMap<>();
-        private final Map<IJavaElement, List<MemberReference>> constructorReferencesByElement = new HashMap<>();
-        private final Map<IJavaElement, List<MemberReference>> fieldReferencesByElement = new HashMap<>();
+        private final Map<String, List<String>> typeReferencesByElement = new HashMap<>();
+        private final Map<String, List<MemberReference>> methodReferencesByElement = new HashMap<>();
+        private final Map<String, List<MemberReference>> constructorReferencesByElement = new HashMap<>();
+        private final Map<String, List<MemberReference>> fieldReferencesByElement = new HashMap<>();
         private final Map<String, NestedTypeName> nestedTypeNames = new HashMap<>();
-        private final Map<LambdaMethodKey, IJavaElement> lambdaBodyOwners = new HashMap<>();
+        private final Map<LambdaMethodKey, String> lambdaBodyOwners = new HashMap<>();
+        // Handles of the declared methods by source name ("new" for constructors), for lambda bodies.
+        private final Map<String, List<String>> declaredMethods = new HashMap<>();
         private final Set<String> moduleReferences = new HashSet<>();
+        // Internal names of the source-visible direct supertypes, recorded as edges on flush.
+        private final List<String> supertypeNames = new ArrayList<>();
         private final SignatureIndexer signatureIndexer = new SignatureIndexer();
         private final ClassVisitor visitor = new LightweightClassVisitor();
+        // Separate from the jar buffer, which holds the class being visited while this one is used.
+        private final ClassBuffer headerBuffer = new ClassBuffer();
 
         private String className;
-        private IType type;
+        private String type;
         private TypeCategory typeCategory = TypeCategory.UNKNOWN;
-        private IJavaElement moduleElement;
+        private String moduleElement;
         private String enclosingClassName;
+        // Source line of the instruction being visited, kept with the member references it makes.
+        private int referenceLine = -1;
+
+        private ClassIndex(IndexContext context) {
+            this(context.root(), context.zip(), context.handles(), context.writer(), context.strings(),
+                    context.typeCategoryCache());
+        }
 
-        private ClassIndex(IPackageFragmentRoot root, EntryWriter writer, Map<String, String> strings,
-                Map<String, TypeCategory> typeCategoryCache) {
+        private ClassIndex(IPackageFragmentRoot root, ZipFile zip, ElementHandles handles, EntryWriter writer,
+                Map<String, String> strings, Map<String, TypeCategory> typeCategoryCache) {
             this.root = root;
+            this.zip = zip;
+            this.handles = handles;
             this.writer = writer;
             this.strings = strings;
             this.typeCategoryCache = typeCategoryCache;
         }
 
+        /**
+         * Clears what was collected for the previous class, so that one instance, with its maps
+         * and visitors, reads every class of a jar.
+         */
+        private void reset() {
+            elementHandles.clear();
+            anonymousElementFallbacks.clear();
+            typeReferences.clear();
+            descriptorSet.clear();
+            typeReferencesByElement.clear();
+            methodReferencesByElement.clear();
+            constructorReferencesByElement.clear();
+            fieldReferencesByElement.clear();
+            nestedTypeNames.clear();
+            lambdaBodyOwners.clear();
+            declaredMethods.clear();
+            moduleReferences.clear();
+            supertypeNames.clear();
+            className = null;
+            type = null;
+            typeCategory = TypeCategory.UNKNOWN;
+            moduleElement = null;
+            enclosingClassName = null;
+            referenceLine = -1;
+        }
+
         private void indexDescriptors() {
             for (String descriptor : descriptorSet) {
                 addDescriptorReferences(descriptor);
@@ -443,8 +596,12 @@ public class BytecodeJarIndexer {
                 return;
             }
 
-            add(new EntrySpec(Kind.TYPE, true, pool(simpleTypeName(className)), pool(qualifiedTypeName(className)),
+            String qualifiedName = pool(qualifiedTypeName(className));
+            add(new EntrySpec(Kind.TYPE, true, pool(simpleTypeName(className)), qualifiedName,
                     null, null, Access.NONE, typeCategory), type, false);
+            for (String supertype : supertypeNames) {
+                writer.addSupertype(new SupertypeEdge(qualifiedName, pool(qualifiedTypeName(supertype))));
+            }
             addPackageDeclaration(packageName(className));
             for (String internalName : typeReferences) {
                 addTypeReferenceEntry(internalName, type);
@@ -471,12 +628,6 @@ public class BytecodeJarIndexer {
             return separator < 0 ? "" : internalName.substring(0, separator).replace('/', '.'); //$NON-NLS-1$
         }
 
-        private static String classFileName(String internalName) {
-            int separator = internalName.lastIndexOf('/');
-            String className = separator < 0 ? internalName : internalName.substring(separator + 1);
-            return className + CLASS_FILE_EXTENSION;
-        }
-
         private String simpleTypeName(String internalName) {
             NestedTypeName nestedType = nestedTypeNames.get(internalName);
             if (nestedType != null) {
@@ -507,7 +658,7 @@ public class BytecodeJarIndexer {
             }
         }
 
-        private void addTypeReference(String internalName, IJavaElement element) {
+        private void addTypeReference(String internalName, String element) {
             if (element == null) {
                 addTypeReference(internalName);
                 return;
@@ -523,7 +674,7 @@ public class BytecodeJarIndexer {
             }
         }
 
-        private void addEnclosingTypeReferences(String internalName, IJavaElement element) {
+        private void addEnclosingTypeReferences(String internalName, String element) {
             NestedTypeName nestedType = nestedTypeNames.get(internalName);
             if (nestedType == null) {
                 return;
@@ -536,7 +687,7 @@ public class BytecodeJarIndexer {
             addEnclosingTypeReferences(nestedType.outerName(), element);
         }
 
-        private void addTypeReference(Type asmType, IJavaElement element) {
+        private void addTypeReference(Type asmType, String element) {
             if (asmType == null) {
                 return;
             }
@@ -553,7 +704,7 @@ public class BytecodeJarIndexer {
             addDescriptorReferences(descriptor, null);
         }
 
-        private void addDescriptorReferences(String descriptor, IJavaElement element) {
+        private void addDescriptorReferences(String descriptor, String element) {
             if (StringUtils.isBlank(descriptor)) {
                 return;
             }
@@ -568,7 +719,7 @@ public class BytecodeJarIndexer {
             }
         }
 
-        private void addJvmDescriptorReferences(String descriptor, IJavaElement element) {
+        private void addJvmDescriptorReferences(String descriptor, String element) {
             if (descriptor.indexOf('<') >= 0 || descriptor.charAt(0) == 'T' || descriptor.charAt(0) == '+'
                     || descriptor.charAt(0) == '-' || descriptor.charAt(0) == '*') {
                 throw new IllegalArgumentException(descriptor);
@@ -583,7 +734,7 @@ public class BytecodeJarIndexer {
             }
         }
 
-        private void addGenericSignatureReferences(String signature, IJavaElement element) {
+        private void addGenericSignatureReferences(String signature, String element) {
             SignatureIndexer indexer = element == null ? signatureIndexer : new SignatureIndexer(element);
             SignatureReader reader = new SignatureReader(signature);
             if (element == null && isClassSignature(signature)) {
@@ -605,7 +756,7 @@ public class BytecodeJarIndexer {
             return first == '<' || first == 'L';
         }
 
-        private AnnotationVisitor annotationVisitor(IJavaElement element) {
+        private AnnotationVisitor annotationVisitor(String element) {
             return new AnnotationVisitor(Opcodes.ASM9) {
                 @Override
                 public void visit(String name, Object value) {
@@ -635,12 +786,12 @@ public class BytecodeJarIndexer {
             };
         }
 
-        private AnnotationVisitor indexedAnnotation(String descriptor, IJavaElement element) {
+        private AnnotationVisitor indexedAnnotation(String descriptor, String element) {
             addDescriptorReferences(descriptor, element);
             return annotationVisitor(element);
         }
 
-        private void addBootstrapArgumentReference(Object argument, IJavaElement element) {
+        private void addBootstrapArgumentReference(Object argument, String element) {
             if (argument instanceof Type asmType) {
                 addTypeReference(asmType, element);
             } else if (argument instanceof Handle handle) {
@@ -654,7 +805,7 @@ public class BytecodeJarIndexer {
             }
         }
 
-        private void addHandleReference(Handle handle, IJavaElement element) {
+        private void addHandleReference(Handle handle, String element) {
             if (handle == null) {
                 return;
             }
@@ -674,29 +825,29 @@ public class BytecodeJarIndexer {
         }
 
         private MemberReference addReference(Kind kind, String name, String qualifiedName, String owner, String descriptor,
-                IJavaElement element) {
+                String element) {
             return addReference(kind, name, qualifiedName, owner, descriptor, element, true);
         }
 
         private MemberReference addReference(Kind kind, String name, String qualifiedName, String owner, String descriptor,
-                IJavaElement element, boolean countable) {
+                String element, boolean countable) {
             return addReference(new ReferenceSpec(kind, name, qualifiedName, owner, descriptor, Access.NONE, false),
                     element, countable);
         }
 
         private MemberReference addReference(Kind kind, String name, String qualifiedName, String owner, String descriptor,
-                IJavaElement element, Access access) {
+                String element, Access access) {
             return addReference(new ReferenceSpec(kind, name, qualifiedName, owner, descriptor, access, false), element);
         }
 
-        private MemberReference addReference(ReferenceSpec reference, IJavaElement element) {
+        private MemberReference addReference(ReferenceSpec reference, String element) {
             return addReference(reference, element, true);
         }
 
-        private MemberReference addReference(ReferenceSpec reference, IJavaElement element, boolean countable) {
-            IJavaElement enclosingElement = element == null ? type : element;
+        private MemberReference addReference(ReferenceSpec reference, String element, boolean countable) {
+            String enclosingElement = element == null ? type : element;
             MemberReference member = new MemberReference(reference.name(), reference.owner(), reference.descriptor(),
-                    reference.access(), reference.compoundCandidate(), countable);
+                    reference.access(), reference.compoundCandidate(), countable, referenceLine);
             switch (reference.kind()) {
                 case FIELD -> fieldReferencesByElement.computeIfAbsent(enclosingElement, key -> new ArrayList<>()).add(member);
                 case METHOD -> methodReferencesByElement.computeIfAbsent(enclosingElement, key -> new ArrayList<>()).add(member);
@@ -707,29 +858,39 @@ public class BytecodeJarIndexer {
             return member;
         }
 
-        private void addReferenceEntry(EntrySpec spec, IJavaElement element) {
-            addReferenceEntry(spec, element, true);
+        private void addReferenceEntry(EntrySpec spec, String element) {
+            addReferenceEntry(spec, element, true, -1);
         }
 
-        private void addReferenceEntry(EntrySpec spec, IJavaElement element, boolean countable) {
-            add(newEntry(element, spec), countable);
+        private void addReferenceEntry(EntrySpec spec, String element, boolean countable, int line) {
+            add(newEntry(element, spec), countable, line);
         }
 
-        private void addTypeReferenceEntry(String internalName, IJavaElement element) {
+        private void addTypeReferenceEntry(String internalName, String element) {
             addReferenceEntry(new EntrySpec(Kind.TYPE, false, pool(simpleTypeName(internalName)),
                     pool(qualifiedTypeName(internalName)), null, null, Access.NONE, typeCategory(internalName)),
                     element);
         }
 
+        /** Declares the package of the class file {@code entryName} of the jar without reading it. */
+        private void addPackageDeclarationOf(String entryName) {
+            VersionedClassName versionedName = versionedClassName(entryName);
+            String logicalName = versionedName != null ? versionedName.logicalName() : entryName;
+            String internalName = Strings.CS.removeEnd(logicalName, CLASS_FILE_EXTENSION);
+            if (!MODULE_INFO.equals(internalName)) {
+                addPackageDeclaration(packageName(internalName));
+            }
+        }
+
         private void addPackageDeclaration(String packageName) {
             if (StringUtils.isBlank(packageName)) {
                 return;
             }
-            IPackageFragment pkg = root.getPackageFragment(packageName);
-            add(Kind.PACKAGE, true, pkg, pool(packageName), pool(packageName), null, null);
+            add(Kind.PACKAGE, true, handles.packageFragment(packageName), pool(packageName), pool(packageName),
+                    null, null);
         }
 
-        private void addPackageReference(String packageName, IJavaElement element) {
+        private void addPackageReference(String packageName, String element) {
             if (StringUtils.isBlank(packageName)) {
                 return;
             }
@@ -738,7 +899,7 @@ public class BytecodeJarIndexer {
         }
 
         private void flushTypeReferencesByElement() {
-            for (Map.Entry<IJavaElement, List<String>> entry : typeReferencesByElement.entrySet()) {
+            for (Map.Entry<String, List<String>> entry : typeReferencesByElement.entrySet()) {
                 for (String internalName : entry.getValue()) {
                     addTypeReferenceEntry(internalName, entry.getKey());
                     addPackageReference(packageName(internalName), entry.getKey());
@@ -746,8 +907,8 @@ public class BytecodeJarIndexer {
             }
         }
 
-        private void flushMemberReferences(Map<IJavaElement, List<MemberReference>> references, Kind kind) {
-            for (Map.Entry<IJavaElement, List<MemberReference>> entry : references.entrySet()) {
+        private void flushMemberReferences(Map<String, List<MemberReference>> references, Kind kind) {
+            for (Map.Entry<String, List<MemberReference>> entry : references.entrySet()) {
                 List<MemberReference> members = kind == Kind.FIELD
                         ? collapseCompoundFieldAccesses(entry.getValue()) : entry.getValue();
                 for (MemberReference member : members) {
@@ -757,7 +918,7 @@ public class BytecodeJarIndexer {
                     }
                     addReferenceEntry(new EntrySpec(kind, false, pool(member.name()), pool(qualifiedName),
                             pool(member.owner()), pool(member.descriptor()), member.access(), TypeCategory.UNKNOWN),
-                            entry.getKey(), member.countable());
+                            entry.getKey(), member.countable(), member.line());
                 }
             }
         }
@@ -808,7 +969,8 @@ public class BytecodeJarIndexer {
                             && lookahead.owner().equals(candidate.owner())
                             && lookahead.descriptor().equals(candidate.descriptor())) {
                         result.add(new MemberReference(candidate.name(), candidate.owner(), candidate.descriptor(),
-                                Access.READ_WRITE, false, candidate.countable() && lookahead.countable()));
+                                Access.READ_WRITE, false, candidate.countable() && lookahead.countable(),
+                                candidate.line()));
                         result.addAll(skipped);
                         return true;
                     }
@@ -820,19 +982,19 @@ public class BytecodeJarIndexer {
             return false;
         }
 
-        private void add(Kind kind, boolean declaration, IJavaElement element, String name, String qualifiedName,
+        private void add(Kind kind, boolean declaration, String element, String name, String qualifiedName,
                 String declaringTypeName, String descriptor) {
             add(new EntrySpec(kind, declaration, name, qualifiedName, declaringTypeName, descriptor, Access.NONE,
                     TypeCategory.UNKNOWN), element, false);
         }
 
-        private void add(EntrySpec spec, IJavaElement element, boolean preserveDuplicate) {
+        private void add(EntrySpec spec, String element, boolean preserveDuplicate) {
             add(newEntry(element, spec), preserveDuplicate);
         }
 
-        private BytecodeSearchEntry newEntry(IJavaElement element, EntrySpec spec) {
+        private BytecodeSearchEntry newEntry(String element, EntrySpec spec) {
             String elementHandle = elementHandle(element);
-            IJavaElement fallback = anonymousElementFallback(elementHandle, element);
+            IJavaElement fallback = anonymousElementFallback(elementHandle);
             return new BytecodeSearchEntry(spec.kind(), spec.declaration(),
                     BytecodeSearchEntry.elementReference(elementHandle, fallback),
                     BytecodeSearchEntry.symbolReference(spec.name(), spec.qualifiedName(), spec.declaringTypeName(),
@@ -840,31 +1002,18 @@ public class BytecodeJarIndexer {
         }
 
         private void add(BytecodeSearchEntry entry, boolean countOccurrences) {
+            add(entry, countOccurrences, -1);
+        }
+
+        /**
+         * @param line source line of the occurrence, or {@code -1} when the class file has no
+         *        line for it
+         */
+        private void add(BytecodeSearchEntry entry, boolean countOccurrences, int line) {
             if (entry.getElementHandle() == null) {
                 return;
             }
-            EntryKey key = new EntryKey(entry.getKind(), entry.isDeclaration(), entry.getElementHandle(),
-                    entry.getName(), entry.getQualifiedName(), entry.getDeclaringTypeName(), entry.getDescriptor(),
-                    entry.getAccess(), entry.getTypeCategory());
-            Long existingRowId = writer.seen.get(key);
-            if (existingRowId != null) {
-                if (countOccurrences) {
-                    try {
-                        writer.incrementCount(existingRowId);
-                    } catch (SQLException e) {
-                        throw new DbWriteException(e);
-                    }
-                }
-                return;
-            }
-            try {
-                long rowId = writer.insert(entry, countOccurrences ? 1 : 0);
-                if (rowId >= 0) {
-                    writer.seen.put(key, rowId);
-                }
-            } catch (SQLException e) {
-                throw new DbWriteException(e);
-            }
+            writer.add(entry, countOccurrences, line);
         }
 
         private static Access fieldAccess(int opcode) {
@@ -875,19 +1024,16 @@ public class BytecodeJarIndexer {
             };
         }
 
-        private String elementHandle(IJavaElement element) {
-            if (element == null) {
-                return null;
-            }
-            String handle = element.getHandleIdentifier();
-            return handle == null ? null : elementHandles.computeIfAbsent(handle, key -> key);
+        private String elementHandle(String element) {
+            return element == null ? null : elementHandles.computeIfAbsent(element, key -> key);
         }
 
-        private IJavaElement anonymousElementFallback(String elementHandle, IJavaElement element) {
+        // Members of anonymous types are the only elements that still need a Java model handle.
+        private IJavaElement anonymousElementFallback(String elementHandle) {
             if (!Strings.CS.contains(elementHandle, "[~")) { //$NON-NLS-1$
                 return null;
             }
-            return anonymousElementFallbacks.computeIfAbsent(elementHandle, ignored -> element);
+            return anonymousElementFallbacks.computeIfAbsent(elementHandle, JavaCore::create);
         }
 
         private String pool(String value) {
@@ -919,12 +1065,28 @@ public class BytecodeJarIndexer {
                 // Seed the cache with what we already know from ASM — free, no JDT call needed.
                 typeCategoryCache.put(name, typeCategory);
                 if (!MODULE_INFO.equals(name)) {
-                    type = typeForInternalName(root, name);
+                    type = handles.type(name);
                 }
                 addDescriptor(signature);
                 if (StringUtils.isBlank(signature)) {
                     addRawDeclarationSupertypes(superName, interfaces);
                 }
+                if (type != null) {
+                    addSupertypeNames(superName, interfaces);
+                }
+            }
+
+            private void addSupertypeNames(String superName, String[] interfaces) {
+                if (superName != null && isSourceVisibleSuperclass(superName)) {
+                    supertypeNames.add(superName);
+                }
+                if (interfaces != null) {
+                    for (String iface : interfaces) {
+                        if (isSourceVisibleInterface(iface)) {
+                            supertypeNames.add(iface);
+                        }
+                    }
+                }
             }
 
             private void addRawDeclarationSupertypes(String superName, String[] interfaces) {
@@ -959,7 +1121,7 @@ public class BytecodeJarIndexer {
             @Override
             public ModuleVisitor visitModule(String name, int access, String version) {
                 IModuleDescription module = root.getModuleDescription();
-                moduleElement = module == null ? root : module;
+                moduleElement = module == null ? root.getHandleIdentifier() : module.getHandleIdentifier();
                 add(Kind.MODULE, true, moduleElement, pool(name), pool(name), null, null);
                 return moduleIndexer;
             }
@@ -1000,7 +1162,7 @@ public class BytecodeJarIndexer {
                 if ((access & Opcodes.ACC_SYNTHETIC) != 0) {
                     return null;
                 }
-                IField field = type == null ? null : type.getField(name);
+                String field = type == null ? null : ElementHandles.field(type, name);
                 add(Kind.FIELD, true, field, pool(name), pool(name), pool(qualifiedTypeName(className)),
                         pool(descriptor));
                 if ((access & Opcodes.ACC_ENUM) == 0) {
@@ -1016,7 +1178,7 @@ public class BytecodeJarIndexer {
                     return null;
                 }
                 boolean syntheticLambda = isSyntheticLambdaMethod(access, name);
-                IJavaElement methodOrType = syntheticLambda
+                String methodOrType = syntheticLambda
                         ? lambdaBodyElement(name, descriptor)
                                 : indexMethodDeclaration(name, descriptor);
                 if (!syntheticLambda) {
@@ -1036,28 +1198,32 @@ public class BytecodeJarIndexer {
                 return (access & Opcodes.ACC_SYNTHETIC) != 0 && name.startsWith(LAMBDA_METHOD_PREFIX);
             }
 
-            private IJavaElement indexMethodDeclaration(String name, String descriptor) {
+            private String indexMethodDeclaration(String name, String descriptor) {
                 if (CONSTRUCTOR.equals(name)) {
                     return indexConstructorDeclaration(descriptor);
                 }
                 if (CLASS_INITIALIZER.equals(name)) {
                     return type;
                 }
-                IMethod method = type == null ? null : type.getMethod(name, jdtParameterTypes(descriptor));
+                String method = type == null ? null : ElementHandles.method(type, name, jdtParameterTypes(descriptor));
+                declareMethod(name, method);
                 add(Kind.METHOD, true, method, pool(name), pool(name), pool(qualifiedTypeName(className)),
                         pool(descriptor));
                 return method != null ? method : type;
             }
 
-            private IJavaElement indexConstructorDeclaration(String descriptor) {
-                IMethod method = type == null ? null : type.getMethod(type.getElementName(), jdtParameterTypes(descriptor));
+            private String indexConstructorDeclaration(String descriptor) {
+                String method = type == null ? null : ElementHandles.method(type,
+                        ElementHandles.typeName(className.substring(className.lastIndexOf('/') + 1)),
+                        jdtParameterTypes(descriptor));
+                declareMethod(LAMBDA_IN_CONSTRUCTOR, method);
                 add(Kind.CONSTRUCTOR, true, method, pool(simpleTypeName(className)), pool(simpleTypeName(className)),
                         pool(qualifiedTypeName(className)), pool(descriptor));
                 return method != null ? method : type;
             }
 
             private void indexMethodDeclarationReferences(String name, String descriptor, String signature,
-                    String[] exceptions, IJavaElement methodOrType) {
+                    String[] exceptions, String methodOrType) {
                 addDescriptorReferences(declarationDescriptor(name, descriptor, signature), methodOrType);
                 if (exceptions == null) {
                     return;
@@ -1075,8 +1241,8 @@ public class BytecodeJarIndexer {
                 return paramSlots + ((access & Opcodes.ACC_STATIC) == 0 ? 1 : 0);
             }
 
-            private IJavaElement lambdaBodyElement(String lambdaName, String descriptor) {
-                IJavaElement owner = lambdaBodyOwners.get(new LambdaMethodKey(lambdaName, descriptor));
+            private String lambdaBodyElement(String lambdaName, String descriptor) {
+                String owner = lambdaBodyOwners.get(new LambdaMethodKey(lambdaName, descriptor));
                 if (owner != null) {
                     return owner;
                 }
@@ -1084,21 +1250,15 @@ public class BytecodeJarIndexer {
                 if (type == null || sourceMethodName == null) {
                     return type;
                 }
-                try {
-                    IMethod matched = null;
-                    for (IMethod candidate : type.getMethods()) {
-                        if (!matchesLambdaSourceMethod(sourceMethodName, candidate)) {
-                            continue;
-                        }
-                        if (matched != null) {
-                            return type;
-                        }
-                        matched = candidate;
-                    }
-                    return matched == null ? type : matched;
-                } catch (org.eclipse.jdt.core.JavaModelException e) {
-                    JavaDecompilerPlugin.logError(e, "Failed to resolve lambda body owner"); //$NON-NLS-1$
-                    return type;
+                // Compilers emit lambda bodies after the methods they are declared in, so every
+                // candidate has been visited by now.
+                List<String> candidates = declaredMethods.getOrDefault(sourceMethodName, List.of());
+                return candidates.size() == 1 ? candidates.get(0) : type;
+            }
+
+            private void declareMethod(String sourceName, String method) {
+                if (method != null) {
+                    declaredMethods.computeIfAbsent(sourceName, key -> new ArrayList<>(1)).add(method);
                 }
             }
 
@@ -1108,13 +1268,6 @@ public class BytecodeJarIndexer {
                 return end <= start ? null : lambdaName.substring(start, end);
             }
 
-            private static boolean matchesLambdaSourceMethod(String sourceMethodName, IMethod candidate)
-                    throws org.eclipse.jdt.core.JavaModelException {
-                return "new".equals(sourceMethodName) //$NON-NLS-1$
-                        ? candidate.isConstructor()
-                                : sourceMethodName.equals(candidate.getElementName());
-            }
-
             private String declarationDescriptor(String name, String descriptor, String signature) {
                 if (!CONSTRUCTOR.equals(name) || signature != null) {
                     return signature == null ? descriptor : signature;
@@ -1148,43 +1301,32 @@ public class BytecodeJarIndexer {
             }
         }
 
-        private static IType typeForInternalName(IPackageFragmentRoot root, String internalName) {
-            IPackageFragment pkg = root.getPackageFragment(packageName(internalName));
-            IClassFile classFile = pkg.getClassFile(classFileName(internalName));
-            return classFile instanceof IOrdinaryClassFile ordinaryClassFile ? ordinaryClassFile.getType() : null;
-        }
-
         private TypeCategory typeCategory(String internalName) {
             TypeCategory cached = typeCategoryCache.get(internalName);
             if (cached != null) {
                 return cached;
             }
-            TypeCategory result = typeCategory(typeForInternalName(root, internalName));
+            TypeCategory result = typeCategoryInJar(internalName);
             typeCategoryCache.put(internalName, result);
             return result;
         }
 
-        private static TypeCategory typeCategory(IType type) {
-            if (type == null || !type.exists()) {
+        /**
+         * Reads the category of a referenced type from the access flags of its class file in the
+         * indexed jar. Types declared in other jars are {@link TypeCategory#UNKNOWN}, as they are
+         * to the Java model of this root.
+         */
+        private TypeCategory typeCategoryInJar(String internalName) {
+            ZipEntry entry = zip == null ? null : zip.getEntry(internalName + CLASS_FILE_EXTENSION);
+            if (entry == null) {
                 return TypeCategory.UNKNOWN;
             }
             try {
-                if (type.isAnnotation()) {
-                    return TypeCategory.ANNOTATION;
-                }
-                if (type.isEnum()) {
-                    return TypeCategory.ENUM;
-                }
-                if (type.isInterface()) {
-                    return TypeCategory.INTERFACE;
-                }
-                if (type.isClass()) {
-                    return TypeCategory.CLASS;
-                }
-            } catch (org.eclipse.jdt.core.JavaModelException e) {
-                JavaDecompilerPlugin.logError(e, "Failed to inspect indexed type category"); //$NON-NLS-1$
+                return typeCategory(headerBuffer.read(zip, entry).getAccess());
+            } catch (IOException | RuntimeException e) {
+                Logger.debug(e);
+                return TypeCategory.UNKNOWN;
             }
-            return TypeCategory.UNKNOWN;
         }
 
         private static TypeCategory typeCategory(int access) {
@@ -1211,7 +1353,7 @@ public class BytecodeJarIndexer {
 
         private final class SignatureIndexer extends SignatureVisitor {
 
-            private final IJavaElement element;
+            private final String element;
             private String className;
 
             private SignatureIndexer() {
@@ -1219,7 +1361,7 @@ public class BytecodeJarIndexer {
                 this.element = null;
             }
 
-            private SignatureIndexer(IJavaElement element) {
+            private SignatureIndexer(String element) {
                 super(Opcodes.ASM9);
                 this.element = element;
             }
@@ -1236,7 +1378,7 @@ public class BytecodeJarIndexer {
                 addDirectTypeReference(className, element);
             }
 
-            private void addDirectTypeReference(String internalName, IJavaElement targetElement) {
+            private void addDirectTypeReference(String internalName, String targetElement) {
                 if (targetElement == null) {
                     typeReferences.add(internalName);
                 } else {
@@ -1257,9 +1399,9 @@ public class BytecodeJarIndexer {
 
         private final class FieldIndexer extends FieldVisitor {
 
-            private final IJavaElement field;
+            private final String field;
 
-            private FieldIndexer(IJavaElement field) {
+            private FieldIndexer(String field) {
                 super(Opcodes.ASM9);
                 this.field = field;
             }
@@ -1278,9 +1420,9 @@ public class BytecodeJarIndexer {
 
         private final class RecordComponentIndexer extends RecordComponentVisitor {
 
-            private final IJavaElement element;
+            private final String element;
 
-            private RecordComponentIndexer(IJavaElement element) {
+            private RecordComponentIndexer(String element) {
                 super(Opcodes.ASM9);
                 this.element = element;
             }
@@ -1299,7 +1441,7 @@ public class BytecodeJarIndexer {
 
         private final class MethodIndexer extends MethodVisitor {
 
-            private final IJavaElement method;
+            private final String method;
             private final Map<String, Integer> pendingNewTypes = new HashMap<>();
             private final Map<Label, Set<String>> catchHandlerTypes = new HashMap<>();
             private final Set<Label> finallyHandlerLabels = new HashSet<>();
@@ -1313,7 +1455,7 @@ public class BytecodeJarIndexer {
             private final int firstLocalSlot;
             private Label prevHandlerLabel = null;
             private MemberReference pendingStaticCompoundRead;
-            private IJavaElement pendingStaticCompoundElement;
+            private String pendingStaticCompoundElement;
             private int pendingStaticCompoundStackDepth = -1;
             private int stackDepth = 0;
             private int previousOpcode = -1;
@@ -1322,7 +1464,7 @@ public class BytecodeJarIndexer {
             private int pendingMonitorEnterCount = 0;
             private boolean inFinallyHandler = false;
 
-            private MethodIndexer(IJavaElement method, int firstLocalSlot) {
+            private MethodIndexer(String method, int firstLocalSlot) {
                 super(Opcodes.ASM9);
                 this.method = method;
                 this.firstLocalSlot = firstLocalSlot;
@@ -1544,7 +1686,8 @@ public class BytecodeJarIndexer {
                         && references.get(references.size() - 1) == pendingStaticCompoundRead) {
                     references.set(references.size() - 1, new MemberReference(pendingStaticCompoundRead.name(),
                             pendingStaticCompoundRead.owner(), pendingStaticCompoundRead.descriptor(),
-                            pendingStaticCompoundRead.access(), false, pendingStaticCompoundRead.countable()));
+                            pendingStaticCompoundRead.access(), false, pendingStaticCompoundRead.countable(),
+                            pendingStaticCompoundRead.line()));
                 }
                 pendingStaticCompoundRead = null;
                 pendingStaticCompoundElement = null;
@@ -1668,6 +1811,7 @@ public class BytecodeJarIndexer {
             @Override
             public void visitLineNumber(int line, Label start) {
                 currentLine = line;
+                referenceLine = line;
             }
 
             @Override
@@ -1749,7 +1893,7 @@ public class BytecodeJarIndexer {
             }
 
             private void registerInlineFinallyCandidate(String callKey, String name) {
-                IJavaElement enclosingElement = method == null ? type : method;
+                String enclosingElement = method == null ? type : method;
                 List<MemberReference> refs = CONSTRUCTOR.equals(name)
                         ? constructorReferencesByElement.get(enclosingElement)
                                 : methodReferencesByElement.get(enclosingElement);
@@ -1759,7 +1903,7 @@ public class BytecodeJarIndexer {
                     .add(() -> {
                         MemberReference old = refs.get(idx);
                         refs.set(idx, new MemberReference(old.name(), old.owner(), old.descriptor(),
-                                old.access(), old.compoundCandidate(), false));
+                                old.access(), old.compoundCandidate(), false, old.line()));
                     });
                 }
             }
@@ -1777,7 +1921,7 @@ public class BytecodeJarIndexer {
             }
 
             private void registerInlineFinallyFieldCandidate(String fieldKey) {
-                IJavaElement enclosingElement = method == null ? type : method;
+                String enclosingElement = method == null ? type : method;
                 List<MemberReference> refs = fieldReferencesByElement.get(enclosingElement);
                 if (refs != null && !refs.isEmpty()) {
                     int idx = refs.size() - 1;
@@ -1785,7 +1929,7 @@ public class BytecodeJarIndexer {
                     .add(() -> {
                         MemberReference old = refs.get(idx);
                         refs.set(idx, new MemberReference(old.name(), old.owner(), old.descriptor(),
-                                old.access(), old.compoundCandidate(), false));
+                                old.access(), old.compoundCandidate(), false, old.line()));
                     });
                 }
             }
@@ -1798,6 +1942,7 @@ public class BytecodeJarIndexer {
                         suppressors.forEach(Runnable::run);
                     }
                 }
+                referenceLine = -1;
                 super.visitEnd();
             }
         }
@@ -1853,7 +1998,7 @@ public class BytecodeJarIndexer {
     }
 
     private record MemberReference(String name, String owner, String descriptor, Access access,
-            boolean compoundCandidate, boolean countable) {
+            boolean compoundCandidate, boolean countable, int line) {
     }
 
     private record ReferenceSpec(Kind kind, String name, String qualifiedName, String owner, String descriptor,
@@ -1866,129 +2011,316 @@ public class BytecodeJarIndexer {
     private record LambdaMethodKey(String name, String descriptor) {
     }
 
-    private record EntryKey(Kind kind, boolean declaration, String elementHandle, String name, String qualifiedName,
+    private record EntryKey(String ownerClass, Kind kind, boolean declaration, String elementHandle, String name, String qualifiedName,
             String declaringTypeName, String descriptor, Access access, TypeCategory typeCategory) {
     }
 
+    private record LineKey(Kind kind, String elementHandle, String name, String declaringTypeName,
+            String descriptor, Access access) {
+
+        static LineKey of(BytecodeSearchEntry entry) {
+            return new LineKey(entry.getKind(), entry.getElementHandle(), entry.getName(),
+                    entry.getDeclaringTypeName(), entry.getDescriptor(), entry.getAccess());
+        }
+    }
+
     private record EntrySpec(Kind kind, boolean declaration, String name, String qualifiedName,
             String declaringTypeName, String descriptor, Access access, TypeCategory typeCategory) {
     }
 
-    private record IndexContext(IPackageFragmentRoot root, File jar, ZipFile zip, EntryWriter writer,
-            Map<String, String> strings, Map<String, TypeCategory> typeCategoryCache) {
+    private record IndexContext(IPackageFragmentRoot root, File jar, ZipFile zip, ElementHandles handles,
+            EntryWriter writer, Map<String, String> strings, Map<String, TypeCategory> typeCategoryCache,
+            ClassBuffer buffer) {
+    }
+
+    /**
+     * Read buffer reused for the class files of a jar, which one worker parses in sequence. It grows
+     * to the largest class read so far, so a class costs no byte array of its own and
+     * {@link ClassReader} reads it in place. A reader is only valid until the next {@link #read}.
+     */
+    static final class ClassBuffer {
+
+        private byte[] bytes = new byte[0];
+
+        ClassReader read(ZipFile zip, ZipEntry entry) throws IOException {
+            long size = entry.getSize();
+            // One spare byte, so that a correct size is confirmed by end of stream without growing.
+            ensureCapacity(size >= 0L && size < Integer.MAX_VALUE - 8 ? (int) size + 1 : 8192);
+            int length = 0;
+            try (InputStream input = zip.getInputStream(entry)) {
+                int read;
+                while ((read = input.read(bytes, length, bytes.length - length)) >= 0) {
+                    length += read;
+                    if (length == bytes.length) {
+                        ensureCapacity(length * 2);
+                    }
+                }
+            }
+            return new ClassReader(bytes, 0, length);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (bytes.length < capacity) {
+                bytes = new byte[Math.max(capacity, bytes.length + (bytes.length >> 1))];
+            }
+        }
     }
 
+    /**
+     * Entries of one jar collected in memory while it is parsed, de-duplicated by {@link EntryKey}.
+     * Repeated references only bump the occurrence count of the first entry, so the collected
+     * rows can later be written to the database without any follow-up updates.
+     *
+     * <p>Every row belongs to the class file that made it, so that the rows of an unchanged class
+     * can be copied on their own, except package declarations: all the classes of a package make
+     * the same one, which therefore belongs to the jar and is made again on every write.
+     */
     private static final class EntryWriter {
 
-        private final int jarId;
-        private final PreparedStatement insertPs;
-        private final PreparedStatement updatePs;
-        private final PreparedStatement internInsPs;
-        private final PreparedStatement internSelPs;
-        private final Map<String, Integer> stringCache;
-        private final Object lock;
-        final Map<EntryKey, Long> seen = new HashMap<>();
-        // heap mode — non-null only when SQLite is unavailable
-        private final List<BytecodeSearchEntry> heapEntries;
-        private final List<Integer> heapCounts;
+        private final Map<EntryKey, Integer> seen = new HashMap<>();
+        private final List<BytecodeSearchEntry> entries = new ArrayList<>();
+        private int[] counts = new int[64];
+        // Class file that produced each entry, so the rows of a class can be replaced on their own.
+        private String[] classes = new String[64];
+        private final List<SupertypeEdge> supertypes = new ArrayList<>();
+        private final List<String> supertypeClasses = new ArrayList<>();
+        // Source lines of the counted occurrences of each reference, only kept by referenceLines.
+        private final Map<LineKey, List<Integer>> lines;
+        private String currentClass;
 
-        EntryWriter(int jarId, PreparedStatement insertPs, PreparedStatement updatePs,
-                PreparedStatement internInsPs, PreparedStatement internSelPs, Object lock) {
-            this.jarId = jarId;
-            this.insertPs = insertPs;
-            this.updatePs = updatePs;
-            this.internInsPs = internInsPs;
-            this.internSelPs = internSelPs;
-            this.lock = lock;
-            this.stringCache = new HashMap<>();
-            this.heapEntries = null;
-            this.heapCounts = null;
+        EntryWriter() {
+            this(false);
         }
 
-        EntryWriter() {
-            this.jarId = -1;
-            this.insertPs = null;
-            this.updatePs = null;
-            this.internInsPs = null;
-            this.internSelPs = null;
-            this.lock = null;
-            this.stringCache = null;
-            this.heapEntries = new ArrayList<>();
-            this.heapCounts = new ArrayList<>();
-        }
-
-        HeapEntryStore buildHeapStore() {
-            if (heapEntries == null) {
-                return null;
+        EntryWriter(boolean recordLines) {
+            lines = recordLines ? new HashMap<>() : null;
+        }
+
+        void beginClass(String entryName) {
+            currentClass = entryName;
+        }
+
+        void addSupertype(SupertypeEdge edge) {
+            supertypes.add(edge);
+            supertypeClasses.add(currentClass);
+        }
+
+        void add(BytecodeSearchEntry entry, boolean countOccurrences, int line) {
+            if (lines != null && countOccurrences) {
+                lines.computeIfAbsent(LineKey.of(entry), key -> new ArrayList<>()).add(line);
+            }
+            String owner = entry.getKind() == Kind.PACKAGE && entry.isDeclaration() ? null : currentClass;
+            EntryKey key = new EntryKey(owner, entry.getKind(), entry.isDeclaration(), entry.getElementHandle(),
+                    entry.getName(), entry.getQualifiedName(), entry.getDeclaringTypeName(), entry.getDescriptor(),
+                    entry.getAccess(), entry.getTypeCategory());
+            Integer existing = seen.get(key);
+            if (existing != null) {
+                if (countOccurrences) {
+                    counts[existing]++;
+                }
+                return;
+            }
+            int index = entries.size();
+            if (index == counts.length) {
+                counts = Arrays.copyOf(counts, index * 2);
+                classes = Arrays.copyOf(classes, index * 2);
             }
-            int[] counts = heapCounts.stream().mapToInt(Integer::intValue).toArray();
-            return HeapEntryStore.from(heapEntries, counts);
+            seen.put(key, index);
+            entries.add(entry);
+            counts[index] = countOccurrences ? 1 : 0;
+            classes[index] = owner;
         }
 
-        private int intern(String value) throws SQLException {
-            if (value == null || value.isEmpty()) {
-                return 0; // sentinel: id=0 means "no string" (SQLite ROWIDs start at 1)
+        ReferenceLines referenceLines() {
+            Map<LineKey, int[]> occurrenceLines = new HashMap<>(lines.size() * 2);
+            lines.forEach((key, recorded) -> occurrenceLines.put(key,
+                    recorded.stream().mapToInt(Integer::intValue).toArray()));
+            return new ReferenceLines(occurrenceLines);
+        }
+
+        HeapEntryStore buildHeapStore(String rootHandle) {
+            return HeapEntryStore.from(rootHandle, entries, Arrays.copyOf(counts, entries.size()), supertypes);
+        }
+
+        void writeShard(Path shard, String rootHandle) throws IOException {
+            String[] fallbacks = new String[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                fallbacks[i] = RowWriter.fallbackHandle(entries.get(i));
             }
-            Integer cached = stringCache.get(value);
-            if (cached != null) {
-                return cached;
+            ShardEntryStore.write(shard, rootHandle, entries, Arrays.copyOf(counts, entries.size()), fallbacks,
+                    supertypes);
+        }
+
+        /**
+         * Writes the collected rows, supertype edges and the class CRCs of {@code classEntries}, then
+         * copies the rows of the classes that did not change from {@code baseJarId} when it is not
+         * negative. Element handles are written as their parts after {@code rootHandle}. Returns the
+         * string ids resolved from the database, which may be added to {@code sharedIds} once the
+         * transaction is committed.
+         */
+        Map<String, Integer> writeTo(Connection conn, Object lock, int jarId, String rootHandle,
+                List<JarEntryWork> classEntries, int baseJarId, StringIdCache sharedIds) throws SQLException {
+            String[] fallbacks = new String[entries.size()];
+            ElementHandles.Parts[] handles = new ElementHandles.Parts[entries.size()];
+            ElementHandles splitter = new ElementHandles(rootHandle);
+            Map<String, Integer> ids = new HashMap<>();
+            Set<String> missing = new HashSet<>();
+            for (int i = 0; i < entries.size(); i++) {
+                BytecodeSearchEntry entry = entries.get(i);
+                fallbacks[i] = RowWriter.fallbackHandle(entry);
+                handles[i] = splitter.split(entry.getElementHandle());
+                if (handles[i] != null) {
+                    lookup(handles[i].packagePart(), ids, missing, sharedIds);
+                    lookup(handles[i].classFilePart(), ids, missing, sharedIds);
+                    lookup(handles[i].memberPart(), ids, missing, sharedIds);
+                }
+                lookup(entry.getName(), ids, missing, sharedIds);
+                lookup(entry.getQualifiedName(), ids, missing, sharedIds);
+                lookup(entry.getDeclaringTypeName(), ids, missing, sharedIds);
+                lookup(entry.getDescriptor(), ids, missing, sharedIds);
+                lookup(fallbacks[i], ids, missing, sharedIds);
+            }
+            for (JarEntryWork classEntry : classEntries) {
+                lookup(classEntry.name(), ids, missing, sharedIds);
+            }
+            for (SupertypeEdge edge : supertypes) {
+                lookup(edge.subtype(), ids, missing, sharedIds);
+                lookup(edge.supertype(), ids, missing, sharedIds);
+            }
+            Map<String, Integer> resolved;
+            synchronized (lock) {
+                resolved = SqliteEntryStore.internStrings(conn, missing);
+            }
+            ids.putAll(resolved);
+            try (RowWriter rows = new RowWriter(conn, lock, jarId, ids)) {
+                for (int i = 0; i < entries.size(); i++) {
+                    rows.insert(entries.get(i), handles[i], fallbacks[i], counts[i], classes[i]);
+                }
+                rows.flush();
             }
-            int id;
             synchronized (lock) {
-                internInsPs.setString(1, value);
-                internInsPs.executeUpdate();
-                internSelPs.setString(1, value);
-                try (ResultSet rs = internSelPs.executeQuery()) {
-                    id = rs.next() ? rs.getInt(1) : 0;
+                SqliteEntryStore.insertClasses(conn, jarId, classEntries, ids);
+                SqliteEntryStore.insertSupertypes(conn, jarId, supertypes, supertypeClasses, ids);
+                if (baseJarId >= 0) {
+                    SqliteEntryStore.copyUnchangedClasses(conn, baseJarId, jarId);
                 }
+                SqliteEntryStore.recordStringOwners(conn, jarId);
+                SqliteEntryStore.recordNameFilter(conn, jarId);
+            }
+            return resolved;
+        }
+
+        private static void lookup(String value, Map<String, Integer> ids, Set<String> missing,
+                StringIdCache sharedIds) {
+            if (value == null || value.isEmpty() || ids.containsKey(value) || missing.contains(value)) {
+                return;
+            }
+            Integer id = sharedIds == null ? null : sharedIds.get(value);
+            if (id != null) {
+                ids.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+    }
+
+    /**
+     * Writes entry rows of one jar as multi-row inserts of {@link #ENTRY_ROWS_PER_INSERT} rows,
+     * so a jar costs one JDBC round trip per batch instead of one per entry.
+     */
+    static final class RowWriter implements AutoCloseable {
+
+        private final Connection conn;
+        private final Object lock;
+        private final int jarId;
+        private final PreparedStatement insertPs;
+        private final Map<String, Integer> stringIds;
+        private final int[] pending = new int[ENTRY_ROWS_PER_INSERT * ENTRY_COLUMNS];
+        private int pendingRows;
+
+        /**
+         * @param stringIds the ids of every string of the inserted entries, which must already
+         *        be interned
+         */
+        RowWriter(Connection conn, Object lock, int jarId, Map<String, Integer> stringIds) throws SQLException {
+            this.conn = conn;
+            this.lock = lock;
+            this.jarId = jarId;
+            this.insertPs = prepareLocked(conn, lock, insertSql(ENTRY_ROWS_PER_INSERT));
+            this.stringIds = stringIds;
+        }
+
+        private int id(String value) throws SQLException {
+            if (value == null || value.isEmpty()) {
+                return 0; // sentinel: id=0 means "no string" (SQLite ROWIDs start at 1)
+            }
+            Integer id = stringIds.get(value);
+            if (id == null) {
+                throw new SQLException("String was not interned: " + value); //$NON-NLS-1$
             }
-            stringCache.put(value, id);
             return id;
         }
 
-        long insert(BytecodeSearchEntry entry, int count) throws SQLException {
-            if (heapEntries != null) {
-                int idx = heapEntries.size();
-                heapEntries.add(entry);
-                heapCounts.add(count);
-                return idx;
-            }
-            int elementHandleId = intern(nullToEmpty(entry.getElementHandle()));
-            int nameId = intern(nullToEmpty(entry.getName()));
-            int qualNameId = intern(nullToEmpty(entry.getQualifiedName()));
-            int declTypeId = intern(nullToEmpty(entry.getDeclaringTypeName()));
-            int descId = intern(nullToEmpty(entry.getDescriptor()));
-            int fallbackId = intern(fallbackHandle(entry));
-            insertPs.setInt(1, jarId);
-            insertPs.setInt(2, entry.getKind().ordinal());
-            insertPs.setInt(3, entry.isDeclaration() ? 1 : 0);
-            insertPs.setInt(4, entry.getAccess().ordinal());
-            insertPs.setInt(5, entry.getTypeCategory().ordinal());
-            insertPs.setInt(6, elementHandleId);
-            insertPs.setInt(7, nameId);
-            insertPs.setInt(8, qualNameId);
-            insertPs.setInt(9, declTypeId);
-            insertPs.setInt(10, descId);
-            insertPs.setInt(11, count);
-            insertPs.setInt(12, fallbackId);
-            synchronized (lock) {
-                insertPs.executeUpdate();
-                try (ResultSet keys = insertPs.getGeneratedKeys()) {
-                    return keys.next() ? keys.getLong(1) : -1L;
+        void insert(BytecodeSearchEntry entry, ElementHandles.Parts handle, String fallbackHandle, int count,
+                String className) throws SQLException {
+            int offset = pendingRows * ENTRY_COLUMNS;
+            pending[offset] = jarId;
+            pending[offset + 1] = entry.getKind().ordinal();
+            pending[offset + 2] = entry.isDeclaration() ? 1 : 0;
+            pending[offset + 3] = entry.getAccess().ordinal();
+            pending[offset + 4] = entry.getTypeCategory().ordinal();
+            pending[offset + 5] = handle == null ? 0 : id(handle.packagePart());
+            pending[offset + 6] = handle == null ? 0 : id(handle.classFilePart());
+            pending[offset + 7] = handle == null ? 0 : id(handle.memberPart());
+            pending[offset + 8] = id(entry.getName());
+            pending[offset + 9] = id(entry.getQualifiedName());
+            pending[offset + 10] = id(entry.getDeclaringTypeName());
+            pending[offset + 11] = id(entry.getDescriptor());
+            pending[offset + 12] = count;
+            pending[offset + 13] = id(fallbackHandle);
+            pending[offset + 14] = id(className);
+            if (++pendingRows == ENTRY_ROWS_PER_INSERT) {
+                execute(insertPs);
+            }
+        }
+
+        /** Writes the rows of the last, partial batch. */
+        void flush() throws SQLException {
+            if (pendingRows == 0) {
+                return;
+            }
+            try (PreparedStatement tailPs = prepareLocked(conn, lock, insertSql(pendingRows))) {
+                execute(tailPs);
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            insertPs.close();
+        }
+
+        private static String insertSql(int rows) {
+            StringBuilder sql = new StringBuilder(INSERT_ENTRY_SQL.length() + rows * (ENTRY_COLUMNS * 2 + 2));
+            sql.append(INSERT_ENTRY_SQL);
+            for (int row = 0; row < rows; row++) {
+                sql.append(row == 0 ? "(" : ",("); //$NON-NLS-1$ //$NON-NLS-2$
+                for (int column = 0; column < ENTRY_COLUMNS; column++) {
+                    sql.append(column == 0 ? "?" : ",?"); //$NON-NLS-1$ //$NON-NLS-2$
                 }
+                sql.append(')');
             }
+            return sql.toString();
         }
 
-        void incrementCount(long rowId) throws SQLException {
-            if (heapCounts != null) {
-                int idx = (int) rowId;
-                heapCounts.set(idx, heapCounts.get(idx) + 1);
-                return;
+        private void execute(PreparedStatement ps) throws SQLException {
+            int parameters = pendingRows * ENTRY_COLUMNS;
+            for (int i = 0; i < parameters; i++) {
+                ps.setInt(i + 1, pending[i]);
             }
-            updatePs.setLong(1, rowId);
             synchronized (lock) {
-                updatePs.executeUpdate();
+                ps.executeUpdate();
             }
+            pendingRows = 0;
         }
 
         private static String fallbackHandle(BytecodeSearchEntry entry) {
@@ -2006,10 +2338,6 @@ public class BytecodeJarIndexer {
             }
             return ""; //$NON-NLS-1$
         }
-
-        private static String nullToEmpty(String s) {
-            return s == null ? "" : s; //$NON-NLS-1$
-        }
     }
 
     private record VersionedClassName(String logicalName, int version) {
@@ -2027,6 +2355,19 @@ public class BytecodeJarIndexer {
             String contentHash) {
     }
 
-    public record JarEntryWork(String name, long impactBytes, int ticks) {
+    /**
+     * @param crc CRC-32 of the class file, used to re-index only the classes that changed when a
+     *        jar at the same location is rebuilt
+     */
+    public record JarEntryWork(String name, long impactBytes, int ticks, long crc) {
+    }
+
+    /**
+     * A jar parsed by {@link #parse}; {@code entries} is {@code null} when its content was already
+     * indexed for another location and only needs to be linked. When {@code baseJarId} is not
+     * negative, {@code entries} only holds the classes that differ from that previously indexed
+     * content of the same location, and the rows of the other classes are copied from it.
+     */
+    record ParsedJar(IPackageFragmentRoot root, File jar, JarWork work, EntryWriter entries, int baseJarId) {
     }
 }
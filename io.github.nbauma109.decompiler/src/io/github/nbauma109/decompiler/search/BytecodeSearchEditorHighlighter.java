@@ -9,7 +9,7 @@
 package io.github.nbauma109.decompiler.search;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -29,25 +29,20 @@ final class BytecodeSearchEditorHighlighter {
     private BytecodeSearchEditorHighlighter() {
     }
 
+    /**
+     * Replaces the matches highlighted in {@code textEditor} with {@code ranges}.
+     */
     static void highlight(ITextEditor textEditor, List<BytecodeSourceRangeResolver.SourceRange> ranges) {
         IAnnotationModel model = annotationModel(textEditor);
         if (model == null || ranges.isEmpty()) {
             return;
         }
-        Map<Annotation, Position> additions = new HashMap<>(ranges.size());
-        List<Annotation> annotations = new ArrayList<>(ranges.size());
-        for (BytecodeSourceRangeResolver.SourceRange range : ranges) {
-            if (range.offset() >= 0 && range.length() > 0) {
-                Annotation annotation = new BytecodeSearchAnnotation();
-                annotations.add(annotation);
-                additions.put(annotation, new Position(range.offset(), range.length()));
-            }
-        }
-        if (annotations.isEmpty()) {
+        Map<Annotation, Position> additions = annotations(ranges);
+        if (additions.isEmpty()) {
             return;
         }
         synchronized (ANNOTATIONS) {
-            List<Annotation> previous = ANNOTATIONS.put(model, annotations);
+            List<Annotation> previous = ANNOTATIONS.put(model, new ArrayList<>(additions.keySet()));
             Annotation[] removals = previous == null ? new Annotation[0] : previous.toArray(Annotation[]::new);
             if (model instanceof IAnnotationModelExtension extension) {
                 extension.replaceAnnotations(removals, additions);
@@ -62,6 +57,39 @@ final class BytecodeSearchEditorHighlighter {
         }
     }
 
+    /**
+     * Highlights {@code ranges} in {@code textEditor} next to the matches already highlighted,
+     * which are replaced by the next {@link #highlight} call.
+     */
+    static void add(ITextEditor textEditor, List<BytecodeSourceRangeResolver.SourceRange> ranges) {
+        IAnnotationModel model = annotationModel(textEditor);
+        if (model == null || ranges.isEmpty()) {
+            return;
+        }
+        Map<Annotation, Position> additions = annotations(ranges);
+        if (additions.isEmpty()) {
+            return;
+        }
+        synchronized (ANNOTATIONS) {
+            ANNOTATIONS.computeIfAbsent(model, ignored -> new ArrayList<>()).addAll(additions.keySet());
+            if (model instanceof IAnnotationModelExtension extension) {
+                extension.replaceAnnotations(new Annotation[0], additions);
+            } else {
+                additions.forEach(model::addAnnotation);
+            }
+        }
+    }
+
+    private static Map<Annotation, Position> annotations(List<BytecodeSourceRangeResolver.SourceRange> ranges) {
+        Map<Annotation, Position> annotations = new LinkedHashMap<>(ranges.size());
+        for (BytecodeSourceRangeResolver.SourceRange range : ranges) {
+            if (range.offset() >= 0 && range.length() > 0) {
+                annotations.put(new BytecodeSearchAnnotation(), new Position(range.offset(), range.length()));
+            }
+        }
+        return annotations;
+    }
+
     private static IAnnotationModel annotationModel(ITextEditor textEditor) {
         IAnnotationModel model = textEditor.getAdapter(IAnnotationModel.class);
         if (model != null) {
@@ -42,7 +42,9 @@ public class BytecodeSearchEntry {
 
     private final Kind kind;
     private final boolean declaration;
-    private final String elementHandle;
+    // Joined from elementHandleParts on first use when the entry was read from a store.
+    private String elementHandle;
+    private final ElementHandles.Parts elementHandleParts;
     private final IJavaElement anonymousElementFallback;
     private final String name;
     private final String qualifiedName;
@@ -72,6 +74,7 @@ public class BytecodeSearchEntry {
         this.kind = kind;
         this.declaration = declaration;
         this.elementHandle = elementReference.handle();
+        this.elementHandleParts = elementReference.parts();
         this.anonymousElementFallback = elementReference.anonymousFallback();
         this.name = symbolReference.name() == null ? "" : symbolReference.name(); //$NON-NLS-1$
         this.qualifiedName = symbolReference.qualifiedName() == null ? this.name : symbolReference.qualifiedName();
@@ -89,7 +92,15 @@ public class BytecodeSearchEntry {
     }
 
     public static ElementReference elementReference(String handle, IJavaElement anonymousFallback) {
-        return new ElementReference(handle, anonymousFallback);
+        return new ElementReference(handle, null, anonymousFallback);
+    }
+
+    /**
+     * Reference to the element whose handle is joined from {@code parts} only when the handle or
+     * element of the entry is asked for.
+     */
+    static ElementReference elementReference(ElementHandles.Parts parts, IJavaElement anonymousFallback) {
+        return new ElementReference(null, parts, anonymousFallback);
     }
 
     public static SymbolReference symbolReference(String name, String qualifiedName, String declaringTypeName,
@@ -99,17 +110,17 @@ public class BytecodeSearchEntry {
 
     private static ElementReference elementReference(IJavaElement element) {
         if (element == null) {
-            return new ElementReference(null, null);
+            return new ElementReference(null, null, null);
         }
         String handle = element.getHandleIdentifier();
-        return new ElementReference(handle, anonymousElementFallback(handle, element));
+        return new ElementReference(handle, null, anonymousElementFallback(handle, element));
     }
 
     private static IJavaElement anonymousElementFallback(String elementHandle, IJavaElement element) {
         return Strings.CS.contains(elementHandle, "[~") ? element : null; //$NON-NLS-1$
     }
 
-    record ElementReference(String handle, IJavaElement anonymousFallback) {
+    record ElementReference(String handle, ElementHandles.Parts parts, IJavaElement anonymousFallback) {
     }
 
     record SymbolReference(String name, String qualifiedName, String declaringTypeName, String descriptor) {
@@ -124,11 +135,15 @@ public class BytecodeSearchEntry {
     }
 
     IJavaElement getElement() {
-        IJavaElement element = elementHandle == null ? null : JavaCore.create(elementHandle);
+        String handle = getElementHandle();
+        IJavaElement element = handle == null ? null : JavaCore.create(handle);
         return element == null ? anonymousElementFallback : element;
     }
 
     public String getElementHandle() {
+        if (elementHandle == null && elementHandleParts != null) {
+            elementHandle = elementHandleParts.join();
+        }
         return elementHandle;
     }
 
@@ -176,7 +191,7 @@ public class BytecodeSearchEntry {
         return new EqualsBuilder()
                 .append(kind, other.kind)
                 .append(declaration, other.declaration)
-                .append(elementHandle, other.elementHandle)
+                .append(getElementHandle(), other.getElementHandle())
                 .append(name, other.name)
                 .append(qualifiedName, other.qualifiedName)
                 .append(declaringTypeName, other.declaringTypeName)
@@ -191,7 +206,7 @@ public class BytecodeSearchEntry {
         return new HashCodeBuilder()
                 .append(kind)
                 .append(declaration)
-                .append(elementHandle)
+                .append(getElementHandle())
                 .append(name)
                 .append(qualifiedName)
                 .append(declaringTypeName)
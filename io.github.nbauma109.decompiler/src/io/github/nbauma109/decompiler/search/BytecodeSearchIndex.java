@@ -15,18 +15,30 @@ import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.concurrent.ConcurrentException;
 import org.apache.commons.lang3.concurrent.LazyInitializer;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -35,8 +47,10 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IClasspathEntry;
@@ -49,9 +63,16 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.launching.JavaRuntime;
+import org.eclipse.osgi.service.datalocation.Location;
+import org.eclipse.swt.SWTException;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
 
 import io.github.nbauma109.decompiler.JavaDecompilerPlugin;
+import io.github.nbauma109.decompiler.i18n.Messages;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
 import io.github.nbauma109.decompiler.util.Logger;
 
@@ -66,6 +87,12 @@ public final class BytecodeSearchIndex {
     };
     private static final long STARTUP_DELAY = 5000L;
     private static final long REFRESH_DELAY = 2000L;
+    private static final long STRING_ID_CACHE_CHARS = 8L * 1024 * 1024;
+    private static final long QUERY_CACHE_BYTES = 16L * 1024 * 1024;
+    private static final int READ_CONNECTIONS = Math.clamp(Runtime.getRuntime().availableProcessors(), 1, 4);
+    private static final Duration SHARD_MAX_AGE = Duration.ofDays(60);
+    private static final int STRING_GC_CHUNK = 2000;
+    private static final long PUBLICATION_POLL_MILLIS = 250L;
     private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
             | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
             | IJavaElementDelta.F_ADDED_TO_CLASSPATH
@@ -85,9 +112,42 @@ public final class BytecodeSearchIndex {
     // Coordinates forEachEntry() reads against pruneOrphanJarRows() writes so that
     // in-flight searches always complete before superseded jar rows are deleted.
     private final ReentrantReadWriteLock searchLock = new ReentrantReadWriteLock();
+    // Ids of the shared strings table reused across jars; cleared whenever strings are collected.
+    private final StringIdCache stringIds = new StringIdCache(STRING_ID_CACHE_CHARS);
+    // Rows answering recent searches against the published indexes; reset on every publication.
+    private final QueryResultCache queryResults = new QueryResultCache(QUERY_CACHE_BYTES);
+    private final AtomicLong filteredJars = new AtomicLong();
+    private final AtomicLong skippedJars = new AtomicLong();
+    private final AtomicLong filterFalsePositives = new AtomicLong();
+    // Keeps string collection from running while a refresh writes entries: a string id resolved
+    // for a jar that is not committed yet has no owner and would look unused.
+    private final ISchedulingRule databaseWriteRule = new ISchedulingRule() {
+        @Override
+        public boolean contains(ISchedulingRule rule) {
+            return rule == this;
+        }
+
+        @Override
+        public boolean isConflicting(ISchedulingRule rule) {
+            return rule == this;
+        }
+    };
     private boolean refreshRequested;
+    // Project of the active editor, captured on the UI thread when a refresh is scheduled so that
+    // the refresh job never waits for the UI thread.
+    private volatile IJavaProject activeEditorProject;
+    // Told the root path of each jar a refresh publishes, from the refresh job, before it goes on.
+    private volatile Consumer<IPath> publicationListener;
     private Job indexJob;
+    private Job stringCollectionJob;
+    // Libraries of the running refresh and how many of them are published; searches that start
+    // before the initial refresh completes report them and wait for the next publication.
+    private int plannedLibraries;
+    private int publishedLibraries;
+    private int publications;
     private Connection conn;
+    // Read-only connections used by searches, so that they never wait for the writer above.
+    private ReadConnectionPool readers;
     private int generation = 0;
 
     private BytecodeSearchIndex() {
@@ -107,7 +167,9 @@ public final class BytecodeSearchIndex {
         }
         started.set(true);
         try {
-            conn = openDatabase();
+            Path dbFile = databaseFile();
+            conn = openDatabase(dbFile);
+            readers = new ReadConnectionPool(dbFile, READ_CONNECTIONS);
             vacuumIfNeeded();
         } catch (SQLException | IOException e) {
             JavaDecompilerPlugin.logError(e, "Failed to open search index database"); //$NON-NLS-1$
@@ -119,28 +181,41 @@ public final class BytecodeSearchIndex {
     public void stop() {
         Map<RootKey, JarIndex> oldMap;
         Connection connToClose;
+        ReadConnectionPool readersToClose;
         synchronized (this) {
             if (!started.get()) {
                 return;
             }
             JavaCore.removeElementChangedListener(classpathListener);
+            BytecodeSourceRangeResolver.forgetClasspaths();
             started.set(false);
             generation++;
             if (indexJob != null) {
                 indexJob.cancel();
                 indexJob = null;
             }
+            if (stringCollectionJob != null) {
+                stringCollectionJob.cancel();
+                stringCollectionJob = null;
+            }
             oldMap = indexes.getAndSet(Collections.emptyMap());
+            queryResults.reset(indexes.get());
             refreshCompleted.set(false);
             refreshRequested = false;
             connToClose = conn;
             conn = null;
+            readersToClose = readers;
+            readers = null;
         }
+        stringIds.clear();
         // Close stores and connection under write lock so any in-flight forEachEntry()
         // search finishes before its SqliteEntryStore (or owned connection) is torn down.
         searchLock.writeLock().lock();
         try {
             oldMap.values().forEach(JarIndex::close);
+            if (readersToClose != null) {
+                readersToClose.close();
+            }
             if (connToClose != null) {
                 synchronized (dbLock) {
                     try {
@@ -155,22 +230,297 @@ public final class BytecodeSearchIndex {
         }
     }
 
-    void forEachEntry(Kind kind, String name, String qualifiedName, boolean wildcard, IProgressMonitor monitor,
+    /**
+     * Streams the candidate entries of every indexed jar to {@code consumer}. When
+     * {@code enclosingPaths} is not {@code null}, jars whose package fragment root path is not
+     * in it are skipped before their store is queried, as returned by
+     * {@link org.eclipse.jdt.core.search.IJavaSearchScope#enclosingProjectsAndJars()}.
+     *
+     * <p>While the initial refresh runs, the jars published so far are searched first, then each
+     * jar as it gets published, until the refresh ends. The monitor shows how many libraries are
+     * indexed meanwhile.
+     *
+     * <p>Once all jars are published, the rows answering a query are cached until the next
+     * publication, so that repeating a search reads its entries back by row.
+     */
+    void forEachEntry(Kind kind, String name, String qualifiedName, boolean wildcard, Set<IPath> enclosingPaths,
+            IProgressMonitor monitor, EntryStore.EntryConsumer consumer) throws CoreException {
+        QueryResultCache.Query query = refreshCompleted.get()
+                ? new QueryResultCache.Query(kind, name, qualifiedName, wildcard, enclosingPaths) : null;
+        if (query != null && replayCachedEntries(query, monitor, consumer)) {
+            traceQueryCacheStats();
+            return;
+        }
+        QueryResultCache.Recorder recorder = query == null ? null : new QueryResultCache.Recorder();
+        Set<RootKey> searched = new HashSet<>();
+        List<Map<RootKey, JarIndex>> searchedMaps = new ArrayList<>(1);
+        searchWhilePublishing(monitor, () -> searchedMaps.add(forEachPublishedEntry(kind, name, qualifiedName,
+                wildcard, enclosingPaths, searched, monitor, recorder, consumer)));
+        if (recorder != null && searchedMaps.size() == 1 && (monitor == null || !monitor.isCanceled())) {
+            queryResults.put(searchedMaps.get(0), query, recorder.result());
+        }
+        if (query != null) {
+            traceQueryCacheStats();
+        }
+    }
+
+    /**
+     * Replays the cached result of {@code query}, if any. The read lock keeps the stores of the
+     * published map open meanwhile.
+     */
+    private boolean replayCachedEntries(QueryResultCache.Query query, IProgressMonitor monitor,
             EntryStore.EntryConsumer consumer) throws CoreException {
-        waitForInitialRefresh(monitor);
         searchLock.readLock().lock();
         try {
-            for (JarIndex index : indexes.get().values()) {
+            QueryResultCache.Result result = queryResults.get(indexes.get(), query);
+            if (result == null) {
+                return false;
+            }
+            result.replay(monitor, consumer);
+            return true;
+        } finally {
+            searchLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the lookups and the approximate memory of the search result cache.
+     */
+    QueryResultCache.Stats queryCacheStats() {
+        return queryResults.stats();
+    }
+
+    // Traced with the debug option of the plug-in, to size the cache against real searches.
+    private void traceQueryCacheStats() {
+        if (tracing()) {
+            QueryResultCache.Stats stats = queryCacheStats();
+            Logger.debug("Search result cache: " + stats.hits() + " hits, " + stats.misses() + " misses (" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    + Math.round(stats.hitRate() * 100) + "% hits), " + stats.queries() + " queries, " //$NON-NLS-1$ //$NON-NLS-2$
+                    + stats.bytes() + " of " + stats.capacity() + " bytes", null); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    // Traced with the debug option of the plug-in, to size the filters against their false positive rate.
+    private void traceNameFilterStats() {
+        if (tracing()) {
+            NameFilter.Stats stats = nameFilterStats();
+            Logger.debug("Search name filters: " + stats.checkedJars() + " jars checked, " + stats.skippedJars() //$NON-NLS-1$ //$NON-NLS-2$
+                    + " skipped, " + stats.falsePositives() + " false positives (" //$NON-NLS-1$ //$NON-NLS-2$
+                    + Math.round(stats.falsePositiveRate() * 100) + "%)", null); //$NON-NLS-1$
+        }
+    }
+
+    private static boolean tracing() {
+        JavaDecompilerPlugin plugin = JavaDecompilerPlugin.getDefault();
+        return plugin != null && plugin.isDebugging();
+    }
+
+    /**
+     * Returns how many jars exact-name searches checked against their {@link NameFilter}, how many
+     * they skipped and how many they queried in vain.
+     */
+    NameFilter.Stats nameFilterStats() {
+        return new NameFilter.Stats(filteredJars.get(), skippedJars.get(), filterFalsePositives.get());
+    }
+
+    /**
+     * Sets the listener told the root path of each jar index a refresh publishes, or removes it
+     * when {@code listener} is {@code null}. The refresh goes on once the listener returns.
+     */
+    void setPublicationListener(Consumer<IPath> listener) {
+        publicationListener = listener;
+    }
+
+    /**
+     * Streams the type declarations of every direct and indirect subtype of {@code supertypes},
+     * given as qualified names, to {@code consumer}. Supertype edges of all jars are followed, so a
+     * chain through a jar outside {@code enclosingPaths} still reaches the jars inside it, whose
+     * declarations are the only ones reported. Each declaration is reported once, also while the
+     * initial refresh publishes jars.
+     */
+    void forEachSubtype(Set<String> supertypes, Set<IPath> enclosingPaths, IProgressMonitor monitor,
+            EntryStore.EntryConsumer consumer) throws CoreException {
+        Set<String> reported = new HashSet<>();
+        searchWhilePublishing(monitor, () -> forEachPublishedSubtype(supertypes, enclosingPaths, monitor, entry -> {
+            if (reported.add(entry.getElementHandle())) {
+                consumer.accept(entry);
+            }
+        }));
+    }
+
+    @FunctionalInterface
+    private interface PublishedSearch {
+        void run() throws CoreException;
+    }
+
+    /**
+     * Runs {@code search} over the published jars, and again after each publication until the
+     * initial refresh ends.
+     */
+    private void searchWhilePublishing(IProgressMonitor monitor, PublishedSearch search) throws CoreException {
+        Job initialRefresh = initialRefreshJob();
+        while (true) {
+            int seen = publicationCount();
+            boolean complete = initialRefresh == null || refreshCompleted.get()
+                    || initialRefresh.getState() == Job.NONE;
+            search.run();
+            if (complete || monitor != null && monitor.isCanceled()) {
+                return;
+            }
+            reportIndexingStatus(monitor);
+            if (!awaitPublication(seen)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Searches the published jars not searched yet, passing the rows of their entries to
+     * {@code recorder} when it is not {@code null}, and returns the map of indexes searched.
+     * Exact-name searches skip the jars whose {@link NameFilter} rules out the names.
+     */
+    private Map<RootKey, JarIndex> forEachPublishedEntry(Kind kind, String name, String qualifiedName,
+            boolean wildcard, Set<IPath> enclosingPaths, Set<RootKey> searched, IProgressMonitor monitor,
+            QueryResultCache.Recorder recorder, EntryStore.EntryConsumer consumer) throws CoreException {
+        searchLock.readLock().lock();
+        try {
+            Map<RootKey, JarIndex> published = indexes.get();
+            boolean exactName = !wildcard && (StringUtils.isNotEmpty(name) || StringUtils.isNotEmpty(qualifiedName));
+            SearchRows rows = new SearchRows(recorder, consumer);
+            List<EntryStore> filtered = new ArrayList<>();
+            int skipped = 0;
+            // Stores on the shared database are queried together with one statement; heap and
+            // owned in-memory stores keep their per-jar path.
+            List<SqliteEntryStore> shared = new ArrayList<>();
+            for (Map.Entry<RootKey, JarIndex> entry : published.entrySet()) {
                 if (monitor != null && monitor.isCanceled()) {
-                    return;
+                    return published;
+                }
+                if (enclosingPaths != null && !enclosingPaths.contains(entry.getKey().rootPath())
+                        || !searched.add(entry.getKey())) {
+                    continue;
+                }
+                JarIndex index = entry.getValue();
+                NameFilter filter = exactName ? index.entries.nameFilter() : null;
+                if (filter != null) {
+                    if (!filter.mightContain(kind, name, qualifiedName)) {
+                        skipped++;
+                        continue;
+                    }
+                    filtered.add(index.entries);
+                }
+                if (index.entries instanceof SqliteEntryStore store && !store.ownsConnection()) {
+                    shared.add(store);
+                } else {
+                    index.collectRows(kind, name, qualifiedName, wildcard,
+                            (row, found) -> rows.accept(index.entries, row, found));
+                }
+            }
+            SqliteEntryStore.collectRows(shared, kind, name, qualifiedName, wildcard, monitor, rows::accept);
+            if (!filtered.isEmpty() || skipped > 0) {
+                filtered.removeIf(rows.matched::contains);
+                filteredJars.addAndGet(filtered.size() + skipped);
+                skippedJars.addAndGet(skipped);
+                filterFalsePositives.addAndGet(filtered.size());
+                traceNameFilterStats();
+            }
+            return published;
+        } finally {
+            searchLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes the entries of one search to its consumer, recording their rows and the stores that
+     * had a match.
+     */
+    private static final class SearchRows {
+
+        private final QueryResultCache.Recorder recorder;
+        private final EntryStore.EntryConsumer consumer;
+        private final Set<EntryStore> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        SearchRows(QueryResultCache.Recorder recorder, EntryStore.EntryConsumer consumer) {
+            this.recorder = recorder;
+            this.consumer = consumer;
+        }
+
+        void accept(EntryStore store, long row, BytecodeSearchEntry entry) throws CoreException {
+            if (recorder != null) {
+                recorder.add(store, row);
+            }
+            matched.add(store);
+            consumer.accept(entry);
+        }
+    }
+
+    private void forEachPublishedSubtype(Set<String> supertypes, Set<IPath> enclosingPaths,
+            IProgressMonitor monitor, EntryStore.EntryConsumer consumer) throws CoreException {
+        searchLock.readLock().lock();
+        try {
+            List<SqliteEntryStore> shared = new ArrayList<>();
+            List<JarIndex> others = new ArrayList<>();
+            List<SqliteEntryStore> sharedInScope = new ArrayList<>();
+            List<JarIndex> othersInScope = new ArrayList<>();
+            for (Map.Entry<RootKey, JarIndex> entry : indexes.get().entrySet()) {
+                boolean inScope = enclosingPaths == null || enclosingPaths.contains(entry.getKey().rootPath());
+                JarIndex index = entry.getValue();
+                if (index.entries instanceof SqliteEntryStore store && !store.ownsConnection()) {
+                    shared.add(store);
+                    if (inScope) {
+                        sharedInScope.add(store);
+                    }
+                } else {
+                    others.add(index);
+                    if (inScope) {
+                        othersInScope.add(index);
+                    }
+                }
+            }
+            Set<String> subtypes = subtypeClosure(supertypes, shared, others, monitor);
+            if (subtypes.isEmpty() || monitor != null && monitor.isCanceled()) {
+                return;
+            }
+            SqliteEntryStore.collectTypeDeclarations(sharedInScope, subtypes, monitor, consumer);
+            for (JarIndex index : othersInScope) {
+                for (String subtype : subtypes) {
+                    index.collect(Kind.TYPE, subtype.substring(subtype.lastIndexOf('.') + 1), subtype, false,
+                            entry -> {
+                                if (entry.isDeclaration() && subtype.equals(entry.getQualifiedName())) {
+                                    consumer.accept(entry);
+                                }
+                            });
                 }
-                index.collect(kind, name, qualifiedName, wildcard, consumer);
             }
         } finally {
             searchLock.readLock().unlock();
         }
     }
 
+    /**
+     * The shared database follows chains across all of its jars in one recursive statement, while
+     * the other stores only answer direct subtypes; names they add are expanded again until no new
+     * subtype is found.
+     */
+    private static Set<String> subtypeClosure(Set<String> supertypes, List<SqliteEntryStore> shared,
+            List<JarIndex> others, IProgressMonitor monitor) throws CoreException {
+        Set<String> closure = new LinkedHashSet<>();
+        Set<String> frontier = supertypes;
+        while (!frontier.isEmpty()) {
+            Set<String> found = new LinkedHashSet<>();
+            SqliteEntryStore.collectSubtypes(shared, frontier, monitor, found::add);
+            for (JarIndex index : others) {
+                index.collectSubtypes(frontier, found::add);
+            }
+            found.removeIf(subtype -> !closure.add(subtype));
+            if (others.isEmpty()) {
+                break;
+            }
+            frontier = found;
+        }
+        return closure;
+    }
+
     public int entryCount() {
         int count = 0;
         for (JarIndex index : indexes.get().values()) {
@@ -187,17 +537,55 @@ public final class BytecodeSearchIndex {
         if (!started.get()) {
             return;
         }
+        captureActiveEditorProject();
         if (indexJob != null && indexJob.getState() != Job.NONE) {
             refreshRequested = true;
             return;
         }
+        // Collection resumes after the refresh; released strings stay queued in the database.
+        if (stringCollectionJob != null) {
+            stringCollectionJob.cancel();
+        }
         indexJob = Job.create("Index application library bytecode", this::refresh); //$NON-NLS-1$
         indexJob.setPriority(Job.BUILD);
+        indexJob.setRule(databaseWriteRule);
         indexJob.schedule(delay);
     }
 
+    private synchronized void scheduleStringCollection() {
+        if (!started.get() || conn == null
+                || stringCollectionJob != null && stringCollectionJob.getState() != Job.NONE) {
+            return;
+        }
+        stringCollectionJob = Job.create("Collect unused search index strings", this::collectReleasedStrings); //$NON-NLS-1$
+        stringCollectionJob.setSystem(true);
+        stringCollectionJob.setPriority(Job.DECORATE);
+        stringCollectionJob.setRule(databaseWriteRule);
+        stringCollectionJob.schedule();
+    }
+
+    // Deletes the strings released by pruned jars a chunk at a time, so that the database lock
+    // is never held for long and a refresh can cancel the job between chunks.
+    private void collectReleasedStrings(IProgressMonitor monitor) {
+        Connection activeConn = getConn();
+        if (activeConn == null) {
+            return;
+        }
+        try {
+            int examined;
+            do {
+                examined = SqliteEntryStore.collectReleasedStrings(activeConn, dbLock, STRING_GC_CHUNK);
+            } while (examined > 0 && !monitor.isCanceled());
+        } catch (SQLException e) {
+            Logger.debug(e);
+        } finally {
+            stringIds.clear();
+        }
+    }
+
     private void classpathChanged(ElementChangedEvent event) {
         if (containsClasspathChange(event.getDelta())) {
+            BytecodeSourceRangeResolver.forgetClasspaths();
             scheduleRefresh();
         }
     }
@@ -231,14 +619,18 @@ public final class BytecodeSearchIndex {
         }
         boolean scheduleAgain;
         try {
-            Map<RootKey, IPackageFragmentRoot> roots = collectApplicationLibraryRootsWithoutSource();
-            List<JarPlan> plans = plan(roots);
-            RebuildResult rebuilt = rebuild(plans, monitor);
+            Map<RootKey, IPackageFragmentRoot> roots = collectApplicationLibraryRootsWithoutSource(
+                    activeEditorProject);
+            List<JarPlan> plans = plan(roots, monitor);
+            RebuildResult rebuilt = rebuild(plans, myGeneration, monitor);
             if (!rebuilt.completed()) {
+                closeAll(rebuilt.replaced());
                 return;
             }
             Optional<Map<RootKey, JarIndex>> oldMapOpt = publishAndGetOld(rebuilt.indexes(), myGeneration);
-            if (oldMapOpt.isPresent()) {
+            if (oldMapOpt.isEmpty()) {
+                closeAll(rebuilt.replaced());
+            } else {
                 Map<RootKey, JarIndex> oldMap = oldMapOpt.get();
                 Set<JarIndex> kept = Collections.newSetFromMap(new IdentityHashMap<>());
                 kept.addAll(rebuilt.indexes().values());
@@ -247,10 +639,16 @@ public final class BytecodeSearchIndex {
                     oldMap.values().stream()
                     .filter(idx -> !kept.contains(idx))
                     .forEach(JarIndex::close);
+                    rebuilt.replaced().forEach(JarIndex::close);
                     pruneOrphanJarRows(rebuilt.indexes());
                 } finally {
                     searchLock.writeLock().unlock();
                 }
+                Path shards = shardDirectory();
+                if (shards != null) {
+                    ShardEntryStore.pruneUnused(shards, SHARD_MAX_AGE);
+                }
+                scheduleStringCollection();
             }
         } catch (OperationCanceledException e) {
             // normal job cancellation; nothing to log
@@ -269,58 +667,199 @@ public final class BytecodeSearchIndex {
         }
     }
 
-    private RebuildResult rebuild(List<JarPlan> plans, IProgressMonitor monitor) {
+    /**
+     * Indexes the planned jars and publishes each one as soon as it is ready, so that searches see
+     * the libraries indexed so far. Indexes replaced by a publication are returned for the caller
+     * to close once no search can still be reading them. A jar that fails to index is left out, and
+     * when the rebuild is canceled its publications are rolled back, so searches never keep reading
+     * a half-replaced map.
+     */
+    private RebuildResult rebuild(List<JarPlan> plans, int myGeneration, IProgressMonitor monitor) {
         Connection activeConn = getConn();
+        ReadConnectionPool activeReaders = getReaders();
         SubMonitor subMonitor = SubMonitor.convert(monitor, "Index application library bytecode", //$NON-NLS-1$
                 totalTicks(plans));
+        Map<RootKey, JarIndex> before = indexes.get();
+        Map<RootKey, Future<JarIndex>> pending = new LinkedHashMap<>();
         Map<RootKey, JarIndex> rebuilt = new LinkedHashMap<>();
         Set<JarIndex> reused = Collections.newSetFromMap(new IdentityHashMap<>());
-        try {
-            for (JarPlan plan : plans) {
-                JarIndex index = rebuild(plan, activeConn, subMonitor);
-                if (index == null) {
-                    rebuilt.values().stream().filter(idx -> !reused.contains(idx)).forEach(JarIndex::close);
-                    return new RebuildResult(false, Map.of());
+        Set<JarIndex> published = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<JarIndex> replaced = new ArrayList<>();
+        beginPublications(plans.size());
+        boolean completed = true;
+        // Closing the pool waits for the writer thread, so no jar is still being written
+        // to the shared connection when the caller publishes and prunes.
+        try (JarIndexingPool pool = new JarIndexingPool(indexingThreads(), activeConn, dbLock, activeReaders,
+                stringIds, subMonitor)) {
+            try {
+                for (JarPlan plan : plans) {
+                    if (pool.isCanceled()) {
+                        break;
+                    }
+                    pending.put(plan.key(), schedule(plan, activeConn, activeReaders, pool, subMonitor));
+                }
+                for (JarPlan plan : plans) {
+                    Future<JarIndex> future = pending.get(plan.key());
+                    JarIndex index = future == null ? null : pool.await(future);
+                    if (index == null) {
+                        // Failures were logged by the indexer; only a cancellation stops the rebuild.
+                        if (pool.isCanceled()) {
+                            completed = false;
+                        }
+                        continue;
+                    }
+                    if (index == plan.existing()) {
+                        reused.add(index);
+                    }
+                    rebuilt.put(plan.key(), index);
+                    if (publish(plan.key(), index, myGeneration, replaced)) {
+                        published.add(index);
+                        Consumer<IPath> listener = publicationListener;
+                        if (listener != null) {
+                            listener.accept(plan.key().rootPath());
+                        }
+                    }
                 }
-                if (index == plan.existing()) {
-                    reused.add(index);
+                if (completed && pool.isCanceled()) {
+                    completed = false;
+                }
+            } catch (RuntimeException e) {
+                pool.cancel();
+                completed = false;
+                throw e;
+            } finally {
+                if (!completed) {
+                    // Indexes that finished after the cancellation are only reachable via their futures.
+                    Set<JarIndex> unused = Collections.newSetFromMap(new IdentityHashMap<>());
+                    unused.addAll(rebuilt.values());
+                    pending.values().stream().map(pool::await).filter(Objects::nonNull).forEach(unused::add);
+                    unused.removeAll(reused);
+                    unused.removeAll(published);
+                    unused.forEach(JarIndex::close);
+                    Set<RootKey> publishedKeys = new HashSet<>();
+                    rebuilt.forEach((key, index) -> {
+                        if (published.contains(index)) {
+                            publishedKeys.add(key);
+                        }
+                    });
+                    if (rollBack(before, publishedKeys, myGeneration)) {
+                        // The replaced indexes are live again; the published ones are closed instead.
+                        Set<JarIndex> restored = Collections.newSetFromMap(new IdentityHashMap<>());
+                        restored.addAll(before.values());
+                        replaced.clear();
+                        published.stream().filter(index -> !restored.contains(index)).forEach(replaced::add);
+                    }
                 }
-                rebuilt.put(plan.key(), index);
             }
-        } catch (RuntimeException e) {
-            rebuilt.values().stream().filter(idx -> !reused.contains(idx)).forEach(JarIndex::close);
-            throw e;
         }
-        return new RebuildResult(true, rebuilt);
+        return new RebuildResult(completed, completed ? rebuilt : Map.of(), replaced);
     }
 
-    private JarIndex rebuild(JarPlan plan, Connection activeConn, SubMonitor subMonitor) {
-        if (subMonitor.isCanceled()) {
-            return null;
+    private synchronized void beginPublications(int libraries) {
+        plannedLibraries = libraries;
+        publishedLibraries = 0;
+        publications++;
+        notifyAll();
+    }
+
+    /**
+     * Makes one rebuilt jar index visible to searches before the whole refresh completes. The index
+     * it replaces, if any, is added to {@code replaced}. Returns {@code false} when the index was
+     * stopped or restarted meanwhile.
+     */
+    private synchronized boolean publish(RootKey key, JarIndex index, int myGeneration, List<JarIndex> replaced) {
+        if (!started.get() || generation != myGeneration) {
+            return false;
+        }
+        Map<RootKey, JarIndex> current = indexes.get();
+        if (current.get(key) != index) {
+            Map<RootKey, JarIndex> updated = new LinkedHashMap<>(current);
+            JarIndex previous = updated.put(key, index);
+            if (previous != null) {
+                replaced.add(previous);
+            }
+            indexes.set(Collections.unmodifiableMap(updated));
+            queryResults.reset(indexes.get());
+        }
+        publishedLibraries++;
+        publications++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Restores the indexes that {@code keys} mapped to in {@code before}, undoing the publications of
+     * a rebuild that did not complete. Returns {@code false} when there was nothing to undo or the
+     * index was stopped or restarted meanwhile.
+     */
+    private synchronized boolean rollBack(Map<RootKey, JarIndex> before, Set<RootKey> keys, int myGeneration) {
+        if (keys.isEmpty() || !started.get() || generation != myGeneration) {
+            return false;
+        }
+        Map<RootKey, JarIndex> updated = new LinkedHashMap<>(indexes.get());
+        for (RootKey key : keys) {
+            JarIndex previous = before.get(key);
+            if (previous == null) {
+                updated.remove(key);
+            } else {
+                updated.put(key, previous);
+            }
+        }
+        indexes.set(Collections.unmodifiableMap(updated));
+        queryResults.reset(indexes.get());
+        publications++;
+        notifyAll();
+        return true;
+    }
+
+    private void closeAll(List<JarIndex> indexesToClose) {
+        if (indexesToClose.isEmpty()) {
+            return;
+        }
+        searchLock.writeLock().lock();
+        try {
+            indexesToClose.forEach(JarIndex::close);
+        } finally {
+            searchLock.writeLock().unlock();
         }
+    }
+
+    private Future<JarIndex> schedule(JarPlan plan, Connection activeConn, ReadConnectionPool activeReaders,
+            JarIndexingPool pool, SubMonitor subMonitor) {
         File jar = plan.jar();
-        subMonitor.subTask(jar.getName());
         if (plan.existing() != null) {
             subMonitor.worked(1);
-            return plan.existing();
+            return CompletableFuture.completedFuture(plan.existing());
+        }
+        if (plan.shard() != null && Files.isRegularFile(plan.shard())) {
+            subMonitor.subTask(jar.getName());
+            try {
+                JarIndex index = new JarIndex(jar, ShardEntryStore.open(plan.shard(), plan.key().rootHandle()));
+                subMonitor.worked(1);
+                return CompletableFuture.completedFuture(index);
+            } catch (IOException e) {
+                // Unreadable or from an incompatible version; index the jar again.
+                Logger.debug(e);
+            }
         }
         if (plan.dbJarId() >= 0) {
+            subMonitor.subTask(jar.getName());
             subMonitor.worked(1);
             try {
-                return new JarIndex(jar, new SqliteEntryStore(activeConn, dbLock, plan.dbJarId(), false,
-                        plan.key().rootHandle()));
+                return CompletableFuture.completedFuture(new JarIndex(jar, new SqliteEntryStore(activeConn, dbLock,
+                        activeReaders, plan.dbJarId(), false, plan.key().rootHandle())));
             } catch (SQLException e) {
                 JavaDecompilerPlugin.logError(e, "Failed to open cached index for " + jar.getName()); //$NON-NLS-1$
-                return null;
+                return CompletableFuture.completedFuture(null);
             }
         }
-        JarIndex index = BytecodeJarIndexer.index(plan.root(), jar, plan.work(), activeConn, dbLock,
-                subMonitor.split(plan.ticks()));
-        if (index != null && subMonitor.isCanceled()) {
-            index.close();
-            return null;
-        }
-        return index;
+        return pool.submit(plan.root(), jar, plan.work(), plan.shard());
+    }
+
+    private static int indexingThreads() {
+        JavaDecompilerPlugin plugin = JavaDecompilerPlugin.getDefault();
+        int threads = plugin == null ? 0 : plugin.getPreferenceStore().getInt(JavaDecompilerPlugin.SEARCH_INDEX_THREADS);
+        return threads > 0 ? threads : JavaDecompilerPlugin.defaultSearchIndexThreads();
     }
 
     // Called while searchLock.writeLock() is held by the caller.
@@ -332,7 +871,9 @@ public final class BytecodeSearchIndex {
         // Map each live workspace location to its shared content row. Multiple locations
         // may deliberately point to the same jar_id.
         Map<String, Integer> liveLocations = new LinkedHashMap<>();
+        Set<String> livePaths = new HashSet<>();
         for (Map.Entry<RootKey, JarIndex> entry : publishedIndexes.entrySet()) {
+            livePaths.add(entry.getKey().path().toFile().getAbsolutePath());
             JarIndex idx = entry.getValue();
             if (idx.entries instanceof SqliteEntryStore ses && !ses.ownsConnection()) {
                 RootKey key = entry.getKey();
@@ -342,7 +883,7 @@ public final class BytecodeSearchIndex {
         try {
             synchronized (dbLock) {
                 SqliteEntryStore.pruneOrphanJarRows(activeConn, liveLocations);
-                SqliteEntryStore.pruneOrphanStrings(activeConn);
+                JarFingerprintCache.prune(activeConn, livePaths);
             }
         } catch (SQLException e) {
             Logger.debug(e);
@@ -353,13 +894,20 @@ public final class BytecodeSearchIndex {
         return conn;
     }
 
+    private synchronized ReadConnectionPool getReaders() {
+        return readers;
+    }
+
     // Returns the old indexes map if the publish succeeded (same generation), or empty if rejected.
     // Old stores are NOT closed here; the caller closes them under searchLock.writeLock() so that
     // in-flight searches finish before any owned (in-memory) connection is torn down.
     private synchronized Optional<Map<RootKey, JarIndex>> publishAndGetOld(Map<RootKey, JarIndex> rebuilt, int myGeneration) {
         if (started.get() && generation == myGeneration) {
             Map<RootKey, JarIndex> oldMap = indexes.getAndSet(Collections.unmodifiableMap(rebuilt));
+            queryResults.reset(indexes.get());
             refreshCompleted.set(true);
+            publications++;
+            notifyAll();
             return Optional.of(oldMap);
         } else {
             rebuilt.values().forEach(JarIndex::close);
@@ -367,8 +915,52 @@ public final class BytecodeSearchIndex {
         }
     }
 
-    private List<JarPlan> plan(Map<RootKey, IPackageFragmentRoot> roots) {
+    private List<JarPlan> plan(Map<RootKey, IPackageFragmentRoot> roots, IProgressMonitor monitor) {
         Connection activeConn = getConn();
+        Path shards = shardDirectory();
+        int runtimeVersion = Runtime.version().feature();
+        Map<File, JarFingerprintCache.Stat> stats = new HashMap<>();
+        Map<File, BytecodeJarIndexer.JarWork> works = new HashMap<>();
+        Set<File> changed = new LinkedHashSet<>();
+        for (RootKey key : roots.keySet()) {
+            File jar = key.path().toFile();
+            JarIndex existing = indexes.get().get(key);
+            if (existing != null && existing.matches(jar) || stats.containsKey(jar) || changed.contains(jar)) {
+                continue;
+            }
+            try {
+                JarFingerprintCache.Stat stat = JarFingerprintCache.Stat.of(jar);
+                stats.put(jar, stat);
+                BytecodeJarIndexer.JarWork cached = activeConn == null ? null
+                        : JarFingerprintCache.find(activeConn, dbLock, stat, runtimeVersion);
+                if (cached != null) {
+                    works.put(jar, cached);
+                } else {
+                    changed.add(jar);
+                }
+            } catch (IOException | SQLException e) {
+                Logger.debug(e);
+                changed.add(jar);
+            }
+        }
+        // Only new or modified jars are opened and hashed, concurrently.
+        Map<File, BytecodeJarIndexer.JarWork> inspected = JarIndexingPool.plan(changed, indexingThreads(), monitor);
+        works.putAll(inspected);
+        if (activeConn != null) {
+            Map<JarFingerprintCache.Stat, BytecodeJarIndexer.JarWork> fingerprints = new HashMap<>();
+            inspected.forEach((jar, work) -> {
+                JarFingerprintCache.Stat stat = stats.get(jar);
+                if (stat != null) {
+                    fingerprints.put(stat, work);
+                }
+            });
+            try {
+                JarFingerprintCache.store(activeConn, dbLock, fingerprints, runtimeVersion);
+            } catch (SQLException e) {
+                Logger.debug(e);
+            }
+        }
+
         List<JarPlan> plans = new ArrayList<>(roots.size());
         for (Map.Entry<RootKey, IPackageFragmentRoot> rootEntry : roots.entrySet()) {
             RootKey key = rootEntry.getKey();
@@ -376,24 +968,28 @@ public final class BytecodeSearchIndex {
             File jar = path.toFile();
             JarIndex existing = indexes.get().get(key);
             if (existing != null && existing.matches(jar)) {
-                plans.add(new JarPlan(key, rootEntry.getValue(), jar, existing, null, -1, 1));
+                plans.add(new JarPlan(key, rootEntry.getValue(), jar, existing, null, -1, null, 1));
             } else {
-                BytecodeJarIndexer.JarWork work = BytecodeJarIndexer.plan(jar);
+                BytecodeJarIndexer.JarWork work = works.get(jar);
                 if (work == null) {
                     continue;
                 }
+                Path shard = shards != null && ShardEntryStore.isImmutableJar(jar)
+                        ? ShardEntryStore.shardFile(shards, runtimeVersion, work.contentHash())
+                        : null;
                 int dbJarId = -1;
-                if (activeConn != null) {
+                JarFingerprintCache.Stat stat = stats.get(jar);
+                if (activeConn != null && shard == null && stat != null) {
                     try {
                         dbJarId = SqliteEntryStore.findJar(activeConn, dbLock,
-                                new SqliteEntryStore.JarKey(key.rootHandle(), jar.getAbsolutePath(),
-                                        jar.lastModified(), jar.length(),
-                                        Runtime.version().feature(), work.fileCrc(), work.contentHash()));
+                                new SqliteEntryStore.JarKey(key.rootHandle(), stat.path(),
+                                        stat.lastModified(), stat.length(),
+                                        runtimeVersion, work.fileCrc(), work.contentHash()));
                     } catch (SQLException e) {
                         Logger.debug(e);
                     }
                 }
-                plans.add(new JarPlan(key, rootEntry.getValue(), jar, null, work, dbJarId, work.totalTicks()));
+                plans.add(new JarPlan(key, rootEntry.getValue(), jar, null, work, dbJarId, shard, work.totalTicks()));
             }
         }
         return plans;
@@ -407,16 +1003,16 @@ public final class BytecodeSearchIndex {
         return (int) Math.clamp(total, 1L, Integer.MAX_VALUE);
     }
 
-    private void waitForInitialRefresh(IProgressMonitor monitor) {
+    /**
+     * Returns the initial refresh a search has to follow, or {@code null} when it completed or the
+     * caller is the UI thread, which must not wait for it.
+     */
+    private Job initialRefreshJob() {
         start();
         if (refreshCompleted.get() || Display.getCurrent() != null) {
-            return;
-        }
-        Job job = prepareInitialRefreshJob();
-        if (job == null) {
-            return;
+            return null;
         }
-        waitForJob(job, monitor);
+        return prepareInitialRefreshJob();
     }
 
     private synchronized Job prepareInitialRefreshJob() {
@@ -431,29 +1027,54 @@ public final class BytecodeSearchIndex {
         return indexJob;
     }
 
-    private void waitForJob(Job job, IProgressMonitor monitor) {
+    private synchronized int publicationCount() {
+        return publications;
+    }
+
+    // Returns false when interrupted; otherwise after a publication or a short timeout, so that the
+    // caller also notices cancellation and the end of the refresh.
+    private synchronized boolean awaitPublication(int seen) {
         try {
-            while (!refreshCompleted.get() && job.getState() != Job.NONE) {
-                if (monitor != null && monitor.isCanceled()) {
-                    return;
-                }
-                job.join(250L, monitor);
+            if (publications == seen) {
+                wait(PUBLICATION_POLL_MILLIS);
             }
+            return true;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-        } catch (OperationCanceledException e) {
-            if (monitor != null) {
-                monitor.setCanceled(true);
-            }
+            return false;
         }
     }
 
-    private static Map<RootKey, IPackageFragmentRoot> collectApplicationLibraryRootsWithoutSource()
-            throws JavaModelException {
+    private void reportIndexingStatus(IProgressMonitor monitor) {
+        if (monitor == null) {
+            return;
+        }
+        int published;
+        int planned;
+        synchronized (this) {
+            published = publishedLibraries;
+            planned = plannedLibraries;
+        }
+        if (planned > 0) {
+            monitor.subTask(Messages.getFormattedString("BytecodeSearchIndex.Progress.LibrariesIndexed", //$NON-NLS-1$
+                    new Object[] { published, planned }));
+        }
+    }
+
+    /**
+     * Collects the library roots to index, those of {@code preferred} first, so that they are
+     * indexed and published before the others.
+     */
+    private static Map<RootKey, IPackageFragmentRoot> collectApplicationLibraryRootsWithoutSource(
+            IJavaProject preferred) throws JavaModelException {
         IJavaModel javaModel = JavaCore.create(ResourcesPlugin.getWorkspace().getRoot());
         Map<RootKey, IPackageFragmentRoot> candidates = new LinkedHashMap<>();
+        List<IJavaProject> projects = new ArrayList<>(Arrays.asList(javaModel.getJavaProjects()));
+        if (preferred != null && projects.remove(preferred)) {
+            projects.add(0, preferred);
+        }
 
-        for (IJavaProject project : javaModel.getJavaProjects()) {
+        for (IJavaProject project : projects) {
             if (!project.exists() || !project.getProject().isOpen()) {
                 continue;
             }
@@ -465,6 +1086,40 @@ public final class BytecodeSearchIndex {
         return candidates;
     }
 
+    // Updates the project of the active editor from the UI thread, without waiting for it; a refresh
+    // that starts before the update keeps the previous project.
+    private void captureActiveEditorProject() {
+        if (!PlatformUI.isWorkbenchRunning()) {
+            return;
+        }
+        if (Display.getCurrent() != null) {
+            activeEditorProject = readActiveEditorProject();
+            return;
+        }
+        Display display = PlatformUI.getWorkbench().getDisplay();
+        if (display == null || display.isDisposed()) {
+            return;
+        }
+        try {
+            display.asyncExec(() -> activeEditorProject = readActiveEditorProject());
+        } catch (SWTException e) {
+            // The display was disposed meanwhile.
+            Logger.debug(e);
+        }
+    }
+
+    // Project of the element open in the active editor, or null when there is none.
+    private static IJavaProject readActiveEditorProject() {
+        if (!PlatformUI.isWorkbenchRunning()) {
+            return null;
+        }
+        IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+        IWorkbenchPage page = window == null ? null : window.getActivePage();
+        IEditorPart editor = page == null ? null : page.getActiveEditor();
+        IJavaElement element = editor == null ? null : editor.getEditorInput().getAdapter(IJavaElement.class);
+        return element == null ? null : element.getJavaProject();
+    }
+
     private static void collectRoot(IPackageFragmentRoot root, Map<RootKey, IPackageFragmentRoot> candidates)
             throws JavaModelException {
         if (root.getKind() != IPackageFragmentRoot.K_BINARY || !root.isArchive() || isJreRoot(root)) {
@@ -478,7 +1133,7 @@ public final class BytecodeSearchIndex {
 
         boolean hasSource = root.getSourceAttachmentPath() != null;
         if (!hasSource) {
-            candidates.putIfAbsent(new RootKey(root.getHandleIdentifier(), path), root);
+            candidates.putIfAbsent(new RootKey(root.getHandleIdentifier(), path, root.getPath()), root);
         }
     }
 
@@ -553,12 +1208,15 @@ public final class BytecodeSearchIndex {
         }
     }
 
-    private Connection openDatabase() throws SQLException, IOException {
+    private static Path databaseFile() throws IOException {
         Path dir = getCacheDirectory();
         if (dir == null) {
             throw new IOException("No cache directory available"); //$NON-NLS-1$
         }
-        Path dbFile = dir.resolve("search-index.db"); //$NON-NLS-1$
+        return dir.resolve("search-index.db"); //$NON-NLS-1$
+    }
+
+    private Connection openDatabase(Path dbFile) throws SQLException, IOException {
         try {
             Class.forName("org.sqlite.JDBC"); //$NON-NLS-1$
         } catch (ClassNotFoundException e) {
@@ -574,6 +1232,32 @@ public final class BytecodeSearchIndex {
         return c;
     }
 
+    /**
+     * Directory of the index shards of immutable jars. It lives in the configuration area, which
+     * all workspaces of the installation share, or in the workspace cache when that area is read-only.
+     */
+    private static Path shardDirectory() {
+        Location configuration = Platform.getConfigurationLocation();
+        Path dir;
+        if (configuration != null && !configuration.isReadOnly() && configuration.getURL() != null) {
+            dir = new File(configuration.getURL().getFile()).toPath()
+                    .resolve(SqliteEntryStore.PLUGIN_ID).resolve("search-shards"); //$NON-NLS-1$
+        } else {
+            Path cache = getCacheDirectory();
+            if (cache == null) {
+                return null;
+            }
+            dir = cache.resolve("shards"); //$NON-NLS-1$
+        }
+        try {
+            Files.createDirectories(dir);
+            return dir;
+        } catch (IOException e) {
+            Logger.debug(e);
+            return null;
+        }
+    }
+
     private static Path getCacheDirectory() {
         JavaDecompilerPlugin plugin = JavaDecompilerPlugin.getDefault();
         if (plugin == null) {
@@ -617,15 +1301,28 @@ public final class BytecodeSearchIndex {
                 throws CoreException {
             entries.collect(kind, name, qualifiedName, wildcard, consumer);
         }
+
+        void collectRows(Kind kind, String name, String qualifiedName, boolean wildcard,
+                EntryStore.RowConsumer consumer) throws CoreException {
+            entries.collectRows(kind, name, qualifiedName, wildcard, consumer);
+        }
+
+        void collectSubtypes(Collection<String> supertypes, Consumer<String> subtypes) throws CoreException {
+            entries.collectSubtypes(supertypes, subtypes);
+        }
     }
 
-    private record RootKey(String rootHandle, IPath path) {
+    /**
+     * @param path file system location of the jar
+     * @param rootPath JDT path of the package fragment root, as used by search scopes
+     */
+    private record RootKey(String rootHandle, IPath path, IPath rootPath) {
     }
 
-    private record RebuildResult(boolean completed, Map<RootKey, JarIndex> indexes) {
+    private record RebuildResult(boolean completed, Map<RootKey, JarIndex> indexes, List<JarIndex> replaced) {
     }
 
     private record JarPlan(RootKey key, IPackageFragmentRoot root, File jar, JarIndex existing,
-            BytecodeJarIndexer.JarWork work, int dbJarId, int ticks) {
+            BytecodeJarIndexer.JarWork work, int dbJarId, Path shard, int ticks) {
     }
 }
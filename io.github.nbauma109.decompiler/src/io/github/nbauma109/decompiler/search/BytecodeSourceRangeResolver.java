@@ -17,10 +17,13 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
@@ -35,6 +38,7 @@ import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.ISourceReference;
@@ -92,12 +96,20 @@ import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 
+import io.github.nbauma109.decompiler.JavaDecompilerPlugin;
+import io.github.nbauma109.decompiler.editor.DecompiledLineMap;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
 import io.github.nbauma109.decompiler.util.Logger;
 
 public class BytecodeSourceRangeResolver {
 
-    private static final int MAX_PARSED_CLASS_FILES = 8;
+    private static final ParsedUnitCache<ParsedClassFile> PARSED_UNITS =
+            new ParsedUnitCache<>(parsedUnitBudget());
+    private static final Map<IJavaProject, String[]> CLASSPATHS = new ConcurrentHashMap<>();
+    private static final AtomicLong BINDING_PARSES = new AtomicLong();
+    private static final int MAX_REFERENCE_LINES = 64;
+    private static final LinkedHashMap<LinesKey, BytecodeJarIndexer.ReferenceLines> REFERENCE_LINES =
+            new LinkedHashMap<>(16, 0.75f, true);
     private static final String CLASS_SUFFIX = ".class"; //$NON-NLS-1$
     private static final String TYPE_BOOLEAN = "boolean"; //$NON-NLS-1$
     private static final String TYPE_BYTE = "byte"; //$NON-NLS-1$
@@ -108,35 +120,125 @@ public class BytecodeSourceRangeResolver {
     private static final String TYPE_LONG = "long"; //$NON-NLS-1$
     private static final String TYPE_SHORT = "short"; //$NON-NLS-1$
 
-    private final Map<String, ParsedClassFile> classFiles = new LinkedHashMap<>(MAX_PARSED_CLASS_FILES, 0.75f, true) {
-        private static final long serialVersionUID = 1L;
-
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, ParsedClassFile> eldest) {
-            return size() > MAX_PARSED_CLASS_FILES;
-        }
-    };
-
     public SourceRange rangeFor(BytecodeSearchEntry entry) {
         return rangeFor(entry, null);
     }
 
     public SourceRange rangeFor(BytecodeSearchEntry entry, String source) {
-        List<SourceRange> ranges = rangesFor(entry, source, null);
-        return selectRange(entry, ranges);
+        List<SourceRange> ranges = entry.isDeclaration() ? null
+                : lineTableRanges(entry, lineTable(StringUtils.isBlank(source) ? sourceOf(entry) : source));
+        return selectRange(entry, ranges != null ? ranges : rangesFor(entry, source, null));
     }
 
+    /**
+     * Places each match from the line table of {@code source} when it can, and parses the source
+     * only for the matches it cannot place.
+     */
     public Map<BytecodeSearchMatch, SourceRange> rangesFor(List<BytecodeSearchMatch> matches, String source) {
-        IJavaProject project = projectFrom(matches);
-        String unitName = unitNameFrom(matches);
-        ParsedClassFile parsed = StringUtils.isBlank(source) ? null : parse(source, project, unitName);
+        LineTable lineTable = lineTable(source);
+        ParsedClassFile parsed = null;
+        boolean parsedSource = StringUtils.isBlank(source);
         Map<BytecodeSearchMatch, SourceRange> ranges = new IdentityHashMap<>(matches.size());
         for (BytecodeSearchMatch match : matches) {
-            ranges.put(match, selectRange(match.getEntry(), rangesFor(match.getEntry(), source, parsed), match.getOrdinal()));
+            BytecodeSearchEntry entry = match.getEntry();
+            List<SourceRange> entryRanges = entry.isDeclaration() ? null : lineTableRanges(entry, lineTable);
+            if (entryRanges == null) {
+                if (!parsedSource && !entry.isDeclaration()) {
+                    parsedSource = true;
+                    parsed = parse(source, projectFrom(matches), unitNameFrom(matches));
+                }
+                entryRanges = rangesFor(entry, source, parsed);
+            }
+            ranges.put(match, selectRange(entry, entryRanges, match.getOrdinal()));
         }
         return ranges;
     }
 
+    /** The decompiled source of a class file, with the original lines its lines show. */
+    private record LineTable(String source, DecompiledLineMap lineMap, long sourceHash) {
+    }
+
+    private record LinesKey(String classFile, long sourceHash) {
+    }
+
+    private static LineTable lineTable(String source) {
+        DecompiledLineMap lineMap = StringUtils.isBlank(source) ? null : DecompiledLineMap.of(source);
+        return lineMap == null ? null : new LineTable(source, lineMap, ParsedUnitCache.hash(source));
+    }
+
+    private static String sourceOf(BytecodeSearchEntry entry) {
+        IClassFile classFile = classFile(entry.getElement());
+        try {
+            return classFile == null ? null : classFile.getSource();
+        } catch (JavaModelException e) {
+            Logger.debug(e);
+            return null;
+        }
+    }
+
+    /**
+     * Places the occurrences of a method or field reference from the source lines the class file
+     * records for them, or returns {@code null} when the AST has to place them.
+     */
+    private static List<SourceRange> lineTableRanges(BytecodeSearchEntry entry, LineTable lineTable) {
+        if (lineTable == null || entry.getKind() != Kind.METHOD && entry.getKind() != Kind.FIELD
+                || !isIdentifier(entry.getName())) {
+            return null;
+        }
+        IClassFile classFile = classFile(entry.getElement());
+        BytecodeJarIndexer.ReferenceLines referenceLines = classFile == null ? null
+                : referenceLines(classFile, lineTable.sourceHash());
+        int[] lines = referenceLines == null ? null : referenceLines.of(entry);
+        if (lines == null || lines.length == 0 || lines.length != entry.getOccurrenceCount()) {
+            return null;
+        }
+        return ReferenceLineLocator.locate(lineTable.source(), lineTable.lineMap(), lines, entry.getName(),
+                entry.getKind() == Kind.METHOD);
+    }
+
+    /**
+     * Returns the lines of the references made by {@code classFile}, read again from its bytes
+     * unless they were read for the same decompiled source.
+     */
+    private static BytecodeJarIndexer.ReferenceLines referenceLines(IClassFile classFile, long sourceHash) {
+        LinesKey key = new LinesKey(classFile.getHandleIdentifier(), sourceHash);
+        synchronized (REFERENCE_LINES) {
+            BytecodeJarIndexer.ReferenceLines cached = REFERENCE_LINES.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        BytecodeJarIndexer.ReferenceLines lines;
+        try {
+            IJavaElement root = classFile.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+            lines = BytecodeJarIndexer.referenceLines((IPackageFragmentRoot) root, classFile.getBytes());
+        } catch (JavaModelException | RuntimeException e) {
+            Logger.debug(e);
+            return null;
+        }
+        synchronized (REFERENCE_LINES) {
+            REFERENCE_LINES.put(key, lines);
+            Iterator<BytecodeJarIndexer.ReferenceLines> eldest = REFERENCE_LINES.values().iterator();
+            while (REFERENCE_LINES.size() > MAX_REFERENCE_LINES && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isIdentifier(String name) {
+        if (StringUtils.isEmpty(name) || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static IJavaProject projectFrom(List<BytecodeSearchMatch> matches) {
         for (BytecodeSearchMatch match : matches) {
             IJavaElement element = match.getEntry().getElement();
@@ -186,28 +288,76 @@ public class BytecodeSourceRangeResolver {
         return List.of(fallback);
     }
 
-    private ParsedClassFile parse(String source, IJavaProject project, String unitName) {
+    /**
+     * Returns the unit parsed from {@code source}, shared with every resolver through
+     * {@link #PARSED_UNITS} together with the ranges already computed in it.
+     */
+    private static ParsedClassFile parse(String source, IJavaProject project, String unitName) {
+        String[] classpath = project == null ? null : classpathOf(project);
+        ParsedUnitCache.Key key = ParsedUnitCache.key(unitName, source, classpath);
+        PARSED_UNITS.setCapacity(parsedUnitBudget());
+        ParsedClassFile parsed = PARSED_UNITS.get(key, source);
+        if (parsed == null) {
+            CompilationUnit unit = parseUnit(source, null, null);
+            parsed = unit == null ? null : new ParsedClassFile(key, source, unit, classpath, unitName);
+            if (parsed != null) {
+                PARSED_UNITS.put(key, source, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses {@code source}, resolving its bindings against {@code classpath} unless it is
+     * {@code null}.
+     */
+    private static CompilationUnit parseUnit(String source, String[] classpath, String unitName) {
         try {
             ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
             parser.setKind(ASTParser.K_COMPILATION_UNIT);
             parser.setSource(source.toCharArray());
-            if (project != null) {
-                parser.setEnvironment(classpathOf(project), null, null, true);
+            if (classpath != null) {
+                parser.setEnvironment(classpath, null, null, true);
                 parser.setResolveBindings(true);
                 parser.setBindingsRecovery(true);
                 if (unitName != null) {
                     parser.setUnitName(unitName);
                 }
             }
-            CompilationUnit unit = (CompilationUnit) parser.createAST(null);
-            return new ParsedClassFile(source, unit);
+            return (CompilationUnit) parser.createAST(null);
         } catch (RuntimeException e) {
             Logger.debug(e);
             return null;
         }
     }
 
+    /**
+     * Returns the classpath bindings of the sources of {@code project} are resolved against,
+     * cached until {@link #forgetClasspaths()}.
+     */
     private static String[] classpathOf(IJavaProject project) {
+        String[] classpath = CLASSPATHS.computeIfAbsent(project, BytecodeSourceRangeResolver::resolveClasspath);
+        // A classpath that failed to resolve is not cached; bindings then come from the JRE only.
+        return classpath == null ? new String[0] : classpath;
+    }
+
+    /**
+     * Drops the cached classpaths of all projects; called when a classpath changes, since a
+     * project's classpath also holds the output folders of the projects it requires.
+     */
+    static void forgetClasspaths() {
+        CLASSPATHS.clear();
+    }
+
+    /**
+     * Returns how many sources were parsed again with bindings, for candidates the parse without
+     * bindings could not decide.
+     */
+    static long bindingParseCount() {
+        return BINDING_PARSES.get();
+    }
+
+    private static String[] resolveClasspath(IJavaProject project) {
         try {
             IClasspathEntry[] entries = project.getResolvedClasspath(true);
             List<String> paths = new ArrayList<>();
@@ -227,7 +377,7 @@ public class BytecodeSourceRangeResolver {
             return paths.toArray(String[]::new);
         } catch (JavaModelException e) {
             Logger.debug(e);
-            return new String[0];
+            return null;
         }
     }
 
@@ -294,16 +444,15 @@ public class BytecodeSourceRangeResolver {
         return classFile.getElementName().replace(CLASS_SUFFIX, ".java"); //$NON-NLS-1$
     }
 
-    private ParsedClassFile parsedClassFile(IJavaElement element) {
+    private static ParsedClassFile parsedClassFile(IJavaElement element) {
         IClassFile classFile = classFile(element);
         if (classFile == null) {
             return null;
         }
-        IJavaProject project = classFile.getJavaProject();
-        return classFiles.computeIfAbsent(classFile.getHandleIdentifier(), ignored -> parse(classFile, project));
+        return parse(classFile, classFile.getJavaProject());
     }
 
-    private ParsedClassFile parse(IClassFile classFile, IJavaProject project) {
+    private static ParsedClassFile parse(IClassFile classFile, IJavaProject project) {
         try {
             String source = classFile.getSource();
             if (StringUtils.isBlank(source)) {
@@ -366,6 +515,12 @@ public class BytecodeSourceRangeResolver {
         return range != null && range.getOffset() >= 0 && range.getLength() > 0;
     }
 
+    private static long parsedUnitBudget() {
+        JavaDecompilerPlugin plugin = JavaDecompilerPlugin.getDefault();
+        int megabytes = plugin == null ? 0 : plugin.getPreferenceStore().getInt(JavaDecompilerPlugin.SEARCH_AST_CACHE_MB);
+        return (megabytes > 0 ? megabytes : JavaDecompilerPlugin.DEFAULT_SEARCH_AST_CACHE_MB) * 1024L * 1024L;
+    }
+
     public record SourceRange(int offset, int length) {
         public SourceRange {
             if (offset < 0) {
@@ -377,18 +532,33 @@ public class BytecodeSourceRangeResolver {
         }
     }
 
+    /**
+     * A source parsed without bindings. Bindings only let a method invocation or method reference
+     * match after the syntactic checks rejected it, so the source is parsed again with bindings,
+     * once, only when such a candidate is found for an entry.
+     */
     private static final class ParsedClassFile {
 
+        private final ParsedUnitCache.Key key;
         private final String source;
         private final CompilationUnit unit;
+        private final String[] classpath;
+        private final String unitName;
         private final Map<ReferenceKey, List<SourceRange>> rangesByKey = new HashMap<>();
+        private CompilationUnit resolvedUnit;
+        private boolean resolved;
 
-        private ParsedClassFile(String source, CompilationUnit unit) {
+        private ParsedClassFile(ParsedUnitCache.Key key, String source, CompilationUnit unit, String[] classpath,
+                String unitName) {
+            this.key = key;
             this.source = source;
             this.unit = unit;
+            this.classpath = classpath;
+            this.unitName = unitName;
         }
 
-        private List<SourceRange> references(BytecodeSearchEntry entry) {
+        // Shared by every resolver through the cache, so ranges are computed one entry at a time.
+        private synchronized List<SourceRange> references(BytecodeSearchEntry entry) {
             return rangesByKey.computeIfAbsent(ReferenceKey.from(entry), key -> computeReferences(entry));
         }
 
@@ -399,11 +569,30 @@ public class BytecodeSourceRangeResolver {
             }
             SourceWindow window = new SourceWindow(enclosing.offset(), enclosing.length());
             List<SourceRange> ranges = new ArrayList<>();
-            unit.accept(new ReferenceVisitor(source, entry, window, ranges));
+            ReferenceVisitor visitor = new ReferenceVisitor(source, entry, window, ranges);
+            unit.accept(visitor);
+            CompilationUnit withBindings = visitor.hasUnresolvedCandidates() ? resolvedUnit() : null;
+            if (withBindings != null) {
+                ranges.clear();
+                withBindings.accept(new ReferenceVisitor(source, entry, window, ranges));
+            }
             ranges.sort(Comparator.comparingInt(SourceRange::offset));
             return ranges.isEmpty() ? List.of() : List.copyOf(ranges);
         }
 
+        private CompilationUnit resolvedUnit() {
+            if (!resolved && classpath != null) {
+                resolved = true;
+                BINDING_PARSES.incrementAndGet();
+                resolvedUnit = parseUnit(source, classpath, unitName);
+                if (resolvedUnit != null) {
+                    // The cached entry now holds both units, so it has to weigh both.
+                    PARSED_UNITS.addBindings(key, this);
+                }
+            }
+            return resolvedUnit;
+        }
+
         private static SourceRange enclosingSourceRange(IJavaElement element, CompilationUnit unit) {
             SourceRange declarationRange = AstDeclarationWindow.find(element, unit);
             if (declarationRange != null) {
@@ -749,6 +938,7 @@ public class BytecodeSourceRangeResolver {
         private final List<SourceRange> ranges;
         private final Deque<Set<String>> localNameScopes = new ArrayDeque<>();
         private final Deque<Map<String, String>> localTypeScopes = new ArrayDeque<>();
+        private boolean unresolvedCandidates;
 
         private ReferenceVisitor(String source, BytecodeSearchEntry entry, SourceWindow window,
                 List<SourceRange> ranges) {
@@ -758,6 +948,14 @@ public class BytecodeSourceRangeResolver {
             this.ranges = ranges;
         }
 
+        /**
+         * Returns {@code true} when a method invocation or method reference in the window had
+         * the searched name but no binding, and was rejected by the syntactic checks.
+         */
+        private boolean hasUnresolvedCandidates() {
+            return unresolvedCandidates;
+        }
+
         @Override
         public boolean visit(MethodDeclaration node) {
             localNameScopes.push(new HashSet<>());
@@ -1181,6 +1379,14 @@ public class BytecodeSourceRangeResolver {
                 // Binding incomplete or declaring class didn't match — fall through to heuristics.
                 // Recovery bindings (insufficient classpath) can have non-null but empty declaring class.
             }
+            boolean matched = matchesMethodInvocationSyntax(node);
+            if (!matched && binding == null && window.contains(node)) {
+                unresolvedCandidates = true;
+            }
+            return matched;
+        }
+
+        private boolean matchesMethodInvocationSyntax(MethodInvocation node) {
             // Fallback heuristic for when binding is unavailable (e.g. decompiled source)
             if (node.getExpression() instanceof Name receiver && isTypeLikeQualifier(receiver)) {
                 return matchesDeclaringOwner(receiver.getFullyQualifiedName());
@@ -1406,7 +1612,11 @@ public class BytecodeSourceRangeResolver {
             }
             // Fallback heuristic
             if (node.getExpression() instanceof Name receiver && isTypeLikeQualifier(receiver)) {
-                return matchesDeclaringOwner(receiver.getFullyQualifiedName());
+                boolean matched = matchesDeclaringOwner(receiver.getFullyQualifiedName());
+                if (!matched && binding == null && window.contains(node.getName())) {
+                    unresolvedCandidates = true;
+                }
+                return matched;
             }
             return true;
         }
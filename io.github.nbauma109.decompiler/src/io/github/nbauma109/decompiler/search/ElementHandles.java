@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import org.eclipse.jdt.internal.core.JavaElement;
+import org.eclipse.jdt.internal.core.util.MementoTokenizer;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Builds the handle identifiers of binary package fragments, types, fields and methods of one
+ * package fragment root straight from class file names, following the memento grammar of
+ * {@link JavaElement#getHandleIdentifier()}. The indexer uses them instead of creating a Java model
+ * handle for every element and asking it for its identifier.
+ */
+@SuppressWarnings("restriction")
+final class ElementHandles {
+
+    private static final String CLASS_FILE_EXTENSION = ".class"; //$NON-NLS-1$
+
+    private final String rootHandle;
+
+    ElementHandles(String rootHandle) {
+        this.rootHandle = rootHandle;
+    }
+
+    /**
+     * A handle split into the handle of its package fragment root and the package fragment, class
+     * file and member parts that follow it, so that stores keep each shared prefix once and only
+     * join the parts when the handle is asked for. A handle that is not under the root is kept whole
+     * in {@code memberPart}, with a {@code null} {@code packagePart}.
+     */
+    record Parts(String rootHandle, String packagePart, String classFilePart, String memberPart) {
+
+        String join() {
+            if (packagePart == null || packagePart.isEmpty()) {
+                return memberPart;
+            }
+            StringBuilder handle = new StringBuilder(rootHandle.length() + packagePart.length()
+                    + length(classFilePart) + length(memberPart));
+            handle.append(rootHandle).append(packagePart);
+            if (classFilePart != null) {
+                handle.append(classFilePart);
+            }
+            if (memberPart != null) {
+                handle.append(memberPart);
+            }
+            return handle.toString();
+        }
+
+        private static int length(String part) {
+            return part == null ? 0 : part.length();
+        }
+    }
+
+    /**
+     * Splits {@code handle} after the root handle, at its package fragment, class file and type
+     * delimiters. The package part starts with {@link JavaElement#JEM_PACKAGEFRAGMENT}, the class
+     * file part with {@link JavaElement#JEM_CLASSFILE} and the member part with
+     * {@link JavaElement#JEM_TYPE}; the parts a handle does not have are empty. Returns {@code null}
+     * for a {@code null} handle.
+     */
+    Parts split(String handle) {
+        if (handle == null) {
+            return null;
+        }
+        if (rootHandle == null || rootHandle.isEmpty() || !handle.startsWith(rootHandle)
+                || handle.length() == rootHandle.length()
+                || handle.charAt(rootHandle.length()) != JavaElement.JEM_PACKAGEFRAGMENT) {
+            return new Parts(rootHandle, null, null, handle);
+        }
+        int packageStart = rootHandle.length();
+        int classFileStart = delimiter(handle, packageStart + 1, JavaElement.JEM_CLASSFILE);
+        int memberStart = delimiter(handle, classFileStart, JavaElement.JEM_TYPE);
+        return new Parts(rootHandle, handle.substring(packageStart, classFileStart),
+                handle.substring(classFileStart, memberStart), handle.substring(memberStart));
+    }
+
+    /** Index of the first unescaped {@code delimiter} from {@code from}, or the handle length. */
+    private static int delimiter(String handle, int from, char delimiter) {
+        for (int i = from; i < handle.length(); i++) {
+            char c = handle.charAt(i);
+            if (c == JavaElement.JEM_ESCAPE) {
+                i++;
+            } else if (c == delimiter) {
+                return i;
+            }
+        }
+        return handle.length();
+    }
+
+    /** Handle of the package fragment {@code packageName}, in dotted form. */
+    String packageFragment(String packageName) {
+        StringBuilder handle = new StringBuilder(rootHandle.length() + packageName.length() + 1);
+        handle.append(rootHandle).append(JavaElement.JEM_PACKAGEFRAGMENT);
+        MementoTokenizer.escape(handle, packageName);
+        return handle.toString();
+    }
+
+    /** Handle of the binary type declared by the class file of {@code internalName}. */
+    String type(String internalName) {
+        int separator = internalName.lastIndexOf('/');
+        String packageName = separator < 0 ? "" : internalName.substring(0, separator).replace('/', '.'); //$NON-NLS-1$
+        String classFileName = internalName.substring(separator + 1);
+        StringBuilder handle = new StringBuilder(rootHandle.length() + internalName.length() * 2 + 16);
+        handle.append(rootHandle).append(JavaElement.JEM_PACKAGEFRAGMENT);
+        MementoTokenizer.escape(handle, packageName);
+        handle.append(JavaElement.JEM_CLASSFILE);
+        MementoTokenizer.escape(handle, classFileName + CLASS_FILE_EXTENSION);
+        handle.append(JavaElement.JEM_TYPE);
+        MementoTokenizer.escape(handle, typeName(classFileName));
+        return handle.toString();
+    }
+
+    static String field(String typeHandle, String name) {
+        StringBuilder handle = new StringBuilder(typeHandle.length() + name.length() + 1);
+        handle.append(typeHandle).append(JavaElement.JEM_FIELD);
+        MementoTokenizer.escape(handle, name);
+        return handle.toString();
+    }
+
+    /**
+     * @param parameterTypes parameter type signatures in the form expected by
+     *        {@link org.eclipse.jdt.core.IType#getMethod(String, String[])}
+     */
+    static String method(String typeHandle, String name, String[] parameterTypes) {
+        StringBuilder handle = new StringBuilder(typeHandle.length() + name.length() + 1 + parameterTypes.length * 24);
+        handle.append(typeHandle).append(JavaElement.JEM_METHOD);
+        MementoTokenizer.escape(handle, name);
+        for (String parameterType : parameterTypes) {
+            handle.append(JavaElement.JEM_METHOD);
+            MementoTokenizer.escape(handle, parameterType);
+        }
+        return handle.toString();
+    }
+
+    /**
+     * Simple name JDT gives the binary type of a class file: the part after the last {@code $},
+     * without the digits of local types. Anonymous types get an empty name.
+     */
+    static String typeName(String classFileName) {
+        int lastDollar = classFileName.lastIndexOf('$');
+        return lastDollar < 0 ? classFileName : Util.localTypeName(classFileName, lastDollar, classFileName.length());
+    }
+}
@@ -8,6 +8,9 @@
 
 package io.github.nbauma109.decompiler.search;
 
+import java.util.Collection;
+import java.util.function.Consumer;
+
 import org.eclipse.core.runtime.CoreException;
 
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
@@ -19,10 +22,51 @@ public interface EntryStore extends AutoCloseable {
         void accept(BytecodeSearchEntry entry) throws CoreException;
     }
 
+    /**
+     * Receives a matching entry together with its row, a store-specific number that
+     * {@link EntryStore#collectEntries(long[], EntryConsumer)} turns back into the same entry.
+     */
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(long row, BytecodeSearchEntry entry) throws CoreException;
+    }
+
+    /**
+     * A class of the indexed jar and one of its direct supertypes, both as qualified type names.
+     */
+    record SupertypeEdge(String subtype, String supertype) {
+    }
+
     int size();
 
-    void collect(Kind kind, String name, String qualifiedName, boolean wildcard,
-            EntryConsumer consumer) throws CoreException;
+    /**
+     * Returns the filter an exact-name search may check to skip this store, or {@code null} when
+     * every search has to query it.
+     */
+    default NameFilter nameFilter() {
+        return null;
+    }
+
+    default void collect(Kind kind, String name, String qualifiedName, boolean wildcard,
+            EntryConsumer consumer) throws CoreException {
+        collectRows(kind, name, qualifiedName, wildcard, (row, entry) -> consumer.accept(entry));
+    }
+
+    void collectRows(Kind kind, String name, String qualifiedName, boolean wildcard,
+            RowConsumer consumer) throws CoreException;
+
+    /**
+     * Passes the entries of {@code rows}, as reported by
+     * {@link #collectRows(Kind, String, String, boolean, RowConsumer)} while this store is open, to
+     * {@code consumer}.
+     */
+    void collectEntries(long[] rows, EntryConsumer consumer) throws CoreException;
+
+    /**
+     * Passes the qualified names of the types of this store that directly extend or implement one
+     * of {@code supertypes} to {@code subtypes}. Stores may also pass indirect subtypes.
+     */
+    void collectSubtypes(Collection<String> supertypes, Consumer<String> subtypes) throws CoreException;
 
     @Override
     void close();
@@ -9,10 +9,17 @@
 package io.github.nbauma109.decompiler.search;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -23,12 +30,30 @@ import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Access;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.TypeCategory;
 
+/**
+ * Entry store kept entirely on the heap, used when the shared database is unavailable.
+ *
+ * <p>Rows are stored column-wise and sorted by kind and name id, so the rows of one kind form a
+ * contiguous slice and the rows sharing a name are contiguous within it. Exact-name queries
+ * binary-search that slice, and rows whose qualified name differs from their name are reachable
+ * through a second array of row ids sorted by kind and qualified name id. Supertype edges are two
+ * more columns of name ids, sorted by supertype, so the direct subtypes of a type are one range.
+ * Element handles are kept as the string ids of their parts after the root handle (see
+ * {@link ElementHandles.Parts}), so packages and class files share one string per store.
+ */
 final class HeapEntryStore implements EntryStore {
 
     static final int NULL_ID = -1;
 
+    private static final int KIND_MASK = 0x0F;
+    private static final Kind[] KINDS = Kind.values();
+    private static final Access[] ACCESSES = Access.values();
+    private static final TypeCategory[] TYPE_CATEGORIES = TypeCategory.values();
+
+    private final String rootHandle;
     private final String[] strings;
-    private final String[] elementHandles;
+    // Package, class file and member part string ids of each element, three ints per element.
+    private final int[] elementHandleParts;
     private final IJavaElement[] anonymousElementFallbacks;
     private final byte[] kindAndFlags;
     private final int[] elementHandleIds;
@@ -38,10 +63,22 @@ final class HeapEntryStore implements EntryStore {
     private final int[] descriptorIds;
     private final byte[] typeCategoryIds;
     private final int[] occurrenceCounts;
-
+    // Row offsets of each kind slice; rows of kind k are kindStarts[k] until kindStarts[k + 1].
+    private final int[] kindStarts;
+    // Rows whose qualified name differs from their name, sorted by kind and qualified name id.
+    private final int[] distinctQualifiedRows;
+    // Supertype edges sorted by supertype and then subtype name id.
+    private final int[] supertypeNameIds;
+    private final int[] subtypeNameIds;
+    private final Map<String, Integer> stringIds;
+
+    /**
+     * @param arrays columns sorted by kind and then name id, as produced by {@link #from}
+     */
     HeapEntryStore(EntryArrays arrays) {
+        this.rootHandle = arrays.rootHandle();
         this.strings = arrays.tables().strings();
-        this.elementHandles = arrays.tables().elementHandles();
+        this.elementHandleParts = arrays.tables().elementHandleParts();
         this.anonymousElementFallbacks = arrays.tables().anonymousElementFallbacks();
         this.kindAndFlags = arrays.columns().kindAndFlags();
         this.elementHandleIds = arrays.columns().elementHandleIds();
@@ -51,11 +88,38 @@ final class HeapEntryStore implements EntryStore {
         this.descriptorIds = arrays.columns().descriptorIds();
         this.typeCategoryIds = arrays.columns().typeCategoryIds();
         this.occurrenceCounts = arrays.columns().occurrenceCounts();
+        this.kindStarts = kindStarts(kindAndFlags);
+        this.distinctQualifiedRows = IntStream.range(0, kindAndFlags.length)
+                .filter(i -> qualifiedNameIds[i] != nameIds[i])
+                .boxed()
+                .sorted(Comparator.<Integer> comparingInt(i -> kindAndFlags[i] & KIND_MASK)
+                        .thenComparingInt(i -> qualifiedNameIds[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.supertypeNameIds = arrays.edges().supertypeNameIds();
+        this.subtypeNameIds = arrays.edges().subtypeNameIds();
+        this.stringIds = new HashMap<>(strings.length * 2);
+        for (int id = 0; id < strings.length; id++) {
+            stringIds.put(strings[id], id);
+        }
     }
 
     static HeapEntryStore from(List<BytecodeSearchEntry> entries, int[] counts) {
+        return from(entries, counts, List.of());
+    }
+
+    static HeapEntryStore from(List<BytecodeSearchEntry> entries, int[] counts, List<SupertypeEdge> supertypes) {
+        return from(null, entries, counts, supertypes);
+    }
+
+    /**
+     * @param rootHandle handle of the package fragment root of the entries, after which their
+     *        element handles are split, or {@code null} to keep them whole
+     */
+    static HeapEntryStore from(String rootHandle, List<BytecodeSearchEntry> entries, int[] counts,
+            List<SupertypeEdge> supertypes) {
         Dictionary strings = new Dictionary();
-        ElementDictionary elements = new ElementDictionary();
+        ElementDictionary elements = new ElementDictionary(new ElementHandles(rootHandle), strings);
         int size = entries.size();
         byte[] kindAndFlags = new byte[size];
         int[] elementHandleIds = new int[size];
@@ -76,16 +140,78 @@ final class HeapEntryStore implements EntryStore {
             typeCategoryIds[i] = (byte) entry.getTypeCategory().ordinal();
             occurrenceCounts[i] = counts[i];
         }
-        StringTables tables = new StringTables(strings.values(), elements.handles(), elements.fallbacks());
+        int[] subtypeNameIds = new int[supertypes.size()];
+        int[] supertypeNameIds = new int[supertypes.size()];
+        for (int i = 0; i < supertypes.size(); i++) {
+            subtypeNameIds[i] = strings.id(supertypes.get(i).subtype());
+            supertypeNameIds[i] = strings.id(supertypes.get(i).supertype());
+        }
+        StringTables tables = new StringTables(strings.values(), elements.handleParts(), elements.fallbacks());
         EntryColumns columns = new EntryColumns(kindAndFlags, elementHandleIds, nameIds, qualifiedNameIds,
                 declaringTypeNameIds, descriptorIds, typeCategoryIds, occurrenceCounts);
-        return new HeapEntryStore(new EntryArrays(tables, columns));
+        return new HeapEntryStore(new EntryArrays(rootHandle, tables, sortByKindAndName(columns),
+                sortBySupertype(new EdgeColumns(subtypeNameIds, supertypeNameIds))));
+    }
+
+    private static EdgeColumns sortBySupertype(EdgeColumns edges) {
+        int[] subtypeNameIds = edges.subtypeNameIds();
+        int[] supertypeNameIds = edges.supertypeNameIds();
+        int[] order = IntStream.range(0, subtypeNameIds.length)
+                .boxed()
+                .sorted(Comparator.<Integer> comparingInt(i -> supertypeNameIds[i])
+                        .thenComparingInt(i -> subtypeNameIds[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new EdgeColumns(permute(subtypeNameIds, order), permute(supertypeNameIds, order));
+    }
+
+    /** Reorders the rows by kind and then name id, keeping the original order of equal rows. */
+    private static EntryColumns sortByKindAndName(EntryColumns columns) {
+        byte[] kindAndFlags = columns.kindAndFlags();
+        int[] nameIds = columns.nameIds();
+        int[] order = IntStream.range(0, kindAndFlags.length)
+                .boxed()
+                .sorted(Comparator.<Integer> comparingInt(i -> kindAndFlags[i] & KIND_MASK)
+                        .thenComparingInt(i -> nameIds[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new EntryColumns(permute(kindAndFlags, order), permute(columns.elementHandleIds(), order),
+                permute(nameIds, order), permute(columns.qualifiedNameIds(), order),
+                permute(columns.declaringTypeNameIds(), order), permute(columns.descriptorIds(), order),
+                permute(columns.typeCategoryIds(), order), permute(columns.occurrenceCounts(), order));
     }
 
-    record EntryArrays(StringTables tables, EntryColumns columns) {
+    private static int[] permute(int[] column, int[] order) {
+        int[] sorted = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = column[order[i]];
+        }
+        return sorted;
+    }
+
+    private static byte[] permute(byte[] column, int[] order) {
+        byte[] sorted = new byte[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = column[order[i]];
+        }
+        return sorted;
+    }
+
+    private static int[] kindStarts(byte[] kindAndFlags) {
+        int[] starts = new int[KINDS.length + 1];
+        for (byte flags : kindAndFlags) {
+            starts[(flags & KIND_MASK) + 1]++;
+        }
+        for (int k = 0; k < KINDS.length; k++) {
+            starts[k + 1] += starts[k];
+        }
+        return starts;
+    }
+
+    record EntryArrays(String rootHandle, StringTables tables, EntryColumns columns, EdgeColumns edges) {
     }
 
-    public record StringTables(String[] strings, String[] elementHandles,
+    public record StringTables(String[] strings, int[] elementHandleParts,
             IJavaElement[] anonymousElementFallbacks) {
 
         @Override
@@ -99,7 +225,7 @@ final class HeapEntryStore implements EntryStore {
             StringTables that = (StringTables) other;
             return new EqualsBuilder()
                     .append(strings, that.strings)
-                    .append(elementHandles, that.elementHandles)
+                    .append(elementHandleParts, that.elementHandleParts)
                     .append(anonymousElementFallbacks, that.anonymousElementFallbacks)
                     .isEquals();
         }
@@ -108,7 +234,7 @@ final class HeapEntryStore implements EntryStore {
         public int hashCode() {
             return new HashCodeBuilder(17, 37)
                     .append(strings)
-                    .append(elementHandles)
+                    .append(elementHandleParts)
                     .append(anonymousElementFallbacks)
                     .toHashCode();
         }
@@ -117,7 +243,7 @@ final class HeapEntryStore implements EntryStore {
         public String toString() {
             return new ToStringBuilder(this)
                     .append("strings", strings) //$NON-NLS-1$
-                    .append("elementHandles", elementHandles) //$NON-NLS-1$
+                    .append("elementHandleParts", elementHandleParts) //$NON-NLS-1$
                     .append("anonymousElementFallbacks", anonymousElementFallbacks) //$NON-NLS-1$
                     .toString();
         }
@@ -177,6 +303,40 @@ final class HeapEntryStore implements EntryStore {
         }
     }
 
+    public record EdgeColumns(int[] subtypeNameIds, int[] supertypeNameIds) {
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || other.getClass() != getClass()) {
+                return false;
+            }
+            EdgeColumns that = (EdgeColumns) other;
+            return new EqualsBuilder()
+                    .append(subtypeNameIds, that.subtypeNameIds)
+                    .append(supertypeNameIds, that.supertypeNameIds)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(17, 37)
+                    .append(subtypeNameIds)
+                    .append(supertypeNameIds)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this)
+                    .append("subtypeNameIds", subtypeNameIds) //$NON-NLS-1$
+                    .append("supertypeNameIds", supertypeNameIds) //$NON-NLS-1$
+                    .toString();
+        }
+    }
+
     @Override
     public int size() {
         return kindAndFlags.length;
@@ -194,23 +354,157 @@ final class HeapEntryStore implements EntryStore {
     }
 
     @Override
-    public void collect(Kind kind, String name, String qualifiedName, boolean wildcard,
-            EntryStore.EntryConsumer consumer) throws CoreException {
+    public void collectRows(Kind kind, String name, String qualifiedName, boolean wildcard,
+            EntryStore.RowConsumer consumer) throws CoreException {
+        int from = kindStarts[kind.ordinal()];
+        int to = kindStarts[kind.ordinal() + 1];
+        if (wildcard) {
+            NamePatternFilter filter = NamePatternFilter.of(
+                    StringUtils.containsAny(qualifiedName, '*', '?') ? qualifiedName : name);
+            if (filter == null) {
+                for (int i = from; i < to; i++) {
+                    consumer.accept(i, entry(i));
+                }
+            } else {
+                collectCandidates(kind.ordinal(), from, to, candidateIds(filter), consumer);
+            }
+            return;
+        }
         String searchName = name == null ? "" : name; //$NON-NLS-1$
         String searchQName = qualifiedName == null ? "" : qualifiedName; //$NON-NLS-1$
-        for (int i = 0; i < kindAndFlags.length; i++) {
-            if (Kind.values()[kindAndFlags[i] & 0x0F] == kind && (wildcard || matchesEntry(i, searchName, searchQName))) {
-                consumer.accept(entry(i));
+        int nameId = searchName.isEmpty() ? NULL_ID : stringIds.getOrDefault(searchName, NULL_ID);
+        collectRange(nameRange(from, to, nameId), consumer);
+        if (searchQName.isEmpty() || searchQName.equals(searchName)) {
+            return;
+        }
+        int qualifiedNameId = stringIds.getOrDefault(searchQName, NULL_ID);
+        // Rows whose qualified name equals their name are only sorted by name.
+        long sameRows = nameRange(from, to, qualifiedNameId);
+        for (int i = (int) (sameRows >>> 32); i < (int) sameRows; i++) {
+            if (qualifiedNameIds[i] == qualifiedNameId) {
+                consumer.accept(i, entry(i));
+            }
+        }
+        long distinctRows = qualifiedNameRange(kind.ordinal(), qualifiedNameId);
+        for (int r = (int) (distinctRows >>> 32); r < (int) distinctRows; r++) {
+            int row = distinctQualifiedRows[r];
+            if (nameIds[row] != nameId) {
+                consumer.accept(row, entry(row));
+            }
+        }
+    }
+
+    @Override
+    public void collectEntries(long[] rows, EntryStore.EntryConsumer consumer) throws CoreException {
+        for (long row : rows) {
+            consumer.accept(entry((int) row));
+        }
+    }
+
+    @Override
+    public void collectSubtypes(Collection<String> supertypes, Consumer<String> subtypes) {
+        for (String supertype : supertypes) {
+            int supertypeId = stringIds.getOrDefault(supertype, NULL_ID);
+            if (supertypeId == NULL_ID) {
+                continue;
+            }
+            int end = lowerBound(supertypeNameIds, 0, supertypeNameIds.length, supertypeId + 1);
+            for (int i = lowerBound(supertypeNameIds, 0, end, supertypeId); i < end; i++) {
+                subtypes.accept(strings[subtypeNameIds[i]]);
+            }
+        }
+    }
+
+    /**
+     * Passes the rows of the kind slice whose name or qualified name is one of {@code candidates},
+     * each once, without building the entries of any other row.
+     */
+    private void collectCandidates(int kind, int from, int to, BitSet candidates, EntryStore.RowConsumer consumer)
+            throws CoreException {
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            collectRange(nameRange(from, to, id), consumer);
+        }
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            long distinctRows = qualifiedNameRange(kind, id);
+            for (int r = (int) (distinctRows >>> 32); r < (int) distinctRows; r++) {
+                int row = distinctQualifiedRows[r];
+                if (nameIds[row] == NULL_ID || !candidates.get(nameIds[row])) {
+                    consumer.accept(row, entry(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of the strings matching {@code filter}. The dictionary is not sorted, so
+     * every string is tested, which is still far cheaper than building the entries of the slice.
+     */
+    private BitSet candidateIds(NamePatternFilter filter) {
+        BitSet ids = new BitSet(strings.length);
+        for (int id = 0; id < strings.length; id++) {
+            String value = strings[id];
+            if (value != null && filter.prefixes().stream().anyMatch(value::startsWith) && filter.matches(value)) {
+                ids.set(id);
+            }
+        }
+        return ids;
+    }
+
+    private void collectRange(long range, EntryStore.RowConsumer consumer) throws CoreException {
+        for (int i = (int) (range >>> 32); i < (int) range; i++) {
+            consumer.accept(i, entry(i));
+        }
+    }
+
+    /** Returns the rows of the kind slice with the given name id, packed as start and end offsets. */
+    private long nameRange(int from, int to, int nameId) {
+        if (nameId == NULL_ID) {
+            return 0L;
+        }
+        int start = lowerBound(nameIds, from, to, nameId);
+        int end = lowerBound(nameIds, start, to, nameId + 1);
+        return (long) start << 32 | end;
+    }
+
+    private long qualifiedNameRange(int kind, int qualifiedNameId) {
+        if (qualifiedNameId == NULL_ID) {
+            return 0L;
+        }
+        int lo = 0;
+        int hi = distinctQualifiedRows.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareQualified(distinctQualifiedRows[mid], kind, qualifiedNameId) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
             }
         }
+        int end = lo;
+        while (end < distinctQualifiedRows.length
+                && compareQualified(distinctQualifiedRows[end], kind, qualifiedNameId) == 0) {
+            end++;
+        }
+        return (long) lo << 32 | end;
+    }
+
+    private int compareQualified(int row, int kind, int qualifiedNameId) {
+        int byKind = Integer.compare(kindAndFlags[row] & KIND_MASK, kind);
+        return byKind != 0 ? byKind : Integer.compare(qualifiedNameIds[row], qualifiedNameId);
     }
 
-    private boolean matchesEntry(int i, String searchName, String searchQName) {
-        if (!searchName.isEmpty() && searchName.equals(string(nameIds[i]))) {
-            return true;
+    private static int lowerBound(int[] values, int from, int to, int key) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
         }
-        return !searchQName.isEmpty() && !searchQName.equals(searchName)
-                && searchQName.equals(string(qualifiedNameIds[i]));
+        return lo;
     }
 
     @Override
@@ -219,7 +513,7 @@ final class HeapEntryStore implements EntryStore {
     }
 
     private Kind kind(int entryId) {
-        return Kind.values()[kindAndFlags[entryId] & 0x0F];
+        return KINDS[kindAndFlags[entryId] & KIND_MASK];
     }
 
     private boolean declaration(int entryId) {
@@ -227,19 +521,24 @@ final class HeapEntryStore implements EntryStore {
     }
 
     private Access access(int entryId) {
-        return Access.values()[(kindAndFlags[entryId] >>> 5) & 0x03];
+        return ACCESSES[(kindAndFlags[entryId] >>> 5) & 0x03];
     }
 
     private TypeCategory typeCategory(int entryId) {
-        return TypeCategory.values()[typeCategoryIds[entryId]];
+        return TYPE_CATEGORIES[typeCategoryIds[entryId]];
     }
 
     private String string(int id) {
         return id == NULL_ID ? null : strings[id];
     }
 
-    private String elementHandle(int id) {
-        return id == NULL_ID ? null : elementHandles[id];
+    private ElementHandles.Parts elementHandle(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        int offset = id * 3;
+        return new ElementHandles.Parts(rootHandle, string(elementHandleParts[offset]),
+                string(elementHandleParts[offset + 1]), string(elementHandleParts[offset + 2]));
     }
 
     private IJavaElement anonymousElementFallback(int id) {
@@ -274,17 +573,42 @@ final class HeapEntryStore implements EntryStore {
             return id;
         }
 
+        int size() {
+            return values.size();
+        }
+
         String[] values() {
             return values.toArray(String[]::new);
         }
     }
 
+    /**
+     * Distinct element handles, recorded as the ids of their parts in a shared string dictionary.
+     */
     static final class ElementDictionary extends Dictionary {
 
+        private final ElementHandles splitter;
+        private final Dictionary strings;
         private final List<IJavaElement> fallbacks = new ArrayList<>();
+        private int[] handleParts = new int[48];
+
+        ElementDictionary(ElementHandles splitter, Dictionary strings) {
+            this.splitter = splitter;
+            this.strings = strings;
+        }
 
         int id(String handle, IJavaElement fallback) {
+            int count = size();
             int id = super.id(handle);
+            if (id == count) {
+                ElementHandles.Parts parts = splitter.split(handle);
+                if (handleParts.length < (id + 1) * 3) {
+                    handleParts = Arrays.copyOf(handleParts, handleParts.length * 2);
+                }
+                handleParts[id * 3] = strings.id(parts.packagePart());
+                handleParts[id * 3 + 1] = strings.id(parts.classFilePart());
+                handleParts[id * 3 + 2] = strings.id(parts.memberPart());
+            }
             if (id != NULL_ID) {
                 while (fallbacks.size() <= id) {
                     fallbacks.add(null);
@@ -296,8 +620,8 @@ final class HeapEntryStore implements EntryStore {
             return id;
         }
 
-        String[] handles() {
-            return values();
+        int[] handleParts() {
+            return Arrays.copyOf(handleParts, size() * 3);
         }
 
         IJavaElement[] fallbacks() {
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.nbauma109.decompiler.search.BytecodeJarIndexer.JarEntryWork;
+import io.github.nbauma109.decompiler.search.BytecodeJarIndexer.JarWork;
+
+/**
+ * Remembers the {@link JarWork} computed for each jar path, so that a refresh only has to stat
+ * an unchanged jar instead of reopening its central directory and hashing every byte of it.
+ *
+ * <p>A row is reused while the path still reports the same size, modification time and file key
+ * (the inode where the file system exposes one, which catches a jar replaced by rename within the
+ * same timestamp). Rows are keyed by runtime version because multi-release jars select different
+ * entries on different JVMs.
+ */
+final class JarFingerprintCache {
+
+    private static final int FORMAT = 2;
+
+    private JarFingerprintCache() {
+    }
+
+    /**
+     * The attributes a cached fingerprint is validated against, read with a single stat call.
+     */
+    record Stat(String path, long length, long lastModified, String fileKey) {
+
+        static Stat of(File jar) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(jar.toPath(), BasicFileAttributes.class);
+            Object fileKey = attributes.fileKey();
+            return new Stat(jar.getAbsolutePath(), attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    fileKey == null ? "" : fileKey.toString()); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Returns the work recorded for {@code stat}, or {@code null} when the jar is unknown or
+     * changed since it was fingerprinted.
+     */
+    static JarWork find(Connection conn, Object dbLock, Stat stat, int runtimeVersion) throws SQLException {
+        synchronized (dbLock) {
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    SELECT content_hash, file_crc, entries FROM jar_fingerprints
+                    WHERE path = ? AND runtime_version = ? AND file_length = ?
+                    AND last_modified = ? AND file_key = ?""")) { //$NON-NLS-1$
+                ps.setString(1, stat.path());
+                ps.setInt(2, runtimeVersion);
+                ps.setLong(3, stat.length());
+                ps.setLong(4, stat.lastModified());
+                ps.setString(5, stat.fileKey());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    return decode(rs.getBytes(3), rs.getLong(2), rs.getString(1));
+                }
+            } catch (IOException e) {
+                // A row written by an incompatible version; it is replaced on the next store.
+                return null;
+            }
+        }
+    }
+
+    static void store(Connection conn, Object dbLock, Map<Stat, JarWork> fingerprints, int runtimeVersion)
+            throws SQLException {
+        if (fingerprints.isEmpty()) {
+            return;
+        }
+        synchronized (dbLock) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    INSERT OR REPLACE INTO jar_fingerprints(path, runtime_version, file_length,
+                    last_modified, file_key, content_hash, file_crc, entries)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?)""")) { //$NON-NLS-1$
+                for (Map.Entry<Stat, JarWork> fingerprint : fingerprints.entrySet()) {
+                    Stat stat = fingerprint.getKey();
+                    JarWork work = fingerprint.getValue();
+                    ps.setString(1, stat.path());
+                    ps.setInt(2, runtimeVersion);
+                    ps.setLong(3, stat.length());
+                    ps.setLong(4, stat.lastModified());
+                    ps.setString(5, stat.fileKey());
+                    ps.setString(6, work.contentHash());
+                    ps.setLong(7, work.fileCrc());
+                    ps.setBytes(8, encode(work.entries()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Deletes the fingerprints of jars that are no longer on any classpath.
+     * Must be called while holding the database write lock.
+     */
+    static void prune(Connection conn, Set<String> livePaths) throws SQLException {
+        Set<String> stale = new HashSet<>();
+        try (PreparedStatement sel = conn.prepareStatement("SELECT DISTINCT path FROM jar_fingerprints"); //$NON-NLS-1$
+                ResultSet rs = sel.executeQuery()) {
+            while (rs.next()) {
+                if (!livePaths.contains(rs.getString(1))) {
+                    stale.add(rs.getString(1));
+                }
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement del = conn.prepareStatement("DELETE FROM jar_fingerprints WHERE path = ?")) { //$NON-NLS-1$
+            for (String path : stale) {
+                del.setString(1, path);
+                del.addBatch();
+            }
+            del.executeBatch();
+        }
+    }
+
+    // Ticks are derived from the impact bytes, so only names, sizes and CRCs are stored.
+    static byte[] encode(List<JarEntryWork> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 56 + 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT);
+            out.writeInt(entries.size());
+            for (JarEntryWork entry : entries) {
+                out.writeUTF(entry.name());
+                out.writeLong(entry.impactBytes());
+                out.writeLong(entry.crc());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JarWork decode(byte[] encoded, long fileCrc, String contentHash) throws IOException {
+        if (encoded == null) {
+            throw new IOException("Missing fingerprint entries"); //$NON-NLS-1$
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            if (in.readInt() != FORMAT) {
+                throw new IOException("Unsupported fingerprint format"); //$NON-NLS-1$
+            }
+            int count = in.readInt();
+            List<JarEntryWork> entries = new ArrayList<>(count);
+            long totalImpact = 0L;
+            long totalTicks = 0L;
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long impactBytes = in.readLong();
+                long crc = in.readLong();
+                int ticks = BytecodeJarIndexer.impactTicks(impactBytes);
+                totalImpact += impactBytes;
+                totalTicks = Math.clamp(totalTicks + ticks, 0L, Integer.MAX_VALUE);
+                entries.add(new JarEntryWork(name, impactBytes, ticks, crc));
+            }
+            return new JarWork(entries, totalImpact, (int) totalTicks, fileCrc, contentHash);
+        }
+    }
+}
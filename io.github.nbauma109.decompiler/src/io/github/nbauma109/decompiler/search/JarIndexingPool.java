@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import io.github.nbauma109.decompiler.JavaDecompilerPlugin;
+import io.github.nbauma109.decompiler.search.BytecodeSearchIndex.JarIndex;
+
+/**
+ * Indexes jars on a bounded pool of parser threads, one jar per task, while a single writer
+ * thread owns every write to the shared index database.
+ *
+ * <p>The job monitor is only touched from the thread that owns the pool: workers report ticks
+ * and sub-task names into atomic fields that {@link #await} and {@link #submit} relay while
+ * they wait. Cancellation is relayed back the same way through a volatile flag.
+ */
+final class JarIndexingPool implements AutoCloseable {
+
+    private static final long RELAY_INTERVAL_MILLIS = 100L;
+
+    private final ExecutorService parsers;
+    private final ExecutorService writer;
+    private final Connection conn;
+    private final Object dbLock;
+    private final ReadConnectionPool readers;
+    private final StringIdCache stringIds;
+    private final SubMonitor monitor;
+    // Bounds the number of parsed jars held in memory while they wait for the writer.
+    private final Semaphore inFlight;
+    private final AtomicInteger workedTicks = new AtomicInteger();
+    private final AtomicReference<String> subTask = new AtomicReference<>();
+    private volatile boolean canceled;
+
+    JarIndexingPool(int parallelism, Connection conn, Object dbLock, ReadConnectionPool readers,
+            StringIdCache stringIds, SubMonitor monitor) {
+        this.parsers = Executors.newFixedThreadPool(parallelism, threadFactory("Library bytecode indexer")); //$NON-NLS-1$
+        this.writer = conn == null ? null
+                : Executors.newSingleThreadExecutor(threadFactory("Library bytecode index writer")); //$NON-NLS-1$
+        this.conn = conn;
+        this.dbLock = dbLock;
+        this.readers = readers;
+        this.stringIds = stringIds;
+        this.monitor = monitor;
+        this.inFlight = new Semaphore(parallelism * 2);
+    }
+
+    /**
+     * Schedules one jar. Blocks while too many parsed jars are waiting for the writer.
+     * A jar with a {@code shard} file is indexed into that file on its parser thread instead.
+     * The returned future yields {@code null} when the jar was canceled or failed.
+     */
+    Future<JarIndex> submit(IPackageFragmentRoot root, File jar, BytecodeJarIndexer.JarWork work, Path shard) {
+        if (!acquire()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        RelayMonitor progress = new RelayMonitor(work.totalTicks());
+        CompletableFuture<JarIndex> future;
+        if (shard != null) {
+            future = CompletableFuture.supplyAsync(
+                    () -> BytecodeJarIndexer.indexToShard(root, jar, work, shard, progress), parsers);
+        } else if (writer == null) {
+            future = CompletableFuture.supplyAsync(
+                    () -> BytecodeJarIndexer.index(root, jar, work, null, null, progress), parsers);
+        } else {
+            future = CompletableFuture
+                    .supplyAsync(() -> BytecodeJarIndexer.parse(root, jar, work, conn, dbLock, readers, progress),
+                            parsers)
+                    .thenApplyAsync(parsed -> parsed == null || canceled ? null
+                            : BytecodeJarIndexer.write(parsed, conn, dbLock, readers, stringIds, progress), writer);
+        }
+        return future.whenComplete((index, failure) -> {
+            progress.done();
+            inFlight.release();
+        });
+    }
+
+    /**
+     * Waits for a submitted jar while relaying worker progress to the job monitor.
+     * Returns {@code null} when the jar was canceled or failed. An interruption cancels the
+     * outstanding jars, then the jar is still waited for so that it is never left being written.
+     */
+    JarIndex await(Future<JarIndex> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                relayProgress();
+                try {
+                    return future.get(RELAY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // keep relaying progress
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancel();
+                } catch (ExecutionException e) {
+                    // Only this jar is lost; the others keep indexing.
+                    JavaDecompilerPlugin.logError(e.getCause(), "Failed to index application library bytecode"); //$NON-NLS-1$
+                    return null;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    boolean isCanceled() {
+        relayProgress();
+        return canceled;
+    }
+
+    /** Makes outstanding jars finish early; their futures then yield {@code null}. */
+    void cancel() {
+        canceled = true;
+    }
+
+    /**
+     * Waits until every parser and the writer thread have terminated, since the caller may close or
+     * prune the connection right after. An interruption cancels the outstanding jars but does not
+     * stop the wait; the interrupt status is restored once the threads are gone.
+     */
+    @Override
+    public void close() {
+        parsers.shutdown();
+        if (writer != null) {
+            writer.shutdown();
+        }
+        boolean interrupted = false;
+        for (ExecutorService executor : writer == null ? List.of(parsers) : List.of(parsers, writer)) {
+            while (!executor.isTerminated()) {
+                relayProgress();
+                try {
+                    executor.awaitTermination(RELAY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancel();
+                }
+            }
+        }
+        relayProgress();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Computes the {@link BytecodeJarIndexer#plan work} of several jars concurrently, which
+     * overlaps the SHA-256 hashing of large jars. Jars that cannot be read, or whose planning
+     * failed, are logged and left out of the result.
+     *
+     * @throws OperationCanceledException when {@code monitor} is canceled
+     */
+    static Map<File, BytecodeJarIndexer.JarWork> plan(Collection<File> jars, int parallelism,
+            IProgressMonitor monitor) {
+        return plan(jars, parallelism, monitor, BytecodeJarIndexer::plan);
+    }
+
+    static Map<File, BytecodeJarIndexer.JarWork> plan(Collection<File> jars, int parallelism,
+            IProgressMonitor monitor, Function<File, BytecodeJarIndexer.JarWork> planner) {
+        Map<File, BytecodeJarIndexer.JarWork> planned = new HashMap<>();
+        if (jars.size() < 2 || parallelism < 2) {
+            for (File jar : jars) {
+                checkCanceled(monitor);
+                try {
+                    putPlanned(planned, jar, planner.apply(jar));
+                } catch (RuntimeException e) {
+                    logPlanFailure(jar, e);
+                }
+            }
+            return planned;
+        }
+        ExecutorService planners = Executors.newFixedThreadPool(Math.min(parallelism, jars.size()),
+                threadFactory("Library jar fingerprinter")); //$NON-NLS-1$
+        try {
+            Map<File, Future<BytecodeJarIndexer.JarWork>> pending = new LinkedHashMap<>();
+            for (File jar : jars) {
+                pending.put(jar, planners.submit(() -> planner.apply(jar)));
+            }
+            for (Map.Entry<File, Future<BytecodeJarIndexer.JarWork>> entry : pending.entrySet()) {
+                putPlanned(planned, entry.getKey(), awaitPlan(entry.getKey(), entry.getValue(), monitor));
+            }
+            return planned;
+        } finally {
+            planners.shutdownNow();
+        }
+    }
+
+    private static BytecodeJarIndexer.JarWork awaitPlan(File jar, Future<BytecodeJarIndexer.JarWork> future,
+            IProgressMonitor monitor) {
+        while (true) {
+            checkCanceled(monitor);
+            try {
+                return future.get(RELAY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // keep checking for cancellation
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OperationCanceledException();
+            } catch (ExecutionException e) {
+                logPlanFailure(jar, e.getCause());
+                return null;
+            }
+        }
+    }
+
+    private static void putPlanned(Map<File, BytecodeJarIndexer.JarWork> planned, File jar,
+            BytecodeJarIndexer.JarWork work) {
+        if (work != null) {
+            planned.put(jar, work);
+        }
+    }
+
+    private static void logPlanFailure(File jar, Throwable failure) {
+        JavaDecompilerPlugin.logError(failure, "Failed to read library jar " + jar.getAbsolutePath()); //$NON-NLS-1$
+    }
+
+    private static void checkCanceled(IProgressMonitor monitor) {
+        if (monitor != null && monitor.isCanceled()) {
+            throw new OperationCanceledException();
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            while (!inFlight.tryAcquire(RELAY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (isCanceled()) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            return false;
+        }
+        return true;
+    }
+
+    private void relayProgress() {
+        int ticks = workedTicks.getAndSet(0);
+        if (ticks > 0) {
+            monitor.worked(ticks);
+        }
+        String name = subTask.getAndSet(null);
+        if (name != null) {
+            monitor.subTask(name);
+        }
+        if (monitor.isCanceled()) {
+            canceled = true;
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + " #" + count.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Progress monitor handed to the indexer of one jar. It may be used from any thread and
+     * never reports more than the ticks allotted to its jar.
+     */
+    private final class RelayMonitor extends NullProgressMonitor {
+
+        private final int ticks;
+        private final AtomicInteger reported = new AtomicInteger();
+
+        private RelayMonitor(int ticks) {
+            this.ticks = ticks;
+        }
+
+        @Override
+        public void worked(int work) {
+            int previous = reported.getAndAccumulate(work, (current, delta) -> Math.min(ticks, current + delta));
+            int delta = Math.min(ticks, previous + work) - previous;
+            if (delta > 0) {
+                workedTicks.addAndGet(delta);
+            }
+        }
+
+        @Override
+        public void subTask(String name) {
+            subTask.set(name);
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public void done() {
+            worked(ticks);
+        }
+    }
+}
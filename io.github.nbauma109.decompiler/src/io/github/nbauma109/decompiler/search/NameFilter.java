@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.nio.ByteBuffer;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+
+/**
+ * Bloom filter over the names and qualified names of the entries of one jar, per kind.
+ *
+ * <p>An exact-name search skips a jar whose filter rules out both searched names, without
+ * querying its store. Ten bits per name and seven probes keep false positives around one percent.
+ * Names are hashed by value rather than by string id, so the check needs no lookup in the strings
+ * table either.
+ */
+final class NameFilter {
+
+    private static final int FORMAT = 1;
+    private static final int BITS_PER_NAME = 10;
+    private static final int PROBES = 7;
+
+    private final long[] bits;
+    private final int bitCount;
+
+    /**
+     * Jars checked by exact-name searches, jars skipped, and jars queried without a match.
+     */
+    record Stats(long checkedJars, long skippedJars, long falsePositives) {
+
+        /** Share of the jars without a match that their filter did not rule out. */
+        double falsePositiveRate() {
+            long negatives = skippedJars + falsePositives;
+            return negatives == 0 ? 0d : (double) falsePositives / negatives;
+        }
+    }
+
+    private NameFilter(long[] bits) {
+        this.bits = bits;
+        this.bitCount = bits.length * Long.SIZE;
+    }
+
+    /**
+     * @param names expected number of distinct (kind, name) pairs
+     */
+    static NameFilter create(int names) {
+        long size = Math.max(1L, (long) names * BITS_PER_NAME);
+        return new NameFilter(new long[(int) Math.min(Integer.MAX_VALUE / Long.SIZE, (size + Long.SIZE - 1) / Long.SIZE)]);
+    }
+
+    void add(Kind kind, String name) {
+        add(hash(kind.ordinal(), name));
+    }
+
+    void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Returns {@code false} when no entry of {@code kind} can be found by an exact search for
+     * {@code name} or {@code qualifiedName}, mirroring the lookups of the stores.
+     */
+    boolean mightContain(Kind kind, String name, String qualifiedName) {
+        boolean hasName = name != null && !name.isEmpty();
+        boolean hasQualifiedName = qualifiedName != null && !qualifiedName.isEmpty();
+        if (!hasName && !hasQualifiedName) {
+            return true;
+        }
+        return hasName && contains(hash(kind.ordinal(), name))
+                || hasQualifiedName && !qualifiedName.equals(name) && contains(hash(kind.ordinal(), qualifiedName));
+    }
+
+    private boolean contains(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 64-bit FNV-1a over the characters of {@code name}, seeded with the kind and mixed. */
+    static long hash(int kind, String name) {
+        long hash = 0xcbf29ce484222325L ^ kind;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bits.length * Long.BYTES);
+        buffer.putInt(FORMAT);
+        buffer.asLongBuffer().put(bits);
+        return buffer.array();
+    }
+
+    /** Returns {@code null} for a missing filter or one written in another format. */
+    static NameFilter fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < Integer.BYTES + Long.BYTES
+                || (bytes.length - Integer.BYTES) % Long.BYTES != 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != FORMAT) {
+            return null;
+        }
+        long[] bits = new long[(bytes.length - Integer.BYTES) / Long.BYTES];
+        buffer.asLongBuffer().get(bits);
+        return new NameFilter(bits);
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * In-memory counterpart of {@link SqliteEntryStore.NameCandidates}, selecting the candidate
+ * names of a pattern from the string dictionary of an entry store before any entry is built.
+ *
+ * <p>A pattern containing {@code *} or {@code ?} matches names case-insensitively, like
+ * {@code LIKE}; any other pattern is a camel-case pattern matching case-sensitively with a
+ * wildcard before every upper-case letter, like {@code GLOB}. Every candidate starts with one
+ * of {@link #prefixes()}, so stores with a sorted dictionary only visit those ranges. The
+ * candidates are a superset of the matches, which the caller still filters exactly.
+ */
+final class NamePatternFilter {
+
+    private final List<String> prefixes;
+    private final Pattern pattern;
+
+    private NamePatternFilter(List<String> prefixes, Pattern pattern) {
+        this.prefixes = prefixes;
+        this.pattern = pattern;
+    }
+
+    /** Returns {@code null} when the pattern matches every name. */
+    static NamePatternFilter of(String pattern) {
+        String text = StringUtils.trimToEmpty(pattern);
+        if (StringUtils.containsOnly(text, '*')) {
+            return null;
+        }
+        return StringUtils.containsAny(text, '*', '?') ? wildcard(text) : camelCase(text);
+    }
+
+    private static NamePatternFilter wildcard(String pattern) {
+        StringBuilder regex = new StringBuilder(pattern.length() + 8);
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            switch (c) {
+                case '*' -> regex.append(".*"); //$NON-NLS-1$
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        // LIKE folds ASCII letters only, so the first character has at most two spellings.
+        char first = pattern.charAt(0);
+        List<String> prefixes;
+        if (first == '*' || first == '?') {
+            prefixes = List.of(""); //$NON-NLS-1$
+        } else if (first < 0x80 && Character.isLetter(first)) {
+            prefixes = List.of(String.valueOf(Character.toUpperCase(first)),
+                    String.valueOf(Character.toLowerCase(first)));
+        } else {
+            prefixes = List.of(String.valueOf(first));
+        }
+        return new NamePatternFilter(prefixes,
+                Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL));
+    }
+
+    private static NamePatternFilter camelCase(String pattern) {
+        StringBuilder regex = new StringBuilder(pattern.length() * 2);
+        int prefixEnd = -1;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (i > 0 && Character.isUpperCase(c)) {
+                regex.append(".*"); //$NON-NLS-1$
+                if (prefixEnd < 0) {
+                    prefixEnd = i;
+                }
+            }
+            regex.append(Pattern.quote(String.valueOf(c)));
+        }
+        String prefix = pattern.substring(0, prefixEnd < 0 ? pattern.length() : prefixEnd);
+        return new NamePatternFilter(List.of(prefix), Pattern.compile(regex.append(".*").toString(), Pattern.DOTALL)); //$NON-NLS-1$
+    }
+
+    /** Returns the case-sensitive prefixes, one of which every candidate name starts with. */
+    List<String> prefixes() {
+        return prefixes;
+    }
+
+    boolean matches(String name) {
+        return name != null && pattern.matcher(name).matches();
+    }
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.io.File;
+import java.util.Objects;
+
+import io.github.nbauma109.decompiler.util.WeightedLruMap;
+
+/**
+ * {@link WeightedLruMap Least-recently-used map} from the sources of compilation units to what
+ * was parsed from them, bounded by an approximate number of bytes.
+ *
+ * <p>Units are keyed by their name, a hash of their source and a fingerprint of the classpath
+ * their bindings were resolved against, so every resolver showing the same source shares one
+ * parse. A unit weighs {@link #unitWeight}, plus {@link #bindingsWeight} once it is parsed again
+ * with bindings.
+ * Putting new contents for a unit drops its older contents, which can no longer be shown once the
+ * buffer they were read from changed.
+ *
+ * @param <V> what is parsed from a source
+ */
+final class ParsedUnitCache<V> {
+
+    // Approximate heap of a unit parsed without bindings per character of its source.
+    private static final int BYTES_PER_SOURCE_CHAR = 64;
+    // Approximate heap of the same unit parsed with bindings per character of its source,
+    // including the AST nodes and the bindings resolved for them.
+    private static final int BYTES_PER_RESOLVED_SOURCE_CHAR = 128;
+    // Approximate per-unit overhead of the map node, key and unit, in bytes.
+    private static final int UNIT_OVERHEAD = 256;
+
+    private final WeightedLruMap<Key, Unit<V>> units;
+
+    /**
+     * A parsed source: {@code unitName} may be {@code null} for a source outside of any class
+     * file, and {@code classpath} is {@code 0} for a source parsed without bindings.
+     */
+    record Key(String unitName, long contentHash, long classpath) {
+    }
+
+    private record Unit<V>(String source, V value, long weight) {
+    }
+
+    /**
+     * @param capacity maximum number of bytes held by cached units, including a fixed per-unit
+     *        overhead
+     */
+    ParsedUnitCache(long capacity) {
+        units = new WeightedLruMap<>(capacity, (key, unit) -> unit.weight());
+    }
+
+    /** Approximate heap of a unit parsed from {@code source} without bindings, in bytes. */
+    static long unitWeight(String source) {
+        return UNIT_OVERHEAD + (long) source.length() * BYTES_PER_SOURCE_CHAR;
+    }
+
+    /** Approximate heap added by parsing {@code source} again with bindings, in bytes. */
+    static long bindingsWeight(String source) {
+        return (long) source.length() * BYTES_PER_RESOLVED_SOURCE_CHAR;
+    }
+
+    /**
+     * @param classpath the classpath the bindings of the unit are resolved against, or
+     *        {@code null} when it is parsed without bindings
+     */
+    static Key key(String unitName, String source, String[] classpath) {
+        return new Key(unitName, hash(source), classpath == null ? 0L : fingerprint(classpath));
+    }
+
+    /**
+     * Returns what was parsed from {@code source} for {@code key}, or {@code null}. The source is
+     * compared as well, so that two contents with the same hash are never mixed up.
+     */
+    synchronized V get(Key key, String source) {
+        Unit<V> unit = units.get(key);
+        return unit == null || !unit.source().equals(source) ? null : unit.value();
+    }
+
+    /**
+     * Caches what was parsed from {@code source} and drops the other contents cached for the
+     * same unit and classpath.
+     */
+    synchronized void put(Key key, String source, V value) {
+        long unitWeight = unitWeight(source);
+        if (!units.accepts(unitWeight)) {
+            return;
+        }
+        if (key.unitName() != null) {
+            units.removeIf(other -> other.contentHash() != key.contentHash() && other.classpath() == key.classpath()
+                    && Objects.equals(other.unitName(), key.unitName()));
+        }
+        units.put(key, new Unit<>(source, value, unitWeight));
+    }
+
+    /**
+     * Adds the weight of a parse with bindings to the unit cached for {@code key}, once
+     * {@code value} holds it. Does nothing when {@code value} is no longer the one cached for
+     * {@code key}.
+     */
+    synchronized void addBindings(Key key, V value) {
+        Unit<V> unit = units.get(key);
+        if (unit != null && unit.value() == value) {
+            units.put(key, new Unit<>(unit.source(), value, unit.weight() + bindingsWeight(unit.source())));
+        }
+    }
+
+    /**
+     * Changes the maximum number of bytes held by cached units, evicting the least recently used
+     * ones beyond it.
+     */
+    synchronized void setCapacity(long capacity) {
+        units.setCapacity(capacity);
+    }
+
+    synchronized void clear() {
+        units.clear();
+    }
+
+    private static long fingerprint(String[] classpath) {
+        long fingerprint = hash(String.join(File.pathSeparator, classpath));
+        // Parsed with bindings, so never 0 like a unit parsed without them.
+        return fingerprint == 0L ? 1L : fingerprint;
+    }
+
+    /** 64-bit FNV-1a over the characters of {@code text}, mixed. */
+    static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
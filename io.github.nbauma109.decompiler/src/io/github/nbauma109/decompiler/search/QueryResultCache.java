@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+import io.github.nbauma109.decompiler.util.WeightedLruMap;
+
+/**
+ * {@link WeightedLruMap Least-recently-used map} from the candidate queries of searches to the
+ * rows that answered them, bounded by an approximate number of bytes.
+ *
+ * <p>Results only hold the row numbers of every store, which the stores turn back into entries, so
+ * a repeated search skips the name lookups without keeping its entries alive. Results belong to
+ * one published map of jar indexes: {@link #reset(Object)} drops them when another map is
+ * published, and results recorded against an older map are ignored.
+ */
+final class QueryResultCache {
+
+    // Approximate per-query overhead of the map node, key and result, in bytes.
+    private static final int QUERY_OVERHEAD = 160;
+    // Approximate per-store overhead of a result, in bytes.
+    private static final int STORE_OVERHEAD = 48;
+
+    private final WeightedLruMap<Query, Result> results;
+    private Object published;
+    private long hits;
+    private long misses;
+
+    /**
+     * A candidate query of {@link BytecodeSearchIndex#forEachEntry}, with the package fragment
+     * root paths of its scope, or {@code null} for all jars.
+     */
+    record Query(Kind kind, String name, String qualifiedName, boolean wildcard, Set<IPath> scope) {
+
+        Query {
+            scope = scope == null ? null : Set.copyOf(scope);
+        }
+
+        long weight() {
+            long chars = (name == null ? 0 : name.length()) + (qualifiedName == null ? 0 : qualifiedName.length());
+            return QUERY_OVERHEAD + chars * Character.BYTES + (scope == null ? 0 : scope.size() * 16L);
+        }
+    }
+
+    /**
+     * Lookups and size of the cache; {@code bytes} is the approximate heap used by the cached
+     * results, out of {@code capacity}.
+     */
+    record Stats(long hits, long misses, int queries, long bytes, long capacity) {
+
+        double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0d : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * The rows of every store that answered one query, in the order they were collected.
+     */
+    static final class Result {
+
+        private final Map<EntryStore, long[]> rows;
+        private final long weight;
+
+        private Result(Map<EntryStore, long[]> rows, long weight) {
+            this.rows = rows;
+            this.weight = weight;
+        }
+
+        /**
+         * Passes the entries of the cached rows to {@code consumer}. The stores must still be open,
+         * which holds while the map the result was recorded for is published.
+         */
+        void replay(IProgressMonitor monitor, EntryStore.EntryConsumer consumer) throws CoreException {
+            for (Map.Entry<EntryStore, long[]> storeRows : rows.entrySet()) {
+                if (monitor != null && monitor.isCanceled()) {
+                    return;
+                }
+                storeRows.getKey().collectEntries(storeRows.getValue(), consumer);
+            }
+        }
+    }
+
+    /**
+     * Collects the rows of a running query, store by store.
+     */
+    static final class Recorder {
+
+        private final Map<EntryStore, StoreRows> rows = new LinkedHashMap<>();
+
+        void add(EntryStore store, long row) {
+            StoreRows storeRows = rows.computeIfAbsent(store, s -> new StoreRows());
+            if (storeRows.count == storeRows.values.length) {
+                storeRows.values = Arrays.copyOf(storeRows.values, storeRows.count * 2);
+            }
+            storeRows.values[storeRows.count++] = row;
+        }
+
+        Result result() {
+            Map<EntryStore, long[]> trimmed = new LinkedHashMap<>();
+            long weight = 0L;
+            for (Map.Entry<EntryStore, StoreRows> storeRows : rows.entrySet()) {
+                int count = storeRows.getValue().count;
+                trimmed.put(storeRows.getKey(), Arrays.copyOf(storeRows.getValue().values, count));
+                weight += STORE_OVERHEAD + (long) count * Long.BYTES;
+            }
+            return new Result(trimmed, weight);
+        }
+
+        private static final class StoreRows {
+            private long[] values = new long[8];
+            private int count;
+        }
+    }
+
+    /**
+     * @param capacity maximum number of bytes held by cached results, including a fixed
+     *        per-query and per-store overhead
+     */
+    QueryResultCache(long capacity) {
+        results = new WeightedLruMap<>(capacity, (query, result) -> query.weight() + result.weight);
+    }
+
+    /**
+     * Returns the result recorded for {@code query} against the {@code published} map, or
+     * {@code null}.
+     */
+    synchronized Result get(Object published, Query query) {
+        Result result = published == this.published ? results.get(query) : null;
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Caches the result of {@code query}, unless another map was published since it was recorded
+     * against {@code published}.
+     */
+    synchronized void put(Object published, Query query, Result result) {
+        if (published == this.published) {
+            results.put(query, result);
+        }
+    }
+
+    /**
+     * Drops every cached result; only results recorded against {@code published} are cached from
+     * now on.
+     */
+    synchronized void reset(Object published) {
+        this.published = published;
+        results.clear();
+    }
+
+    synchronized Stats stats() {
+        return new Stats(hits, misses, results.size(), results.weight(), results.capacity());
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.nbauma109.decompiler.util.Logger;
+
+/**
+ * Small pool of read-only connections to the shared index database.
+ *
+ * <p>The database runs in WAL mode, so readers see the last committed snapshot and never wait
+ * for the single writer connection used by the indexer. Each pooled connection is used by one
+ * thread at a time and needs no further locking. Connections are opened on first use, and keep
+ * the statements prepared on them in a {@link StatementCache}.
+ */
+final class ReadConnectionPool implements AutoCloseable {
+
+    // SQLITE_OPEN_READONLY; the read connections must never create or modify the database.
+    private static final String OPEN_READ_ONLY = "1"; //$NON-NLS-1$
+    private static final String BUSY_TIMEOUT_MILLIS = "5000"; //$NON-NLS-1$
+    // Statements kept per connection: every query shape of the searches over a stable set of jars.
+    private static final int STATEMENTS_PER_CONNECTION = 32;
+
+    private final String url;
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> opened;
+    private final Map<Connection, StatementCache> statements = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private boolean closed;
+
+    ReadConnectionPool(Path dbFile, int maxSize) {
+        this.url = "jdbc:sqlite:" + dbFile.toAbsolutePath(); //$NON-NLS-1$
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+        this.opened = new ArrayList<>(maxSize);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns an idle connection, opening a new one while the pool is below its size, or
+     * waits for another thread to release one. Every call must be paired with {@link #release}.
+     */
+    Connection acquire() throws SQLException {
+        Connection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("Search index database is closed"); //$NON-NLS-1$
+            }
+            if (opened.size() < maxSize) {
+                connection = open();
+                opened.add(connection);
+                statements.put(connection, new StatementCache(connection, STATEMENTS_PER_CONNECTION));
+                return connection;
+            }
+        }
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a search index connection", e); //$NON-NLS-1$
+        }
+    }
+
+    void release(Connection connection) {
+        idle.offer(connection);
+    }
+
+    /**
+     * Returns the statement cache of a connection acquired from this pool, which may only be used
+     * until the connection is released.
+     */
+    StatementCache statements(Connection connection) {
+        return statements.get(connection);
+    }
+
+    /**
+     * Closes every connection. Callers must make sure that no connection is still leased,
+     * which {@link BytecodeSearchIndex} does by holding its search write lock.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        idle.clear();
+        statements.values().forEach(StatementCache::close);
+        statements.clear();
+        for (Connection connection : opened) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                Logger.debug(e);
+            }
+        }
+        opened.clear();
+    }
+
+    private Connection open() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("open_mode", OPEN_READ_ONLY); //$NON-NLS-1$
+        properties.setProperty("busy_timeout", BUSY_TIMEOUT_MILLIS); //$NON-NLS-1$
+        return DriverManager.getConnection(url, properties);
+    }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.nbauma109.decompiler.editor.DecompiledLineMap;
+import io.github.nbauma109.decompiler.search.BytecodeSourceRangeResolver.SourceRange;
+
+/**
+ * Places the occurrences of a method or field reference in a decompiled source from the original
+ * source lines of the instructions that make them, without parsing the source.
+ *
+ * <p>The lines of the source showing an original line are scanned for the referenced name, outside
+ * of comments and literals. An invocation covers its name through its closing parenthesis and a
+ * field access or method reference covers its name, like the ranges of the AST visitor. Placing
+ * gives up, so that the caller falls back to the AST, unless every original line shows exactly as
+ * many occurrences of the name as the class file makes there.
+ */
+final class ReferenceLineLocator {
+
+    private static final SourceRange UNCLOSED = new SourceRange(-1, 0);
+
+    private ReferenceLineLocator() {
+    }
+
+    /**
+     * Returns the ranges of the occurrences of {@code name} made on {@code occurrenceLines}, sorted
+     * by offset, or {@code null} when they cannot be placed unambiguously.
+     *
+     * @param occurrenceLines original source line of each occurrence, in bytecode order
+     * @param method whether {@code name} is a method rather than a field
+     */
+    static List<SourceRange> locate(String source, DecompiledLineMap lineMap, int[] occurrenceLines, String name,
+            boolean method) {
+        Map<Integer, Integer> occurrencesByLine = new LinkedHashMap<>();
+        for (int line : occurrenceLines) {
+            if (line <= 0) {
+                return null;
+            }
+            occurrencesByLine.merge(line, 1, Integer::sum);
+        }
+        List<SourceRange> ranges = new ArrayList<>(occurrenceLines.length);
+        for (Map.Entry<Integer, Integer> occurrences : occurrencesByLine.entrySet()) {
+            List<SourceRange> found = new ArrayList<>();
+            for (int decompiledLine : lineMap.decompiledLines(occurrences.getKey())) {
+                if (!collect(source, lineMap.lineStart(decompiledLine), lineMap.lineEnd(decompiledLine), name,
+                        method, found)) {
+                    return null;
+                }
+            }
+            if (found.size() != occurrences.getValue()) {
+                return null;
+            }
+            ranges.addAll(found);
+        }
+        ranges.sort(Comparator.comparingInt(SourceRange::offset));
+        for (int i = 1; i < ranges.size(); i++) {
+            // A decompiled line showing several original lines was counted for each of them.
+            if (ranges.get(i).offset() == ranges.get(i - 1).offset()) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Adds the occurrences of {@code name} between {@code start} and {@code end} to {@code found};
+     * returns {@code false} when one of them cannot be delimited.
+     */
+    private static boolean collect(String source, int start, int end, String name, boolean method,
+            List<SourceRange> found) {
+        int i = start;
+        while (i < end) {
+            int skipped = skipCommentOrLiteral(source, i, end);
+            if (skipped != i) {
+                i = skipped;
+                continue;
+            }
+            char c = source.charAt(i);
+            if (!Character.isJavaIdentifierPart(c)) {
+                i++;
+                continue;
+            }
+            int identifierEnd = i + 1;
+            while (identifierEnd < end && Character.isJavaIdentifierPart(source.charAt(identifierEnd))) {
+                identifierEnd++;
+            }
+            // Digits start numbers, whose suffixes are not names.
+            if (Character.isJavaIdentifierStart(c) && identifierEnd - i == name.length() && source.startsWith(name, i)) {
+                SourceRange range = occurrence(source, i, identifierEnd, method);
+                if (range == UNCLOSED) {
+                    return false;
+                }
+                if (range != null) {
+                    found.add(range);
+                }
+            }
+            i = identifierEnd;
+        }
+        return true;
+    }
+
+    private static SourceRange occurrence(String source, int nameStart, int nameEnd, boolean method) {
+        int previous = nameStart - 1;
+        while (previous >= 0 && Character.isWhitespace(source.charAt(previous))) {
+            previous--;
+        }
+        boolean methodReference = previous > 0 && source.charAt(previous) == ':' && source.charAt(previous - 1) == ':';
+        int next = nameEnd;
+        while (next < source.length() && Character.isWhitespace(source.charAt(next))) {
+            next++;
+        }
+        boolean invocation = next < source.length() && source.charAt(next) == '(';
+        if (!method) {
+            return methodReference || invocation ? null : new SourceRange(nameStart, nameEnd - nameStart);
+        }
+        if (methodReference) {
+            return new SourceRange(nameStart, nameEnd - nameStart);
+        }
+        if (!invocation) {
+            return null;
+        }
+        int close = closingParenthesis(source, next);
+        return close < 0 ? UNCLOSED : new SourceRange(nameStart, close + 1 - nameStart);
+    }
+
+    private static int closingParenthesis(String source, int open) {
+        int depth = 0;
+        int i = open;
+        while (i < source.length()) {
+            int skipped = skipCommentOrLiteral(source, i, source.length());
+            if (skipped != i) {
+                i = skipped;
+                continue;
+            }
+            char c = source.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the offset past the comment or the string or character literal starting at
+     * {@code i}, or {@code i} when none starts there. A line comment ends at {@code end} at the
+     * latest.
+     */
+    private static int skipCommentOrLiteral(String source, int i, int end) {
+        char c = source.charAt(i);
+        char next = i + 1 < source.length() ? source.charAt(i + 1) : 0;
+        if (c == '/' && next == '/') {
+            int lineBreak = source.indexOf('\n', i);
+            return lineBreak < 0 ? source.length() : Math.min(end, lineBreak);
+        }
+        if (c == '/' && next == '*') {
+            int close = source.indexOf("*/", i + 2); //$NON-NLS-1$
+            return close < 0 ? source.length() : close + 2;
+        }
+        if (c != '"' && c != '\'') {
+            return i;
+        }
+        int j = i + 1;
+        while (j < source.length() && source.charAt(j) != c && source.charAt(j) != '\n') {
+            j += source.charAt(j) == '\\' ? 2 : 1;
+        }
+        return Math.min(j + 1, source.length());
+    }
+}
@@ -0,0 +1,665 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Access;
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
+import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.TypeCategory;
+import io.github.nbauma109.decompiler.util.Logger;
+
+/**
+ * Entry store reading an immutable, memory-mapped shard file that holds the entries of one jar
+ * content, named after its content hash.
+ *
+ * <p>Shards are written once for jars in artifact caches whose files never change once downloaded,
+ * such as the local Maven repository, and are shared by every workspace of the installation.
+ * A shard is written to a temporary file and then atomically renamed, so readers only ever see
+ * complete shards. Queries read the mapped columns and string dictionary in place through absolute
+ * buffer accesses, which are safe for any number of concurrent readers.
+ *
+ * <p>The layout mirrors {@link HeapEntryStore}: rows are sorted by kind and name id, the string
+ * dictionary is sorted by UTF-8 bytes so names, and the prefix ranges of name patterns, are found
+ * by binary search, and rows whose qualified name differs from their name are listed separately
+ * by kind and qualified name id. Supertype edges are sorted by supertype and then subtype name id.
+ * All numbers are big-endian ints, followed by the UTF-8 string data:
+ *
+ * <pre>
+ * magic, version, rowCount, stringCount, distinctQualifiedCount, rootHandleId, kindCount, edgeCount
+ * kindStarts[kindCount + 1]
+ * stringOffsets[stringCount + 1]
+ * attributes, handlePackageIds, handleClassFileIds, handleMemberIds, nameIds, qualifiedNameIds,
+ *         declaringTypeNameIds, descriptorIds, fallbackHandleIds, occurrenceCounts   (rowCount ints each)
+ * distinctQualifiedRows[distinctQualifiedCount]
+ * supertypeNameIds, subtypeNameIds   (edgeCount ints each)
+ * string data
+ * </pre>
+ */
+final class ShardEntryStore implements EntryStore {
+
+    static final String SHARD_SUFFIX = ".shard"; //$NON-NLS-1$
+
+    private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+    private static final int MAGIC = 0x45434453; // "ECDS"
+    private static final int VERSION = 3;
+    private static final int HEADER_INTS = 8;
+    private static final int COLUMNS = 10;
+    private static final int NULL_ID = -1;
+    private static final Duration TEMP_MAX_AGE = Duration.ofDays(1);
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final Access[] ACCESSES = Access.values();
+    private static final TypeCategory[] TYPE_CATEGORIES = TypeCategory.values();
+
+    // Column order in the file; attributes packs kindAndFlags and the type category, and element
+    // handles are split into their parts after the root handle (see ElementHandles.Parts).
+    private static final int ATTRIBUTES = 0;
+    private static final int HANDLE_PACKAGE = 1;
+    private static final int HANDLE_CLASS_FILE = 2;
+    private static final int HANDLE_MEMBER = 3;
+    private static final int NAME = 4;
+    private static final int QUALIFIED_NAME = 5;
+    private static final int DECLARING_TYPE_NAME = 6;
+    private static final int DESCRIPTOR = 7;
+    private static final int FALLBACK_HANDLE = 8;
+    private static final int OCCURRENCE_COUNT = 9;
+
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int stringCount;
+    private final int distinctQualifiedCount;
+    private final int edgeCount;
+    private final int[] kindStarts;
+    private final int stringOffsetsStart;
+    private final int columnsStart;
+    private final int distinctQualifiedStart;
+    private final int edgesStart;
+    private final int stringDataStart;
+    private final String indexedRootHandle;
+    private final String requestedRootHandle;
+
+    private ShardEntryStore(ByteBuffer buffer, String requestedRootHandle) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a search index shard"); //$NON-NLS-1$
+        }
+        this.rowCount = buffer.getInt(8);
+        this.stringCount = buffer.getInt(12);
+        this.distinctQualifiedCount = buffer.getInt(16);
+        int rootHandleId = buffer.getInt(20);
+        int kindCount = buffer.getInt(24);
+        this.edgeCount = buffer.getInt(28);
+        if (kindCount != KINDS.length || rowCount < 0 || stringCount < 0 || distinctQualifiedCount < 0
+                || edgeCount < 0) {
+            throw new IOException("Incompatible search index shard"); //$NON-NLS-1$
+        }
+        int kindStartsStart = HEADER_INTS * Integer.BYTES;
+        this.kindStarts = new int[kindCount + 1];
+        for (int k = 0; k <= kindCount; k++) {
+            kindStarts[k] = buffer.getInt(kindStartsStart + k * Integer.BYTES);
+        }
+        this.stringOffsetsStart = kindStartsStart + (kindCount + 1) * Integer.BYTES;
+        this.columnsStart = stringOffsetsStart + (stringCount + 1) * Integer.BYTES;
+        this.distinctQualifiedStart = columnsStart + COLUMNS * rowCount * Integer.BYTES;
+        this.edgesStart = distinctQualifiedStart + distinctQualifiedCount * Integer.BYTES;
+        this.stringDataStart = edgesStart + 2 * edgeCount * Integer.BYTES;
+        if (stringDataStart > buffer.capacity()
+                || stringDataStart + (long) stringOffset(stringCount) != buffer.capacity()) {
+            throw new IOException("Truncated search index shard"); //$NON-NLS-1$
+        }
+        String indexed = string(rootHandleId);
+        this.indexedRootHandle = indexed == null ? "" : indexed; //$NON-NLS-1$
+        this.requestedRootHandle = requestedRootHandle;
+    }
+
+    /**
+     * Maps an existing shard. The file stays mapped until the store is garbage collected, which
+     * is harmless since shards are never modified once they exist.
+     */
+    static ShardEntryStore open(Path shard, String requestedRootHandle) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(shard, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            // Marks the shard as used for pruneUnused().
+            Files.setLastModifiedTime(shard, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            Logger.debug(e);
+        }
+        return new ShardEntryStore(buffer, requestedRootHandle);
+    }
+
+    static Path shardFile(Path directory, int runtimeVersion, String contentHash) {
+        return directory.resolve(contentHash + '-' + runtimeVersion + SHARD_SUFFIX);
+    }
+
+    /**
+     * Returns whether a jar lives in an artifact cache whose files are never rewritten in place:
+     * the local Maven repository or the Gradle module cache.
+     */
+    static boolean isImmutableJar(File jar) {
+        Path path = jar.toPath().toAbsolutePath().normalize();
+        String userHome = System.getProperty("user.home"); //$NON-NLS-1$
+        String mavenRepository = System.getProperty("maven.repo.local"); //$NON-NLS-1$
+        if (mavenRepository != null && path.startsWith(Path.of(mavenRepository).toAbsolutePath().normalize())) {
+            return true;
+        }
+        if (userHome == null) {
+            return false;
+        }
+        Path mavenFiles = Path.of(userHome, ".m2", "repository"); //$NON-NLS-1$ //$NON-NLS-2$
+        Path gradleFiles = Path.of(userHome, ".gradle", "caches", //$NON-NLS-1$ //$NON-NLS-2$
+                "modules-2", "files-2.1"); //$NON-NLS-1$ //$NON-NLS-2$
+        return path.startsWith(mavenFiles) || path.startsWith(gradleFiles);
+    }
+
+    /**
+     * Writes a shard for the given rows and publishes it atomically. When another workspace
+     * publishes the same shard concurrently, either copy wins, since both have the same content.
+     *
+     * @param fallbackHandles handle of the nearest non-anonymous ancestor for each row, or {@code null}
+     */
+    static void write(Path shard, String rootHandle, List<BytecodeSearchEntry> entries, int[] counts,
+            String[] fallbackHandles) throws IOException {
+        write(shard, rootHandle, entries, counts, fallbackHandles, List.of());
+    }
+
+    static void write(Path shard, String rootHandle, List<BytecodeSearchEntry> entries, int[] counts,
+            String[] fallbackHandles, List<SupertypeEdge> supertypes) throws IOException {
+        Files.createDirectories(shard.getParent());
+        Path temp = Files.createTempFile(shard.getParent(), shard.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                new ShardWriter(rootHandle, entries, counts, fallbackHandles, supertypes).writeTo(out);
+            }
+            Files.move(temp, shard, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes shards that no workspace opened within {@code maxAge}, and temporary files left
+     * behind by interrupted writers.
+     */
+    static void pruneUnused(Path directory, Duration maxAge) {
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Duration age = Duration.ofMillis(now - Files.getLastModifiedTime(file).toMillis());
+                if (name.endsWith(SHARD_SUFFIX) && age.compareTo(maxAge) > 0
+                        || name.endsWith(TEMP_SUFFIX) && age.compareTo(TEMP_MAX_AGE) > 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            Logger.debug(e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public void collectRows(Kind kind, String name, String qualifiedName, boolean wildcard,
+            EntryStore.RowConsumer consumer) throws CoreException {
+        int from = kindStarts[kind.ordinal()];
+        int to = kindStarts[kind.ordinal() + 1];
+        if (wildcard) {
+            NamePatternFilter filter = NamePatternFilter.of(
+                    StringUtils.containsAny(qualifiedName, '*', '?') ? qualifiedName : name);
+            if (filter == null) {
+                for (int row = from; row < to; row++) {
+                    consumer.accept(row, entry(row));
+                }
+            } else {
+                collectCandidates(kind.ordinal(), from, to, candidateIds(filter), consumer);
+            }
+            return;
+        }
+        String searchName = name == null ? "" : name; //$NON-NLS-1$
+        String searchQName = qualifiedName == null ? "" : qualifiedName; //$NON-NLS-1$
+        int nameId = searchName.isEmpty() ? NULL_ID : stringId(searchName);
+        if (nameId != NULL_ID) {
+            int start = lowerBound(from, to, nameId);
+            for (int row = start; row < to && column(NAME, row) == nameId; row++) {
+                consumer.accept(row, entry(row));
+            }
+        }
+        if (searchQName.isEmpty() || searchQName.equals(searchName)) {
+            return;
+        }
+        int qualifiedNameId = stringId(searchQName);
+        if (qualifiedNameId == NULL_ID) {
+            return;
+        }
+        // Rows whose qualified name equals their name are only sorted by name.
+        for (int row = lowerBound(from, to, qualifiedNameId); row < to && column(NAME, row) == qualifiedNameId; row++) {
+            if (column(QUALIFIED_NAME, row) == qualifiedNameId) {
+                consumer.accept(row, entry(row));
+            }
+        }
+        for (int r = lowerBoundQualified(kind.ordinal(), qualifiedNameId); r < distinctQualifiedCount; r++) {
+            int row = distinctQualifiedRow(r);
+            if (compareQualified(row, kind.ordinal(), qualifiedNameId) != 0) {
+                break;
+            }
+            if (column(NAME, row) != nameId) {
+                consumer.accept(row, entry(row));
+            }
+        }
+    }
+
+    /**
+     * Passes the rows of the kind slice whose name or qualified name is one of {@code nameIds},
+     * each once, without building the entries of any other row.
+     */
+    private void collectCandidates(int kind, int from, int to, BitSet nameIds, EntryStore.RowConsumer consumer)
+            throws CoreException {
+        for (int id = nameIds.nextSetBit(0); id >= 0; id = nameIds.nextSetBit(id + 1)) {
+            for (int row = lowerBound(from, to, id); row < to && column(NAME, row) == id; row++) {
+                consumer.accept(row, entry(row));
+            }
+        }
+        for (int id = nameIds.nextSetBit(0); id >= 0; id = nameIds.nextSetBit(id + 1)) {
+            for (int r = lowerBoundQualified(kind, id); r < distinctQualifiedCount; r++) {
+                int row = distinctQualifiedRow(r);
+                if (compareQualified(row, kind, id) != 0) {
+                    break;
+                }
+                int nameId = column(NAME, row);
+                if (nameId == NULL_ID || !nameIds.get(nameId)) {
+                    consumer.accept(row, entry(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of the dictionary strings matching {@code filter}, decoding only the strings
+     * within the ranges of its prefixes.
+     */
+    private BitSet candidateIds(NamePatternFilter filter) {
+        BitSet ids = new BitSet(stringCount);
+        for (String prefix : filter.prefixes()) {
+            byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+            for (int id = lowerBoundString(key); id < stringCount && startsWith(id, key); id++) {
+                if (filter.matches(string(id))) {
+                    ids.set(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public void collectEntries(long[] rows, EntryStore.EntryConsumer consumer) throws CoreException {
+        for (long row : rows) {
+            consumer.accept(entry((int) row));
+        }
+    }
+
+    @Override
+    public void collectSubtypes(Collection<String> supertypes, Consumer<String> subtypes) {
+        for (String supertype : supertypes) {
+            int supertypeId = stringId(supertype);
+            if (supertypeId == NULL_ID) {
+                continue;
+            }
+            int lo = 0;
+            int hi = edgeCount;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (supertypeNameId(mid) < supertypeId) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            for (int edge = lo; edge < edgeCount && supertypeNameId(edge) == supertypeId; edge++) {
+                subtypes.accept(string(buffer.getInt(edgesStart + (edgeCount + edge) * Integer.BYTES)));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // the mapping is released with the buffer
+    }
+
+    private BytecodeSearchEntry entry(int row) {
+        int attributes = column(ATTRIBUTES, row);
+        String fallbackHandle = translateHandle(string(column(FALLBACK_HANDLE, row)));
+        IJavaElement fallback = fallbackHandle == null ? null : JavaCore.create(fallbackHandle);
+        return new BytecodeSearchEntry(KINDS[attributes & 0x0F], (attributes & 0x10) != 0,
+                BytecodeSearchEntry.elementReference(elementHandle(row), fallback),
+                BytecodeSearchEntry.symbolReference(string(column(NAME, row)), string(column(QUALIFIED_NAME, row)),
+                        string(column(DECLARING_TYPE_NAME, row)), string(column(DESCRIPTOR, row))),
+                ACCESSES[(attributes >>> 5) & 0x03], TYPE_CATEGORIES[attributes >>> 8],
+                column(OCCURRENCE_COUNT, row));
+    }
+
+    private ElementHandles.Parts elementHandle(int row) {
+        int packageId = column(HANDLE_PACKAGE, row);
+        int memberId = column(HANDLE_MEMBER, row);
+        if (packageId == NULL_ID && memberId == NULL_ID) {
+            return null;
+        }
+        return new ElementHandles.Parts(requestedRootHandle == null ? indexedRootHandle : requestedRootHandle,
+                string(packageId), string(column(HANDLE_CLASS_FILE, row)), string(memberId));
+    }
+
+    private String translateHandle(String handle) {
+        if (handle == null || indexedRootHandle.isEmpty() || indexedRootHandle.equals(requestedRootHandle)
+                || requestedRootHandle == null || !handle.startsWith(indexedRootHandle)) {
+            return handle;
+        }
+        return requestedRootHandle + handle.substring(indexedRootHandle.length());
+    }
+
+    private int column(int column, int row) {
+        return buffer.getInt(columnsStart + (column * rowCount + row) * Integer.BYTES);
+    }
+
+    private int supertypeNameId(int edge) {
+        return buffer.getInt(edgesStart + edge * Integer.BYTES);
+    }
+
+    private int distinctQualifiedRow(int index) {
+        return buffer.getInt(distinctQualifiedStart + index * Integer.BYTES);
+    }
+
+    private int compareQualified(int row, int kind, int qualifiedNameId) {
+        int byKind = Integer.compare(column(ATTRIBUTES, row) & 0x0F, kind);
+        return byKind != 0 ? byKind : Integer.compare(column(QUALIFIED_NAME, row), qualifiedNameId);
+    }
+
+    private int lowerBound(int from, int to, int nameId) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (column(NAME, mid) < nameId) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int lowerBoundQualified(int kind, int qualifiedNameId) {
+        int lo = 0;
+        int hi = distinctQualifiedCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareQualified(distinctQualifiedRow(mid), kind, qualifiedNameId) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int stringOffset(int id) {
+        return buffer.getInt(stringOffsetsStart + id * Integer.BYTES);
+    }
+
+    private String string(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        int start = stringOffset(id);
+        byte[] bytes = new byte[stringOffset(id + 1) - start];
+        buffer.get(stringDataStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Binary search of the dictionary, comparing UTF-8 bytes in place. */
+    private int stringId(String value) {
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = stringCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareString(mid, key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NULL_ID;
+    }
+
+    /** Returns the id of the first dictionary string not sorting before {@code key}. */
+    private int lowerBoundString(byte[] key) {
+        int lo = 0;
+        int hi = stringCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareString(mid, key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private boolean startsWith(int id, byte[] prefix) {
+        int start = stringDataStart + stringOffset(id);
+        if (stringOffset(id + 1) - stringOffset(id) < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compareString(int id, byte[] key) {
+        int start = stringDataStart + stringOffset(id);
+        int length = stringOffset(id + 1) - stringOffset(id);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /** Builds the sorted dictionary and columns of one shard. */
+    private static final class ShardWriter {
+
+        private final byte[][] strings;
+        private final int[][] columns = new int[COLUMNS][];
+        private final int[] kindStarts = new int[KINDS.length + 1];
+        private final int[] distinctQualifiedRows;
+        private final int[] supertypeNameIds;
+        private final int[] subtypeNameIds;
+        private final int rootHandleId;
+
+        ShardWriter(String rootHandle, List<BytecodeSearchEntry> entries, int[] counts, String[] fallbackHandles,
+                List<SupertypeEdge> supertypes) {
+            Map<String, byte[]> encoded = new HashMap<>();
+            encode(encoded, rootHandle);
+            ElementHandles splitter = new ElementHandles(rootHandle);
+            ElementHandles.Parts[] handles = new ElementHandles.Parts[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                BytecodeSearchEntry entry = entries.get(i);
+                handles[i] = splitter.split(entry.getElementHandle());
+                if (handles[i] != null) {
+                    encode(encoded, handles[i].packagePart());
+                    encode(encoded, handles[i].classFilePart());
+                    encode(encoded, handles[i].memberPart());
+                }
+                encode(encoded, entry.getName());
+                encode(encoded, entry.getQualifiedName());
+                encode(encoded, entry.getDeclaringTypeName());
+                encode(encoded, entry.getDescriptor());
+                encode(encoded, fallbackHandles[i]);
+            }
+            for (SupertypeEdge edge : supertypes) {
+                encode(encoded, edge.subtype());
+                encode(encoded, edge.supertype());
+            }
+            String[] values = encoded.keySet().toArray(String[]::new);
+            Arrays.sort(values, (left, right) -> Arrays.compareUnsigned(encoded.get(left), encoded.get(right)));
+            Map<String, Integer> ids = new HashMap<>(values.length * 2);
+            strings = new byte[values.length][];
+            for (int id = 0; id < values.length; id++) {
+                ids.put(values[id], id);
+                strings[id] = encoded.get(values[id]);
+            }
+            rootHandleId = id(ids, rootHandle);
+
+            int rows = entries.size();
+            int[] nameIds = new int[rows];
+            int[] kinds = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                nameIds[i] = id(ids, entries.get(i).getName());
+                kinds[i] = entries.get(i).getKind().ordinal();
+            }
+            int[] order = IntStream.range(0, rows)
+                    .boxed()
+                    .sorted(Comparator.<Integer> comparingInt(i -> kinds[i]).thenComparingInt(i -> nameIds[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            for (int c = 0; c < COLUMNS; c++) {
+                columns[c] = new int[rows];
+            }
+            for (int row = 0; row < rows; row++) {
+                int i = order[row];
+                BytecodeSearchEntry entry = entries.get(i);
+                columns[ATTRIBUTES][row] = (HeapEntryStore.kindAndFlags(entry) & 0xFF)
+                        | entry.getTypeCategory().ordinal() << 8;
+                columns[HANDLE_PACKAGE][row] = handles[i] == null ? NULL_ID : id(ids, handles[i].packagePart());
+                columns[HANDLE_CLASS_FILE][row] = handles[i] == null ? NULL_ID : id(ids, handles[i].classFilePart());
+                columns[HANDLE_MEMBER][row] = handles[i] == null ? NULL_ID : id(ids, handles[i].memberPart());
+                columns[NAME][row] = nameIds[i];
+                columns[QUALIFIED_NAME][row] = id(ids, entry.getQualifiedName());
+                columns[DECLARING_TYPE_NAME][row] = id(ids, entry.getDeclaringTypeName());
+                columns[DESCRIPTOR][row] = id(ids, entry.getDescriptor());
+                columns[FALLBACK_HANDLE][row] = id(ids, fallbackHandles[i]);
+                columns[OCCURRENCE_COUNT][row] = counts[i];
+                kindStarts[kinds[i] + 1]++;
+            }
+            for (int k = 0; k < KINDS.length; k++) {
+                kindStarts[k + 1] += kindStarts[k];
+            }
+            int[] qualifiedNameIds = columns[QUALIFIED_NAME];
+            distinctQualifiedRows = IntStream.range(0, rows)
+                    .filter(row -> qualifiedNameIds[row] != columns[NAME][row])
+                    .boxed()
+                    .sorted(Comparator.<Integer> comparingInt(row -> columns[ATTRIBUTES][row] & 0x0F)
+                            .thenComparingInt(row -> qualifiedNameIds[row]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            int[][] edges = supertypes.stream()
+                    .map(edge -> new int[] { id(ids, edge.supertype()), id(ids, edge.subtype()) })
+                    .sorted(Comparator.<int[]> comparingInt(edge -> edge[0]).thenComparingInt(edge -> edge[1]))
+                    .toArray(int[][]::new);
+            supertypeNameIds = new int[edges.length];
+            subtypeNameIds = new int[edges.length];
+            for (int i = 0; i < edges.length; i++) {
+                supertypeNameIds[i] = edges[i][0];
+                subtypeNameIds[i] = edges[i][1];
+            }
+        }
+
+        void writeTo(OutputStream stream) throws IOException {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+            int rows = columns[NAME].length;
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows);
+            out.writeInt(strings.length);
+            out.writeInt(distinctQualifiedRows.length);
+            out.writeInt(rootHandleId);
+            out.writeInt(KINDS.length);
+            out.writeInt(supertypeNameIds.length);
+            writeInts(out, kindStarts);
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] value : strings) {
+                offset += value.length;
+                out.writeInt(offset);
+            }
+            for (int[] column : columns) {
+                writeInts(out, column);
+            }
+            writeInts(out, distinctQualifiedRows);
+            writeInts(out, supertypeNameIds);
+            writeInts(out, subtypeNameIds);
+            for (byte[] value : strings) {
+                out.write(value);
+            }
+            out.flush();
+        }
+
+        private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+
+        private static void encode(Map<String, byte[]> encoded, String value) {
+            if (value != null && !value.isEmpty()) {
+                encoded.computeIfAbsent(value, v -> v.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private static int id(Map<String, Integer> ids, String value) {
+            return value == null || value.isEmpty() ? NULL_ID : ids.get(value);
+        }
+    }
+}
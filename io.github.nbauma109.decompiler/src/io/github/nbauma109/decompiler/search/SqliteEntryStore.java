@@ -14,15 +14,29 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaCore;
+import org.sqlite.ProgressHandler;
 
+import io.github.nbauma109.decompiler.search.BytecodeJarIndexer.JarEntryWork;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Access;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.Kind;
 import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.TypeCategory;
@@ -31,6 +45,10 @@ import io.github.nbauma109.decompiler.search.BytecodeSearchEntry.TypeCategory;
  * Entry store backed by a shared SQLite database.
  * All data (rows and indexes) live on disk; RAM usage is limited to JDBC query results.
  * The connection is owned by {@link BytecodeSearchIndex} and must not be closed here.
+ * When a {@link ReadConnectionPool} is given, queries run on its read-only connections
+ * without taking {@code dbLock}, so searches proceed while the indexer holds a write transaction.
+ * Search statements stay prepared on their connection, and a running statement is interrupted
+ * through the SQLite progress handler once the monitor of its search is canceled.
  *
  * <p>All repeated strings (names, descriptors, element handles, etc.) are stored once in
  * the {@code strings} table and referenced by integer id in {@code entries}, which keeps
@@ -41,14 +59,20 @@ public final class SqliteEntryStore implements EntryStore {
     static final String PLUGIN_ID = "io.github.nbauma109.decompiler"; //$NON-NLS-1$
 
     // Columns returned by every SELECT on entries (table alias e, strings aliases s_*).
-    // Order must match rowToEntry() column positions 1..11.
+    // Order must match rowToEntry() column positions 1..13, followed by the jar id and row id.
     private static final String SELECT_COLS =
             "e.kind, e.declaration, e.access_flags, e.type_category, " + //$NON-NLS-1$
-                    "s_eh.value, s_nm.value, s_qn.value, s_dt.value, s_ds.value, e.occurrence_count, s_fb.value"; //$NON-NLS-1$
+                    "s_hp.value, s_hc.value, s_hm.value, " + //$NON-NLS-1$
+                    "s_nm.value, s_qn.value, s_dt.value, s_ds.value, e.occurrence_count, s_fb.value, " + //$NON-NLS-1$
+                    "e.jar_id, e.id"; //$NON-NLS-1$
+    private static final int JAR_ID_COLUMN = 14;
+    private static final int ROW_ID_COLUMN = 15;
 
     private static final String SELECT_FROM =
             "FROM entries e " + //$NON-NLS-1$
-                    "LEFT JOIN strings s_eh ON s_eh.id = e.element_handle_id " + //$NON-NLS-1$
+                    "LEFT JOIN strings s_hp ON s_hp.id = e.handle_package_id " + //$NON-NLS-1$
+                    "LEFT JOIN strings s_hc ON s_hc.id = e.handle_class_id " + //$NON-NLS-1$
+                    "LEFT JOIN strings s_hm ON s_hm.id = e.handle_member_id " + //$NON-NLS-1$
                     "LEFT JOIN strings s_nm ON s_nm.id = e.name_id " + //$NON-NLS-1$
                     "LEFT JOIN strings s_qn ON s_qn.id = e.qualified_name_id " + //$NON-NLS-1$
                     "LEFT JOIN strings s_dt ON s_dt.id = e.declaring_type_name_id " + //$NON-NLS-1$
@@ -58,13 +82,27 @@ public final class SqliteEntryStore implements EntryStore {
     private static final String SELECT_ENTRIES_WHERE =
             "SELECT " + SELECT_COLS + " " + SELECT_FROM + " WHERE "; //$NON-NLS-1$ //$NON-NLS-2$
 
+    // Names bound per statement by the subtype queries, which bind their jar ids inline.
+    private static final int NAMES_PER_QUERY = 400;
+    // Row ids inlined per statement when entries are read back by row.
+    private static final int ROWS_PER_QUERY = 1000;
+    // SQLite virtual machine instructions between two checks of the search monitor, well below
+    // a millisecond of work.
+    private static final int PROGRESS_STEPS = 1000;
+    // Statements kept prepared on a connection owned by a single store.
+    private static final int OWNED_STATEMENTS = 16;
+
     private final Connection conn;
     private final Object dbLock;
+    private final ReadConnectionPool readers;
     private final int jarId;
     private final int size;
     private final boolean ownsConnection;
     private final String indexedRootHandle;
     private final String requestedRootHandle;
+    private final NameFilter nameFilter;
+    // Prepared statements of an owned connection, used under dbLock; null for shared connections.
+    private final StatementCache ownedStatements;
 
     public SqliteEntryStore(Connection conn, Object dbLock, int jarId) throws SQLException {
         this(conn, dbLock, jarId, false, null);
@@ -76,13 +114,21 @@ public final class SqliteEntryStore implements EntryStore {
 
     public SqliteEntryStore(Connection conn, Object dbLock, int jarId, boolean ownsConnection,
             String requestedRootHandle) throws SQLException {
+        this(conn, dbLock, null, jarId, ownsConnection, requestedRootHandle);
+    }
+
+    SqliteEntryStore(Connection conn, Object dbLock, ReadConnectionPool readers, int jarId,
+            boolean ownsConnection, String requestedRootHandle) throws SQLException {
         this.conn = conn;
         this.dbLock = dbLock;
+        this.readers = readers;
         this.jarId = jarId;
         this.ownsConnection = ownsConnection;
         this.indexedRootHandle = queryIndexedRootHandle();
         this.requestedRootHandle = requestedRootHandle == null ? indexedRootHandle : requestedRootHandle;
         this.size = querySize();
+        this.nameFilter = queryNameFilter();
+        this.ownedStatements = ownsConnection ? new StatementCache(conn, OWNED_STATEMENTS) : null;
     }
 
     public static Connection openInMemoryDatabase() throws SQLException {
@@ -109,10 +155,18 @@ public final class SqliteEntryStore implements EntryStore {
 boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$ //$NON-NLS-2$
         || (hasTable(conn, "entries") || hasTable(conn, "jars")) //$NON-NLS-1$ //$NON-NLS-2$
                 && (!hasTable(conn, "jar_locations") //$NON-NLS-1$ //$NON-NLS-2$
-                        || !hasColumn(conn, "jars", "content_hash")); //$NON-NLS-1$ //$NON-NLS-2$
+                        || !hasColumn(conn, "jars", "content_hash") //$NON-NLS-1$ //$NON-NLS-2$
+                        // Jars indexed before supertype edges were recorded would miss their implementors.
+                        || !hasTable(conn, "supertypes") //$NON-NLS-1$
+                        // Element handles used to be stored whole instead of split into parts.
+                        || hasTable(conn, "entries") && !hasColumn(conn, "entries", "handle_member_id")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         if (needsReset) {
             try (var s = conn.createStatement()) {
                 s.execute("DROP TABLE IF EXISTS entries"); //$NON-NLS-1$
+                s.execute("DROP TABLE IF EXISTS jar_classes"); //$NON-NLS-1$
+                s.execute("DROP TABLE IF EXISTS supertypes"); //$NON-NLS-1$
+                s.execute("DROP TABLE IF EXISTS jar_strings"); //$NON-NLS-1$
+                s.execute("DROP TABLE IF EXISTS string_gc_candidates"); //$NON-NLS-1$
                 s.execute("DROP TABLE IF EXISTS jar_locations"); //$NON-NLS-1$
                 s.execute("DROP TABLE IF EXISTS jars"); //$NON-NLS-1$
                 s.execute("DROP TABLE IF EXISTS strings"); //$NON-NLS-1$
@@ -124,6 +178,10 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
                             id INTEGER PRIMARY KEY,
                             value TEXT NOT NULL UNIQUE
                             )"""); //$NON-NLS-1$
+                    // Case-insensitive range index for prefix, wildcard and camel-case name searches.
+                    stmt.execute("""
+                            CREATE INDEX IF NOT EXISTS idx_strings_value_nocase
+                            ON strings(value COLLATE NOCASE)"""); //$NON-NLS-1$
                     stmt.execute("""
                             CREATE TABLE IF NOT EXISTS jars (
                                     id INTEGER PRIMARY KEY,
@@ -133,8 +191,14 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
                                     file_length INTEGER NOT NULL,
                                     runtime_version INTEGER NOT NULL DEFAULT 0,
                                     file_crc INTEGER NOT NULL DEFAULT 0,
-                                    content_hash TEXT NOT NULL
+                                    content_hash TEXT NOT NULL,
+                                    name_filter BLOB
                                     )"""); //$NON-NLS-1$
+                            // Bloom filter of the entry names of each jar (see NameFilter).
+                            boolean nameFiltersRecorded = hasColumn(conn, "jars", "name_filter"); //$NON-NLS-1$ //$NON-NLS-2$
+                            if (!nameFiltersRecorded) {
+                                stmt.execute("ALTER TABLE jars ADD COLUMN name_filter BLOB"); //$NON-NLS-1$
+                            }
                             stmt.execute("""
                                     CREATE UNIQUE INDEX IF NOT EXISTS idx_jars
                                     ON jars(runtime_version, content_hash)"""); //$NON-NLS-1$
@@ -147,8 +211,25 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
                                                     jar_id INTEGER NOT NULL REFERENCES jars(id) ON DELETE CASCADE,
                                                     PRIMARY KEY(root_handle, path)
                                                     ) WITHOUT ROWID"""); //$NON-NLS-1$
+                                    // Per-path planning results, so unchanged jars skip re-hashing
+                                    // (see JarFingerprintCache).
+                                    stmt.execute("""
+                                            CREATE TABLE IF NOT EXISTS jar_fingerprints (
+                                                    path TEXT NOT NULL,
+                                                    runtime_version INTEGER NOT NULL,
+                                                    file_length INTEGER NOT NULL,
+                                                    last_modified INTEGER NOT NULL,
+                                                    file_key TEXT NOT NULL,
+                                                    content_hash TEXT NOT NULL,
+                                                    file_crc INTEGER NOT NULL,
+                                                    entries BLOB NOT NULL,
+                                                    PRIMARY KEY(path, runtime_version)
+                                                    ) WITHOUT ROWID"""); //$NON-NLS-1$
                                     // entries uses integer ids into strings instead of storing text inline,
                                     // cutting per-row size from ~280 bytes (7 text columns) to ~56 bytes (7 ints).
+                                    // Element handles are split into package, class file and member parts
+                                    // after the root handle of the jar (see ElementHandles.Parts), so the
+                                    // long shared prefixes are stored once per class file instead of per member.
                                     stmt.execute("""
                                             CREATE TABLE IF NOT EXISTS entries (
                                                     id INTEGER PRIMARY KEY,
@@ -157,14 +238,83 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
                                                     declaration INTEGER NOT NULL,
                                                     access_flags INTEGER NOT NULL,
                                                     type_category INTEGER NOT NULL,
-                                                    element_handle_id INTEGER NOT NULL DEFAULT 0,
+                                                    handle_package_id INTEGER NOT NULL DEFAULT 0,
+                                                    handle_class_id INTEGER NOT NULL DEFAULT 0,
+                                                    handle_member_id INTEGER NOT NULL DEFAULT 0,
                                                     name_id INTEGER NOT NULL DEFAULT 0,
                                                     qualified_name_id INTEGER NOT NULL DEFAULT 0,
                                                     declaring_type_name_id INTEGER NOT NULL DEFAULT 0,
                                                     descriptor_id INTEGER NOT NULL DEFAULT 0,
                                                     occurrence_count INTEGER NOT NULL DEFAULT 1,
-                                                    fallback_handle_id INTEGER NOT NULL DEFAULT 0
+                                                    fallback_handle_id INTEGER NOT NULL DEFAULT 0,
+                                                    class_name_id INTEGER NOT NULL DEFAULT 0
                                                     )"""); //$NON-NLS-1$
+                                            if (!hasColumn(conn, "entries", "class_name_id")) { //$NON-NLS-1$ //$NON-NLS-2$
+                                                // Rows of older databases stay untagged; their jars are
+                                                // re-indexed in full the next time they change.
+                                                stmt.execute("ALTER TABLE entries ADD COLUMN class_name_id INTEGER NOT NULL DEFAULT 0"); //$NON-NLS-1$
+                                            }
+                                            // CRC of every class file of a jar row, so that a rebuilt jar
+                                            // only re-indexes the classes that changed.
+                                            stmt.execute("""
+                                                    CREATE TABLE IF NOT EXISTS jar_classes (
+                                                            jar_id INTEGER NOT NULL REFERENCES jars(id) ON DELETE CASCADE,
+                                                            class_name_id INTEGER NOT NULL,
+                                                            crc INTEGER NOT NULL,
+                                                            PRIMARY KEY(jar_id, class_name_id)
+                                                            ) WITHOUT ROWID"""); //$NON-NLS-1$
+                                            // Direct supertypes of every class, by qualified name id, so that
+                                            // implementor searches walk edges instead of type references.
+                                            stmt.execute("""
+                                                    CREATE TABLE IF NOT EXISTS supertypes (
+                                                            jar_id INTEGER NOT NULL REFERENCES jars(id) ON DELETE CASCADE,
+                                                            sub_name_id INTEGER NOT NULL,
+                                                            super_name_id INTEGER NOT NULL,
+                                                            class_name_id INTEGER NOT NULL DEFAULT 0,
+                                                            PRIMARY KEY(jar_id, sub_name_id, super_name_id)
+                                                            ) WITHOUT ROWID"""); //$NON-NLS-1$
+                                            stmt.execute("""
+                                                    CREATE INDEX IF NOT EXISTS idx_supertypes_super
+                                                    ON supertypes(super_name_id, jar_id)"""); //$NON-NLS-1$
+                                            // Strings used by each jar row. Deleting a jar releases its
+                                            // strings into string_gc_candidates, which collectReleasedStrings
+                                            // drains in small chunks instead of scanning every entry.
+                                            boolean ownershipTracked = hasTable(conn, "jar_strings"); //$NON-NLS-1$
+                                            stmt.execute("""
+                                                    CREATE TABLE IF NOT EXISTS jar_strings (
+                                                            jar_id INTEGER NOT NULL REFERENCES jars(id) ON DELETE CASCADE,
+                                                            string_id INTEGER NOT NULL,
+                                                            PRIMARY KEY(jar_id, string_id)
+                                                            ) WITHOUT ROWID"""); //$NON-NLS-1$
+                                            stmt.execute("""
+                                                    CREATE INDEX IF NOT EXISTS idx_jar_strings_string
+                                                    ON jar_strings(string_id)"""); //$NON-NLS-1$
+                                            stmt.execute("""
+                                                    CREATE TABLE IF NOT EXISTS string_gc_candidates (
+                                                            string_id INTEGER PRIMARY KEY
+                                                            )"""); //$NON-NLS-1$
+                                            stmt.execute("""
+                                                    CREATE TRIGGER IF NOT EXISTS trg_jar_strings_released
+                                                    AFTER DELETE ON jar_strings
+                                                    BEGIN
+                                                    INSERT OR IGNORE INTO string_gc_candidates(string_id) VALUES (old.string_id);
+                                                    END"""); //$NON-NLS-1$
+                                            if (!ownershipTracked) {
+                                                // One-time migration: record the owners of existing rows and
+                                                // let the collector check every string once.
+                                                stmt.execute("""
+                                                        INSERT OR IGNORE INTO jar_strings(jar_id, string_id)
+                                                        SELECT jar_id, handle_package_id FROM entries
+                                                        UNION SELECT jar_id, handle_class_id FROM entries
+                                                        UNION SELECT jar_id, handle_member_id FROM entries
+                                                        UNION SELECT jar_id, name_id FROM entries
+                                                        UNION SELECT jar_id, qualified_name_id FROM entries
+                                                        UNION SELECT jar_id, declaring_type_name_id FROM entries
+                                                        UNION SELECT jar_id, descriptor_id FROM entries
+                                                        UNION SELECT jar_id, fallback_handle_id FROM entries
+                                                        UNION SELECT jar_id, class_name_id FROM jar_classes"""); //$NON-NLS-1$
+                                                stmt.execute("INSERT OR IGNORE INTO string_gc_candidates(string_id) SELECT id FROM strings"); //$NON-NLS-1$
+                                            }
                                             stmt.execute("""
                                                     CREATE INDEX IF NOT EXISTS idx_entries_name
                                                     ON entries(jar_id, kind, name_id)"""); //$NON-NLS-1$
@@ -178,6 +328,18 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
                                                             CREATE INDEX IF NOT EXISTS idx_entries_distinct_qname
                                                             ON entries(jar_id, kind, qualified_name_id)
                                                             WHERE qualified_name_id != name_id"""); //$NON-NLS-1$
+                                                    if (!nameFiltersRecorded) {
+                                                        // One-time migration: filter the jars indexed before.
+                                                        List<Integer> jarIds = new ArrayList<>();
+                                                        try (ResultSet rs = stmt.executeQuery("SELECT id FROM jars")) { //$NON-NLS-1$
+                                                            while (rs.next()) {
+                                                                jarIds.add(rs.getInt(1));
+                                                            }
+                                                        }
+                                                        for (int jarId : jarIds) {
+                                                            recordNameFilter(conn, jarId);
+                                                        }
+                                                    }
         }
     }
 
@@ -227,17 +389,106 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
         }
     }
 
-    static void pruneOrphanStrings(Connection conn) throws SQLException {
-        try (var s = conn.createStatement()) {
-            s.execute("""
-                    DELETE FROM strings WHERE id NOT IN (
-                            SELECT element_handle_id FROM entries
-                            UNION SELECT name_id FROM entries
-                            UNION SELECT qualified_name_id FROM entries
-                            UNION SELECT declaring_type_name_id FROM entries
-                            UNION SELECT descriptor_id FROM entries
-                            UNION SELECT fallback_handle_id FROM entries
-                            )"""); //$NON-NLS-1$
+    /**
+     * Records the strings used by the entry and class rows of {@code jarId}, after they were all
+     * written. Must be called in the transaction that wrote them, while holding the database lock.
+     */
+    static void recordStringOwners(Connection conn, int jarId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT OR IGNORE INTO jar_strings(jar_id, string_id)
+                SELECT ?1, string_id FROM (
+                        SELECT handle_package_id AS string_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT handle_class_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT handle_member_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT name_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT qualified_name_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT declaring_type_name_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT descriptor_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT fallback_handle_id FROM entries WHERE jar_id = ?1
+                        UNION SELECT class_name_id FROM jar_classes WHERE jar_id = ?1
+                        UNION SELECT sub_name_id FROM supertypes WHERE jar_id = ?1
+                        UNION SELECT super_name_id FROM supertypes WHERE jar_id = ?1)
+                WHERE string_id != 0""")) { //$NON-NLS-1$
+            ps.setInt(1, jarId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Builds the {@link NameFilter} of the entry rows of {@code jarId} and stores it with the jar
+     * row. Must be called after all entry rows were written, while holding the database lock.
+     */
+    static void recordNameFilter(Connection conn, int jarId) throws SQLException {
+        long[] hashes = new long[256];
+        int count = 0;
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT e.kind, s.value FROM entries e JOIN strings s ON s.id = e.name_id WHERE e.jar_id = ?1
+                UNION SELECT e.kind, s.value FROM entries e JOIN strings s ON s.id = e.qualified_name_id
+                WHERE e.jar_id = ?1""")) { //$NON-NLS-1$
+            ps.setInt(1, jarId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (count == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, count * 2);
+                    }
+                    hashes[count++] = NameFilter.hash(rs.getInt(1), rs.getString(2));
+                }
+            }
+        }
+        NameFilter filter = NameFilter.create(count);
+        for (int i = 0; i < count; i++) {
+            filter.add(hashes[i]);
+        }
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE jars SET name_filter = ? WHERE id = ?")) { //$NON-NLS-1$
+            ps.setBytes(1, filter.toBytes());
+            ps.setInt(2, jarId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the strings among the next {@code limit} released ones that no remaining jar uses,
+     * in one short transaction. Returns the number of released strings examined, which is 0 once
+     * none are left. Callers must not write entries concurrently, since a string resolved for a
+     * jar being written has no owner yet.
+     */
+    static int collectReleasedStrings(Connection conn, Object dbLock, int limit) throws SQLException {
+        synchronized (dbLock) {
+            long lastId;
+            int count;
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    SELECT max(string_id), count(*) FROM (
+                            SELECT string_id FROM string_gc_candidates ORDER BY string_id LIMIT ?)""")) { //$NON-NLS-1$
+                ps.setInt(1, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    lastId = rs.getLong(1);
+                    count = rs.getInt(2);
+                }
+            }
+            if (count == 0) {
+                return 0;
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement delStrings = conn.prepareStatement("""
+                    DELETE FROM strings
+                    WHERE id IN (SELECT string_id FROM string_gc_candidates WHERE string_id <= ?)
+                    AND NOT EXISTS (SELECT 1 FROM jar_strings WHERE string_id = strings.id)"""); //$NON-NLS-1$
+                    PreparedStatement delCandidates = conn.prepareStatement(
+                            "DELETE FROM string_gc_candidates WHERE string_id <= ?")) { //$NON-NLS-1$
+                delStrings.setLong(1, lastId);
+                delStrings.executeUpdate();
+                delCandidates.setLong(1, lastId);
+                delCandidates.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            return count;
         }
     }
 
@@ -274,6 +525,25 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
         }
     }
 
+    /**
+     * Returns the id of the canonical jar row holding entries for the given content,
+     * or -1 if that content has not been indexed yet.
+     */
+    public static int findContent(Connection conn, Object dbLock, int runtimeVersion, String contentHash)
+            throws SQLException {
+        final Object lock = dbLock;
+        synchronized (lock) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT id FROM jars WHERE runtime_version = ? AND content_hash = ?")) { //$NON-NLS-1$
+                ps.setInt(1, runtimeVersion);
+                ps.setString(2, contentHash);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            }
+        }
+    }
+
     /**
      * Reuses indexed content with the same SHA-256 content hash, or inserts a new canonical
      * jar row. The workspace location is then linked to that canonical row.
@@ -331,6 +601,204 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
         return new JarRegistration(jarId, needsIndexing);
     }
 
+    /**
+     * Class CRCs of the content currently linked to a workspace location.
+     */
+    record IndexedClasses(int jarId, Map<String, Long> crcs) {
+
+        /** Returns the names of the entries whose class file is unchanged in this content. */
+        Set<String> unchangedIn(List<JarEntryWork> entries) {
+            Set<String> unchanged = new HashSet<>();
+            for (JarEntryWork entry : entries) {
+                Long crc = crcs.get(entry.name());
+                if (crc != null && crc.longValue() == entry.crc()) {
+                    unchanged.add(entry.name());
+                }
+            }
+            return unchanged;
+        }
+    }
+
+    /**
+     * Returns the class CRCs of the content indexed for the given location, or {@code null} when
+     * the location is unknown, its rows were indexed for another root, or predate class tagging.
+     */
+    static IndexedClasses findIndexedClasses(Connection conn, Object dbLock, String rootHandle, String path,
+            int runtimeVersion) throws SQLException {
+        synchronized (dbLock) {
+            int jarId = -1;
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    SELECT l.jar_id FROM jar_locations l JOIN jars j ON j.id = l.jar_id
+                    WHERE l.root_handle = ? AND l.path = ? AND j.root_handle = l.root_handle
+                    AND j.runtime_version = ?""")) { //$NON-NLS-1$
+                ps.setString(1, rootHandle);
+                ps.setString(2, path);
+                ps.setInt(3, runtimeVersion);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        jarId = rs.getInt(1);
+                    }
+                }
+            }
+            if (jarId < 0) {
+                return null;
+            }
+            Map<String, Long> crcs = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    SELECT s.value, c.crc FROM jar_classes c JOIN strings s ON s.id = c.class_name_id
+                    WHERE c.jar_id = ?""")) { //$NON-NLS-1$
+                ps.setInt(1, jarId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        crcs.put(rs.getString(1), rs.getLong(2));
+                    }
+                }
+            }
+            return crcs.isEmpty() ? null : new IndexedClasses(jarId, crcs);
+        }
+    }
+
+    /**
+     * Records the class CRCs of a jar row. {@code stringIds} must hold the ids of all class names.
+     * Must be called inside a write transaction.
+     */
+    static void insertClasses(Connection conn, int jarId, List<JarEntryWork> classEntries,
+            Map<String, Integer> stringIds) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT OR REPLACE INTO jar_classes(jar_id, class_name_id, crc) VALUES(?, ?, ?)")) { //$NON-NLS-1$
+            for (JarEntryWork entry : classEntries) {
+                ps.setInt(1, jarId);
+                ps.setInt(2, stringIds.get(entry.name()));
+                ps.setLong(3, entry.crc());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Records the supertype edges of a jar row, each tagged with the class file that declared it.
+     * {@code stringIds} must hold the ids of all type and class names.
+     * Must be called inside a write transaction.
+     */
+    static void insertSupertypes(Connection conn, int jarId, List<SupertypeEdge> edges, List<String> classNames,
+            Map<String, Integer> stringIds) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT OR IGNORE INTO supertypes(jar_id, sub_name_id, super_name_id, class_name_id)
+                VALUES(?, ?, ?, ?)""")) { //$NON-NLS-1$
+            for (int i = 0; i < edges.size(); i++) {
+                ps.setInt(1, jarId);
+                ps.setInt(2, stringIds.get(edges.get(i).subtype()));
+                ps.setInt(3, stringIds.get(edges.get(i).supertype()));
+                ps.setInt(4, classNames.get(i) == null ? 0 : stringIds.get(classNames.get(i)));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Copies the entry and supertype rows of every class whose CRC is the same in both jar rows
+     * from {@code fromJarId} to {@code toJarId}, whose classes must already be recorded, except
+     * package declarations. Returns the number of entry rows copied. Must be called inside a
+     * write transaction, after the rows of the changed classes are written.
+     *
+     * <p>The category of a referenced type comes from another class file of the jar, so the type
+     * references of the copied rows take it again from the type declarations of the new jar row.
+     */
+    static int copyUnchangedClasses(Connection conn, int fromJarId, int toJarId) throws SQLException {
+        int copied;
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT OR IGNORE INTO supertypes(jar_id, sub_name_id, super_name_id, class_name_id)
+                SELECT n.jar_id, t.sub_name_id, t.super_name_id, t.class_name_id
+                FROM jar_classes o
+                JOIN jar_classes n ON n.jar_id = ? AND n.class_name_id = o.class_name_id AND n.crc = o.crc
+                JOIN supertypes t ON t.jar_id = o.jar_id AND t.class_name_id = o.class_name_id
+                WHERE o.jar_id = ?""")) { //$NON-NLS-1$
+            ps.setInt(1, toJarId);
+            ps.setInt(2, fromJarId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO entries(jar_id, kind, declaration, access_flags, type_category,
+                        handle_package_id, handle_class_id, handle_member_id, name_id, qualified_name_id,
+                        declaring_type_name_id, descriptor_id, occurrence_count, fallback_handle_id, class_name_id)
+                SELECT n.jar_id, e.kind, e.declaration, e.access_flags, e.type_category,
+                        e.handle_package_id, e.handle_class_id, e.handle_member_id, e.name_id, e.qualified_name_id, e.declaring_type_name_id,
+                        e.descriptor_id, e.occurrence_count, e.fallback_handle_id, e.class_name_id
+                FROM jar_classes o
+                JOIN jar_classes n ON n.jar_id = ? AND n.class_name_id = o.class_name_id AND n.crc = o.crc
+                JOIN entries e ON e.jar_id = o.jar_id AND e.class_name_id = o.class_name_id
+                WHERE o.jar_id = ? AND NOT (e.kind = ? AND e.declaration = 1)""")) { //$NON-NLS-1$
+            ps.setInt(1, toJarId);
+            ps.setInt(2, fromJarId);
+            // Package declarations belong to the jar and are always written again; older rows
+            // still name the first class of their package.
+            ps.setInt(3, Kind.PACKAGE.ordinal());
+            copied = ps.executeUpdate();
+        }
+        // A type that lost its declaration is no longer in the jar; a type never declared, like an
+        // anonymous class, keeps the category read from its class file.
+        try (PreparedStatement ps = conn.prepareStatement("""
+                UPDATE entries SET type_category = COALESCE(
+                        (SELECT d.type_category FROM entries d
+                        WHERE d.jar_id = entries.jar_id AND d.kind = entries.kind AND d.declaration = 1
+                        AND d.name_id = entries.name_id AND d.qualified_name_id = entries.qualified_name_id
+                        LIMIT 1),
+                        CASE WHEN EXISTS (SELECT 1 FROM entries d
+                        WHERE d.jar_id = ? AND d.kind = entries.kind AND d.declaration = 1
+                        AND d.name_id = entries.name_id AND d.qualified_name_id = entries.qualified_name_id)
+                        THEN ? ELSE type_category END)
+                WHERE jar_id = ? AND kind = ? AND declaration = 0 AND class_name_id IN (
+                        SELECT o.class_name_id FROM jar_classes o
+                        JOIN jar_classes n ON n.jar_id = ? AND n.class_name_id = o.class_name_id AND n.crc = o.crc
+                        WHERE o.jar_id = ?)""")) { //$NON-NLS-1$
+            ps.setInt(1, fromJarId);
+            ps.setInt(2, TypeCategory.UNKNOWN.ordinal());
+            ps.setInt(3, toJarId);
+            ps.setInt(4, Kind.TYPE.ordinal());
+            ps.setInt(5, toJarId);
+            ps.setInt(6, fromJarId);
+            ps.executeUpdate();
+        }
+        return copied;
+    }
+
+    /**
+     * Resolves the ids of all given strings in one pass, inserting the missing ones. The values
+     * are staged in a temporary table that is then joined against {@code strings}.
+     * Must be called inside a write transaction.
+     */
+    static Map<String, Integer> internStrings(Connection conn, Collection<String> values) throws SQLException {
+        Map<String, Integer> ids = HashMap.newHashMap(values.size());
+        if (values.isEmpty()) {
+            return ids;
+        }
+        try (var s = conn.createStatement()) {
+            s.execute("CREATE TEMP TABLE IF NOT EXISTS intern_batch(value TEXT PRIMARY KEY) WITHOUT ROWID"); //$NON-NLS-1$
+            s.execute("DELETE FROM temp.intern_batch"); //$NON-NLS-1$
+        }
+        try (PreparedStatement stage = conn.prepareStatement(
+                "INSERT OR IGNORE INTO temp.intern_batch(value) VALUES(?)")) { //$NON-NLS-1$
+            for (String value : values) {
+                stage.setString(1, value);
+                stage.addBatch();
+            }
+            stage.executeBatch();
+        }
+        try (var s = conn.createStatement()) {
+            s.executeUpdate("INSERT OR IGNORE INTO strings(value) SELECT value FROM temp.intern_batch"); //$NON-NLS-1$
+            try (ResultSet rs = s.executeQuery(
+                    "SELECT b.value, s.id FROM temp.intern_batch b JOIN strings s ON s.value = b.value")) { //$NON-NLS-1$
+                while (rs.next()) {
+                    ids.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+            s.execute("DELETE FROM temp.intern_batch"); //$NON-NLS-1$
+        }
+        return ids;
+    }
+
     int jarId() {
         return jarId;
     }
@@ -351,6 +819,18 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
         }
     }
 
+    private NameFilter queryNameFilter() throws SQLException {
+        synchronized (dbLock) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT name_filter FROM jars WHERE id = ?")) { //$NON-NLS-1$
+                ps.setInt(1, jarId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? NameFilter.fromBytes(rs.getBytes(1)) : null;
+                }
+            }
+        }
+    }
+
     private int querySize() throws SQLException {
         synchronized (dbLock) {
             try (PreparedStatement ps = conn.prepareStatement(
@@ -369,124 +849,439 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
     }
 
     @Override
-    public void collect(Kind kind, String name, String qualifiedName, boolean wildcard,
-            EntryStore.EntryConsumer consumer) throws CoreException {
+    public NameFilter nameFilter() {
+        return nameFilter;
+    }
+
+    @Override
+    public void collectRows(Kind kind, String name, String qualifiedName, boolean wildcard,
+            EntryStore.RowConsumer consumer) throws CoreException {
+        collectRows(List.of(this), kind, name, qualifiedName, wildcard, null,
+                (store, row, entry) -> consumer.accept(row, entry));
+    }
+
+    /**
+     * Receives a matching entry together with the store it is emitted for and its row id.
+     */
+    @FunctionalInterface
+    interface StoreRowConsumer {
+        void accept(SqliteEntryStore store, long row, BytecodeSearchEntry entry) throws CoreException;
+    }
+
+    static void collect(List<SqliteEntryStore> stores, Kind kind, String name, String qualifiedName,
+            boolean wildcard, EntryStore.EntryConsumer consumer) throws CoreException {
+        collectRows(stores, kind, name, qualifiedName, wildcard, null, (store, row, entry) -> consumer.accept(entry));
+    }
+
+    /**
+     * Collects the matches of several stores with a single statement filtered by
+     * {@code jar_id IN (...)}. All stores must be backed by the same database; the statement
+     * runs on the connection (or read pool) of the first one. Each row is emitted once for every
+     * store of its jar, with element handles translated to that store's root. The statement stops
+     * early, without an error, when {@code monitor} is canceled.
+     */
+    static void collectRows(List<SqliteEntryStore> stores, Kind kind, String name, String qualifiedName,
+            boolean wildcard, IProgressMonitor monitor, StoreRowConsumer consumer) throws CoreException {
+        if (stores.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<SqliteEntryStore>> storesByJar = new LinkedHashMap<>();
+        for (SqliteEntryStore store : stores) {
+            storesByJar.computeIfAbsent(store.jarId, jar -> new ArrayList<>(1)).add(store);
+        }
+        EntryQuery query = EntryQuery.create(storesByJar.keySet(), kind, name, qualifiedName, wildcard);
+        if (query.isEmpty()) {
+            return;
+        }
         try {
-            if (wildcard) {
-                collectAll(kind, consumer);
-            } else {
-                String searchName = name == null ? "" : name; //$NON-NLS-1$
-                String searchQName = qualifiedName == null ? "" : qualifiedName; //$NON-NLS-1$
-                if (searchName.equals(searchQName)) {
-                    collectByName(kind, searchName, consumer);
-                } else {
-                    collectByNameOrQName(kind, searchName, searchQName, consumer);
+            stores.get(0).query(query, monitor, rs -> {
+                for (SqliteEntryStore store : storesByJar.get(rs.getInt(JAR_ID_COLUMN))) {
+                    consumer.accept(store, rs.getLong(ROW_ID_COLUMN), store.rowToEntry(rs));
                 }
-            }
+            });
         } catch (SQLException e) {
             throw new CoreException(new Status(IStatus.ERROR, PLUGIN_ID, e.getMessage(), e));
         }
     }
 
-    private void collectAll(Kind kind, EntryStore.EntryConsumer consumer) throws SQLException, CoreException {
-        String sql = SELECT_ENTRIES_WHERE + "e.jar_id = ? AND e.kind = ?"; //$NON-NLS-1$
-        synchronized (dbLock) {
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, jarId);
-                ps.setInt(2, kind.ordinal());
-                emit(ps, consumer);
+    @Override
+    public void collectEntries(long[] rows, EntryStore.EntryConsumer consumer) throws CoreException {
+        try {
+            for (int from = 0; from < rows.length; from += ROWS_PER_QUERY) {
+                StringBuilder ids = new StringBuilder();
+                for (int i = from; i < Math.min(rows.length, from + ROWS_PER_QUERY); i++) {
+                    if (!ids.isEmpty()) {
+                        ids.append(',');
+                    }
+                    ids.append(rows[i]);
+                }
+                // Inlined row ids make every statement unique, so it is not kept prepared.
+                query(SELECT_ENTRIES_WHERE + "e.id IN (" + ids + ") AND e.jar_id = ?", List.<Object>of(jarId), //$NON-NLS-1$ //$NON-NLS-2$
+                        false, null, rs -> consumer.accept(rowToEntry(rs)));
             }
+        } catch (SQLException e) {
+            throw new CoreException(new Status(IStatus.ERROR, PLUGIN_ID, e.getMessage(), e));
         }
     }
 
-    private void collectByName(Kind kind, String searchName, EntryStore.EntryConsumer consumer)
-            throws SQLException, CoreException {
-        if (StringUtils.isBlank(searchName)) {
+    @Override
+    public void collectSubtypes(Collection<String> supertypes, Consumer<String> subtypes) throws CoreException {
+        collectSubtypes(List.of(this), supertypes, null, subtypes);
+    }
+
+    /**
+     * Passes the qualified names of all direct and indirect subtypes of {@code supertypes} among
+     * the classes of the given stores to {@code subtypes}, walking the supertype edges of all the
+     * stores with one recursive statement, so chains crossing jars are followed. All stores must be
+     * backed by the same database. The statement stops early when {@code monitor} is canceled.
+     */
+    static void collectSubtypes(List<SqliteEntryStore> stores, Collection<String> supertypes,
+            IProgressMonitor monitor, Consumer<String> subtypes) throws CoreException {
+        if (stores.isEmpty() || supertypes.isEmpty()) {
             return;
         }
-        String sql = SELECT_ENTRIES_WHERE +
-                "e.jar_id = ? AND e.kind = ? AND e.name_id IN (SELECT id FROM strings WHERE value = ?)"; //$NON-NLS-1$
-        synchronized (dbLock) {
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, jarId);
-                ps.setInt(2, kind.ordinal());
-                ps.setString(3, searchName);
-                emit(ps, consumer);
+        String jarFilter = jarIdList(stores);
+        List<String> names = new ArrayList<>(supertypes);
+        try {
+            for (int from = 0; from < names.size(); from += NAMES_PER_QUERY) {
+                List<String> chunk = names.subList(from, Math.min(names.size(), from + NAMES_PER_QUERY));
+                String sql = """
+                        WITH RECURSIVE subtypes(name_id) AS (
+                                SELECT t.sub_name_id FROM supertypes t
+                                WHERE t.super_name_id IN (SELECT id FROM strings WHERE value IN (%s))
+                                AND t.jar_id IN (%s)
+                                UNION
+                                SELECT t.sub_name_id FROM subtypes c
+                                JOIN supertypes t ON t.super_name_id = c.name_id
+                                WHERE t.jar_id IN (%s))
+                        SELECT s.value FROM subtypes c JOIN strings s ON s.id = c.name_id""" //$NON-NLS-1$
+                        .formatted(placeholders(chunk.size()), jarFilter, jarFilter);
+                stores.get(0).query(sql, new ArrayList<>(chunk), true, monitor, rs -> subtypes.accept(rs.getString(1)));
             }
+        } catch (SQLException e) {
+            throw new CoreException(new Status(IStatus.ERROR, PLUGIN_ID, e.getMessage(), e));
         }
     }
 
-    private void collectByNameOrQName(Kind kind, String searchName, String searchQName,
-            EntryStore.EntryConsumer consumer) throws SQLException, CoreException {
-        boolean hasName = !StringUtils.isBlank(searchName);
-        boolean hasQName = !StringUtils.isBlank(searchQName);
-        if (!hasName && !hasQName) {
+    /**
+     * Collects the type declarations of the given stores whose qualified name is one of
+     * {@code qualifiedNames}, like {@link #collect(List, Kind, String, String, boolean, EntryStore.EntryConsumer)}
+     * does for a single name.
+     */
+    static void collectTypeDeclarations(List<SqliteEntryStore> stores, Collection<String> qualifiedNames,
+            IProgressMonitor monitor, EntryStore.EntryConsumer consumer) throws CoreException {
+        if (stores.isEmpty() || qualifiedNames.isEmpty()) {
             return;
         }
-        if (!hasName) {
-            collectByQName(kind, searchQName, consumer);
-            return;
+        Map<Integer, List<SqliteEntryStore>> storesByJar = new LinkedHashMap<>();
+        for (SqliteEntryStore store : stores) {
+            storesByJar.computeIfAbsent(store.jarId, jar -> new ArrayList<>(1)).add(store);
         }
-        if (!hasQName) {
-            collectByName(kind, searchName, consumer);
-            return;
+        List<String> names = new ArrayList<>(qualifiedNames);
+        try {
+            // Both simple and qualified names are bound, so chunks hold half as many types.
+            for (int from = 0; from < names.size(); from += NAMES_PER_QUERY / 2) {
+                List<String> chunk = names.subList(from, Math.min(names.size(), from + NAMES_PER_QUERY / 2));
+                EntryQuery query = EntryQuery.typeDeclarations(storesByJar.keySet(), chunk);
+                stores.get(0).query(query, monitor, rs -> {
+                    for (SqliteEntryStore store : storesByJar.get(rs.getInt(JAR_ID_COLUMN))) {
+                        consumer.accept(store.rowToEntry(rs));
+                    }
+                });
+            }
+        } catch (SQLException e) {
+            throw new CoreException(new Status(IStatus.ERROR, PLUGIN_ID, e.getMessage(), e));
         }
-        // Split the alternatives so SQLite can use the compact partial qname index.
-        // The branches are disjoint, which avoids the temporary table required by UNION.
-        String sql = SELECT_ENTRIES_WHERE +
-                "e.jar_id = ? AND e.kind = ? AND " + //$NON-NLS-1$
-                "e.name_id IN (SELECT id FROM strings WHERE value = ?) " + //$NON-NLS-1$
-                "UNION ALL " + SELECT_ENTRIES_WHERE + //$NON-NLS-1$
-                "e.jar_id = ? AND e.kind = ? AND e.qualified_name_id = e.name_id AND " + //$NON-NLS-1$
-                "e.name_id IN (SELECT id FROM strings WHERE value = ?) " + //$NON-NLS-1$
-                "UNION ALL " + SELECT_ENTRIES_WHERE + //$NON-NLS-1$
-                "e.jar_id = ? AND e.kind = ? AND e.qualified_name_id != e.name_id AND " + //$NON-NLS-1$
-                "e.qualified_name_id IN (SELECT id FROM strings WHERE value = ?) AND " + //$NON-NLS-1$
-                "e.name_id NOT IN (SELECT id FROM strings WHERE value = ?)"; //$NON-NLS-1$
-        synchronized (dbLock) {
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, jarId);
-                ps.setInt(2, kind.ordinal());
-                ps.setString(3, searchName);
-                ps.setInt(4, jarId);
-                ps.setInt(5, kind.ordinal());
-                ps.setString(6, searchQName);
-                ps.setInt(7, jarId);
-                ps.setInt(8, kind.ordinal());
-                ps.setString(9, searchQName);
-                ps.setString(10, searchName);
-                emit(ps, consumer);
+    }
+
+    private static String jarIdList(List<SqliteEntryStore> stores) {
+        StringBuilder ids = new StringBuilder();
+        for (SqliteEntryStore store : stores) {
+            if (!ids.isEmpty()) {
+                ids.append(',');
             }
+            ids.append(store.jarId);
         }
+        return ids.toString();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?")); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
-    private void collectByQName(Kind kind, String searchQName, EntryStore.EntryConsumer consumer)
+    private void query(EntryQuery query, IProgressMonitor monitor, ResultSetConsumer rows)
             throws SQLException, CoreException {
-        String sql = SELECT_ENTRIES_WHERE +
-                "e.jar_id = ? AND e.kind = ? AND e.qualified_name_id = e.name_id AND " + //$NON-NLS-1$
-                "e.name_id IN (SELECT id FROM strings WHERE value = ?) " + //$NON-NLS-1$
-                "UNION ALL " + SELECT_ENTRIES_WHERE + //$NON-NLS-1$
-                "e.jar_id = ? AND e.kind = ? AND e.qualified_name_id != e.name_id AND " + //$NON-NLS-1$
-                "e.qualified_name_id IN (SELECT id FROM strings WHERE value = ?)"; //$NON-NLS-1$
-        synchronized (dbLock) {
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, jarId);
-                ps.setInt(2, kind.ordinal());
-                ps.setString(3, searchQName);
-                ps.setInt(4, jarId);
-                ps.setInt(5, kind.ordinal());
-                ps.setString(6, searchQName);
-                emit(ps, consumer);
+        query(query.sql(), query.parameters(), true, monitor, rows);
+    }
+
+    /**
+     * @param reuse whether the statement is kept prepared on its connection for later queries
+     */
+    private void query(String sql, List<Object> parameters, boolean reuse, IProgressMonitor monitor,
+            ResultSetConsumer rows) throws SQLException, CoreException {
+        if (readers == null) {
+            synchronized (dbLock) {
+                query(conn, reuse ? ownedStatements : null, sql, parameters, monitor, rows);
             }
+            return;
+        }
+        Connection reader = readers.acquire();
+        try {
+            query(reader, reuse ? readers.statements(reader) : null, sql, parameters, monitor, rows);
+        } finally {
+            readers.release(reader);
         }
     }
 
-    private void emit(PreparedStatement ps, EntryStore.EntryConsumer consumer)
+    private static void query(Connection connection, StatementCache statements, String sql,
+            List<Object> parameters, IProgressMonitor monitor, ResultSetConsumer rows)
             throws SQLException, CoreException {
-        try (ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                consumer.accept(rowToEntry(rs));
+        PreparedStatement ps = statements == null ? connection.prepareStatement(sql) : statements.prepare(sql);
+        try {
+            bind(ps, parameters);
+            if (monitor != null) {
+                ProgressHandler.setHandler(connection, PROGRESS_STEPS, new CancelHandler(monitor));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.accept(rs);
+                }
+            } catch (SQLException e) {
+                if (monitor != null && monitor.isCanceled()) {
+                    return; // interrupted by the progress handler
+                }
+                throw e;
+            } finally {
+                if (monitor != null) {
+                    ProgressHandler.clearHandler(connection);
+                }
+            }
+        } finally {
+            if (statements == null) {
+                ps.close();
+            }
+        }
+    }
+
+    /**
+     * Interrupts the running statement of a connection once the monitor of its search is canceled.
+     */
+    private static final class CancelHandler extends ProgressHandler {
+
+        private final IProgressMonitor monitor;
+
+        CancelHandler(IProgressMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        @Override
+        protected int progress() {
+            return monitor.isCanceled() ? 1 : 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResultSetConsumer {
+        void accept(ResultSet rs) throws SQLException, CoreException;
+    }
+
+    /**
+     * SELECT over the entries of a set of jars. Jar ids are inlined as integer literals so that
+     * large jar sets do not run into the bound parameter limit of SQLite.
+     */
+    private static final class EntryQuery {
+
+        private final String jarFilter;
+        private final int kind;
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Object> parameters = new ArrayList<>();
+
+        private EntryQuery(Collection<Integer> jarIds, Kind kind) {
+            StringBuilder filter = new StringBuilder("e.jar_id IN ("); //$NON-NLS-1$
+            for (Integer jarId : jarIds) {
+                if (filter.charAt(filter.length() - 1) != '(') {
+                    filter.append(',');
+                }
+                filter.append(jarId.intValue());
+            }
+            this.jarFilter = filter.append(')').toString();
+            this.kind = kind.ordinal();
+        }
+
+        static EntryQuery create(Collection<Integer> jarIds, Kind kind, String name, String qualifiedName,
+                boolean wildcard) {
+            EntryQuery query = new EntryQuery(jarIds, kind);
+            if (wildcard) {
+                return query.selectPattern(hasWildcard(qualifiedName) ? qualifiedName : name);
+            }
+            String searchName = name == null ? "" : name; //$NON-NLS-1$
+            String searchQName = qualifiedName == null ? "" : qualifiedName; //$NON-NLS-1$
+            boolean hasName = !StringUtils.isBlank(searchName);
+            boolean hasQName = !StringUtils.isBlank(searchQName);
+            if (searchName.equals(searchQName) || !hasQName) {
+                return hasName ? query.select("e.name_id IN (SELECT id FROM strings WHERE value = ?)", searchName) //$NON-NLS-1$
+                        : query;
+            }
+            if (hasName) {
+                // Split the alternatives so SQLite can use the compact partial qname index.
+                // The branches are disjoint, which avoids the temporary table required by UNION.
+                query.select("e.name_id IN (SELECT id FROM strings WHERE value = ?)", searchName); //$NON-NLS-1$
+            }
+            query.select("e.qualified_name_id = e.name_id AND " + //$NON-NLS-1$
+                    "e.name_id IN (SELECT id FROM strings WHERE value = ?)", searchQName); //$NON-NLS-1$
+            if (hasName) {
+                return query.select("e.qualified_name_id != e.name_id AND " + //$NON-NLS-1$
+                        "e.qualified_name_id IN (SELECT id FROM strings WHERE value = ?) AND " + //$NON-NLS-1$
+                        "e.name_id NOT IN (SELECT id FROM strings WHERE value = ?)", searchQName, searchName); //$NON-NLS-1$
+            }
+            return query.select("e.qualified_name_id != e.name_id AND " + //$NON-NLS-1$
+                    "e.qualified_name_id IN (SELECT id FROM strings WHERE value = ?)", searchQName); //$NON-NLS-1$
+        }
+
+        /**
+         * Selects the candidates of a name pattern, mirroring the participant which matches the
+         * pattern against both the simple and the qualified name. A pattern containing {@code *}
+         * or {@code ?} is a wildcard pattern; any other pattern is a camel-case pattern.
+         * The candidates are a superset of the matches, which the caller still filters exactly.
+         */
+        private EntryQuery selectPattern(String pattern) {
+            NameCandidates candidates = NameCandidates.of(pattern);
+            if (candidates == null) {
+                return select(null);
+            }
+            String[] values = candidates.values();
+            String[] twice = new String[values.length * 2];
+            System.arraycopy(values, 0, twice, 0, values.length);
+            System.arraycopy(values, 0, twice, values.length, values.length);
+            select("e.name_id IN (" + candidates.sql() + ")", values); //$NON-NLS-1$ //$NON-NLS-2$
+            return select("e.qualified_name_id != e.name_id AND " + //$NON-NLS-1$
+                    "e.qualified_name_id IN (" + candidates.sql() + ") AND " + //$NON-NLS-1$ //$NON-NLS-2$
+                    "e.name_id NOT IN (" + candidates.sql() + ")", twice); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        private EntryQuery select(String condition, String... values) {
+            if (!sql.isEmpty()) {
+                sql.append(" UNION ALL "); //$NON-NLS-1$
+            }
+            sql.append(SELECT_ENTRIES_WHERE).append(jarFilter).append(" AND e.kind = ?"); //$NON-NLS-1$
+            parameters.add(kind);
+            if (condition != null) {
+                sql.append(" AND ").append(condition); //$NON-NLS-1$
+                parameters.addAll(List.of(values));
+            }
+            return this;
+        }
+
+        /**
+         * Selects the declarations of the given qualified type names. A type declaration is named
+         * after the last segment of its qualified name, so both are bound and the name index
+         * narrows the rows.
+         */
+        static EntryQuery typeDeclarations(Collection<Integer> jarIds, List<String> qualifiedNames) {
+            Set<String> simpleNames = new LinkedHashSet<>();
+            for (String qualifiedName : qualifiedNames) {
+                simpleNames.add(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+            }
+            List<String> values = new ArrayList<>(simpleNames);
+            values.addAll(qualifiedNames);
+            return new EntryQuery(jarIds, Kind.TYPE).select("e.declaration = 1 " + //$NON-NLS-1$
+                    "AND e.name_id IN (SELECT id FROM strings WHERE value IN (" //$NON-NLS-1$
+                    + placeholders(simpleNames.size()) + ")) " + //$NON-NLS-1$
+                    "AND e.qualified_name_id IN (SELECT id FROM strings WHERE value IN (" //$NON-NLS-1$
+                    + placeholders(qualifiedNames.size()) + "))", values.toArray(String[]::new)); //$NON-NLS-1$
+        }
+
+        boolean isEmpty() {
+            return sql.isEmpty();
+        }
+
+        String sql() {
+            return sql.toString();
+        }
+
+        List<Object> parameters() {
+            return parameters;
+        }
+    }
+
+    private static void bind(PreparedStatement ps, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            if (parameters.get(i) instanceof Integer value) {
+                ps.setInt(i + 1, value);
+            } else {
+                ps.setString(i + 1, (String) parameters.get(i));
+            }
+        }
+    }
+
+    private static boolean hasWildcard(String value) {
+        return value != null && (value.indexOf('*') >= 0 || value.indexOf('?') >= 0);
+    }
+
+    /**
+     * Sub-select over {@code strings} yielding the ids of candidate names for a pattern.
+     *
+     * <p>Wildcard patterns become a case-insensitive {@code LIKE}, and camel-case patterns a
+     * case-sensitive {@code GLOB} with a wildcard before every upper-case letter, so
+     * {@code NPE} selects {@code N*P*E*}. The literal prefix before the first wildcard is also
+     * turned into a range on {@code idx_strings_value_nocase} or the unique value index, so
+     * only strings sharing the prefix are visited.
+     */
+    record NameCandidates(String sql, String... values) {
+
+        // Sorts after every character of a Java identifier in both BINARY and NOCASE order.
+        private static final String PREFIX_END = "\uffff"; //$NON-NLS-1$
+
+        /** Returns {@code null} when the pattern matches every name. */
+        static NameCandidates of(String pattern) {
+            String text = StringUtils.trimToEmpty(pattern);
+            if (StringUtils.containsOnly(text, '*')) {
+                return null;
+            }
+            return hasWildcard(text) ? wildcard(text) : camelCase(text);
+        }
+
+        private static NameCandidates wildcard(String pattern) {
+            StringBuilder like = new StringBuilder(pattern.length() + 8);
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                switch (c) {
+                    case '*' -> like.append('%');
+                    case '?' -> like.append('_');
+                    case '%', '_', '\\' -> like.append('\\').append(c);
+                    default -> like.append(c);
+                }
+            }
+            String prefix = pattern.substring(0, StringUtils.indexOfAny(pattern, '*', '?'));
+            if (prefix.isEmpty()) {
+                return new NameCandidates("SELECT id FROM strings WHERE value LIKE ? ESCAPE '\\'", //$NON-NLS-1$
+                        like.toString());
+            }
+            return new NameCandidates("SELECT id FROM strings WHERE value COLLATE NOCASE >= ? " + //$NON-NLS-1$
+                    "AND value COLLATE NOCASE < ? AND value LIKE ? ESCAPE '\\'", //$NON-NLS-1$
+                    prefix, prefix + PREFIX_END, like.toString());
+        }
+
+        private static NameCandidates camelCase(String pattern) {
+            StringBuilder glob = new StringBuilder(pattern.length() * 2);
+            int prefixEnd = -1;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (i > 0 && Character.isUpperCase(c)) {
+                    glob.append('*');
+                    if (prefixEnd < 0) {
+                        prefixEnd = i;
+                    }
+                }
+                if (c == '[' || c == ']') {
+                    glob.append('[').append(c).append(']');
+                } else {
+                    glob.append(c);
+                }
             }
+            String prefix = pattern.substring(0, prefixEnd < 0 ? pattern.length() : prefixEnd);
+            return new NameCandidates("SELECT id FROM strings WHERE value >= ? AND value < ? AND value GLOB ?", //$NON-NLS-1$
+                    prefix, prefix + PREFIX_END, glob.append('*').toString());
         }
     }
 
@@ -495,16 +1290,20 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
         boolean declaration = rs.getInt(2) != 0;
         Access access = Access.values()[rs.getInt(3)];
         TypeCategory typeCategory = TypeCategory.values()[rs.getInt(4)];
-        String elementHandle = translateHandle(emptyToNull(rs.getString(5)));
-        String name = emptyToNull(rs.getString(6));
-        String qualifiedName = emptyToNull(rs.getString(7));
-        String declaringTypeName = emptyToNull(rs.getString(8));
-        String descriptor = emptyToNull(rs.getString(9));
-        int occurrenceCount = rs.getInt(10);
-        String fallbackHandle = translateHandle(emptyToNull(rs.getString(11)));
+        // The root part is implied: handles are joined under the root this store was requested for.
+        String handlePackage = emptyToNull(rs.getString(5));
+        String handleMember = emptyToNull(rs.getString(7));
+        ElementHandles.Parts handle = handlePackage == null && handleMember == null ? null
+                : new ElementHandles.Parts(requestedRootHandle, handlePackage, rs.getString(6), handleMember);
+        String name = emptyToNull(rs.getString(8));
+        String qualifiedName = emptyToNull(rs.getString(9));
+        String declaringTypeName = emptyToNull(rs.getString(10));
+        String descriptor = emptyToNull(rs.getString(11));
+        int occurrenceCount = rs.getInt(12);
+        String fallbackHandle = translateHandle(emptyToNull(rs.getString(13)));
         IJavaElement fallback = fallbackHandle == null ? null : JavaCore.create(fallbackHandle);
         return new BytecodeSearchEntry(kind, declaration,
-                BytecodeSearchEntry.elementReference(elementHandle, fallback),
+                BytecodeSearchEntry.elementReference(handle, fallback),
                 BytecodeSearchEntry.symbolReference(name, qualifiedName, declaringTypeName, descriptor),
                 access, typeCategory, occurrenceCount);
     }
@@ -525,6 +1324,7 @@ boolean needsReset = hasColumn(conn, "entries", "normalized_name") //$NON-NLS-1$
     public void close() {
         if (ownsConnection) {
             synchronized (dbLock) {
+                ownedStatements.close();
                 try {
                     conn.close();
                 } catch (SQLException e) {
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.github.nbauma109.decompiler.util.Logger;
+
+/**
+ * Least-recently-used set of prepared statements of one connection, keyed by their SQL.
+ *
+ * <p>Searches over the same jars build the same statements with different bound names, so the
+ * statements are compiled once per connection instead of once per search. Like its connection,
+ * a cache must only be used by one thread at a time.
+ */
+final class StatementCache implements AutoCloseable {
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the statement of {@code sql}, preparing it on first use. The statement stays open
+     * and must not be closed by the caller; its parameters are cleared.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            return statement;
+        }
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+        while (statements.size() > capacity && eldest.hasNext()) {
+            close(eldest.next().getValue());
+            eldest.remove();
+        }
+        return statement;
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    @Override
+    public void close() {
+        statements.values().forEach(StatementCache::close);
+        statements.clear();
+    }
+
+    private static void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            Logger.debug(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.search;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used map from interned string values to their ids in the shared {@code strings}
+ * table, bounded by the total number of cached characters.
+ *
+ * <p>Handle prefixes and JDK descriptors repeat across most jars, so keeping their ids between
+ * jars saves resolving them again. Only ids of committed rows may be added, and the cache must be
+ * cleared whenever rows of the {@code strings} table are deleted, since SQLite can reuse their ids.
+ */
+final class StringIdCache {
+
+    // Approximate per-entry overhead of the map node, key and boxed id, in chars.
+    private static final int ENTRY_OVERHEAD = 48;
+
+    private final long capacity;
+    private final LinkedHashMap<String, Integer> ids = new LinkedHashMap<>(1024, 0.75f, true);
+    private long weight;
+
+    /**
+     * @param capacity maximum number of cached characters, including a fixed per-entry overhead
+     */
+    StringIdCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized Integer get(String value) {
+        return ids.get(value);
+    }
+
+    synchronized void putAll(Map<String, Integer> resolved) {
+        for (Map.Entry<String, Integer> entry : resolved.entrySet()) {
+            if (ids.put(entry.getKey(), entry.getValue()) == null) {
+                weight += weight(entry.getKey());
+            }
+        }
+        Iterator<String> eldest = ids.keySet().iterator();
+        while (weight > capacity && eldest.hasNext()) {
+            weight -= weight(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    synchronized void clear() {
+        ids.clear();
+        weight = 0L;
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+
+    private static long weight(String value) {
+        return (long) value.length() + ENTRY_OVERHEAD;
+    }
+}
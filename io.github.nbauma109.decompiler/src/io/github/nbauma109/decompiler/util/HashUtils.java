@@ -53,7 +53,10 @@ public class HashUtils {
                 // consume stream to update digest
             }
         }
-        byte[] hash = digest.digest();
+        return hex(digest.digest());
+    }
+
+    public static String hex(byte[] hash) {
         char[] hex = new char[hash.length * 2];
         for (int i = 0; i < hash.length; i++) {
             int v = hash[i] & 0xFF;
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Nicolas Baumann (@nbauma109)
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package io.github.nbauma109.decompiler.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Least-recently-used map bounded by the total weight of its mappings, which backs the caches of
+ * parsed units, query results and decompiled sources.
+ *
+ * <p>A mapping heavier than a quarter of the capacity is never kept, so that a single huge value
+ * does not evict everything else. The map is not thread-safe; its owner synchronizes access.
+ *
+ * @param <K> the keys
+ * @param <V> the values
+ */
+public final class WeightedLruMap<K, V> {
+
+    private final LinkedHashMap<K, V> values = new LinkedHashMap<>(16, 0.75f, true);
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private long capacity;
+    private long weight;
+
+    /**
+     * @param capacity maximum total weight of the mappings
+     * @param weigher the weight of a mapping, which must not change while it is held
+     */
+    public WeightedLruMap(long capacity, ToLongBiFunction<? super K, ? super V> weigher) {
+        this.capacity = capacity;
+        this.weigher = weigher;
+    }
+
+    /** Returns the value mapped to {@code key}, or {@code null}, making it the most recently used. */
+    public V get(K key) {
+        return values.get(key);
+    }
+
+    /** Returns whether a mapping of {@code weight} would be kept. */
+    public boolean accepts(long weight) {
+        return weight <= capacity / 4;
+    }
+
+    /**
+     * Maps {@code key} to {@code value}, or drops its mapping when the new one is too heavy to be
+     * kept, then evicts the least recently used mappings beyond the capacity.
+     *
+     * @return the keys no longer mapped, except {@code key} when it is mapped again
+     */
+    public List<K> put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(key, value);
+        if (!accepts(valueWeight)) {
+            return remove(key) == null ? List.of() : List.of(key);
+        }
+        V previous = values.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(key, previous);
+        }
+        weight += valueWeight;
+        return trim();
+    }
+
+    /** Removes the mapping of {@code key} and returns its value, or {@code null}. */
+    public V remove(K key) {
+        V removed = values.remove(key);
+        if (removed != null) {
+            weight -= weigher.applyAsLong(key, removed);
+        }
+        return removed;
+    }
+
+    /** Removes the mappings whose key matches {@code filter}. */
+    public void removeIf(Predicate<? super K> filter) {
+        Iterator<Map.Entry<K, V>> mappings = values.entrySet().iterator();
+        while (mappings.hasNext()) {
+            Map.Entry<K, V> mapping = mappings.next();
+            if (filter.test(mapping.getKey())) {
+                weight -= weigher.applyAsLong(mapping.getKey(), mapping.getValue());
+                mappings.remove();
+            }
+        }
+    }
+
+    /**
+     * Changes the maximum total weight, evicting the least recently used mappings beyond it.
+     *
+     * @return the evicted keys
+     */
+    public List<K> setCapacity(long capacity) {
+        this.capacity = capacity;
+        return trim();
+    }
+
+    public void clear() {
+        values.clear();
+        weight = 0L;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public long weight() {
+        return weight;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    private List<K> trim() {
+        List<K> evicted = new ArrayList<>();
+        Iterator<Map.Entry<K, V>> eldest = values.entrySet().iterator();
+        while (weight > capacity && eldest.hasNext()) {
+            Map.Entry<K, V> mapping = eldest.next();
+            weight -= weigher.applyAsLong(mapping.getKey(), mapping.getValue());
+            evicted.add(mapping.getKey());
+            eldest.remove();
+        }
+        return evicted;
+    }
+}